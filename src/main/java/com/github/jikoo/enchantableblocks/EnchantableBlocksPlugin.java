@@ -4,8 +4,17 @@ import com.github.jikoo.enchantableblocks.block.impl.furnace.EnchantableFurnaceR
 import com.github.jikoo.enchantableblocks.listener.AnvilEnchanter;
 import com.github.jikoo.enchantableblocks.listener.TableEnchanter;
 import com.github.jikoo.enchantableblocks.listener.WorldListener;
+import com.github.jikoo.enchantableblocks.registry.CompactionResult;
 import com.github.jikoo.enchantableblocks.registry.EnchantableBlockManager;
+import com.github.jikoo.enchantableblocks.registry.QuarantinedRegion;
+import com.github.jikoo.enchantableblocks.util.Region;
 import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+import java.util.logging.Level;
 import org.bukkit.Chunk;
 import org.bukkit.World;
 import org.bukkit.command.Command;
@@ -13,7 +22,9 @@ import org.bukkit.command.CommandSender;
 import org.bukkit.plugin.PluginDescriptionFile;
 import org.bukkit.plugin.java.JavaPlugin;
 import org.bukkit.plugin.java.JavaPluginLoader;
+import org.bukkit.scheduler.BukkitRunnable;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 /**
  * A Bukkit plugin for adding effects to block based on enchantments.
@@ -61,22 +72,42 @@ public class EnchantableBlocksPlugin extends JavaPlugin {
   }
 
   private void loadEnchantableBlocks() {
-    long startTime = System.nanoTime();
-    // Load all EnchantableBlocks for loaded chunks.
-    for (World world : this.getServer().getWorlds()) {
-      for (Chunk chunk : world.getLoadedChunks()) {
-        this.blockManager.loadChunkBlocks(chunk);
+    if (getConfig().getBoolean("storage.compact-on-startup", false)) {
+      // Compact before any blocks are loaded. Blocks the server until complete.
+      try {
+        CompactionResult result = this.blockManager.compactRegions(this, null).join();
+        getLogger().info(result::toString);
+      } catch (CompletionException e) {
+        getLogger().log(Level.WARNING, e.getCause(), () -> "Unable to compact data on startup");
       }
     }
-    getLogger().info(() ->
-        "Loaded all active blocks in "
-            + ((System.nanoTime() - startTime) / 1_000_000_000D) + " seconds");
+
+    // Load all EnchantableBlocks for loaded chunks over several ticks.
+    List<Chunk> chunks = new ArrayList<>();
+    for (World world : this.getServer().getWorlds()) {
+      chunks.addAll(Arrays.asList(world.getLoadedChunks()));
+    }
+
+    this.blockManager.loadChunkBlocksGradually(this, chunks).thenRun(() -> {
+      // Move any data remaining in region files into chunks.
+      BukkitRunnable migration = this.blockManager.createChunkMigration(this);
+      if (migration != null) {
+        migration.runTaskTimer(this, 1L, 1L);
+      }
+
+      // Clean up data for blocks removed without a break event.
+      BukkitRunnable sweeper = this.blockManager.createOrphanSweeper(this);
+      if (sweeper != null) {
+        long interval = Math.max(1L, getConfig().getLong("storage.sweeper.interval-ticks", 20));
+        sweeper.runTaskTimer(this, interval, interval);
+      }
+    });
   }
 
   @Override
   public void onDisable() {
     this.getServer().getScheduler().cancelTasks(this);
-    this.blockManager.expireCache();
+    this.blockManager.shutdown();
   }
 
   @Override
@@ -85,6 +116,32 @@ public class EnchantableBlocksPlugin extends JavaPlugin {
       @NotNull Command command,
       @NotNull String label,
       @NotNull String @NotNull [] args) {
+    if (args.length > 1 && args[0].equalsIgnoreCase("stats")
+        && args[1].equalsIgnoreCase("cache")) {
+      String prefix = "[EnchantableBlocks v" + getDescription().getVersion() + "] ";
+      sender.sendMessage(prefix + "Cache: " + this.blockManager.getCacheStats());
+      sender.sendMessage(prefix + "Reads: " + this.blockManager.getReadStats());
+      sender.sendMessage(prefix + "Writes: " + this.blockManager.getWriteStats());
+      return true;
+    }
+
+    if (args.length > 0 && args[0].equalsIgnoreCase("stats")) {
+      sender.sendMessage(
+          "[EnchantableBlocks v"
+              + getDescription().getVersion()
+              + "] Commits: "
+              + this.blockManager.getCommitStats());
+      return true;
+    }
+
+    if (args.length > 0 && args[0].equalsIgnoreCase("compact")) {
+      return compact(sender, args.length > 1 ? args[1] : null);
+    }
+
+    if (args.length > 0 && args[0].equalsIgnoreCase("quarantine")) {
+      return quarantine(sender, args);
+    }
+
     if (args.length < 1 || !args[0].equalsIgnoreCase("reload")) {
       sender.sendMessage("EnchantableBlocks v" + getDescription().getVersion());
       return false;
@@ -99,6 +156,64 @@ public class EnchantableBlocksPlugin extends JavaPlugin {
     return true;
   }
 
+  private boolean compact(@NotNull CommandSender sender, @Nullable String worldName) {
+    String prefix = "[EnchantableBlocks v" + getDescription().getVersion() + "] ";
+    sender.sendMessage(prefix + "Compacting stored data"
+        + (worldName == null ? "" : " for " + worldName) + "...");
+
+    this.blockManager.compactRegions(this, worldName).whenComplete((result, throwable) ->
+        getServer().getScheduler().runTask(this, () -> {
+          if (throwable != null) {
+            Throwable cause =
+                throwable instanceof CompletionException ? throwable.getCause() : throwable;
+            sender.sendMessage(prefix + "Unable to compact stored data: " + cause.getMessage());
+          } else {
+            sender.sendMessage(prefix + result);
+          }
+        }));
+    return true;
+  }
+
+  private boolean quarantine(@NotNull CommandSender sender, @NotNull String @NotNull [] args) {
+    String prefix = "[EnchantableBlocks v" + getDescription().getVersion() + "] ";
+
+    if (args.length == 1 || args.length == 2 && args[1].equalsIgnoreCase("list")) {
+      List<QuarantinedRegion> quarantined;
+      try {
+        quarantined = this.blockManager.getQuarantinedRegions();
+      } catch (IOException e) {
+        sender.sendMessage(prefix + "Unable to list quarantined regions: " + e.getMessage());
+        return true;
+      }
+      sender.sendMessage(prefix + quarantined.size() + " quarantined region files.");
+      quarantined.forEach(entry -> sender.sendMessage(" - " + entry));
+      return true;
+    }
+
+    if (args.length != 5 || !args[1].equalsIgnoreCase("retry")) {
+      return false;
+    }
+
+    Region region;
+    try {
+      region = new Region(args[2], Integer.parseInt(args[3]), Integer.parseInt(args[4]));
+    } catch (NumberFormatException e) {
+      return false;
+    }
+
+    this.blockManager.retryQuarantined(region).whenComplete((restored, throwable) ->
+        getServer().getScheduler().runTask(this, () -> {
+          if (throwable != null) {
+            Throwable cause =
+                throwable instanceof CompletionException ? throwable.getCause() : throwable;
+            sender.sendMessage(prefix + "Unable to restore " + region + ": " + cause.getMessage());
+          } else {
+            sender.sendMessage(prefix + "Restored " + restored + " blocks in " + region + ".");
+          }
+        }));
+    return true;
+  }
+
   public EnchantableBlockManager getBlockManager() {
     return this.blockManager;
   }
@@ -2,11 +2,13 @@ package com.github.jikoo.enchantableblocks.block;
 
 import com.github.jikoo.enchantableblocks.config.EnchantableBlockConfig;
 import com.github.jikoo.enchantableblocks.registry.EnchantableRegistration;
+import java.util.function.Consumer;
 import org.bukkit.Material;
 import org.bukkit.block.Block;
 import org.bukkit.configuration.ConfigurationSection;
 import org.bukkit.inventory.ItemStack;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 /**
  * Base for an enchantable block.
@@ -15,10 +17,24 @@ public abstract class EnchantableBlock {
 
   private final @NotNull EnchantableRegistration registration;
   private final @NotNull Block block;
-  private final @NotNull ItemStack itemStack;
   private final @NotNull ConfigurationSection storage;
+  private @NotNull ItemStack itemStack;
+  private boolean shared;
   private boolean dirty = false;
+  private @Nullable Consumer<@NotNull EnchantableBlock> dirtyListener;
 
+  /**
+   * Construct a new {@code EnchantableBlock}.
+   *
+   * <p>If the {@link ItemStack} is the instance already held by the storage, it is shared rather
+   * than copied. Stored items may be shared between blocks, so shared items are only copied once
+   * they need to be {@link #getMutableItemStack() modified}.
+   *
+   * @param registration the {@link EnchantableRegistration} providing the implementation
+   * @param block the in-world {@link Block}
+   * @param itemStack the {@code ItemStack} used in creation
+   * @param storage the {@link ConfigurationSection} containing save data
+   */
   protected EnchantableBlock(
       final @NotNull EnchantableRegistration registration,
       final @NotNull Block block,
@@ -26,11 +42,16 @@ public abstract class EnchantableBlock {
       final @NotNull ConfigurationSection storage) {
     this.registration = registration;
     this.block = block;
-    this.itemStack = itemStack.clone();
-    if (this.itemStack.getAmount() > 1) {
-      this.itemStack.setAmount(1);
-    }
     this.storage = storage;
+    if (itemStack == storage.get("itemstack") && itemStack.getAmount() == 1) {
+      this.itemStack = itemStack;
+      this.shared = true;
+    } else {
+      this.itemStack = itemStack.clone();
+      if (this.itemStack.getAmount() > 1) {
+        this.itemStack.setAmount(1);
+      }
+    }
     this.updateStorage();
   }
 
@@ -46,12 +67,28 @@ public abstract class EnchantableBlock {
   /**
    * Get the {@link ItemStack} that created this block.
    *
+   * <p>The {@code ItemStack} may be shared with other blocks and must not be modified.
+   *
    * @return the {@code ItemStack}
    */
   public @NotNull ItemStack getItemStack() {
     return this.itemStack;
   }
 
+  /**
+   * Get the {@link ItemStack} that created this block for modification. If the {@code ItemStack}
+   * is shared with other blocks, it is copied first.
+   *
+   * @return the {@code ItemStack}
+   */
+  protected @NotNull ItemStack getMutableItemStack() {
+    if (this.shared) {
+      this.itemStack = this.itemStack.clone();
+      this.shared = false;
+    }
+    return this.itemStack;
+  }
+
   /**
    * Check if the block's in-world location is a {@link Block} of a correct {@link Material}.
    *
@@ -93,15 +130,30 @@ public abstract class EnchantableBlock {
    */
   public void setDirty(boolean dirty) {
     this.dirty = dirty;
+    if (dirty && this.dirtyListener != null) {
+      this.dirtyListener.accept(this);
+    }
+  }
+
+  /**
+   * Set the listener notified whenever the block is flagged as needing to be saved. Used by the
+   * manager to track modified blocks without checking every loaded block.
+   *
+   * @param dirtyListener the listener or {@code null} to remove the current listener
+   */
+  public void setDirtyListener(@Nullable Consumer<@NotNull EnchantableBlock> dirtyListener) {
+    this.dirtyListener = dirtyListener;
   }
 
   /**
    * Update the {@link ConfigurationSection} containing the block's save data.
    */
   public void updateStorage() {
-    if (!this.itemStack.equals(getStorage().getItemStack("itemstack"))) {
+    Object stored = getStorage().get("itemstack");
+    // Shared items are never modified, skip comparison.
+    if (stored != this.itemStack && !this.itemStack.equals(stored)) {
       getStorage().set("itemstack", this.itemStack);
-      this.dirty = true;
+      this.setDirty(true);
     }
   }
 
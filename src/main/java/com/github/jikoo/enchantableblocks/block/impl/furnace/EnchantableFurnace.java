@@ -56,10 +56,10 @@ class EnchantableFurnace extends EnchantableBlock {
       this.canPause = itemStack.getEnchantments().containsKey(Enchantment.SILK_TOUCH);
       this.frozenTicks = 0;
       // Convert legacy furnaces - silk enchant level used for frozen ticks.
-      if (this.canPause && itemStack.getEnchantmentLevel(Enchantment.SILK_TOUCH) != 1) {
-        itemStack.addUnsafeEnchantment(Enchantment.SILK_TOUCH, 1);
+      if (this.canPause && isLegacySilk(itemStack)) {
         this.frozenTicks = MathHelper.clampPositiveShort(
             itemStack.getEnchantmentLevel(Enchantment.SILK_TOUCH));
+        this.getMutableItemStack().addUnsafeEnchantment(Enchantment.SILK_TOUCH, 1);
       }
       storage.set(PATH_CAN_PAUSE, canPause);
       storage.set(PATH_FROZEN_TICKS, frozenTicks);
@@ -67,6 +67,45 @@ class EnchantableFurnace extends EnchantableBlock {
     }
   }
 
+  /**
+   * Convert legacy furnace save data without loading the furnace. Matches the conversion performed
+   * when a legacy furnace is loaded.
+   *
+   * @param storage the {@link ConfigurationSection} containing save data
+   * @return true if the save data was converted
+   */
+  static boolean upgradeStorage(@NotNull ConfigurationSection storage) {
+    ItemStack itemStack = storage.getItemStack("itemstack");
+    if (storage.isBoolean(PATH_CAN_PAUSE) || itemStack == null) {
+      return false;
+    }
+
+    boolean canPause = itemStack.getEnchantments().containsKey(Enchantment.SILK_TOUCH);
+    short frozenTicks = 0;
+    if (canPause && isLegacySilk(itemStack)) {
+      frozenTicks = MathHelper.clampPositiveShort(
+          itemStack.getEnchantmentLevel(Enchantment.SILK_TOUCH));
+      // Stored items may be shared, copy before modifying.
+      itemStack = itemStack.clone();
+      itemStack.addUnsafeEnchantment(Enchantment.SILK_TOUCH, 1);
+      storage.set("itemstack", itemStack);
+    }
+    storage.set(PATH_CAN_PAUSE, canPause);
+    storage.set(PATH_FROZEN_TICKS, frozenTicks);
+    return true;
+  }
+
+  /**
+   * Check if an {@link ItemStack} uses the legacy format, which stored frozen ticks as the level of
+   * silk touch.
+   *
+   * @param itemStack the {@code ItemStack}
+   * @return true if the {@code ItemStack} must be converted
+   */
+  private static boolean isLegacySilk(@NotNull ItemStack itemStack) {
+    return itemStack.getEnchantmentLevel(Enchantment.SILK_TOUCH) != 1;
+  }
+
   @Override
   public @NotNull EnchantableFurnaceRegistration getRegistration() {
     return (EnchantableFurnaceRegistration) super.getRegistration();
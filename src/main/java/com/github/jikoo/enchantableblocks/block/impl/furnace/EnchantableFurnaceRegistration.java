@@ -77,6 +77,11 @@ public class EnchantableFurnaceRegistration extends EnchantableRegistration {
     return new EnchantableFurnace(this, block, itemStack, storage);
   }
 
+  @Override
+  public boolean upgradeStorage(@NotNull ConfigurationSection storage) {
+    return EnchantableFurnace.upgradeStorage(storage);
+  }
+
   @Override
   public @NotNull EnchantableFurnaceConfig getConfig() {
     return (EnchantableFurnaceConfig) super.getConfig();
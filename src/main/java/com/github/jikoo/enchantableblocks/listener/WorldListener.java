@@ -4,6 +4,7 @@ import com.github.jikoo.enchantableblocks.registry.EnchantableBlockManager;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
+import org.bukkit.Chunk;
 import org.bukkit.GameMode;
 import org.bukkit.Material;
 import org.bukkit.block.Block;
@@ -17,6 +18,7 @@ import org.bukkit.event.block.BlockDropItemEvent;
 import org.bukkit.event.block.BlockPlaceEvent;
 import org.bukkit.event.world.ChunkLoadEvent;
 import org.bukkit.event.world.ChunkUnloadEvent;
+import org.bukkit.event.world.WorldSaveEvent;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.plugin.Plugin;
 import org.jetbrains.annotations.NotNull;
@@ -47,7 +49,10 @@ public class WorldListener implements Listener {
   @VisibleForTesting
   @EventHandler(ignoreCancelled = true, priority = EventPriority.MONITOR)
   void onChunkLoad(@NotNull ChunkLoadEvent event) {
-    plugin.getServer().getScheduler().runTask(plugin, () -> manager.loadChunkBlocks(event.getChunk()));
+    Chunk chunk = event.getChunk();
+    // Read data off of the main thread, then create blocks on the main thread once it is ready.
+    manager.prefetchChunkBlocks(chunk).whenComplete((ignored, throwable) ->
+        plugin.getServer().getScheduler().runTask(plugin, () -> manager.loadChunkBlocks(chunk)));
   }
 
   @VisibleForTesting
@@ -56,6 +61,13 @@ public class WorldListener implements Listener {
     manager.unloadChunkBlocks(event.getChunk());
   }
 
+  @VisibleForTesting
+  @EventHandler(priority = EventPriority.LOWEST)
+  void onWorldSave(@NotNull WorldSaveEvent event) {
+    // Write changes into chunks before the server saves them.
+    manager.saveWorld(event.getWorld());
+  }
+
   @VisibleForTesting
   @EventHandler(ignoreCancelled = true, priority = EventPriority.MONITOR)
   void onBlockPlace(@NotNull BlockPlaceEvent event) {
@@ -0,0 +1,156 @@
+package com.github.jikoo.enchantableblocks.registry;
+
+import com.github.jikoo.enchantableblocks.util.Region;
+import com.github.jikoo.enchantableblocks.util.RegionStorage;
+import com.github.jikoo.planarwrappers.util.Coords;
+import java.io.Closeable;
+import java.io.IOException;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Persistent storage for block data.
+ *
+ * <p>Data is stored per chunk as a {@link ConfigurationSection} keyed by block coordinates. The
+ * {@link EnchantableBlockManager} loads and saves entire regions at a time via
+ * {@link #load(RegionStorage)} and {@link #save(RegionStorage)}, which implementations may
+ * override to batch chunk operations. Chunk operations bypass the manager's cache and should
+ * only be used for regions that are not loaded.
+ *
+ * <p>Implementations must be safe for use from multiple threads.
+ */
+public interface BlockStorage extends Closeable {
+
+  /**
+   * Check if any data is stored for a {@link Region}.
+   *
+   * @param region the {@code Region}
+   * @return true if data is present
+   * @throws IOException if there is an issue accessing storage
+   */
+  boolean exists(@NotNull Region region) throws IOException;
+
+  /**
+   * Load the data stored for a chunk.
+   *
+   * @param worldName the name of the world
+   * @param chunkX the chunk X coordinate
+   * @param chunkZ the chunk Z coordinate
+   * @return the data or {@code null} if no data is stored
+   * @throws IOException if there is an issue accessing storage
+   * @throws InvalidConfigurationException if the stored data is not valid
+   */
+  @Nullable ConfigurationSection loadChunk(@NotNull String worldName, int chunkX, int chunkZ)
+      throws IOException, InvalidConfigurationException;
+
+  /**
+   * Save the data for a chunk, replacing any existing data.
+   *
+   * @param worldName the name of the world
+   * @param chunkX the chunk X coordinate
+   * @param chunkZ the chunk Z coordinate
+   * @param data the data
+   * @throws IOException if there is an issue accessing storage
+   */
+  void saveChunk(
+      @NotNull String worldName,
+      int chunkX,
+      int chunkZ,
+      @NotNull ConfigurationSection data) throws IOException;
+
+  /**
+   * Delete the data stored for a chunk.
+   *
+   * @param worldName the name of the world
+   * @param chunkX the chunk X coordinate
+   * @param chunkZ the chunk Z coordinate
+   * @throws IOException if there is an issue accessing storage
+   */
+  void deleteChunk(@NotNull String worldName, int chunkX, int chunkZ) throws IOException;
+
+  /**
+   * Visit every chunk with data stored in a world. Chunks whose data cannot be read are skipped.
+   *
+   * @param worldName the name of the world
+   * @param visitor the {@link ChunkVisitor}
+   * @throws IOException if there is an issue accessing storage
+   */
+  void forEachChunk(@NotNull String worldName, @NotNull ChunkVisitor visitor) throws IOException;
+
+  /**
+   * Load all data for a {@link Region} into a {@link RegionStorage}.
+   *
+   * <p>Implementations may move data that cannot be read out of the way and load the rest. If
+   * unreadable data is left in place, loading must fail so that saving the region does not
+   * overwrite it.
+   *
+   * @param storage the {@code RegionStorage}
+   * @return true if data was loaded from a legacy location and should be saved to migrate it
+   * @throws IOException if there is an issue accessing storage
+   * @throws InvalidConfigurationException if the stored data is not valid
+   */
+  default boolean load(@NotNull RegionStorage storage)
+      throws IOException, InvalidConfigurationException {
+    Region region = storage.getRegion();
+    int minChunkX = Coords.regionToChunk(region.x());
+    int minChunkZ = Coords.regionToChunk(region.z());
+    for (int chunkX = minChunkX; chunkX < minChunkX + 32; ++chunkX) {
+      for (int chunkZ = minChunkZ; chunkZ < minChunkZ + 32; ++chunkZ) {
+        ConfigurationSection chunk = loadChunk(region.worldName(), chunkX, chunkZ);
+        if (chunk != null) {
+          RegionStorage.copy(
+              chunk,
+              storage.createSection(EnchantableBlockManager.getChunkPath(chunkX, chunkZ)));
+        }
+      }
+    }
+    storage.recountBlocks();
+    return false;
+  }
+
+  /**
+   * Save all data in a {@link RegionStorage}. Chunks that do not contain data are deleted.
+   *
+   * @param storage the {@code RegionStorage}
+   * @throws IOException if there is an issue accessing storage
+   */
+  default void save(@NotNull RegionStorage storage) throws IOException {
+    Region region = storage.getRegion();
+    int minChunkX = Coords.regionToChunk(region.x());
+    int minChunkZ = Coords.regionToChunk(region.z());
+    for (int chunkX = minChunkX; chunkX < minChunkX + 32; ++chunkX) {
+      for (int chunkZ = minChunkZ; chunkZ < minChunkZ + 32; ++chunkZ) {
+        ConfigurationSection chunk = storage.getConfigurationSection(
+            EnchantableBlockManager.getChunkPath(chunkX, chunkZ));
+        if (chunk == null || chunk.getKeys(false).isEmpty()) {
+          deleteChunk(region.worldName(), chunkX, chunkZ);
+        } else {
+          saveChunk(region.worldName(), chunkX, chunkZ, chunk);
+        }
+      }
+    }
+  }
+
+  @Override
+  default void close() throws IOException {}
+
+  /**
+   * A consumer of stored chunk data.
+   */
+  @FunctionalInterface
+  interface ChunkVisitor {
+
+    /**
+     * Visit a chunk's data.
+     *
+     * @param chunkX the chunk X coordinate
+     * @param chunkZ the chunk Z coordinate
+     * @param data the data
+     */
+    void visit(int chunkX, int chunkZ, @NotNull ConfigurationSection data);
+
+  }
+
+}
@@ -0,0 +1,230 @@
+package com.github.jikoo.enchantableblocks.registry;
+
+import com.github.jikoo.enchantableblocks.util.BlockKey;
+import com.github.jikoo.enchantableblocks.util.Region;
+import com.github.jikoo.planarwrappers.util.Coords;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.bukkit.configuration.ConfigurationSection;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * An in-memory index of chunks that may contain stored block data, one bit per chunk.
+ *
+ * <p>Regions with stored data whose contents have not yet been read are considered fully
+ * occupied. Once a region is loaded, its bits are set from the chunks actually stored. Bits are
+ * set when data is added to a chunk and cleared when a chunk's data is removed, so a clear bit
+ * guarantees that no data is stored for the chunk.
+ *
+ * <p>A disabled index considers every chunk occupied.
+ */
+final class ChunkOccupancy {
+
+  private static final int REGION_CHUNKS = 32 * 32;
+
+  private final @Nullable Map<String, Long2ObjectMap<RegionBits>> worlds;
+
+  /**
+   * Construct a new {@code ChunkOccupancy}.
+   *
+   * @param enabled whether the index is enabled
+   */
+  ChunkOccupancy(boolean enabled) {
+    this.worlds = enabled ? new ConcurrentHashMap<>() : null;
+  }
+
+  /**
+   * Check if the index is enabled.
+   *
+   * @return true if the index is enabled
+   */
+  boolean isEnabled() {
+    return worlds != null;
+  }
+
+  /**
+   * Check if a chunk may contain stored data.
+   *
+   * @param worldName the name of the world
+   * @param chunkX the chunk X coordinate
+   * @param chunkZ the chunk Z coordinate
+   * @return false if the chunk definitely contains no stored data
+   */
+  boolean mayContain(@NotNull String worldName, int chunkX, int chunkZ) {
+    if (worlds == null) {
+      return true;
+    }
+
+    Long2ObjectMap<RegionBits> regions = worlds.get(worldName);
+    if (regions == null) {
+      return false;
+    }
+
+    synchronized (regions) {
+      RegionBits bits = regions.get(chunkKey(chunkX, chunkZ));
+      return bits != null && bits.get(index(chunkX, chunkZ));
+    }
+  }
+
+  /**
+   * Add a {@link Region} with stored data whose contents are not known.
+   *
+   * @param region the {@code Region}
+   */
+  void addRegion(@NotNull Region region) {
+    if (worlds == null) {
+      return;
+    }
+
+    Long2ObjectMap<RegionBits> regions = getRegions(region.worldName());
+    synchronized (regions) {
+      RegionBits bits = new RegionBits();
+      Arrays.fill(bits.words, -1L);
+      regions.put(key(region.x(), region.z()), bits);
+    }
+  }
+
+  /**
+   * Record the stored contents of a {@link Region} once read. If the contents were not previously
+   * known, the region's bits are replaced. Otherwise, stored chunks are added to the known bits.
+   *
+   * @param region the {@code Region}
+   * @param storage the stored data or {@code null} if no data is stored
+   */
+  void load(@NotNull Region region, @Nullable ConfigurationSection storage) {
+    if (worlds == null) {
+      return;
+    }
+
+    Long2ObjectMap<RegionBits> regions = getRegions(region.worldName());
+    long key = key(region.x(), region.z());
+    synchronized (regions) {
+      RegionBits bits = regions.get(key);
+      if (bits == null || !bits.known) {
+        if (storage == null) {
+          regions.remove(key);
+          return;
+        }
+        bits = new RegionBits();
+        bits.known = true;
+        regions.put(key, bits);
+      }
+
+      if (storage != null) {
+        addChunks(region, storage, bits);
+      }
+    }
+  }
+
+  private static void addChunks(
+      @NotNull Region region,
+      @NotNull ConfigurationSection storage,
+      @NotNull RegionBits bits) {
+    for (String chunkPath : storage.getKeys(false)) {
+      try {
+        long chunkKey = BlockKey.parseChunk(chunkPath);
+        int chunkX = BlockKey.chunkX(chunkKey);
+        int chunkZ = BlockKey.chunkZ(chunkKey);
+        if (Coords.chunkToRegion(chunkX) == region.x()
+            && Coords.chunkToRegion(chunkZ) == region.z()) {
+          bits.set(index(chunkX, chunkZ), true);
+        }
+      } catch (NumberFormatException e) {
+        // Invalid chunks are removed when loaded.
+      }
+    }
+  }
+
+  /**
+   * Record that data is stored for a chunk.
+   *
+   * @param worldName the name of the world
+   * @param chunkX the chunk X coordinate
+   * @param chunkZ the chunk Z coordinate
+   */
+  void add(@NotNull String worldName, int chunkX, int chunkZ) {
+    if (worlds == null) {
+      return;
+    }
+
+    Long2ObjectMap<RegionBits> regions = getRegions(worldName);
+    long key = chunkKey(chunkX, chunkZ);
+    synchronized (regions) {
+      RegionBits bits = regions.get(key);
+      if (bits == null) {
+        bits = new RegionBits();
+        bits.known = true;
+        regions.put(key, bits);
+      }
+      bits.set(index(chunkX, chunkZ), true);
+    }
+  }
+
+  /**
+   * Record that no data is stored for a chunk.
+   *
+   * @param worldName the name of the world
+   * @param chunkX the chunk X coordinate
+   * @param chunkZ the chunk Z coordinate
+   */
+  void remove(@NotNull String worldName, int chunkX, int chunkZ) {
+    if (worlds == null) {
+      return;
+    }
+
+    Long2ObjectMap<RegionBits> regions = worlds.get(worldName);
+    if (regions == null) {
+      return;
+    }
+
+    synchronized (regions) {
+      RegionBits bits = regions.get(chunkKey(chunkX, chunkZ));
+      if (bits != null) {
+        bits.set(index(chunkX, chunkZ), false);
+      }
+    }
+  }
+
+  private @NotNull Long2ObjectMap<RegionBits> getRegions(@NotNull String worldName) {
+    return worlds.computeIfAbsent(worldName, key -> new Long2ObjectOpenHashMap<>());
+  }
+
+  private static long key(int regionX, int regionZ) {
+    return ((long) regionX << 32) | (regionZ & 0xFFFFFFFFL);
+  }
+
+  private static long chunkKey(int chunkX, int chunkZ) {
+    return key(Coords.chunkToRegion(chunkX), Coords.chunkToRegion(chunkZ));
+  }
+
+  private static int index(int chunkX, int chunkZ) {
+    return (chunkX & 31) | (chunkZ & 31) << 5;
+  }
+
+  /**
+   * The occupancy of the chunks in a single region.
+   */
+  private static final class RegionBits {
+
+    private final long @NotNull [] words = new long[REGION_CHUNKS / Long.SIZE];
+    private boolean known;
+
+    private boolean get(int index) {
+      return (words[index >>> 6] & 1L << index) != 0;
+    }
+
+    private void set(int index, boolean value) {
+      if (value) {
+        words[index >>> 6] |= 1L << index;
+      } else {
+        words[index >>> 6] &= ~(1L << index);
+      }
+    }
+
+  }
+
+}
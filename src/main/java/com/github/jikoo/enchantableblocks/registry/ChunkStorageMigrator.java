@@ -0,0 +1,183 @@
+package com.github.jikoo.enchantableblocks.registry;
+
+import com.github.jikoo.enchantableblocks.util.BlockKey;
+import com.github.jikoo.enchantableblocks.util.Region;
+import com.github.jikoo.enchantableblocks.util.RegionStorage;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.logging.Level;
+import org.bukkit.Chunk;
+import org.bukkit.World;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitRunnable;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Task moving block data from region files into the chunks it belongs to.
+ *
+ * <p>Chunks must be loaded to store data in them, so only a limited number of chunks is migrated
+ * each time the task runs. Region files are deleted once all regions are migrated and the worlds
+ * containing them have been saved. If migration is interrupted, data that was already moved is
+ * not duplicated when it resumes.
+ */
+class ChunkStorageMigrator extends BukkitRunnable {
+
+  private final @NotNull Plugin plugin;
+  private final @NotNull EnchantableBlockManager manager;
+  private final int chunksPerRun;
+  private final @NotNull Deque<Region> regions = new ArrayDeque<>();
+  private final @NotNull Deque<String> chunkPaths = new ArrayDeque<>();
+  private final @NotNull Collection<Region> completed = new ArrayList<>();
+  private @Nullable RegionStorage current;
+  private int migrated = 0;
+
+  /**
+   * Construct a new {@code ChunkStorageMigrator}.
+   *
+   * @param plugin the {@link Plugin} owning the data
+   * @param manager the {@link EnchantableBlockManager} storing data in chunks
+   * @param chunksPerRun the maximum number of chunks to migrate per run
+   */
+  ChunkStorageMigrator(
+      @NotNull Plugin plugin,
+      @NotNull EnchantableBlockManager manager,
+      int chunksPerRun) {
+    this.plugin = plugin;
+    this.manager = manager;
+    this.chunksPerRun = Math.max(1, chunksPerRun);
+
+    File[] worldDirs = new File(plugin.getDataFolder(), "data").listFiles(File::isDirectory);
+    if (worldDirs == null) {
+      return;
+    }
+
+    for (File worldDir : worldDirs) {
+      try {
+        regions.addAll(RegionFileStorage.listRegions(plugin, worldDir.getName()));
+      } catch (IOException e) {
+        plugin.getLogger().log(
+            Level.WARNING,
+            e,
+            () -> "Unable to list regions in " + worldDir.getName() + ": " + e.getMessage());
+      }
+    }
+  }
+
+  @Override
+  public void run() {
+    int remaining = chunksPerRun;
+    while (remaining > 0) {
+      RegionStorage storage = nextStorage();
+      if (storage == null) {
+        complete();
+        cancel();
+        return;
+      }
+
+      World world = plugin.getServer().getWorld(storage.getRegion().worldName());
+      if (world == null) {
+        // World is not loaded, leave data in place for a later migration.
+        chunkPaths.clear();
+        current = null;
+        continue;
+      }
+
+      String chunkPath = chunkPaths.poll();
+      if (chunkPath == null) {
+        finish(storage);
+        continue;
+      }
+
+      ConfigurationSection section = storage.getConfigurationSection(chunkPath);
+      if (section == null) {
+        continue;
+      }
+
+      try {
+        long chunkKey = BlockKey.parseChunk(chunkPath);
+        Chunk chunk = world.getChunkAt(BlockKey.chunkX(chunkKey), BlockKey.chunkZ(chunkKey));
+        manager.importChunkBlocks(chunk, section);
+        ++migrated;
+        --remaining;
+      } catch (NumberFormatException e) {
+        plugin.getLogger().warning(() -> String.format(
+            "Unparseable chunk coordinates in %s: %s",
+            storage.getRegion(),
+            chunkPath));
+      }
+    }
+  }
+
+  private @Nullable RegionStorage nextStorage() {
+    while (current == null) {
+      Region region = regions.poll();
+      if (region == null) {
+        return null;
+      }
+
+      RegionStorage storage = new RegionStorage(plugin, region);
+      try {
+        storage.load();
+      } catch (IOException | InvalidConfigurationException e) {
+        plugin.getLogger().log(
+            Level.WARNING,
+            e,
+            () -> "Unable to migrate " + region + ": " + e.getMessage());
+        continue;
+      }
+
+      chunkPaths.addAll(storage.getKeys(false));
+      current = storage;
+    }
+
+    return current;
+  }
+
+  private void finish(@NotNull RegionStorage storage) {
+    current = null;
+    completed.add(storage.getRegion());
+  }
+
+  private void complete() {
+    if (completed.isEmpty()) {
+      return;
+    }
+
+    // Ensure migrated data is stored in the world before removing the originals.
+    Set<String> saved = new HashSet<>();
+    for (Region region : completed) {
+      World world = plugin.getServer().getWorld(region.worldName());
+      if (world != null && saved.add(region.worldName())) {
+        manager.saveWorld(world);
+        world.save();
+      }
+    }
+
+    for (Region region : completed) {
+      if (!saved.contains(region.worldName())) {
+        // World was unloaded during migration, data may not be stored yet.
+        continue;
+      }
+      try {
+        new RegionStorage(plugin, region).delete();
+      } catch (IOException e) {
+        plugin.getLogger().log(
+            Level.WARNING,
+            e,
+            () -> "Unable to delete migrated " + region + ": " + e.getMessage());
+      }
+    }
+
+    plugin.getLogger().info(() -> "Migrated " + migrated + " chunks to chunk storage.");
+  }
+
+}
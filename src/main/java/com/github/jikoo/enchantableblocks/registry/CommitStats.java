@@ -0,0 +1,54 @@
+package com.github.jikoo.enchantableblocks.registry;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Statistics describing the latency of making saved region data durable.
+ *
+ * <p>Commit latency is measured from the time data finishes being written until it has been
+ * synced to disk and moved into place.
+ *
+ * @param commits the number of region commits
+ * @param batches the number of batches the commits were synced in
+ * @param totalLatencyNanos the total latency of all commits in nanoseconds
+ * @param maxLatencyNanos the highest latency of any commit in nanoseconds
+ */
+public record CommitStats(
+    long commits,
+    long batches,
+    long totalLatencyNanos,
+    long maxLatencyNanos) {
+
+  /**
+   * Get the mean latency of a commit.
+   *
+   * @return the mean latency in milliseconds
+   */
+  public double meanLatencyMillis() {
+    if (commits == 0) {
+      return 0;
+    }
+    return totalLatencyNanos / (double) commits / TimeUnit.MILLISECONDS.toNanos(1);
+  }
+
+  /**
+   * Get the mean number of commits synced per batch.
+   *
+   * @return the mean batch size
+   */
+  public double meanBatchSize() {
+    return batches == 0 ? 0 : commits / (double) batches;
+  }
+
+  @Override
+  public String toString() {
+    return String.format(
+        "%d region commits in %d batches (%.1f per batch), latency mean %.2fms, max %.2fms",
+        commits,
+        batches,
+        meanBatchSize(),
+        meanLatencyMillis(),
+        maxLatencyNanos / (double) TimeUnit.MILLISECONDS.toNanos(1));
+  }
+
+}
@@ -0,0 +1,89 @@
+package com.github.jikoo.enchantableblocks.registry;
+
+import java.util.concurrent.TimeUnit;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * The outcome of compacting stored block data.
+ *
+ * @param regions the number of regions processed
+ * @param skipped the number of regions skipped because they were in use
+ * @param failed the number of regions that could not be processed
+ * @param removedBlocks the number of invalid block entries removed
+ * @param removedChunks the number of empty or invalid chunk sections removed
+ * @param upgradedBlocks the number of block entries converted from legacy data
+ * @param bytesRead the size of the processed data before compaction
+ * @param bytesWritten the size of the processed data after compaction
+ * @param nanos the time taken in nanoseconds
+ */
+public record CompactionResult(
+    int regions,
+    int skipped,
+    int failed,
+    int removedBlocks,
+    int removedChunks,
+    int upgradedBlocks,
+    long bytesRead,
+    long bytesWritten,
+    long nanos) {
+
+  static final CompactionResult EMPTY = new CompactionResult(0, 0, 0, 0, 0, 0, 0, 0, 0);
+
+  /**
+   * Combine with another {@code CompactionResult}. Time taken is not combined.
+   *
+   * @param other the other {@code CompactionResult}
+   * @return the combined {@code CompactionResult}
+   */
+  @NotNull CompactionResult add(@NotNull CompactionResult other) {
+    return new CompactionResult(
+        regions + other.regions,
+        skipped + other.skipped,
+        failed + other.failed,
+        removedBlocks + other.removedBlocks,
+        removedChunks + other.removedChunks,
+        upgradedBlocks + other.upgradedBlocks,
+        bytesRead + other.bytesRead,
+        bytesWritten + other.bytesWritten,
+        nanos);
+  }
+
+  /**
+   * Create a copy with a different time taken.
+   *
+   * @param nanos the time taken in nanoseconds
+   * @return the {@code CompactionResult}
+   */
+  @NotNull CompactionResult withNanos(long nanos) {
+    return new CompactionResult(
+        regions,
+        skipped,
+        failed,
+        removedBlocks,
+        removedChunks,
+        upgradedBlocks,
+        bytesRead,
+        bytesWritten,
+        nanos);
+  }
+
+  @Override
+  public String toString() {
+    double seconds = Math.max(nanos, 1) / (double) TimeUnit.SECONDS.toNanos(1);
+    return String.format(
+        "Compacted %d regions (%d skipped, %d failed) in %.2f seconds. Removed %d invalid blocks"
+            + " and %d chunks, upgraded %d blocks, %d -> %d bytes (%.1f regions/s, %.2f MB/s).",
+        regions,
+        skipped,
+        failed,
+        seconds,
+        removedBlocks,
+        removedChunks,
+        upgradedBlocks,
+        bytesRead,
+        bytesWritten,
+        regions / seconds,
+        bytesRead / seconds / (1024 * 1024));
+  }
+
+}
@@ -0,0 +1,366 @@
+package com.github.jikoo.enchantableblocks.registry;
+
+import com.github.jikoo.enchantableblocks.util.Region;
+import com.github.jikoo.enchantableblocks.util.RegionStorage;
+import com.github.jikoo.enchantableblocks.util.storage.BinaryRegionCodec;
+import com.github.jikoo.planarwrappers.util.Coords;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * {@link BlockStorage} in an embedded SQLite database.
+ *
+ * <p>Each chunk is stored as a row keyed by world and packed chunk coordinates, with an index on
+ * packed region coordinates so that a region is loaded with a single query. Regions are saved in
+ * a single transaction using batched statements. Data that is not found in the database is loaded
+ * from region files and moved into the database on the next save.
+ *
+ * <p>A region containing a chunk that cannot be read fails to load as a whole. Saving a region
+ * replaces all of its rows, so loading the readable rows alone would delete the unreadable ones.
+ */
+class DatabaseBlockStorage implements BlockStorage {
+
+  private static final String CREATE_TABLE = "CREATE TABLE IF NOT EXISTS chunks ("
+      + "world TEXT NOT NULL, "
+      + "chunk INTEGER NOT NULL, "
+      + "region INTEGER NOT NULL, "
+      + "data BLOB NOT NULL, "
+      + "PRIMARY KEY (world, chunk))";
+  private static final String CREATE_INDEX =
+      "CREATE INDEX IF NOT EXISTS chunks_region ON chunks (world, region)";
+  private static final String SELECT_REGION =
+      "SELECT chunk, data FROM chunks WHERE world = ? AND region = ?";
+  private static final String SELECT_REGION_CHUNKS =
+      "SELECT chunk FROM chunks WHERE world = ? AND region = ?";
+  private static final String SELECT_REGION_EXISTS =
+      "SELECT 1 FROM chunks WHERE world = ? AND region = ? LIMIT 1";
+  private static final String SELECT_CHUNK =
+      "SELECT data FROM chunks WHERE world = ? AND chunk = ?";
+  private static final String SELECT_WORLD = "SELECT chunk, data FROM chunks WHERE world = ?";
+  private static final String UPSERT_CHUNK =
+      "INSERT OR REPLACE INTO chunks (world, chunk, region, data) VALUES (?, ?, ?, ?)";
+  private static final String DELETE_CHUNK = "DELETE FROM chunks WHERE world = ? AND chunk = ?";
+
+  private final @NotNull Logger logger;
+  private final @NotNull Path file;
+  private final @NotNull BlockStorage legacy;
+  private @Nullable Connection connection;
+
+  /**
+   * Construct a new {@code DatabaseBlockStorage}.
+   *
+   * @param logger the {@link Logger} used to report issues
+   * @param file the database file
+   * @param legacy the {@link BlockStorage} that data is migrated from
+   */
+  DatabaseBlockStorage(
+      @NotNull Logger logger,
+      @NotNull Path file,
+      @NotNull BlockStorage legacy) {
+    this.logger = logger;
+    this.file = file;
+    this.legacy = legacy;
+  }
+
+  @Override
+  public synchronized boolean exists(@NotNull Region region) throws IOException {
+    try (PreparedStatement statement = getConnection().prepareStatement(SELECT_REGION_EXISTS)) {
+      statement.setString(1, region.worldName());
+      statement.setLong(2, pack(region.x(), region.z()));
+      try (ResultSet result = statement.executeQuery()) {
+        if (result.next()) {
+          return true;
+        }
+      }
+    } catch (SQLException e) {
+      throw new IOException("Unable to query " + region, e);
+    }
+
+    return legacy.exists(region);
+  }
+
+  @Override
+  public synchronized boolean load(@NotNull RegionStorage storage)
+      throws IOException, InvalidConfigurationException {
+    Region region = storage.getRegion();
+    boolean found = false;
+    InvalidConfigurationException failure = null;
+
+    try (PreparedStatement statement = getConnection().prepareStatement(SELECT_REGION)) {
+      statement.setString(1, region.worldName());
+      statement.setLong(2, pack(region.x(), region.z()));
+      try (ResultSet result = statement.executeQuery()) {
+        while (result.next()) {
+          found = true;
+          long chunkKey = result.getLong(1);
+          try {
+            BinaryRegionCodec.read(new ByteArrayInputStream(result.getBytes(2)), storage);
+          } catch (IOException | InvalidConfigurationException e) {
+            // Keep reading to report all unreadable chunks at once.
+            InvalidConfigurationException chunkFailure = new InvalidConfigurationException(
+                "Unable to read chunk " + unpackX(chunkKey) + "_" + unpackZ(chunkKey) + " in "
+                    + region + ": " + e.getMessage(),
+                e);
+            if (failure == null) {
+              failure = chunkFailure;
+            } else {
+              failure.addSuppressed(chunkFailure);
+            }
+          }
+        }
+      }
+    } catch (SQLException e) {
+      throw new IOException("Unable to load " + region, e);
+    }
+
+    if (failure != null) {
+      throw failure;
+    }
+    storage.recountBlocks();
+
+    if (found || !legacy.exists(region)) {
+      return false;
+    }
+
+    legacy.load(storage);
+    return true;
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * <p>All changes are made in a single transaction. Any region files are deleted once data is
+   * saved to the database.
+   */
+  @Override
+  public synchronized void save(@NotNull RegionStorage storage) throws IOException {
+    Region region = storage.getRegion();
+    long regionKey = pack(region.x(), region.z());
+
+    // Encode all chunks before touching the database to keep the transaction short.
+    Long2ObjectMap<byte[]> chunks = new Long2ObjectOpenHashMap<>();
+    ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+    int minChunkX = Coords.regionToChunk(region.x());
+    int minChunkZ = Coords.regionToChunk(region.z());
+    for (int chunkX = minChunkX; chunkX < minChunkX + 32; ++chunkX) {
+      for (int chunkZ = minChunkZ; chunkZ < minChunkZ + 32; ++chunkZ) {
+        ConfigurationSection chunk = storage.getConfigurationSection(
+            EnchantableBlockManager.getChunkPath(chunkX, chunkZ));
+        if (chunk == null || chunk.getKeys(false).isEmpty()) {
+          continue;
+        }
+        buffer.reset();
+        BinaryRegionCodec.writeChunk(chunkX, chunkZ, chunk, buffer);
+        chunks.put(pack(chunkX, chunkZ), buffer.toByteArray());
+      }
+    }
+
+    Connection database;
+    try {
+      database = getConnection();
+      database.setAutoCommit(false);
+    } catch (SQLException e) {
+      throw new IOException("Unable to save " + region, e);
+    }
+
+    try {
+      try (PreparedStatement select = database.prepareStatement(SELECT_REGION_CHUNKS);
+          PreparedStatement delete = database.prepareStatement(DELETE_CHUNK)) {
+        select.setString(1, region.worldName());
+        select.setLong(2, regionKey);
+        try (ResultSet result = select.executeQuery()) {
+          while (result.next()) {
+            long chunkKey = result.getLong(1);
+            if (!chunks.containsKey(chunkKey)) {
+              delete.setString(1, region.worldName());
+              delete.setLong(2, chunkKey);
+              delete.addBatch();
+            }
+          }
+        }
+        delete.executeBatch();
+      }
+
+      try (PreparedStatement upsert = database.prepareStatement(UPSERT_CHUNK)) {
+        for (Long2ObjectMap.Entry<byte[]> entry : chunks.long2ObjectEntrySet()) {
+          upsert.setString(1, region.worldName());
+          upsert.setLong(2, entry.getLongKey());
+          upsert.setLong(3, regionKey);
+          upsert.setBytes(4, entry.getValue());
+          upsert.addBatch();
+        }
+        upsert.executeBatch();
+      }
+
+      database.commit();
+    } catch (SQLException e) {
+      try {
+        database.rollback();
+      } catch (SQLException rollbackFailure) {
+        e.addSuppressed(rollbackFailure);
+      }
+      throw new IOException("Unable to save " + region, e);
+    } finally {
+      try {
+        database.setAutoCommit(true);
+      } catch (SQLException e) {
+        logger.log(Level.WARNING, e, e::getMessage);
+      }
+    }
+
+    // Data is now in the database, remove region files.
+    storage.delete();
+  }
+
+  @Override
+  public synchronized @Nullable ConfigurationSection loadChunk(
+      @NotNull String worldName,
+      int chunkX,
+      int chunkZ) throws IOException, InvalidConfigurationException {
+    try (PreparedStatement statement = getConnection().prepareStatement(SELECT_CHUNK)) {
+      statement.setString(1, worldName);
+      statement.setLong(2, pack(chunkX, chunkZ));
+      try (ResultSet result = statement.executeQuery()) {
+        if (!result.next()) {
+          return null;
+        }
+        return decode(chunkX, chunkZ, result.getBytes(1));
+      }
+    } catch (SQLException e) {
+      throw new IOException("Unable to load chunk " + chunkX + "_" + chunkZ, e);
+    }
+  }
+
+  @Override
+  public synchronized void saveChunk(
+      @NotNull String worldName,
+      int chunkX,
+      int chunkZ,
+      @NotNull ConfigurationSection data) throws IOException {
+    ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+    BinaryRegionCodec.writeChunk(chunkX, chunkZ, data, buffer);
+
+    try (PreparedStatement statement = getConnection().prepareStatement(UPSERT_CHUNK)) {
+      statement.setString(1, worldName);
+      statement.setLong(2, pack(chunkX, chunkZ));
+      statement.setLong(3, pack(Coords.chunkToRegion(chunkX), Coords.chunkToRegion(chunkZ)));
+      statement.setBytes(4, buffer.toByteArray());
+      statement.executeUpdate();
+    } catch (SQLException e) {
+      throw new IOException("Unable to save chunk " + chunkX + "_" + chunkZ, e);
+    }
+  }
+
+  @Override
+  public synchronized void deleteChunk(@NotNull String worldName, int chunkX, int chunkZ)
+      throws IOException {
+    try (PreparedStatement statement = getConnection().prepareStatement(DELETE_CHUNK)) {
+      statement.setString(1, worldName);
+      statement.setLong(2, pack(chunkX, chunkZ));
+      statement.executeUpdate();
+    } catch (SQLException e) {
+      throw new IOException("Unable to delete chunk " + chunkX + "_" + chunkZ, e);
+    }
+  }
+
+  @Override
+  public synchronized void forEachChunk(@NotNull String worldName, @NotNull ChunkVisitor visitor)
+      throws IOException {
+    try (PreparedStatement statement = getConnection().prepareStatement(SELECT_WORLD)) {
+      statement.setString(1, worldName);
+      try (ResultSet result = statement.executeQuery()) {
+        while (result.next()) {
+          int chunkX = unpackX(result.getLong(1));
+          int chunkZ = unpackZ(result.getLong(1));
+          try {
+            ConfigurationSection chunk = decode(chunkX, chunkZ, result.getBytes(2));
+            if (chunk != null) {
+              visitor.visit(chunkX, chunkZ, chunk);
+            }
+          } catch (IOException | InvalidConfigurationException e) {
+            logger.log(
+                Level.WARNING,
+                e,
+                () -> "Unable to read chunk " + chunkX + "_" + chunkZ + " in " + worldName + ": "
+                    + e.getMessage());
+          }
+        }
+      }
+    } catch (SQLException e) {
+      throw new IOException("Unable to list chunks in " + worldName, e);
+    }
+  }
+
+  @Override
+  public synchronized void close() throws IOException {
+    if (connection == null) {
+      return;
+    }
+    try {
+      connection.close();
+    } catch (SQLException e) {
+      throw new IOException("Unable to close " + file, e);
+    } finally {
+      connection = null;
+    }
+  }
+
+  private @NotNull Connection getConnection() throws SQLException, IOException {
+    if (connection != null) {
+      return connection;
+    }
+
+    Files.createDirectories(file.toAbsolutePath().getParent());
+    Connection opened = DriverManager.getConnection("jdbc:sqlite:" + file.toAbsolutePath());
+    try (Statement statement = opened.createStatement()) {
+      statement.execute("PRAGMA journal_mode=WAL");
+      statement.execute(CREATE_TABLE);
+      statement.execute(CREATE_INDEX);
+    } catch (SQLException e) {
+      opened.close();
+      throw e;
+    }
+    connection = opened;
+    return opened;
+  }
+
+  private static @Nullable ConfigurationSection decode(
+      int chunkX,
+      int chunkZ,
+      byte @NotNull [] data) throws IOException, InvalidConfigurationException {
+    YamlConfiguration root = new YamlConfiguration();
+    BinaryRegionCodec.read(new ByteArrayInputStream(data), root);
+    return root.getConfigurationSection(EnchantableBlockManager.getChunkPath(chunkX, chunkZ));
+  }
+
+  private static long pack(int x, int z) {
+    return (long) x << 32 | z & 0xFFFFFFFFL;
+  }
+
+  private static int unpackX(long packed) {
+    return (int) (packed >> 32);
+  }
+
+  private static int unpackZ(long packed) {
+    return (int) packed;
+  }
+
+}
@@ -1,18 +1,48 @@
 package com.github.jikoo.enchantableblocks.registry;
 
 import com.github.jikoo.enchantableblocks.block.EnchantableBlock;
+import com.github.jikoo.enchantableblocks.util.BlockKey;
 import com.github.jikoo.enchantableblocks.util.Cache;
+import com.github.jikoo.enchantableblocks.util.CacheStats;
+import com.github.jikoo.enchantableblocks.util.LatencyHistogram;
+import com.github.jikoo.enchantableblocks.util.LatencyStats;
 import com.github.jikoo.enchantableblocks.util.Region;
 import com.github.jikoo.enchantableblocks.util.RegionStorage;
+import com.github.jikoo.enchantableblocks.util.storage.FileCommit;
+import com.github.jikoo.enchantableblocks.util.storage.RegionFormat;
 import com.github.jikoo.planarwrappers.collections.BlockMap;
 import com.github.jikoo.planarwrappers.util.Coords;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.fastutil.longs.LongList;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Objects;
+import java.util.OptionalLong;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.stream.Stream;
+import org.bukkit.Bukkit;
 import org.bukkit.Chunk;
+import org.bukkit.World;
 import org.bukkit.block.Block;
 import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.InvalidConfigurationException;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitRunnable;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.jetbrains.annotations.VisibleForTesting;
@@ -25,8 +55,30 @@ public class EnchantableBlockManager {
   private final @NotNull Logger logger;
   private final @NotNull EnchantableBlockRegistry blockRegistry;
   private final @NotNull BlockMap<EnchantableBlock> blockMap;
+  private final @Nullable BlockMap<ConfigurationSection> lazyBlocks;
+  private final @NotNull Map<Region, RegionBlocks> regionBlocks = new ConcurrentHashMap<>();
+  final @NotNull RegionFormat regionFormat;
+  final @NotNull RegionQuarantine quarantine;
+  final @NotNull BlockStorage blockStorage;
+  final @Nullable PersistentChunkStorage chunkStorage;
+  final @NotNull ChunkOccupancy occupancy;
+  @VisibleForTesting
+  final @NotNull RegionSaveQueue saveQueue;
+  @VisibleForTesting
+  final @Nullable RegionJournal journal;
+  @VisibleForTesting
+  final @Nullable RegionPrefetcher prefetcher;
   @VisibleForTesting
   final @NotNull Cache<Region, RegionStorageData> saveFileCache;
+  @VisibleForTesting
+  final @Nullable RegionSaveScheduler saveScheduler;
+  final @NotNull LatencyHistogram readLatency = new LatencyHistogram();
+  private final @NotNull LatencyHistogram writeLatency = new LatencyHistogram();
+  private final @NotNull RecoveryDump recoveryDump;
+  private final long shutdownTimeoutSeconds;
+  private final int shutdownThreads;
+  private volatile @Nullable RegionCompactor compactor;
+  private @Nullable StartupBlockLoader startupLoader;
 
   /**
    * Construct a new {@code EnchantableBlockManager} for the given {@link Plugin}.
@@ -37,11 +89,219 @@ public class EnchantableBlockManager {
     this.logger = plugin.getLogger();
     blockRegistry = new EnchantableBlockRegistry(plugin);
     blockMap = new BlockMap<>();
+    lazyBlocks = plugin.getConfig().getBoolean("lazy-blocks", false) ? new BlockMap<>() : null;
+
+    String formatName = plugin.getConfig().getString("storage.format");
+    RegionFormat format = RegionFormat.of(formatName);
+    if (format == null) {
+      // Saving converts to the configured format, so don't convert data because of a typo.
+      format = RegionFormat.detect(plugin.getDataFolder().toPath().resolve("data"));
+      RegionFormat fallback = format;
+      this.logger.warning(() -> String.format(
+          "Unknown storage format \"%s\", using %s to match existing data.",
+          formatName,
+          fallback.name().toLowerCase(Locale.ROOT)));
+    }
+    regionFormat = format;
+
+    String engine = plugin.getConfig().getString("storage.engine");
+    boolean chunkEngine = "chunk".equalsIgnoreCase(engine);
+    chunkStorage = chunkEngine ? new PersistentChunkStorage(plugin) : null;
+
+    quarantine = new RegionQuarantine(plugin);
+    blockStorage = createStorage(plugin, engine);
+    occupancy = createOccupancy(plugin);
+
+    saveQueue = new RegionSaveQueue(
+        this.logger,
+        plugin.getConfig().getInt("storage.io-threads", 2),
+        plugin.getConfig().getInt("storage.max-pending-writes", 64),
+        plugin.getConfig().getLong("storage.commit-delay-millis", 10));
+
+    if (!chunkEngine && plugin.getConfig().getBoolean("storage.journal.enabled", false)) {
+      journal = new RegionJournal(
+          this,
+          this.logger,
+          plugin.getDataFolder().toPath().resolve("data"),
+          plugin.getConfig().getLong("storage.journal.compact-kilobytes", 4096) * 1024,
+          plugin.getConfig().getLong("storage.journal.sync-delay-millis", 50),
+          plugin.getConfig().getInt("storage.journal.compact-regions-per-tick", 8));
+    } else {
+      journal = null;
+    }
+
+    RegionLoadFunction loadFunction = new RegionLoadFunction(plugin, this);
+    int prefetchThreads = plugin.getConfig().getInt("storage.prefetch-threads", 2);
+    prefetcher = !chunkEngine && prefetchThreads > 0
+        ? new RegionPrefetcher(
+            loadFunction,
+            prefetchThreads,
+            Duration.ofSeconds(plugin.getConfig().getLong("storage.prefetch-expiry-seconds", 60)))
+        : null;
+
+    long autosave = Math.max(plugin.getConfig().getInt("autosave", 5) * 60_000L, 60_000L);
+    // Journaled changes are compacted by the journal, and chunk data is saved with chunks.
+    boolean scheduleSaves = journal == null && !chunkEngine
+        && plugin.getConfig().getBoolean("storage.save-scheduler.enabled", true);
+
+    // Expire regions on a dedicated task so that gameplay access never pays for saving them.
+    long maintenanceTicks = plugin.getConfig().getLong("storage.cache.maintenance-ticks", 20);
 
     saveFileCache = new Cache.CacheBuilder<Region, RegionStorageData>()
-        .withRetention(Math.max(plugin.getConfig().getInt("autosave", 5) * 60_000L, 60_000L))
-        .withInUseCheck(new RegionInUseCheck(this.logger))
-        .withLoadFunction(new RegionLoadFunction(plugin, this)).build();
+        .withRetention(autosave)
+        .withScheduledMaintenance(maintenanceTicks > 0)
+        .withInUseCheck(new RegionInUseCheck(saveQueue, journal, scheduleSaves))
+        .withPostRemoval((region, data) -> {
+          if (prefetcher != null) {
+            prefetcher.invalidate(region);
+          }
+        })
+        // Weigh regions by the blocks they store so that the bound reflects memory use.
+        .withMaximumWeight(
+            plugin.getConfig().getLong("storage.cache.maximum-weight", 0),
+            (region, data) -> data == null ? 1 : 1 + data.getStoredBlockCount())
+        .withLoadFunction(loadFunction).build();
+
+    if (maintenanceTicks > 0) {
+      plugin.getServer().getScheduler().runTaskTimer(
+          plugin, saveFileCache::cleanUp, maintenanceTicks, maintenanceTicks);
+    }
+
+    if (scheduleSaves) {
+      saveScheduler = new RegionSaveScheduler(
+          saveFileCache,
+          saveQueue,
+          autosave,
+          plugin.getConfig().getInt("storage.save-scheduler.regions-per-tick", 4),
+          plugin.getConfig().getLong("storage.save-scheduler.kilobytes-per-second", 0) * 1024,
+          plugin.getConfig().getDouble("storage.save-scheduler.jitter", 0.2));
+      saveScheduler.runTaskTimer(plugin, 1L, 1L);
+    } else {
+      saveScheduler = null;
+    }
+
+    if (journal != null) {
+      journal.recover();
+      plugin.getServer().getScheduler().runTaskTimer(plugin, journal::tick, 1L, 1L);
+    }
+
+    shutdownTimeoutSeconds = plugin.getConfig().getLong("storage.shutdown-timeout-seconds", 30);
+    int threads = plugin.getConfig().getInt("storage.shutdown-io-threads", 0);
+    shutdownThreads = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+
+    // Replay after any journal so that newer dumped data takes precedence.
+    recoveryDump = new RecoveryDump(plugin, regionFormat);
+    replayRecoveryDump();
+  }
+
+  /**
+   * Save any data remaining in a {@link RecoveryDump} from a previous shutdown. The dump is deleted
+   * once all of its data has been saved.
+   */
+  private void replayRecoveryDump() {
+    if (!recoveryDump.exists()) {
+      return;
+    }
+
+    List<RegionStorage> recovered;
+    try {
+      recovered = recoveryDump.read();
+    } catch (IOException e) {
+      this.logger.log(Level.WARNING, e, () -> "Unable to read recovery dump: " + e.getMessage());
+      return;
+    }
+
+    AtomicBoolean failed = new AtomicBoolean();
+    List<CompletableFuture<Void>> writes = new ArrayList<>();
+    for (RegionStorage dumped : recovered) {
+      Region region = dumped.getRegion();
+      RegionStorageData data = Objects.requireNonNull(this.saveFileCache.get(region));
+      RegionStorage storage = data.getStorage();
+      storage.clear();
+      RegionStorage.copy(dumped, storage);
+      storage.recountBlocks();
+      this.occupancy.load(region, storage);
+      data.setDirty();
+
+      RegionSnapshot snapshot = Objects.requireNonNull(data.snapshot());
+      writes.add(saveQueue.submit(region, () -> {
+        try {
+          snapshot.write();
+        } catch (IOException e) {
+          failed.set(true);
+          throw e;
+        }
+        FileCommit.whenCommitted(throwable -> {
+          if (throwable != null) {
+            failed.set(true);
+          }
+        });
+      }));
+    }
+
+    CompletableFuture.allOf(writes.toArray(new CompletableFuture[0])).join();
+    this.logger.info(() -> "Recovered " + recovered.size() + " regions from recovery dump.");
+
+    if (failed.get()) {
+      // Keep the dump so that it is replayed again.
+      this.logger.warning("Unable to save all recovered regions, recovery dump retained.");
+      return;
+    }
+
+    try {
+      recoveryDump.delete();
+    } catch (IOException e) {
+      this.logger.log(Level.WARNING, e, () -> "Unable to delete recovery dump: " + e.getMessage());
+    }
+  }
+
+  /**
+   * Create the {@link BlockStorage} for a storage engine.
+   *
+   * @param plugin the {@link Plugin} owning the data
+   * @param engine the name of the storage engine
+   * @return the {@code BlockStorage}
+   */
+  private @NotNull BlockStorage createStorage(@NotNull Plugin plugin, @Nullable String engine) {
+    BlockStorage regionFiles = new RegionFileStorage(plugin, regionFormat, quarantine);
+    Path dataDir = plugin.getDataFolder().toPath().resolve("data");
+
+    if ("world".equalsIgnoreCase(engine)) {
+      return new WorldStoreEngine(this.logger, dataDir, regionFiles);
+    }
+    if ("database".equalsIgnoreCase(engine)) {
+      return new DatabaseBlockStorage(this.logger, dataDir.resolve("blocks.db"), regionFiles);
+    }
+    return regionFiles;
+  }
+
+  /**
+   * Create the {@link ChunkOccupancy} index from stored region files. The index is only enabled
+   * when regions are stored in individual files that can be listed cheaply.
+   *
+   * @param plugin the {@link Plugin} owning the data
+   * @return the {@code ChunkOccupancy}
+   */
+  private @NotNull ChunkOccupancy createOccupancy(@NotNull Plugin plugin) {
+    if (this.chunkStorage != null || !(this.blockStorage instanceof RegionFileStorage)) {
+      return new ChunkOccupancy(false);
+    }
+
+    ChunkOccupancy index = new ChunkOccupancy(true);
+    try {
+      for (String worldName : listWorlds(plugin)) {
+        for (Region region : RegionFileStorage.listRegions(plugin, worldName)) {
+          index.addRegion(region);
+        }
+      }
+    } catch (IOException e) {
+      this.logger.log(
+          Level.WARNING,
+          e,
+          () -> "Unable to index stored chunks, index disabled: " + e.getMessage());
+      return new ChunkOccupancy(false);
+    }
+    return index;
   }
 
   /**
@@ -62,6 +322,9 @@ public class EnchantableBlockManager {
   public @Nullable EnchantableBlock getBlock(@NotNull final Block block) {
 
     EnchantableBlock enchantableBlock = this.blockMap.get(block);
+    if (enchantableBlock == null) {
+      enchantableBlock = this.materializeBlock(block);
+    }
     if (enchantableBlock != null
         && enchantableBlock.getConfig().enabled.get(block.getWorld().getName())) {
       return enchantableBlock;
@@ -89,13 +352,33 @@ public class EnchantableBlockManager {
       return null;
     }
 
+    if (this.chunkStorage == null) {
+      RegionStorageData regionData = this.saveFileCache.get(new Region(block));
+      if (regionData != null && regionData.isUnreadable()) {
+        // The block could never be saved, don't pretend otherwise.
+        regionData.warnUnreadable();
+        return null;
+      }
+    }
+
     final EnchantableBlock enchantableBlock = this.newBlock(block, itemStack);
 
     if (enchantableBlock == null) {
       return null;
     }
 
-    this.blockMap.put(block, enchantableBlock);
+    this.putBlock(block, enchantableBlock);
+    if (this.lazyBlocks != null) {
+      this.lazyBlocks.remove(block);
+    }
+
+    if (this.journal != null) {
+      this.journal.upsert(block, getBlockStorage(block));
+    }
+
+    if (this.chunkStorage != null) {
+      saveChunk(block.getChunk());
+    }
 
     return enchantableBlock;
   }
@@ -107,7 +390,7 @@ public class EnchantableBlockManager {
    * @param itemStack the {@code ItemStack}
    * @return true if the {@code ItemStack} is an invalid type
    */
-  private boolean isInvalidBlock(@Nullable ItemStack itemStack) {
+  static boolean isInvalidBlock(@Nullable ItemStack itemStack) {
     return itemStack == null
         || itemStack.getType().isAir()
         || !itemStack.getType().isBlock()
@@ -145,33 +428,29 @@ public class EnchantableBlockManager {
    * @return the {@code ConfigurationSection}
    */
   private @NotNull ConfigurationSection getBlockStorage(@NotNull Block block) {
-    var chunkStorage = this.getChunkStorage(block);
-    var blockPath = getBlockPath(block);
-
-    if (chunkStorage.isConfigurationSection(blockPath)) {
-      return Objects.requireNonNull(chunkStorage.getConfigurationSection(blockPath));
+    if (this.chunkStorage != null) {
+      var blockPath = getBlockPath(block);
+      var chunkStorage = this.chunkStorage.getStorage(block.getChunk());
+      if (chunkStorage.isConfigurationSection(blockPath)) {
+        return Objects.requireNonNull(chunkStorage.getConfigurationSection(blockPath));
+      }
+      return chunkStorage.createSection(blockPath);
     }
 
-    return chunkStorage.createSection(blockPath);
-  }
-
-  /**
-   * Helper method for getting a non-null {@link ConfigurationSection} for a {@link Chunk}, creating
-   * as needed.
-   *
-   * @param block a {@link Block} in the {@link Chunk}
-   * @return the {@code ConfigurationSection}
-   */
-  private @NotNull ConfigurationSection getChunkStorage(@NotNull Block block) {
     var storagePair = saveFileCache.get(new Region(block));
     var regionStorage = Objects.requireNonNull(storagePair).getStorage();
-    var chunkPath = getChunkPath(block);
+    var blockStorage = regionStorage.getBlock(block.getX(), block.getY(), block.getZ());
 
-    if (regionStorage.isConfigurationSection(chunkPath)) {
-      return Objects.requireNonNull(regionStorage.getConfigurationSection(chunkPath));
+    if (blockStorage != null) {
+      return blockStorage;
     }
 
-    return regionStorage.createSection(chunkPath);
+    int chunkX = Coords.blockToChunk(block.getX());
+    int chunkZ = Coords.blockToChunk(block.getZ());
+    if (!regionStorage.hasChunk(chunkX, chunkZ)) {
+      this.occupancy.add(block.getWorld().getName(), chunkX, chunkZ);
+    }
+    return regionStorage.createBlock(block.getX(), block.getY(), block.getZ());
   }
 
   /**
@@ -208,44 +487,51 @@ public class EnchantableBlockManager {
    * @return the {@link ItemStack} representation or {@code null} if not valid
    */
   public @Nullable ItemStack destroyBlock(@NotNull final Block block) {
+    this.materializeBlock(block);
     EnchantableBlock enchantableBlock = this.blockMap.remove(block);
 
     if (enchantableBlock == null) {
       return null;
     }
 
-    var saveData = this.saveFileCache.get(new Region(block));
+    this.untrackBlock(enchantableBlock);
 
-    if (saveData == null) {
-      return null;
+    if (this.journal != null) {
+      this.journal.destroy(block);
     }
 
-    var chunkPath = getChunkPath(block);
-
-    ItemStack itemStack = enchantableBlock.getItemStack();
-
-    if (!saveData.getStorage().isConfigurationSection(chunkPath)) {
-      saveData.getStorage().set(chunkPath, null);
-      saveData.setDirty();
+    if (this.chunkStorage != null) {
+      Chunk chunk = block.getChunk();
+      this.chunkStorage.getStorage(chunk)
+          .set(getBlockPath(block), null);
+      this.chunkStorage.setDirty(chunk);
+      saveChunk(chunk);
 
       if (!enchantableBlock.isCorrectType(block.getType())) {
         return null;
       }
 
-      return itemStack;
+      return enchantableBlock.getItemStack().clone();
     }
 
-    var chunkSection = saveData.getStorage().getConfigurationSection(chunkPath);
-    var blockPath = getBlockPath(block.getX(), block.getY(), block.getZ());
+    var saveData = this.saveFileCache.get(new Region(block));
 
-    if (chunkSection != null) {
-      // Delete block data.
-      chunkSection.set(blockPath, null);
+    if (saveData == null) {
+      return null;
+    }
 
-      // If chunk section is now empty, also delete chunk section.
-      if (chunkSection.getKeys(false).isEmpty()) {
-        saveData.getStorage().set(chunkPath, null);
-      }
+    // Items may be shared between blocks, copy before handing out.
+    ItemStack itemStack = enchantableBlock.getItemStack().clone();
+
+    RegionStorage storage = saveData.getStorage();
+    int chunkX = Coords.blockToChunk(block.getX());
+    int chunkZ = Coords.blockToChunk(block.getZ());
+
+    // Delete block data. If chunk section is now empty, also delete chunk section.
+    if (storage.hasChunk(chunkX, chunkZ)
+        && storage.removeBlock(block.getX(), block.getY(), block.getZ())) {
+      storage.removeChunk(chunkX, chunkZ);
+      this.occupancy.remove(block.getWorld().getName(), chunkX, chunkZ);
     }
 
     saveData.setDirty();
@@ -258,86 +544,236 @@ public class EnchantableBlockManager {
   }
 
   /**
-   * Load all stored {@link EnchantableBlock EnchantableBlocks} for a {@link Chunk}.
+   * Begin reading stored data for a {@link Chunk} off of the main thread. Once the returned future
+   * completes, {@link #loadChunkBlocks(Chunk)} will use the read data rather than reading from
+   * disk.
+   *
+   * @param chunk the {@code Chunk}
+   * @return a future completing when the data has been read
+   */
+  public @NotNull CompletableFuture<Void> prefetchChunkBlocks(@NotNull final Chunk chunk) {
+    if (this.prefetcher == null
+        || !this.occupancy.mayContain(chunk.getWorld().getName(), chunk.getX(), chunk.getZ())) {
+      return CompletableFuture.completedFuture(null);
+    }
+
+    Region region = new Region(chunk);
+
+    if (this.saveFileCache.containsKey(region)) {
+      return CompletableFuture.completedFuture(null);
+    }
+
+    return this.prefetcher.prefetch(region);
+  }
+
+  /**
+   * Load all stored {@link EnchantableBlock EnchantableBlocks} for many {@link Chunk Chunks}
+   * without stalling the server. Stored data is read in parallel off of the main thread, then
+   * blocks are created on the main thread over as many ticks as needed, spending at most
+   * {@code startup-load-millis-per-tick} each tick. Chunks that unload first are skipped.
+   *
+   * <p>Must be called from the main thread.
+   *
+   * @param plugin the {@link Plugin} used to schedule tasks
+   * @param chunks the {@code Chunks}
+   * @return a future completing on the main thread once all chunks are loaded
+   */
+  public @NotNull CompletableFuture<Void> loadChunkBlocksGradually(
+      @NotNull Plugin plugin,
+      @NotNull Collection<Chunk> chunks) {
+    CompletableFuture<Void> reads = CompletableFuture.allOf(chunks.stream()
+        .map(this::prefetchChunkBlocks)
+        .toArray(CompletableFuture[]::new));
+
+    StartupBlockLoader loader = new StartupBlockLoader(
+        this.logger,
+        this,
+        chunks,
+        reads,
+        plugin.getConfig().getLong("startup-load-millis-per-tick", 10));
+    this.startupLoader = loader;
+    loader.runTaskTimer(plugin, 1L, 1L);
+    return loader.getCompletion();
+  }
+
+  /**
+   * Stop tracking a completed {@link StartupBlockLoader}.
+   *
+   * @param loader the {@code StartupBlockLoader}
+   */
+  void completeStartupLoad(@NotNull StartupBlockLoader loader) {
+    if (this.startupLoader == loader) {
+      this.startupLoader = null;
+    }
+  }
+
+  /**
+   * Load all stored {@link EnchantableBlock EnchantableBlocks} for a {@link Chunk}. Nothing is
+   * loaded if the {@code Chunk} has since unloaded.
    *
    * @param chunk the {@code Chunk}
    */
   public void loadChunkBlocks(@NotNull final Chunk chunk) {
+    if (!chunk.isLoaded()) {
+      // The unload has already been handled, blocks loaded now would never be unloaded.
+      return;
+    }
+
+    if (this.chunkStorage != null) {
+      ConfigurationSection storage = this.chunkStorage.getStorage(chunk);
+      Runnable saveData = () -> this.chunkStorage.setDirty(chunk);
+      for (String xyz : storage.getKeys(false)) {
+        loadStoredBlock(chunk, storage, xyz, () -> storage.set(xyz, null), saveData);
+      }
+      return;
+    }
 
-    RegionStorageData saveData = this.saveFileCache.get(new Region(chunk), false);
+    // Skip the cache entirely for chunks known to be empty.
+    if (!this.occupancy.mayContain(chunk.getWorld().getName(), chunk.getX(), chunk.getZ())) {
+      return;
+    }
+    RegionStorageData regionData = this.saveFileCache.get(new Region(chunk), false);
 
-    if (saveData == null) {
+    if (regionData == null) {
       return;
     }
 
-    String path = getChunkPath(chunk);
-    ConfigurationSection chunkStorage = saveData.getStorage().getConfigurationSection(path);
+    RegionStorage storage = regionData.getStorage();
+    LongList removed = new LongArrayList();
+
+    for (Long2ObjectMap.Entry<ConfigurationSection> entry
+        : storage.getChunkBlocks(chunk.getX(), chunk.getZ()).long2ObjectEntrySet()) {
+      long blockKey = entry.getLongKey();
+      Block block = chunk.getWorld().getBlockAt(
+          chunk.getX() << 4 | BlockKey.relativeX(blockKey),
+          BlockKey.blockY(blockKey),
+          chunk.getZ() << 4 | BlockKey.relativeZ(blockKey));
+      loadBlock(block, entry.getValue(), () -> removed.add(blockKey), regionData::setDirty);
+    }
+
+    for (int i = 0; i < removed.size(); ++i) {
+      long blockKey = removed.getLong(i);
+      storage.removeBlock(
+          chunk.getX() << 4 | BlockKey.relativeX(blockKey),
+          BlockKey.blockY(blockKey),
+          chunk.getZ() << 4 | BlockKey.relativeZ(blockKey));
+    }
 
+    // Entries that could not be indexed are rare, only build the chunk's path when present.
+    Collection<String> unindexed = storage.getUnindexedBlocks(chunk.getX(), chunk.getZ());
+    if (unindexed.isEmpty()) {
+      return;
+    }
+    String path = getChunkPath(chunk);
+    ConfigurationSection chunkStorage = storage.getConfigurationSection(path);
     if (chunkStorage == null) {
       return;
     }
+    for (String xyz : unindexed) {
+      loadStoredBlock(
+          chunk,
+          chunkStorage,
+          xyz,
+          () -> storage.removeBlock(path, xyz),
+          regionData::setDirty);
+    }
+  }
 
-    for (String xyz : chunkStorage.getKeys(false)) {
-      if (!chunkStorage.isConfigurationSection(xyz)) {
-        chunkStorage.set(path, null);
-        saveData.setDirty();
-        this.logger.warning(() -> String.format(
-            "Invalid ConfigurationSection %s: %s",
-            xyz,
-            chunkStorage.get(xyz)));
-        continue;
-      }
+  /**
+   * Load an {@link EnchantableBlock} stored by path in a chunk's {@link ConfigurationSection}.
+   *
+   * <p>Blocks stored under the wrong chunk are loaded at their stored coordinates. Entries that are
+   * not valid blocks are removed.
+   *
+   * @param chunk the {@link Chunk} the data is stored in
+   * @param chunkStorage the chunk's {@code ConfigurationSection}
+   * @param xyz the path of the block within the chunk's {@code ConfigurationSection}
+   * @param removeBlock the method used to remove the block from storage
+   * @param saveData the method used to mark storage as modified
+   */
+  private void loadStoredBlock(
+      @NotNull Chunk chunk,
+      @NotNull ConfigurationSection chunkStorage,
+      @NotNull String xyz,
+      @NotNull Runnable removeBlock,
+      @NotNull Runnable saveData) {
+    ConfigurationSection blockStorage = chunkStorage.getConfigurationSection(xyz);
+
+    if (blockStorage == null) {
+      Object invalid = chunkStorage.get(xyz);
+      removeBlock.run();
+      saveData.run();
+      this.logger.warning(() -> String.format("Invalid ConfigurationSection %s: %s", xyz, invalid));
+      return;
+    }
 
-      String itemPath = xyz + ".itemstack";
-      String[] split = xyz.split("_");
-      Block block;
+    int chunkX = chunk.getX();
+    int chunkZ = chunk.getZ();
+    long blockKey = BlockKey.tryParseBlock(xyz, chunkX, chunkZ);
 
-      if (split.length != 3) {
-        chunkStorage.set(xyz, null);
-        saveData.setDirty();
-        this.logger.warning(() -> String.format(
-            "Unparseable coordinates in %s: %s representing %s",
-            chunk.getWorld().getName(),
-            xyz,
-            chunkStorage.getItemStack(itemPath)));
-        continue;
-      }
+    if (blockKey == BlockKey.OTHER_CHUNK) {
+      // Blocks that could not be moved to the correct chunk are loaded where they claim to be.
+      long chunkKey = BlockKey.tryParseBlockChunk(xyz);
+      chunkX = BlockKey.chunkX(chunkKey);
+      chunkZ = BlockKey.chunkZ(chunkKey);
+      blockKey = BlockKey.tryParseBlock(xyz, chunkX, chunkZ);
+    }
 
-      try {
-        block = chunk.getWorld()
-            .getBlockAt(
-                Integer.parseInt(split[0]),
-                Integer.parseInt(split[1]),
-                Integer.parseInt(split[2]));
-      } catch (@NotNull NumberFormatException e) {
-        chunkStorage.set(xyz, null);
-        saveData.setDirty();
-        this.logger.warning(() -> String.format(
-            "Unparseable coordinates in %s: %s representing %s",
-            chunk.getWorld().getName(),
-            xyz,
-            chunkStorage.getItemStack(itemPath)));
-        continue;
-      }
+    if (blockKey == BlockKey.INVALID) {
+      removeBlock.run();
+      saveData.run();
+      this.logger.warning(() -> String.format(
+          "Unparseable coordinates in %s: %s representing %s",
+          chunk.getWorld().getName(),
+          xyz,
+          blockStorage.getItemStack("itemstack")));
+      return;
+    }
 
-      var enchantableBlock = this.loadEnchantableBlock(
-          block,
-          Objects.requireNonNull(chunkStorage.getConfigurationSection(xyz)));
+    Block block = chunk.getWorld().getBlockAt(
+        chunkX << 4 | BlockKey.relativeX(blockKey),
+        BlockKey.blockY(blockKey),
+        chunkZ << 4 | BlockKey.relativeZ(blockKey));
+    loadBlock(block, blockStorage, removeBlock, saveData);
+  }
 
-      if (enchantableBlock == null) {
-        // Invalid EnchantableBlock, could not load.
-        chunkStorage.set(xyz, null);
-        saveData.setDirty();
-        this.logger.warning(() -> String.format(
-            "Removed invalid save in %s at %s: %s",
-            chunk.getWorld().getName(),
-            block.getLocation().toVector(),
-            chunkStorage.getItemStack(itemPath)));
-        continue;
+  /**
+   * Load a stored {@link EnchantableBlock}, removing it from storage if it is not valid.
+   *
+   * @param block the {@link Block}
+   * @param blockStorage the block's {@link ConfigurationSection}
+   * @param removeBlock the method used to remove the block from storage
+   * @param saveData the method used to mark storage as modified
+   */
+  private void loadBlock(
+      @NotNull Block block,
+      @NotNull ConfigurationSection blockStorage,
+      @NotNull Runnable removeBlock,
+      @NotNull Runnable saveData) {
+    if (this.lazyBlocks != null) {
+      // Defer creation until the block is requested.
+      if (this.blockMap.get(block) == null) {
+        this.lazyBlocks.put(block, blockStorage);
       }
+      return;
+    }
+
+    var enchantableBlock = this.loadEnchantableBlock(block, blockStorage);
 
-      this.blockMap.put(block, enchantableBlock);
+    if (enchantableBlock == null) {
+      // Invalid EnchantableBlock, could not load.
+      ItemStack itemStack = blockStorage.getItemStack("itemstack");
+      removeBlock.run();
+      saveData.run();
+      this.logger.warning(() -> String.format(
+          "Removed invalid save in %s at %s: %s",
+          block.getWorld().getName(),
+          block.getLocation().toVector(),
+          itemStack));
+      return;
     }
+
+    this.putBlock(block, enchantableBlock);
   }
 
   /**
@@ -346,8 +782,515 @@ public class EnchantableBlockManager {
    * @param chunk the {@code Chunk}
    */
   public void unloadChunkBlocks(@NotNull final Chunk chunk) {
+    if (this.startupLoader != null) {
+      this.startupLoader.unload(chunk);
+    }
+
+    if (this.chunkStorage != null) {
+      // Write changes into the chunk before it is saved by the server.
+      saveChunk(chunk);
+      this.chunkStorage.unload(chunk);
+    }
+
     // Clear out and clean up loaded EnchantableBlocks.
+    Collection<EnchantableBlock> blocks =
+        this.blockMap.get(chunk.getWorld().getName(), chunk.getX(), chunk.getZ());
+    if (this.chunkStorage == null && !blocks.isEmpty()) {
+      RegionStorageData regionData = this.saveFileCache.get(new Region(chunk), false);
+      for (EnchantableBlock enchantableBlock : List.copyOf(blocks)) {
+        // Changes are already in storage, keep the region flagged for saving.
+        if (enchantableBlock.isDirty() && regionData != null) {
+          regionData.setDirty();
+        }
+        this.untrackBlock(enchantableBlock);
+      }
+    }
     this.blockMap.remove(chunk);
+    if (this.lazyBlocks != null) {
+      this.lazyBlocks.remove(chunk);
+    }
+  }
+
+  /**
+   * Get the loaded {@link EnchantableBlock EnchantableBlocks} in a {@link Chunk}. Blocks whose
+   * creation was deferred are not included.
+   *
+   * @param chunk the {@code Chunk}
+   * @return a copy of the loaded blocks
+   */
+  @NotNull Collection<EnchantableBlock> getLoadedBlocks(@NotNull Chunk chunk) {
+    return List.copyOf(
+        this.blockMap.get(chunk.getWorld().getName(), chunk.getX(), chunk.getZ()));
+  }
+
+  /**
+   * Create the {@link EnchantableBlock} for a {@link Block} whose creation was deferred when its
+   * {@link Chunk} was loaded. Invalid saves are removed.
+   *
+   * @param block the {@code Block}
+   * @return the {@code EnchantableBlock} or {@code null} if none was deferred or it was invalid
+   */
+  private @Nullable EnchantableBlock materializeBlock(@NotNull final Block block) {
+    if (this.lazyBlocks == null) {
+      return null;
+    }
+
+    ConfigurationSection storage = this.lazyBlocks.remove(block);
+    if (storage == null) {
+      return null;
+    }
+
+    EnchantableBlock enchantableBlock = this.loadEnchantableBlock(block, storage);
+
+    if (enchantableBlock == null) {
+      // Invalid EnchantableBlock, could not load.
+      ConfigurationSection parent = storage.getParent();
+      RegionStorageData regionData = this.chunkStorage != null
+          ? null
+          : this.saveFileCache.get(new Region(block), false);
+      if (regionData != null && parent != null) {
+        regionData.getStorage().removeBlock(parent.getName(), storage.getName());
+      } else if (parent != null) {
+        parent.set(storage.getName(), null);
+      }
+      if (this.chunkStorage != null) {
+        this.chunkStorage.setDirty(block.getChunk());
+      } else if (regionData != null) {
+        regionData.setDirty();
+      }
+      this.logger.warning(() -> String.format(
+          "Removed invalid save in %s at %s: %s",
+          block.getWorld().getName(),
+          block.getLocation().toVector(),
+          storage.getItemStack("itemstack")));
+      return null;
+    }
+
+    this.putBlock(block, enchantableBlock);
+    return enchantableBlock;
+  }
+
+  /**
+   * Store a loaded {@link EnchantableBlock}, replacing any existing block. Blocks stored in regions
+   * are tracked for modification.
+   *
+   * @param block the {@link Block}
+   * @param enchantableBlock the {@code EnchantableBlock}
+   */
+  private void putBlock(@NotNull Block block, @NotNull EnchantableBlock enchantableBlock) {
+    EnchantableBlock previous = this.blockMap.get(block);
+    this.blockMap.put(block, enchantableBlock);
+
+    if (this.chunkStorage != null) {
+      return;
+    }
+
+    if (previous != null) {
+      this.untrackBlock(previous);
+    }
+    this.regionBlocks.compute(new Region(block), (region, blocks) -> {
+      if (blocks == null) {
+        blocks = new RegionBlocks();
+      }
+      blocks.add(enchantableBlock);
+      return blocks;
+    });
+  }
+
+  /**
+   * Stop tracking a {@link EnchantableBlock} that is no longer loaded.
+   *
+   * @param enchantableBlock the {@code EnchantableBlock}
+   */
+  private void untrackBlock(@NotNull EnchantableBlock enchantableBlock) {
+    if (this.chunkStorage != null) {
+      return;
+    }
+
+    this.regionBlocks.computeIfPresent(
+        new Region(enchantableBlock.getBlock()),
+        (region, blocks) -> blocks.remove(enchantableBlock) ? null : blocks);
+  }
+
+  /**
+   * Write unsaved changes for all loaded {@link Chunk Chunks} in a {@link World} into the chunks.
+   * Only applies when block data is stored in chunks.
+   *
+   * @param world the {@code World}
+   */
+  public void saveWorld(@NotNull final World world) {
+    if (this.chunkStorage == null) {
+      return;
+    }
+
+    for (Chunk chunk : this.chunkStorage.getChunks()) {
+      if (chunk.getWorld().equals(world)) {
+        saveChunk(chunk);
+      }
+    }
+  }
+
+  /**
+   * Write a {@link Chunk Chunk's} block data into the chunk if it or any of its
+   * {@link EnchantableBlock EnchantableBlocks} have unsaved changes.
+   *
+   * @param chunk the {@code Chunk}
+   */
+  private void saveChunk(@NotNull Chunk chunk) {
+    if (this.chunkStorage == null) {
+      return;
+    }
+
+    boolean blocksDirty = false;
+    for (EnchantableBlock enchantableBlock
+        : this.blockMap.get(chunk.getWorld().getName(), chunk.getX(), chunk.getZ())) {
+      if (enchantableBlock.isDirty()) {
+        blocksDirty = true;
+        enchantableBlock.setDirty(false);
+      }
+    }
+
+    this.chunkStorage.save(chunk, blocksDirty);
+  }
+
+  /**
+   * Add block data from another storage to a {@link Chunk} and load the added blocks. Blocks that
+   * are already stored in the chunk are not replaced.
+   *
+   * @param chunk the {@code Chunk}
+   * @param imported the block data to add
+   */
+  void importChunkBlocks(@NotNull Chunk chunk, @NotNull ConfigurationSection imported) {
+    if (this.chunkStorage == null) {
+      return;
+    }
+
+    ConfigurationSection storage = this.chunkStorage.getStorage(chunk);
+    boolean changed = false;
+    for (String key : imported.getKeys(false)) {
+      if (!storage.contains(key)) {
+        if (imported.isConfigurationSection(key)) {
+          RegionStorage.copy(
+              Objects.requireNonNull(imported.getConfigurationSection(key)),
+              storage.createSection(key));
+        } else {
+          storage.set(key, imported.get(key));
+        }
+        changed = true;
+      }
+    }
+
+    if (changed) {
+      this.chunkStorage.setDirty(chunk);
+      loadChunkBlocks(chunk);
+      saveChunk(chunk);
+    }
+  }
+
+  /**
+   * Create a task migrating block data from region files into chunks. The task should be run
+   * every tick until it cancels itself.
+   *
+   * @param plugin the {@link Plugin} owning the data
+   * @return the task or {@code null} if block data is not stored in chunks
+   */
+  public @Nullable BukkitRunnable createChunkMigration(@NotNull Plugin plugin) {
+    if (this.chunkStorage == null) {
+      return null;
+    }
+
+    return new ChunkStorageMigrator(
+        plugin,
+        this,
+        plugin.getConfig().getInt("storage.migration-chunks-per-tick", 16));
+  }
+
+  /**
+   * Create a task removing stored blocks that no longer exist in the world, such as blocks
+   * destroyed by explosions or other plugins. The task should be run repeatedly; it checks a
+   * limited number of loaded chunks each run.
+   *
+   * @param plugin the {@link Plugin} owning the data
+   * @return the task or {@code null} if sweeping is disabled
+   */
+  public @Nullable BukkitRunnable createOrphanSweeper(@NotNull Plugin plugin) {
+    if (!plugin.getConfig().getBoolean("storage.sweeper.enabled", false)) {
+      return null;
+    }
+
+    return new OrphanSweeper(
+        plugin,
+        this,
+        plugin.getConfig().getInt("storage.sweeper.chunks-per-run", 1),
+        plugin.getConfig().getLong("storage.sweeper.pass-interval-minutes", 60) * 60_000L);
+  }
+
+  /**
+   * Compact stored region files in parallel, removing invalid entries and converting legacy data.
+   * Regions that are in use are skipped. Data stored in chunks or by other storage engines is not
+   * compacted.
+   *
+   * <p>Must be called from the main thread.
+   *
+   * @param plugin the {@link Plugin} owning the data
+   * @param worldName the name of the world to compact or {@code null} for all worlds
+   * @return a future completing with the result once all regions are compacted
+   */
+  public @NotNull CompletableFuture<CompactionResult> compactRegions(
+      @NotNull Plugin plugin,
+      @Nullable String worldName) {
+    if (this.chunkStorage != null) {
+      // Region files are pending migration into chunks.
+      return CompletableFuture.failedFuture(
+          new IllegalStateException("Block data is stored in chunks"));
+    }
+    if (this.compactor != null) {
+      return CompletableFuture.failedFuture(
+          new IllegalStateException("Compaction is already in progress"));
+    }
+
+    List<Region> regions = new ArrayList<>();
+    int inUse = 0;
+    try {
+      Collection<String> worldNames = worldName != null ? List.of(worldName) : listWorlds(plugin);
+      for (String name : worldNames) {
+        for (Region region : RegionFileStorage.listRegions(plugin, name)) {
+          if (this.saveFileCache.containsKey(region)) {
+            ++inUse;
+          } else {
+            regions.add(region);
+          }
+        }
+      }
+    } catch (IOException e) {
+      return CompletableFuture.failedFuture(e);
+    }
+
+    int threads = plugin.getConfig().getInt("storage.compact-threads", 0);
+    if (threads <= 0) {
+      threads = Runtime.getRuntime().availableProcessors();
+    }
+
+    RegionCompactor regionCompactor = new RegionCompactor(plugin, this, regions);
+    this.compactor = regionCompactor;
+    int skipped = inUse;
+    return regionCompactor.run(threads)
+        .thenApply(result -> result.add(new CompactionResult(0, skipped, 0, 0, 0, 0, 0, 0, 0)))
+        .whenComplete((result, throwable) -> this.compactor = null);
+  }
+
+  /**
+   * List the names of all worlds with data stored in region files.
+   *
+   * @param plugin the {@link Plugin} owning the data
+   * @return the world names
+   * @throws IOException if there is an issue reading the data directory
+   */
+  private static @NotNull Collection<String> listWorlds(@NotNull Plugin plugin)
+      throws IOException {
+    Path dataDir = plugin.getDataFolder().toPath().resolve("data");
+    if (!Files.isDirectory(dataDir)) {
+      return List.of();
+    }
+
+    try (Stream<Path> files = Files.list(dataDir)) {
+      return files.filter(Files::isDirectory)
+          .map(path -> path.getFileName().toString())
+          .toList();
+    }
+  }
+
+  /**
+   * Prepare to load a {@link Region}, waiting for any compaction of its stored data to complete.
+   *
+   * @param region the {@code Region}
+   */
+  void awaitCompaction(@NotNull Region region) {
+    RegionCompactor regionCompactor = this.compactor;
+    if (regionCompactor != null) {
+      regionCompactor.exclude(region);
+    }
+  }
+
+  /**
+   * List region files that could not be read and were quarantined.
+   *
+   * @return the quarantined files
+   * @throws IOException if there is an issue reading the quarantine directory
+   */
+  public @NotNull List<QuarantinedRegion> getQuarantinedRegions() throws IOException {
+    return quarantine.list();
+  }
+
+  /**
+   * Retry reading the quarantined files for a {@link Region}. If all files can now be read, blocks
+   * they contain that are not already stored are restored and the files are deleted once the
+   * region has been saved. Stored blocks take precedence over quarantined ones, and newer
+   * quarantined files over older ones.
+   *
+   * <p>Must be called from the main thread.
+   *
+   * @param region the {@code Region}
+   * @return a future completing with the number of blocks restored
+   */
+  public @NotNull CompletableFuture<Integer> retryQuarantined(@NotNull Region region) {
+    if (this.chunkStorage != null) {
+      return CompletableFuture.failedFuture(
+          new IllegalStateException("Block data is stored in chunks"));
+    }
+
+    List<QuarantinedRegion> entries = new ArrayList<>();
+    List<RegionStorage> recovered = new ArrayList<>();
+    try {
+      for (QuarantinedRegion entry : quarantine.list()) {
+        if (entry.region().equals(region)) {
+          entries.add(entry);
+          recovered.add(quarantine.read(entry, regionFormat));
+        }
+      }
+    } catch (IOException | InvalidConfigurationException e) {
+      return CompletableFuture.failedFuture(e);
+    }
+
+    if (entries.isEmpty()) {
+      return CompletableFuture.failedFuture(
+          new IllegalArgumentException("No quarantined files for " + region));
+    }
+
+    RegionStorageData data = Objects.requireNonNull(this.saveFileCache.get(region));
+    RegionStorage storage = data.getStorage();
+    World world = Bukkit.getWorld(region.worldName());
+    int restored = 0;
+
+    // Entries are ordered oldest first, restore the newest data first.
+    for (int i = recovered.size() - 1; i >= 0; --i) {
+      RegionStorage quarantined = recovered.get(i);
+      for (String chunkPath : quarantined.getKeys(false)) {
+        ConfigurationSection chunk = quarantined.getConfigurationSection(chunkPath);
+        if (chunk == null) {
+          continue;
+        }
+        for (String blockPath : chunk.getKeys(false)) {
+          ConfigurationSection block = chunk.getConfigurationSection(blockPath);
+          String path = chunkPath + '.' + blockPath;
+          if (block == null || storage.contains(path)) {
+            continue;
+          }
+          ConfigurationSection blockStorage = storage.createBlock(chunkPath, blockPath);
+          RegionStorage.copy(block, blockStorage);
+          ++restored;
+          if (world != null) {
+            activateRestoredBlock(world, chunkPath, blockPath, blockStorage);
+          }
+        }
+      }
+    }
+
+    CompletableFuture<Void> saved = CompletableFuture.completedFuture(null);
+    if (restored > 0) {
+      this.occupancy.load(region, storage);
+      data.setDirty();
+      RegionSnapshot snapshot = data.snapshot();
+      if (snapshot != null) {
+        saved = saveQueue.submit(region, snapshot::write);
+      }
+    }
+
+    int restoredCount = restored;
+    return saved.thenApply(unused -> {
+      for (QuarantinedRegion entry : entries) {
+        try {
+          quarantine.delete(entry);
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+      }
+      return restoredCount;
+    });
+  }
+
+  /**
+   * Load a restored {@link EnchantableBlock} if its chunk is loaded. Blocks that cannot be loaded
+   * are left in storage to be validated when the chunk is next loaded.
+   *
+   * @param world the {@link World} containing the block
+   * @param chunkPath the path of the chunk's {@link ConfigurationSection}
+   * @param blockPath the path of the block's {@code ConfigurationSection}
+   * @param blockStorage the block's {@code ConfigurationSection}
+   */
+  private void activateRestoredBlock(
+      @NotNull World world,
+      @NotNull String chunkPath,
+      @NotNull String blockPath,
+      @NotNull ConfigurationSection blockStorage) {
+    Block block;
+    try {
+      long chunkKey = BlockKey.parseChunk(chunkPath);
+      int chunkX = BlockKey.chunkX(chunkKey);
+      int chunkZ = BlockKey.chunkZ(chunkKey);
+      long blockKey = BlockKey.parseBlock(blockPath, chunkX, chunkZ);
+      if (!world.isChunkLoaded(chunkX, chunkZ)) {
+        return;
+      }
+      block = world.getBlockAt(
+          chunkX << 4 | BlockKey.relativeX(blockKey),
+          BlockKey.blockY(blockKey),
+          chunkZ << 4 | BlockKey.relativeZ(blockKey));
+    } catch (NumberFormatException e) {
+      return;
+    }
+
+    if (this.blockMap.get(block) != null) {
+      return;
+    }
+
+    if (this.lazyBlocks != null) {
+      this.lazyBlocks.put(block, blockStorage);
+      return;
+    }
+
+    EnchantableBlock enchantableBlock = this.loadEnchantableBlock(block, blockStorage);
+    if (enchantableBlock != null) {
+      this.putBlock(block, enchantableBlock);
+    }
+  }
+
+  /**
+   * Get statistics describing the latency of making saved region data durable.
+   *
+   * @return the statistics
+   */
+  public @NotNull CommitStats getCommitStats() {
+    return saveQueue.getCommitStats();
+  }
+
+  /**
+   * Get statistics describing the use of the region data cache. Loads include waiting for
+   * prefetched data.
+   *
+   * @return the statistics
+   */
+  public @NotNull CacheStats getCacheStats() {
+    return saveFileCache.getStats();
+  }
+
+  /**
+   * Get statistics describing the latency of reading region data from disk.
+   *
+   * @return the statistics
+   */
+  public @NotNull LatencyStats getReadStats() {
+    return readLatency.snapshot();
+  }
+
+  /**
+   * Get statistics describing the latency of writing region data to disk. Writes are not durable
+   * until committed, see {@link #getCommitStats()}.
+   *
+   * @return the statistics
+   */
+  public @NotNull LatencyStats getWriteStats() {
+    return writeLatency.snapshot();
   }
 
   /**
@@ -357,6 +1300,72 @@ public class EnchantableBlockManager {
     saveFileCache.expireAll();
   }
 
+  /**
+   * Save all unsaved data and wait for pending saves to complete.
+   *
+   * <p>Unsaved regions are written in parallel within the configured time budget. Regions that
+   * are not written in time are stored in a {@link RecoveryDump} and saved on next startup.
+   */
+  public void shutdown() {
+    if (saveScheduler != null) {
+      saveScheduler.cancel();
+    }
+    if (chunkStorage != null) {
+      chunkStorage.getChunks().forEach(this::saveChunk);
+    }
+    if (prefetcher != null) {
+      prefetcher.shutdown();
+    }
+
+    long start = System.nanoTime();
+    long budget = TimeUnit.SECONDS.toNanos(shutdownTimeoutSeconds);
+    saveQueue.setThreads(shutdownThreads);
+
+    RegionFlush flush = new RegionFlush(this.logger, saveQueue);
+    saveFileCache.forEach((region, data) -> {
+      RegionSnapshot snapshot = data.snapshot();
+      if (snapshot != null) {
+        flush.add(region, snapshot);
+      }
+    });
+    List<RegionSnapshot> unwritten = flush.await(budget, 2, TimeUnit.SECONDS);
+
+    if (unwritten.isEmpty()) {
+      if (journal != null) {
+        journal.compactAll();
+      }
+      long remaining = budget - (System.nanoTime() - start);
+      if (!saveQueue.shutdown(remaining, TimeUnit.NANOSECONDS)) {
+        this.logger.warning(() -> String.format(
+            "Timed out waiting for %s regions to save!",
+            saveQueue.getPendingCount()));
+      }
+    } else {
+      try {
+        recoveryDump.write(unwritten);
+        this.logger.warning(() -> String.format(
+            "Timed out saving regions, stored %s regions for recovery on next startup.",
+            unwritten.size()));
+      } catch (IOException e) {
+        this.logger.log(
+            Level.SEVERE,
+            e,
+            () -> "Unable to write recovery dump, " + unwritten.size() + " regions not saved!");
+      }
+      // Do not wait for writes that are still in progress, their data is in the dump.
+      saveQueue.shutdown(0, TimeUnit.NANOSECONDS);
+    }
+
+    if (journal != null) {
+      journal.close();
+    }
+    try {
+      blockStorage.close();
+    } catch (IOException e) {
+      this.logger.log(Level.WARNING, e, e::getMessage);
+    }
+  }
+
   /**
    * Get the path for a {@link Chunk Chunk's} {@link ConfigurationSection} from a {@link Block}.
    *
@@ -385,8 +1394,8 @@ public class EnchantableBlockManager {
    * @param chunkZ the chunk Z coordinate
    * @return the path
    */
-  private static @NotNull String getChunkPath(int chunkX, int chunkZ) {
-    return chunkX + "_" + chunkZ;
+  static @NotNull String getChunkPath(int chunkX, int chunkZ) {
+    return BlockKey.chunkPath(chunkX, chunkZ);
   }
 
   /**
@@ -410,7 +1419,7 @@ public class EnchantableBlockManager {
    */
   @VisibleForTesting
   static @NotNull String getBlockPath(int x, int y, int z) {
-    return x + "_" + y + "_" + z;
+    return BlockKey.blockPath(x, y, z);
   }
 
   /**
@@ -419,7 +1428,11 @@ public class EnchantableBlockManager {
   class RegionStorageData {
 
     private final @NotNull RegionStorage storage;
+    private final boolean unreadable;
+    private boolean unreadableWarned = false;
     private boolean dirty = false;
+    private long dirtySince;
+    private long generation = 0;
 
     /**
      * Construct a new {@code RegionStorageData}.
@@ -427,7 +1440,18 @@ public class EnchantableBlockManager {
      * @param storage the {@link RegionStorage}
      */
     RegionStorageData(@NotNull RegionStorage storage) {
+      this(storage, false);
+    }
+
+    /**
+     * Construct a new {@code RegionStorageData}.
+     *
+     * @param storage the {@link RegionStorage}
+     * @param unreadable whether stored data failed to load and must not be overwritten
+     */
+    RegionStorageData(@NotNull RegionStorage storage, boolean unreadable) {
       this.storage = storage;
+      this.unreadable = unreadable;
     }
 
     /**
@@ -439,27 +1463,100 @@ public class EnchantableBlockManager {
       return storage;
     }
 
+    /**
+     * Check if stored data failed to load. Changes to unreadable regions are never saved.
+     *
+     * @return true if stored data failed to load
+     */
+    boolean isUnreadable() {
+      return unreadable;
+    }
+
+    /**
+     * Warn that changes to an unreadable region will not be saved. The warning is only logged once
+     * per load of the region.
+     */
+    void warnUnreadable() {
+      synchronized (this) {
+        if (unreadableWarned) {
+          return;
+        }
+        unreadableWarned = true;
+      }
+      logger.warning(() -> "Stored data for " + storage.getRegion()
+          + " could not be read, changes will not be saved until it loads successfully.");
+    }
+
     /**
      * Check if the {@link RegionStorage} has unsaved changes.
      *
      * @return true if the {@code RegionStorage} needs to be saved
      */
     boolean isDirty() {
-      if (dirty) {
-        return true;
+      synchronized (this) {
+        if (dirty) {
+          return true;
+        }
+      }
+      RegionBlocks blocks = regionBlocks.get(storage.getRegion());
+      OptionalLong blocksDirtySince =
+          blocks == null ? OptionalLong.empty() : blocks.getDirtySince();
+      synchronized (this) {
+        if (blocksDirtySince.isPresent()) {
+          long since = blocksDirtySince.getAsLong();
+          if (!dirty || since - dirtySince < 0) {
+            dirtySince = since;
+          }
+          dirty = true;
+        }
+        return dirty;
       }
-      final String worldName = storage.getRegion().worldName();
-      dirty = storage.getRegion().anyChunkMatch((chunkX, chunkZ) ->
-          blockMap.get(worldName, chunkX, chunkZ).stream()
-              .anyMatch(EnchantableBlock::isDirty));
-      return dirty;
+    }
+
+    /**
+     * Get the {@link System#nanoTime()} at which the {@link RegionStorage} was first modified since
+     * it was last saved.
+     *
+     * @return the time or {@link OptionalLong#empty()} if there are no unsaved changes
+     */
+    @NotNull OptionalLong getDirtySince() {
+      if (!isDirty()) {
+        return OptionalLong.empty();
+      }
+      synchronized (this) {
+        return dirty ? OptionalLong.of(dirtySince) : OptionalLong.empty();
+      }
+    }
+
+    /**
+     * Get the number of {@link EnchantableBlock EnchantableBlocks} loaded in the region.
+     *
+     * @return the number of loaded blocks
+     */
+    int getBlockCount() {
+      RegionBlocks blocks = regionBlocks.get(storage.getRegion());
+      return blocks == null ? 0 : blocks.size();
+    }
+
+    /**
+     * Get the number of {@link EnchantableBlock EnchantableBlocks} stored in the region, whether or
+     * not they are loaded.
+     *
+     * @return the number of stored blocks
+     */
+    int getStoredBlockCount() {
+      return storage.getBlockCount();
     }
 
     /**
      * Flag the {@link RegionStorage} as having unsaved changes.
      */
-    public void setDirty() {
+    public synchronized void setDirty() {
+      if (!this.dirty) {
+        this.dirtySince = System.nanoTime();
+      }
       this.dirty = true;
+      ++this.generation;
     }
 
     /**
@@ -467,11 +1564,103 @@ public class EnchantableBlockManager {
      * as having been saved since last modification.
      */
     void clean() {
-      this.dirty = false;
-      final String worldName = storage.getRegion().worldName();
-      this.storage.getRegion().forEachChunk((chunkX, chunkZ) ->
-          blockMap.get(worldName, chunkX, chunkZ)
-              .forEach(enchantableBlock -> enchantableBlock.setDirty(false)));
+      synchronized (this) {
+        this.dirty = false;
+      }
+      cleanBlocks();
+    }
+
+    /**
+     * Mark the {@link RegionStorage} as having been saved if it has not been modified since the
+     * given generation.
+     *
+     * @param generation the generation that was saved
+     */
+    synchronized void clean(long generation) {
+      if (this.generation == generation) {
+        this.dirty = false;
+      }
+    }
+
+    /**
+     * Take a snapshot of the {@link RegionStorage} for saving if it has unsaved changes.
+     *
+     * <p>Block modification state is folded into the region's state at the time of the snapshot,
+     * so any later modification will be saved separately. The region is not marked clean until
+     * the snapshot has been written.
+     *
+     * @return the snapshot or {@code null} if there are no changes to save
+     */
+    @Nullable RegionSnapshot snapshot() {
+      if (!isDirty()) {
+        return null;
+      }
+
+      cleanBlocks();
+
+      long snapshotGeneration;
+      synchronized (this) {
+        snapshotGeneration = this.generation;
+      }
+
+      return new RegionSnapshot(this, storage.snapshot(), snapshotGeneration);
+    }
+
+    /**
+     * Record all modified {@link EnchantableBlock EnchantableBlocks} in a {@link RegionJournal}
+     * instead of saving the {@link RegionStorage}. The {@code RegionStorage} remains flagged as
+     * having unsaved changes until the journal is compacted.
+     *
+     * @param journal the {@code RegionJournal}
+     */
+    void journal(@NotNull RegionJournal journal) {
+      List<EnchantableBlock> modified = cleanBlocks();
+      for (EnchantableBlock enchantableBlock : modified) {
+        Block block = enchantableBlock.getBlock();
+        ConfigurationSection section =
+            storage.getConfigurationSection(getChunkPath(block) + '.' + getBlockPath(block));
+        if (section != null) {
+          journal.upsert(block, section);
+        }
+      }
+
+      if (!modified.isEmpty()) {
+        setDirty();
+      }
+
+      if (isDirty()) {
+        journal.track(storage.getRegion());
+      }
+    }
+
+    /**
+     * Write a snapshot of the {@link RegionStorage} to disk using the configured storage engine.
+     * Empty snapshots delete existing data instead.
+     *
+     * <p>If the stored data failed to load, nothing is written so that it is not overwritten. The
+     * write is not treated as a failure, as retrying could never succeed.
+     *
+     * @param snapshot the snapshot to write
+     * @throws IOException if there is an issue writing to disk
+     */
+    void write(@NotNull RegionStorage snapshot) throws IOException {
+      if (unreadable) {
+        warnUnreadable();
+        return;
+      }
+      long start = System.nanoTime();
+      blockStorage.save(snapshot);
+      writeLatency.record(System.nanoTime() - start);
+    }
+
+    /**
+     * Mark all contained {@link EnchantableBlock EnchantableBlocks} as saved.
+     *
+     * @return the blocks that had unsaved changes
+     */
+    private @NotNull List<EnchantableBlock> cleanBlocks() {
+      RegionBlocks blocks = regionBlocks.get(storage.getRegion());
+      return blocks == null ? List.of() : blocks.clean();
     }
   }
 
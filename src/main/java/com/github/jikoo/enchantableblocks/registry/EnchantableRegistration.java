@@ -58,6 +58,20 @@ public abstract class EnchantableRegistration {
       @NotNull final ItemStack itemStack,
       @NotNull ConfigurationSection storage);
 
+  /**
+   * Convert save data written by older versions of the implementation. Called for stored blocks
+   * when data is compacted without the blocks being loaded.
+   *
+   * <p>Implementations converting data in their {@link EnchantableBlock} constructor should apply
+   * the same conversion here.
+   *
+   * @param storage the {@link ConfigurationSection} containing the block's save data
+   * @return true if the save data was modified
+   */
+  public boolean upgradeStorage(@NotNull ConfigurationSection storage) {
+    return false;
+  }
+
   public @NotNull EnchantableBlockConfig getConfig() {
     if (config == null) {
       config = loadFullConfig(plugin.getConfig());
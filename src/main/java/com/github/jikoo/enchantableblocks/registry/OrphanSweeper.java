@@ -0,0 +1,152 @@
+package com.github.jikoo.enchantableblocks.registry;
+
+import com.github.jikoo.enchantableblocks.block.EnchantableBlock;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.TimeUnit;
+import org.bukkit.Chunk;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitRunnable;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.VisibleForTesting;
+
+/**
+ * Task removing stored blocks that no longer exist in the world.
+ *
+ * <p>Blocks destroyed without a break event, such as by explosions, pistons, or other plugins,
+ * leave their data behind. Loaded chunks are checked a few at a time and any loaded
+ * {@link EnchantableBlock} whose block is no longer of a valid type is destroyed through the
+ * manager, removing its data from whichever storage engine is in use.
+ *
+ * <p>Only blocks that are already loaded are checked, so no stored data is ever read. Blocks in
+ * unloaded chunks are validated when their chunk is next loaded, and blocks whose creation was
+ * deferred are validated when they are first requested.
+ *
+ * <p>Each sweep checks the chunks that were loaded when it began. Once all chunks are swept, a new
+ * sweep begins after a delay.
+ */
+class OrphanSweeper extends BukkitRunnable {
+
+  private final @NotNull Plugin plugin;
+  private final @NotNull EnchantableBlockManager manager;
+  private final int chunksPerRun;
+  private final long passIntervalNanos;
+  private final @NotNull Deque<ChunkPosition> chunks = new ArrayDeque<>();
+  private boolean sweeping = false;
+  private long nextPass = System.nanoTime();
+  private int swept = 0;
+  private int purged = 0;
+
+  /**
+   * Construct a new {@code OrphanSweeper}.
+   *
+   * @param plugin the {@link Plugin} owning the data
+   * @param manager the {@link EnchantableBlockManager} managing loaded blocks
+   * @param chunksPerRun the maximum number of chunks to check per run
+   * @param passIntervalMillis the delay between the end of a sweep and the start of the next
+   */
+  OrphanSweeper(
+      @NotNull Plugin plugin,
+      @NotNull EnchantableBlockManager manager,
+      int chunksPerRun,
+      long passIntervalMillis) {
+    this.plugin = plugin;
+    this.manager = manager;
+    this.chunksPerRun = Math.max(1, chunksPerRun);
+    this.passIntervalNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, passIntervalMillis));
+  }
+
+  @Override
+  public void run() {
+    if (!sweeping) {
+      if (System.nanoTime() - nextPass < 0) {
+        return;
+      }
+      for (World world : plugin.getServer().getWorlds()) {
+        for (Chunk chunk : world.getLoadedChunks()) {
+          chunks.add(new ChunkPosition(world.getName(), chunk.getX(), chunk.getZ()));
+        }
+      }
+      sweeping = true;
+      swept = 0;
+      purged = 0;
+    }
+
+    int remaining = chunksPerRun;
+    while (remaining > 0) {
+      ChunkPosition position = chunks.poll();
+      if (position == null) {
+        complete();
+        return;
+      }
+
+      World world = plugin.getServer().getWorld(position.worldName());
+      if (world == null || !world.isChunkLoaded(position.x(), position.z())) {
+        // Never load chunks to check them, blocks are validated when the chunk is next loaded.
+        continue;
+      }
+
+      purged += sweep(world.getChunkAt(position.x(), position.z()));
+      ++swept;
+      --remaining;
+    }
+  }
+
+  /**
+   * Destroy loaded {@link EnchantableBlock EnchantableBlocks} in a {@link Chunk} whose blocks are
+   * no longer of a valid type.
+   *
+   * @param chunk the {@code Chunk}
+   * @return the number of blocks removed
+   */
+  @VisibleForTesting
+  int sweep(@NotNull Chunk chunk) {
+    int removed = 0;
+    for (EnchantableBlock enchantableBlock : manager.getLoadedBlocks(chunk)) {
+      Block block = enchantableBlock.getBlock();
+      if (!enchantableBlock.isCorrectType(block.getType())) {
+        manager.destroyBlock(block);
+        ++removed;
+      }
+    }
+
+    if (removed > 0) {
+      int count = removed;
+      plugin.getLogger().fine(() -> String.format(
+          "Removed %s orphaned blocks in %s chunk %s, %s",
+          count,
+          chunk.getWorld().getName(),
+          chunk.getX(),
+          chunk.getZ()));
+    }
+    return removed;
+  }
+
+  /**
+   * Complete a sweep of all chunks.
+   */
+  private void complete() {
+    sweeping = false;
+    nextPass = System.nanoTime() + passIntervalNanos;
+    if (purged > 0) {
+      int sweptCount = swept;
+      int purgedCount = purged;
+      plugin.getLogger().info(() -> String.format(
+          "Swept %s chunks, removed %s orphaned blocks.",
+          sweptCount,
+          purgedCount));
+    }
+  }
+
+  /**
+   * The position of a {@link Chunk} queued for sweeping.
+   *
+   * @param worldName the name of the world containing the chunk
+   * @param x the chunk X coordinate
+   * @param z the chunk Z coordinate
+   */
+  private record ChunkPosition(@NotNull String worldName, int x, int z) {}
+
+}
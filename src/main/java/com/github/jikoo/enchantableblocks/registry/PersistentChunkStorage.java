@@ -0,0 +1,211 @@
+package com.github.jikoo.enchantableblocks.registry;
+
+import com.github.jikoo.enchantableblocks.util.BlockKey;
+import com.github.jikoo.enchantableblocks.util.storage.BinaryRegionCodec;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.bukkit.Chunk;
+import org.bukkit.NamespacedKey;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.persistence.PersistentDataContainer;
+import org.bukkit.persistence.PersistentDataType;
+import org.bukkit.plugin.Plugin;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.annotations.VisibleForTesting;
+
+/**
+ * Storage of block data in the {@link PersistentDataContainer} of each {@link Chunk}.
+ *
+ * <p>Data is read from the chunk when its blocks are loaded and written back into the chunk when
+ * it changes, so it is saved by the server together with the chunk. Only loaded chunks are kept
+ * in memory.
+ */
+class PersistentChunkStorage {
+
+  private final @NotNull Logger logger;
+  private final @NotNull NamespacedKey key;
+  private final @NotNull Map<String, Long2ObjectMap<ChunkData>> worlds = new HashMap<>();
+
+  /**
+   * Construct a new {@code PersistentChunkStorage}.
+   *
+   * @param plugin the {@link Plugin} owning the data
+   */
+  PersistentChunkStorage(@NotNull Plugin plugin) {
+    this.logger = plugin.getLogger();
+    this.key = new NamespacedKey(plugin, "blocks");
+  }
+
+  /**
+   * Get the {@link ConfigurationSection} containing block data for a {@link Chunk}, reading it
+   * from the chunk if necessary.
+   *
+   * @param chunk the {@code Chunk}
+   * @return the {@code ConfigurationSection}
+   */
+  @NotNull ConfigurationSection getStorage(@NotNull Chunk chunk) {
+    return getData(chunk).section;
+  }
+
+  /**
+   * Flag a {@link Chunk Chunk's} data as having unsaved changes.
+   *
+   * @param chunk the {@code Chunk}
+   */
+  void setDirty(@NotNull Chunk chunk) {
+    getData(chunk).dirty = true;
+  }
+
+  /**
+   * Write a {@link Chunk Chunk's} data into the chunk if it has unsaved changes.
+   *
+   * @param chunk the {@code Chunk}
+   * @param force whether to write the data even if it is not flagged as changed
+   * @return true if data was written
+   */
+  boolean save(@NotNull Chunk chunk, boolean force) {
+    Long2ObjectMap<ChunkData> chunks = worlds.get(chunk.getWorld().getName());
+    ChunkData data = chunks == null ? null : chunks.get(BlockKey.chunk(chunk.getX(), chunk.getZ()));
+    if (data == null || !data.dirty && !force) {
+      return false;
+    }
+
+    write(chunk.getPersistentDataContainer(), chunk.getX(), chunk.getZ(), data.section);
+    data.dirty = false;
+    return true;
+  }
+
+  /**
+   * Remove a {@link Chunk Chunk's} data from memory. Unsaved changes must be
+   * {@link #save(Chunk, boolean) saved} first.
+   *
+   * @param chunk the {@code Chunk}
+   */
+  void unload(@NotNull Chunk chunk) {
+    Long2ObjectMap<ChunkData> chunks = worlds.get(chunk.getWorld().getName());
+    if (chunks != null) {
+      chunks.remove(BlockKey.chunk(chunk.getX(), chunk.getZ()));
+    }
+  }
+
+  /**
+   * Get all {@link Chunk Chunks} with data in memory.
+   *
+   * @return the {@code Chunks}
+   */
+  @NotNull Collection<Chunk> getChunks() {
+    Collection<Chunk> loaded = new ArrayList<>();
+    for (Long2ObjectMap<ChunkData> chunks : worlds.values()) {
+      for (ChunkData data : chunks.values()) {
+        loaded.add(data.chunk);
+      }
+    }
+    return loaded;
+  }
+
+  private @NotNull ChunkData getData(@NotNull Chunk chunk) {
+    return worlds
+        .computeIfAbsent(chunk.getWorld().getName(), name -> new Long2ObjectOpenHashMap<>())
+        .computeIfAbsent(BlockKey.chunk(chunk.getX(), chunk.getZ()), chunkKey -> {
+          ConfigurationSection section = null;
+          try {
+            section = read(chunk.getPersistentDataContainer(), chunk.getX(), chunk.getZ());
+          } catch (IOException | InvalidConfigurationException e) {
+            logger.log(
+                Level.WARNING,
+                e,
+                () -> "Unable to read data for chunk " + chunk.getX() + "_" + chunk.getZ()
+                    + " in " + chunk.getWorld().getName() + ": " + e.getMessage());
+          }
+          if (section == null) {
+            section = new YamlConfiguration().createSection(
+                EnchantableBlockManager.getChunkPath(chunk.getX(), chunk.getZ()));
+          }
+          return new ChunkData(chunk, section);
+        });
+  }
+
+  /**
+   * Read block data from a {@link PersistentDataContainer}.
+   *
+   * @param container the {@code PersistentDataContainer}
+   * @param chunkX the chunk X coordinate
+   * @param chunkZ the chunk Z coordinate
+   * @return the data or {@code null} if no data is stored
+   * @throws IOException if the data cannot be read
+   * @throws InvalidConfigurationException if the data is not valid
+   */
+  @VisibleForTesting
+  @Nullable ConfigurationSection read(
+      @NotNull PersistentDataContainer container,
+      int chunkX,
+      int chunkZ) throws IOException, InvalidConfigurationException {
+    byte[] bytes = container.get(key, PersistentDataType.BYTE_ARRAY);
+    if (bytes == null) {
+      return null;
+    }
+
+    YamlConfiguration root = new YamlConfiguration();
+    BinaryRegionCodec.read(new ByteArrayInputStream(bytes), root);
+    return root.getConfigurationSection(EnchantableBlockManager.getChunkPath(chunkX, chunkZ));
+  }
+
+  /**
+   * Write block data to a {@link PersistentDataContainer}. Empty data is removed instead.
+   *
+   * @param container the {@code PersistentDataContainer}
+   * @param chunkX the chunk X coordinate
+   * @param chunkZ the chunk Z coordinate
+   * @param section the data
+   */
+  @VisibleForTesting
+  void write(
+      @NotNull PersistentDataContainer container,
+      int chunkX,
+      int chunkZ,
+      @NotNull ConfigurationSection section) {
+    if (section.getKeys(false).isEmpty()) {
+      container.remove(key);
+      return;
+    }
+
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try {
+      BinaryRegionCodec.writeChunk(chunkX, chunkZ, section, bytes);
+    } catch (IOException e) {
+      // In-memory streams do not throw.
+      throw new UncheckedIOException(e);
+    }
+    container.set(key, PersistentDataType.BYTE_ARRAY, bytes.toByteArray());
+  }
+
+  /**
+   * In-memory data for a loaded {@link Chunk}.
+   */
+  private static final class ChunkData {
+
+    private final @NotNull Chunk chunk;
+    private final @NotNull ConfigurationSection section;
+    private boolean dirty = false;
+
+    private ChunkData(@NotNull Chunk chunk, @NotNull ConfigurationSection section) {
+      this.chunk = chunk;
+      this.section = section;
+    }
+
+  }
+
+}
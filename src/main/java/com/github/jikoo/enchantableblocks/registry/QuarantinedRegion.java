@@ -0,0 +1,34 @@
+package com.github.jikoo.enchantableblocks.registry;
+
+import com.github.jikoo.enchantableblocks.util.Region;
+import com.github.jikoo.enchantableblocks.util.storage.RegionFormat;
+import java.nio.file.Path;
+import java.time.Instant;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * A region file that could not be read and was moved aside rather than overwritten.
+ *
+ * @param region the {@link Region} the file stores
+ * @param format the {@link RegionFormat} of the file
+ * @param quarantined the time at which the file was quarantined
+ * @param file the location of the file
+ */
+public record QuarantinedRegion(
+    @NotNull Region region,
+    @NotNull RegionFormat format,
+    @NotNull Instant quarantined,
+    @NotNull Path file) {
+
+  @Override
+  public String toString() {
+    return String.format(
+        "%s %s %s (%s, quarantined %s)",
+        region.worldName(),
+        region.x(),
+        region.z(),
+        format.getExtension(),
+        quarantined);
+  }
+
+}
@@ -0,0 +1,133 @@
+package com.github.jikoo.enchantableblocks.registry;
+
+import com.github.jikoo.enchantableblocks.util.Region;
+import com.github.jikoo.enchantableblocks.util.RegionStorage;
+import com.github.jikoo.enchantableblocks.util.storage.BinaryRegionCodec;
+import com.github.jikoo.enchantableblocks.util.storage.FileCommit;
+import com.github.jikoo.enchantableblocks.util.storage.RegionFormat;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.logging.Level;
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.bukkit.plugin.Plugin;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * A single file containing region data that could not be saved in time during shutdown.
+ *
+ * <p>Writing one file with a single sync is much faster than saving each region separately. The
+ * dump is replayed on the next startup, after which it is deleted.
+ */
+final class RecoveryDump {
+
+  private static final int MAGIC = 0x45424400;
+  private static final int VERSION = 1;
+
+  private final @NotNull Plugin plugin;
+  private final @NotNull RegionFormat format;
+  private final @NotNull Path file;
+
+  /**
+   * Construct a new {@code RecoveryDump}.
+   *
+   * @param plugin the {@link Plugin} owning the data
+   * @param format the {@link RegionFormat} used by recovered {@link RegionStorage}
+   */
+  RecoveryDump(@NotNull Plugin plugin, @NotNull RegionFormat format) {
+    this.plugin = plugin;
+    this.format = format;
+    this.file = plugin.getDataFolder().toPath().resolve(Path.of("data", "recovery.dump"));
+  }
+
+  /**
+   * Check if a dump is present on disk.
+   *
+   * @return true if a dump is present
+   */
+  boolean exists() {
+    return Files.exists(file);
+  }
+
+  /**
+   * Write the dump, replacing any existing dump. The dump is durable once this method returns.
+   *
+   * @param snapshots the {@link RegionSnapshot RegionSnapshots} to store
+   * @throws IOException if there is an issue writing to disk
+   */
+  void write(@NotNull Collection<RegionSnapshot> snapshots) throws IOException {
+    FileCommit.write(file, stream -> {
+      DataOutputStream out = new DataOutputStream(stream);
+      out.writeInt(MAGIC);
+      out.writeInt(VERSION);
+      out.writeInt(snapshots.size());
+
+      ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+      for (RegionSnapshot snapshot : snapshots) {
+        Region region = snapshot.storage().getRegion();
+        buffer.reset();
+        BinaryRegionCodec.write(snapshot.storage(), buffer);
+        out.writeUTF(region.worldName());
+        out.writeInt(region.x());
+        out.writeInt(region.z());
+        out.writeInt(buffer.size());
+        buffer.writeTo(out);
+      }
+      out.flush();
+    });
+  }
+
+  /**
+   * Read all regions stored in the dump. Regions that cannot be read are skipped.
+   *
+   * @return the stored data
+   * @throws IOException if there is an issue reading from disk
+   */
+  @NotNull List<RegionStorage> read() throws IOException {
+    List<RegionStorage> regions = new ArrayList<>();
+    try (DataInputStream in = new DataInputStream(
+        new BufferedInputStream(Files.newInputStream(file)))) {
+      if (in.readInt() != MAGIC || in.readInt() > VERSION) {
+        throw new IOException("Unsupported recovery dump " + file);
+      }
+
+      int count = in.readInt();
+      for (int i = 0; i < count; ++i) {
+        Region region = new Region(in.readUTF(), in.readInt(), in.readInt());
+        byte[] data = in.readNBytes(in.readInt());
+        RegionStorage storage = new RegionStorage(plugin, region, format);
+        try {
+          BinaryRegionCodec.read(new ByteArrayInputStream(data), storage);
+          regions.add(storage);
+        } catch (IOException | InvalidConfigurationException e) {
+          plugin.getLogger().log(
+              Level.WARNING,
+              e,
+              () -> "Unable to recover " + region + ": " + e.getMessage());
+        }
+      }
+    } catch (EOFException e) {
+      plugin.getLogger().warning(() -> "Ignored incomplete data at the end of " + file);
+    }
+    return regions;
+  }
+
+  /**
+   * Delete the dump once its contents have been saved.
+   *
+   * @throws IOException if there is an issue deleting the dump
+   */
+  void delete() throws IOException {
+    FileCommit.delete(file);
+  }
+
+}
@@ -0,0 +1,105 @@
+package com.github.jikoo.enchantableblocks.registry;
+
+import com.github.jikoo.enchantableblocks.block.EnchantableBlock;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.Set;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Live state of the {@link EnchantableBlock EnchantableBlocks} loaded in a region.
+ *
+ * <p>Tracked blocks report modification as it happens, so checking a region for unsaved changes
+ * or loaded blocks does not require visiting each of its chunks.
+ */
+final class RegionBlocks {
+
+  private final @NotNull Set<EnchantableBlock> dirty =
+      Collections.newSetFromMap(new IdentityHashMap<>());
+  private int count = 0;
+  private long dirtySince;
+
+  /**
+   * Start tracking an {@link EnchantableBlock}.
+   *
+   * @param block the {@code EnchantableBlock}
+   */
+  synchronized void add(@NotNull EnchantableBlock block) {
+    ++this.count;
+    block.setDirtyListener(this::markDirty);
+    if (block.isDirty()) {
+      markDirty(block);
+    }
+  }
+
+  /**
+   * Stop tracking an {@link EnchantableBlock}.
+   *
+   * @param block the {@code EnchantableBlock}
+   * @return true if no blocks remain tracked
+   */
+  synchronized boolean remove(@NotNull EnchantableBlock block) {
+    block.setDirtyListener(null);
+    this.dirty.remove(block);
+    --this.count;
+    return this.count <= 0;
+  }
+
+  /**
+   * Get the number of tracked {@link EnchantableBlock EnchantableBlocks}.
+   *
+   * @return the number of blocks
+   */
+  synchronized int size() {
+    return this.count;
+  }
+
+  /**
+   * Check if any tracked {@link EnchantableBlock EnchantableBlocks} have unsaved changes.
+   *
+   * @return true if any block needs to be saved
+   */
+  synchronized boolean isDirty() {
+    return !this.dirty.isEmpty();
+  }
+
+  /**
+   * Get the {@link System#nanoTime()} at which a tracked {@link EnchantableBlock} was first
+   * modified since blocks were last saved.
+   *
+   * @return the time or {@link OptionalLong#empty()} if no block needs to be saved
+   */
+  synchronized @NotNull OptionalLong getDirtySince() {
+    return this.dirty.isEmpty() ? OptionalLong.empty() : OptionalLong.of(this.dirtySince);
+  }
+
+  /**
+   * Write pending changes for all modified {@link EnchantableBlock EnchantableBlocks} to their
+   * storage and mark them as saved.
+   *
+   * @return the blocks that were modified
+   */
+  synchronized @NotNull List<EnchantableBlock> clean() {
+    if (this.dirty.isEmpty()) {
+      return List.of();
+    }
+
+    List<EnchantableBlock> cleaned = new ArrayList<>(this.dirty);
+    // Updating storage may re-flag blocks, so only clear once all are up to date.
+    cleaned.forEach(EnchantableBlock::updateStorage);
+    this.dirty.clear();
+    cleaned.forEach(block -> block.setDirty(false));
+    return cleaned;
+  }
+
+  private synchronized void markDirty(@NotNull EnchantableBlock block) {
+    if (this.dirty.isEmpty()) {
+      this.dirtySince = System.nanoTime();
+    }
+    this.dirty.add(block);
+  }
+
+}
@@ -0,0 +1,267 @@
+package com.github.jikoo.enchantableblocks.registry;
+
+import com.github.jikoo.enchantableblocks.util.BlockKey;
+import com.github.jikoo.enchantableblocks.util.Region;
+import com.github.jikoo.enchantableblocks.util.RegionStorage;
+import com.github.jikoo.planarwrappers.util.Coords;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.logging.Level;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.plugin.Plugin;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Compacts stored region files in parallel without loading blocks.
+ *
+ * <p>Entries with invalid coordinates or items are removed, legacy data is
+ * {@link EnchantableRegistration#upgradeStorage(ConfigurationSection) upgraded}, and empty chunk
+ * sections are dropped. Changed files are rewritten atomically. Files that cannot be read are
+ * quarantined.
+ *
+ * <p>Regions must not be in use when compaction starts. If a region is requested by the
+ * {@link EnchantableBlockManager} during compaction, it is either excluded from compaction or the
+ * request waits for its compaction to complete.
+ */
+final class RegionCompactor {
+
+  private final @NotNull Plugin plugin;
+  private final @NotNull EnchantableBlockManager manager;
+  private final @NotNull Set<Region> remaining = ConcurrentHashMap.newKeySet();
+  private final @NotNull Map<Region, CompletableFuture<Void>> active = new ConcurrentHashMap<>();
+
+  /**
+   * Construct a new {@code RegionCompactor}.
+   *
+   * @param plugin the {@link Plugin} owning the data
+   * @param manager the {@link EnchantableBlockManager} using the data
+   * @param regions the {@link Region Regions} to compact
+   */
+  RegionCompactor(
+      @NotNull Plugin plugin,
+      @NotNull EnchantableBlockManager manager,
+      @NotNull Collection<Region> regions) {
+    this.plugin = plugin;
+    this.manager = manager;
+    this.remaining.addAll(regions);
+  }
+
+  /**
+   * Compact all regions on a new {@link ForkJoinPool}.
+   *
+   * @param parallelism the number of worker threads
+   * @return a future completing with the result once all regions are compacted
+   */
+  @NotNull CompletableFuture<CompactionResult> run(int parallelism) {
+    ForkJoinPool pool = new ForkJoinPool(
+        Math.max(1, parallelism),
+        forkJoinPool -> {
+          ForkJoinWorkerThread thread =
+              ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(forkJoinPool);
+          thread.setName("EnchantableBlocks Compaction " + thread.getPoolIndex());
+          thread.setDaemon(true);
+          return thread;
+        },
+        null,
+        false);
+
+    List<Region> regions = new ArrayList<>(remaining);
+    long start = System.nanoTime();
+
+    return CompletableFuture.supplyAsync(
+            () -> regions.parallelStream()
+                .map(this::compact)
+                .reduce(CompactionResult.EMPTY, CompactionResult::add)
+                .withNanos(System.nanoTime() - start),
+            pool)
+        .whenComplete((result, throwable) -> pool.shutdown());
+  }
+
+  /**
+   * Exclude a {@link Region} from compaction so that it may be loaded. If the {@code Region} is
+   * currently being compacted, this method blocks until it is complete.
+   *
+   * @param region the {@code Region}
+   */
+  void exclude(@NotNull Region region) {
+    remaining.remove(region);
+    CompletableFuture<Void> future = active.get(region);
+    if (future != null) {
+      future.join();
+    }
+  }
+
+  /**
+   * Compact a {@link Region} unless it has been excluded.
+   *
+   * @param region the {@code Region}
+   * @return the result
+   */
+  private @NotNull CompactionResult compact(@NotNull Region region) {
+    CompletableFuture<Void> future = new CompletableFuture<>();
+    // Publish before claiming so that an excluding thread always sees active compaction.
+    active.put(region, future);
+    try {
+      if (!remaining.remove(region)) {
+        return new CompactionResult(0, 1, 0, 0, 0, 0, 0, 0, 0);
+      }
+      return compactClaimed(region);
+    } finally {
+      active.remove(region);
+      future.complete(null);
+    }
+  }
+
+  /**
+   * Compact a {@link Region} that has been claimed for compaction.
+   *
+   * @param region the {@code Region}
+   * @return the result
+   */
+  private @NotNull CompactionResult compactClaimed(@NotNull Region region) {
+    // Ensure any pending writes have completed before reading.
+    manager.saveQueue.await(region);
+
+    RegionStorage storage = new RegionStorage(plugin, region, manager.regionFormat);
+    long bytesRead;
+    try {
+      bytesRead = storage.getDataSize();
+      storage.load();
+    } catch (InvalidConfigurationException e) {
+      try {
+        manager.quarantine.quarantine(storage);
+      } catch (IOException ioException) {
+        e.addSuppressed(ioException);
+      }
+      plugin.getLogger().log(
+          Level.WARNING,
+          e,
+          () -> "Unable to compact " + region + ": " + e.getMessage());
+      return new CompactionResult(0, 0, 1, 0, 0, 0, 0, 0, 0);
+    } catch (IOException e) {
+      plugin.getLogger().log(
+          Level.WARNING,
+          e,
+          () -> "Unable to compact " + region + ": " + e.getMessage());
+      return new CompactionResult(0, 0, 1, 0, 0, 0, 0, 0, 0);
+    }
+
+    int removedBlocks = 0;
+    int removedChunks = 0;
+    int upgradedBlocks = 0;
+
+    for (String chunkPath : storage.getKeys(false)) {
+      ConfigurationSection chunk = storage.getConfigurationSection(chunkPath);
+      if (chunk == null || isInvalidChunk(chunkPath, region)) {
+        storage.removeChunk(chunkPath);
+        ++removedChunks;
+        continue;
+      }
+
+      long chunkKey = BlockKey.parseChunk(chunkPath);
+
+      for (String blockKey : chunk.getKeys(false)) {
+        ConfigurationSection block = chunk.getConfigurationSection(blockKey);
+        if (block == null || isInvalidBlock(blockKey, chunkKey, block)) {
+          storage.removeBlock(chunkPath, blockKey);
+          ++removedBlocks;
+          continue;
+        }
+
+        ItemStack itemStack = Objects.requireNonNull(block.getItemStack("itemstack"));
+        EnchantableRegistration registration = manager.getRegistry().get(itemStack.getType());
+        if (registration != null && registration.upgradeStorage(block)) {
+          ++upgradedBlocks;
+        }
+      }
+
+      if (chunk.getKeys(false).isEmpty()) {
+        storage.removeChunk(chunkPath);
+        ++removedChunks;
+      }
+    }
+
+    long bytesWritten = bytesRead;
+    if (removedBlocks > 0 || removedChunks > 0 || upgradedBlocks > 0 || storage.isMigrated()
+        || storage.isRepaired()) {
+      try {
+        if (storage.isEmpty()) {
+          storage.delete();
+        } else {
+          storage.save();
+        }
+        bytesWritten = storage.getDataSize();
+      } catch (IOException e) {
+        plugin.getLogger().log(
+            Level.WARNING,
+            e,
+            () -> "Unable to write compacted " + region + ": " + e.getMessage());
+        return new CompactionResult(0, 0, 1, 0, 0, 0, 0, 0, 0);
+      }
+    }
+
+    return new CompactionResult(
+        1,
+        0,
+        0,
+        removedBlocks,
+        removedChunks,
+        upgradedBlocks,
+        bytesRead,
+        bytesWritten,
+        0);
+  }
+
+  /**
+   * Check if a block entry is invalid and should be removed.
+   *
+   * @param blockKey the block's key
+   * @param chunkKey the packed key of the block's chunk
+   * @param block the block's save data
+   * @return true if the entry is invalid
+   */
+  private boolean isInvalidBlock(
+      @NotNull String blockKey,
+      long chunkKey,
+      @NotNull ConfigurationSection block) {
+    try {
+      BlockKey.parseBlock(blockKey, BlockKey.chunkX(chunkKey), BlockKey.chunkZ(chunkKey));
+    } catch (NumberFormatException e) {
+      return true;
+    }
+
+    ItemStack itemStack = block.getItemStack("itemstack");
+    return EnchantableBlockManager.isInvalidBlock(itemStack)
+        || manager.getRegistry().get(itemStack.getType()) == null;
+  }
+
+  /**
+   * Check if a chunk entry is invalid and should be removed.
+   *
+   * @param chunkPath the chunk's key
+   * @param region the {@link Region} containing the entry
+   * @return true if the entry is invalid
+   */
+  private static boolean isInvalidChunk(@NotNull String chunkPath, @NotNull Region region) {
+    long chunkKey;
+    try {
+      chunkKey = BlockKey.parseChunk(chunkPath);
+    } catch (NumberFormatException e) {
+      return true;
+    }
+    return Coords.chunkToRegion(BlockKey.chunkX(chunkKey)) != region.x()
+        || Coords.chunkToRegion(BlockKey.chunkZ(chunkKey)) != region.z();
+  }
+
+}
@@ -0,0 +1,244 @@
+package com.github.jikoo.enchantableblocks.registry;
+
+import com.github.jikoo.enchantableblocks.util.BlockKey;
+import com.github.jikoo.enchantableblocks.util.Region;
+import com.github.jikoo.enchantableblocks.util.RegionStorage;
+import com.github.jikoo.enchantableblocks.util.storage.RegionFormat;
+import com.github.jikoo.planarwrappers.util.Coords;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.bukkit.plugin.Plugin;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * {@link BlockStorage} in one {@link RegionStorage} file per region.
+ *
+ * <p>Chunk operations read and rewrite the entire file for the chunk's region. Files that cannot
+ * be read when loading a region are moved to the {@link RegionQuarantine} so that saving the
+ * region does not overwrite them, and the region loads empty. If the files cannot be moved,
+ * loading fails instead.
+ */
+class RegionFileStorage implements BlockStorage {
+
+  private static final Pattern REGION_FILE = Pattern.compile("(-?\\d+)_(-?\\d+)\\.(yml|ebr)");
+
+  private final @NotNull Plugin plugin;
+  private final @NotNull RegionFormat format;
+  private final @NotNull RegionQuarantine quarantine;
+
+  /**
+   * Construct a new {@code RegionFileStorage}.
+   *
+   * @param plugin the {@link Plugin} owning the data
+   * @param format the {@link RegionFormat} used to write files
+   */
+  RegionFileStorage(@NotNull Plugin plugin, @NotNull RegionFormat format) {
+    this(plugin, format, new RegionQuarantine(plugin));
+  }
+
+  /**
+   * Construct a new {@code RegionFileStorage}.
+   *
+   * @param plugin the {@link Plugin} owning the data
+   * @param format the {@link RegionFormat} used to write files
+   * @param quarantine the {@link RegionQuarantine} for files that cannot be read
+   */
+  RegionFileStorage(
+      @NotNull Plugin plugin,
+      @NotNull RegionFormat format,
+      @NotNull RegionQuarantine quarantine) {
+    this.plugin = plugin;
+    this.format = format;
+    this.quarantine = quarantine;
+  }
+
+  @Override
+  public boolean exists(@NotNull Region region) {
+    return new RegionStorage(plugin, region, format).exists();
+  }
+
+  @Override
+  public boolean load(@NotNull RegionStorage storage)
+      throws IOException, InvalidConfigurationException {
+    try {
+      storage.load();
+    } catch (InvalidConfigurationException e) {
+      try {
+        quarantine.quarantine(storage);
+      } catch (IOException quarantineFailure) {
+        quarantineFailure.addSuppressed(e);
+        throw new IOException(
+            "Unable to quarantine unreadable " + storage.getRegion() + ": " + e.getMessage(),
+            quarantineFailure);
+      }
+      plugin.getLogger().log(
+          Level.WARNING,
+          e,
+          () -> "Unable to read " + storage.getRegion() + ": " + e.getMessage());
+      // Discard anything read before the failure.
+      storage.clear();
+      return false;
+    }
+    return storage.isMigrated();
+  }
+
+  @Override
+  public void save(@NotNull RegionStorage storage) throws IOException {
+    if (storage.isEmpty()) {
+      storage.delete();
+    } else {
+      storage.save();
+    }
+  }
+
+  @Override
+  public @Nullable ConfigurationSection loadChunk(
+      @NotNull String worldName,
+      int chunkX,
+      int chunkZ) throws IOException, InvalidConfigurationException {
+    RegionStorage storage = getStorage(worldName, chunkX, chunkZ);
+    if (!storage.exists()) {
+      return null;
+    }
+    String chunkPath = EnchantableBlockManager.getChunkPath(chunkX, chunkZ);
+    storage.load(chunkPath::equals);
+    return storage.getConfigurationSection(chunkPath);
+  }
+
+  @Override
+  public synchronized void saveChunk(
+      @NotNull String worldName,
+      int chunkX,
+      int chunkZ,
+      @NotNull ConfigurationSection data) throws IOException {
+    RegionStorage storage = getStorage(worldName, chunkX, chunkZ);
+    loadForUpdate(storage);
+    String path = EnchantableBlockManager.getChunkPath(chunkX, chunkZ);
+    storage.removeChunk(path);
+    RegionStorage.copy(data, storage.createSection(path));
+    storage.recountBlocks();
+    save(storage);
+  }
+
+  @Override
+  public synchronized void deleteChunk(@NotNull String worldName, int chunkX, int chunkZ)
+      throws IOException {
+    RegionStorage storage = getStorage(worldName, chunkX, chunkZ);
+    if (!storage.exists()) {
+      return;
+    }
+    loadForUpdate(storage);
+    storage.removeChunk(EnchantableBlockManager.getChunkPath(chunkX, chunkZ));
+    save(storage);
+  }
+
+  @Override
+  public void forEachChunk(@NotNull String worldName, @NotNull ChunkVisitor visitor)
+      throws IOException {
+    for (Region region : listRegions(plugin, worldName)) {
+      RegionStorage storage = new RegionStorage(plugin, region, format);
+      try {
+        storage.load();
+      } catch (InvalidConfigurationException e) {
+        plugin.getLogger().log(
+            Level.WARNING,
+            e,
+            () -> "Unable to read " + region + ": " + e.getMessage());
+        quarantine(storage);
+        continue;
+      }
+
+      for (String chunkPath : storage.getKeys(false)) {
+        ConfigurationSection chunk = storage.getConfigurationSection(chunkPath);
+        if (chunk == null) {
+          continue;
+        }
+        long chunkKey;
+        try {
+          chunkKey = BlockKey.parseChunk(chunkPath);
+        } catch (NumberFormatException e) {
+          plugin.getLogger().warning(() -> String.format(
+              "Unparseable chunk coordinates in %s: %s",
+              region,
+              chunkPath));
+          continue;
+        }
+        visitor.visit(BlockKey.chunkX(chunkKey), BlockKey.chunkZ(chunkKey), chunk);
+      }
+    }
+  }
+
+  private @NotNull RegionStorage getStorage(@NotNull String worldName, int chunkX, int chunkZ) {
+    return new RegionStorage(
+        plugin,
+        new Region(worldName, Coords.chunkToRegion(chunkX), Coords.chunkToRegion(chunkZ)),
+        format);
+  }
+
+  /**
+   * Move unreadable data into quarantine. If the data cannot be moved, it is left in place.
+   *
+   * @param storage the {@link RegionStorage} that failed to load
+   */
+  private void quarantine(@NotNull RegionStorage storage) {
+    try {
+      quarantine.quarantine(storage);
+    } catch (IOException e) {
+      plugin.getLogger().log(
+          Level.SEVERE,
+          e,
+          () -> "Unable to quarantine unreadable " + storage.getRegion() + ": " + e.getMessage());
+    }
+  }
+
+  private static void loadForUpdate(@NotNull RegionStorage storage) throws IOException {
+    try {
+      storage.load();
+    } catch (InvalidConfigurationException e) {
+      // Refuse to overwrite data that cannot be read.
+      throw new IOException("Unable to read " + storage.getRegion(), e);
+    }
+  }
+
+  /**
+   * List all {@link Region Regions} with files stored in a world, in any {@link RegionFormat}.
+   *
+   * @param plugin the {@link Plugin} owning the data
+   * @param worldName the name of the world
+   * @return the {@code Regions}
+   * @throws IOException if there is an issue reading the directory
+   */
+  static @NotNull Collection<Region> listRegions(@NotNull Plugin plugin, @NotNull String worldName)
+      throws IOException {
+    Set<Region> regions = new LinkedHashSet<>();
+    Path directory = plugin.getDataFolder().toPath().resolve(Path.of("data", worldName));
+    if (!Files.isDirectory(directory)) {
+      return regions;
+    }
+
+    try (Stream<Path> files = Files.list(directory)) {
+      files.forEach(file -> {
+        Matcher matcher = REGION_FILE.matcher(file.getFileName().toString());
+        if (matcher.matches()) {
+          regions.add(new Region(
+              worldName,
+              Integer.parseInt(matcher.group(1)),
+              Integer.parseInt(matcher.group(2))));
+        }
+      });
+    }
+    return regions;
+  }
+
+}
@@ -0,0 +1,146 @@
+package com.github.jikoo.enchantableblocks.registry;
+
+import com.github.jikoo.enchantableblocks.util.Region;
+import com.github.jikoo.enchantableblocks.util.storage.FileCommit;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Logger;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Writes many {@link RegionSnapshot RegionSnapshots} in parallel within a time budget.
+ *
+ * <p>Snapshots are queued on the {@link RegionSaveQueue} without blocking the submitting thread.
+ * Once the budget is exhausted, snapshots that have not been written are claimed so that they
+ * will not be written later and returned to the caller, along with any that failed or are still
+ * being written.
+ */
+final class RegionFlush {
+
+  private final @NotNull Logger logger;
+  private final @NotNull RegionSaveQueue saveQueue;
+  private final @NotNull List<Entry> entries = new ArrayList<>();
+
+  /**
+   * Construct a new {@code RegionFlush}.
+   *
+   * @param logger the {@link Logger} used to report progress
+   * @param saveQueue the {@link RegionSaveQueue} used to write data
+   */
+  RegionFlush(@NotNull Logger logger, @NotNull RegionSaveQueue saveQueue) {
+    this.logger = logger;
+    this.saveQueue = saveQueue;
+  }
+
+  /**
+   * Queue a {@link RegionSnapshot} to be written.
+   *
+   * @param region the {@link Region} the snapshot represents
+   * @param snapshot the {@code RegionSnapshot}
+   */
+  void add(@NotNull Region region, @NotNull RegionSnapshot snapshot) {
+    Entry entry = new Entry(
+        snapshot,
+        new AtomicBoolean(),
+        new AtomicBoolean(),
+        new CompletableFuture<>());
+    saveQueue.submitUnbounded(region, () -> write(entry));
+    entries.add(entry);
+  }
+
+  private void write(@NotNull Entry entry) throws IOException {
+    if (!entry.claimed().compareAndSet(false, true)) {
+      return;
+    }
+    try {
+      entry.snapshot().write();
+    } catch (IOException | RuntimeException e) {
+      entry.failed().set(true);
+      entry.done().complete(null);
+      throw e;
+    }
+    FileCommit.whenCommitted(throwable -> {
+      if (throwable != null) {
+        entry.failed().set(true);
+      }
+      entry.done().complete(null);
+    });
+  }
+
+  /**
+   * Wait for all queued snapshots to be written, logging progress periodically.
+   *
+   * @param timeout the maximum time to wait
+   * @param progressInterval the time between progress reports
+   * @param unit the unit of the times
+   * @return the snapshots that were not written
+   */
+  @NotNull List<RegionSnapshot> await(long timeout, long progressInterval, @NotNull TimeUnit unit) {
+    if (entries.isEmpty()) {
+      return List.of();
+    }
+
+    long start = System.nanoTime();
+    long deadline = start + unit.toNanos(timeout);
+    long interval = Math.max(1, unit.toNanos(progressInterval));
+    CompletableFuture<Void> all = CompletableFuture.allOf(entries.stream()
+        .map(Entry::done)
+        .toArray(CompletableFuture[]::new));
+
+    while (!all.isDone()) {
+      long remaining = deadline - System.nanoTime();
+      if (remaining <= 0) {
+        break;
+      }
+      try {
+        all.get(Math.min(remaining, interval), TimeUnit.NANOSECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        break;
+      } catch (ExecutionException | TimeoutException e) {
+        logger.info(() -> String.format(
+            "Saving regions: %s/%s",
+            entries.stream().filter(entry -> entry.done().isDone()).count(),
+            entries.size()));
+      }
+    }
+
+    List<RegionSnapshot> unwritten = new ArrayList<>();
+    for (Entry entry : entries) {
+      // Claim unstarted writes so that they do not race with recovery.
+      entry.claimed().set(true);
+      if (!entry.done().isDone() || entry.failed().get()) {
+        unwritten.add(entry.snapshot());
+      }
+    }
+
+    long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    logger.info(() -> String.format(
+        "Saved %s/%s regions in %sms.",
+        entries.size() - unwritten.size(),
+        entries.size(),
+        millis));
+    return unwritten;
+  }
+
+  /**
+   * A queued snapshot and its state.
+   *
+   * @param snapshot the {@link RegionSnapshot}
+   * @param claimed whether the snapshot has been claimed for writing or recovery
+   * @param failed whether the snapshot failed to write
+   * @param done a future completing once the write has finished or failed
+   */
+  private record Entry(
+      @NotNull RegionSnapshot snapshot,
+      @NotNull AtomicBoolean claimed,
+      @NotNull AtomicBoolean failed,
+      @NotNull CompletableFuture<Void> done) {}
+
+}
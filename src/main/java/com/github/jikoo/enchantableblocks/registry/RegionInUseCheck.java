@@ -3,12 +3,7 @@ package com.github.jikoo.enchantableblocks.registry;
 import com.github.jikoo.enchantableblocks.registry.EnchantableBlockManager.RegionStorageData;
 import com.github.jikoo.enchantableblocks.util.Region;
 import com.github.jikoo.enchantableblocks.util.RegionStorage;
-import java.io.IOException;
-import java.nio.file.Files;
-import java.util.Collection;
 import java.util.function.BiPredicate;
-import java.util.logging.Level;
-import java.util.logging.Logger;
 import org.bukkit.Bukkit;
 import org.bukkit.World;
 import org.jetbrains.annotations.NotNull;
@@ -16,10 +11,27 @@ import org.jetbrains.annotations.Nullable;
 
 /**
  * A {@link BiPredicate} used to periodically save data and determine if it is still in use.
+ *
+ * <p>Unsaved data is snapshotted on the calling thread and written by the {@link RegionSaveQueue}.
+ * If a {@link RegionJournal} is provided, changes to data in use are journaled instead. If saves
+ * are scheduled, data in use is left for the {@link RegionSaveScheduler} and only data that is no
+ * longer in use is saved.
  */
-record RegionInUseCheck(@NotNull Logger logger)
+record RegionInUseCheck(
+    @NotNull RegionSaveQueue saveQueue,
+    @Nullable RegionJournal journal,
+    boolean scheduled)
     implements BiPredicate<@NotNull Region, @Nullable RegionStorageData> {
 
+  /**
+   * Construct a new {@code RegionInUseCheck} without journaling or scheduled saves.
+   *
+   * @param saveQueue the {@link RegionSaveQueue} used to write data
+   */
+  RegionInUseCheck(@NotNull RegionSaveQueue saveQueue) {
+    this(saveQueue, null, false);
+  }
+
   @Override
   public boolean test(@NotNull Region key, @Nullable RegionStorageData value) {
     if (value == null) {
@@ -28,37 +40,23 @@ record RegionInUseCheck(@NotNull Logger logger)
 
     RegionStorage storage = value.getStorage();
     World world = Bukkit.getWorld(storage.getRegion().worldName());
-    boolean loaded = world != null && storage.getRegion().anyChunkMatch(world::isChunkLoaded);
-    boolean dirty = value.isDirty();
+    // Blocks are only tracked while their chunk is loaded, so skip checking chunks if any are.
+    boolean loaded = value.getBlockCount() > 0
+        || world != null && storage.getRegion().anyChunkMatch(world::isChunkLoaded);
 
-    if (!dirty) {
-      return loaded;
+    if (loaded && journal() != null) {
+      value.journal(journal());
+      return true;
     }
 
-    Collection<String> keys = storage.getKeys(true);
-    boolean delete = true;
-    for (String path : keys) {
-      if (storage.get(path) != null) {
-        delete = false;
-        break;
-      }
+    if (loaded && scheduled()) {
+      return true;
     }
 
-    if (delete) {
-      try {
-        Files.deleteIfExists(storage.getDataFile().toPath());
-        value.clean();
-      } catch (IOException e) {
-        logger().log(Level.WARNING, e, e::getMessage);
-      }
-      return loaded;
-    }
+    RegionSnapshot snapshot = value.snapshot();
 
-    try {
-      storage.save();
-      value.clean();
-    } catch (IOException e) {
-      logger().log(Level.WARNING, e, e::getMessage);
+    if (snapshot != null) {
+      saveQueue().submit(key, snapshot::write);
     }
 
     return loaded;
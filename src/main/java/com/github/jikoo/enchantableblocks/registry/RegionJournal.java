@@ -0,0 +1,495 @@
+package com.github.jikoo.enchantableblocks.registry;
+
+import com.github.jikoo.enchantableblocks.registry.EnchantableBlockManager.RegionStorageData;
+import com.github.jikoo.enchantableblocks.util.Region;
+import com.github.jikoo.enchantableblocks.util.RegionStorage;
+import com.github.jikoo.enchantableblocks.util.storage.BinaryRegionCodec;
+import com.github.jikoo.enchantableblocks.util.storage.BlockJournal;
+import com.github.jikoo.enchantableblocks.util.storage.BlockJournal.Entry;
+import com.github.jikoo.enchantableblocks.util.storage.BlockJournal.Operation;
+import com.github.jikoo.planarwrappers.util.Coords;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.bukkit.block.Block;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.annotations.VisibleForTesting;
+
+/**
+ * Journaling of block changes for an {@link EnchantableBlockManager}.
+ *
+ * <p>While journaling is enabled, regions in use are not rewritten every autosave. Instead,
+ * changed blocks are appended to a per-world {@link BlockJournal}, which is written to disk in
+ * small batches. Once a journal grows past the compaction threshold, all regions it touched are
+ * saved and the journal is discarded. On startup, any remaining journal is replayed.
+ *
+ * <p>Appending never saves regions itself. Compaction is only flagged as due and is performed by
+ * {@link #tick()}, which snapshots a limited number of regions each tick so that compacting a
+ * journal touching many regions does not stall the server.
+ */
+class RegionJournal {
+
+  private final @NotNull EnchantableBlockManager manager;
+  private final @NotNull Logger logger;
+  private final @NotNull Path dataDirectory;
+  private final long compactBytes;
+  private final long syncDelayMillis;
+  private final int compactRegionsPerTick;
+  private final @NotNull ScheduledThreadPoolExecutor executor;
+  private final @NotNull Map<String, WorldJournal> worlds = new ConcurrentHashMap<>();
+
+  /**
+   * Construct a new {@code RegionJournal}.
+   *
+   * @param manager the {@link EnchantableBlockManager} whose regions are journaled
+   * @param logger the {@link Logger} used to report issues
+   * @param dataDirectory the directory containing world data
+   * @param compactBytes the journal size at which regions are saved and the journal is discarded
+   * @param syncDelayMillis the delay used to batch journal writes
+   * @param compactRegionsPerTick the maximum number of regions to save per tick when compacting
+   */
+  RegionJournal(
+      @NotNull EnchantableBlockManager manager,
+      @NotNull Logger logger,
+      @NotNull Path dataDirectory,
+      long compactBytes,
+      long syncDelayMillis,
+      int compactRegionsPerTick) {
+    this.manager = manager;
+    this.logger = logger;
+    this.dataDirectory = dataDirectory;
+    this.compactBytes = Math.max(1, compactBytes);
+    this.syncDelayMillis = Math.max(0, syncDelayMillis);
+    this.compactRegionsPerTick = Math.max(1, compactRegionsPerTick);
+    this.executor = new ScheduledThreadPoolExecutor(1, runnable -> {
+      Thread thread = new Thread(runnable, "EnchantableBlocks Journal");
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  /**
+   * Record the creation or modification of a block.
+   *
+   * @param block the {@link Block}
+   * @param storage the {@link ConfigurationSection} containing the block's data
+   */
+  void upsert(@NotNull Block block, @NotNull ConfigurationSection storage) {
+    ByteArrayOutputStream data = new ByteArrayOutputStream();
+    try {
+      BinaryRegionCodec.write(storage, data);
+    } catch (IOException e) {
+      // In-memory streams do not throw.
+      throw new UncheckedIOException(e);
+    }
+    append(
+        new Region(block),
+        new Entry(Operation.UPSERT, block.getX(), block.getY(), block.getZ(), data.toByteArray()));
+  }
+
+  /**
+   * Record the removal of a block.
+   *
+   * @param block the {@link Block}
+   */
+  void destroy(@NotNull Block block) {
+    append(
+        new Region(block),
+        new Entry(Operation.DESTROY, block.getX(), block.getY(), block.getZ(), new byte[0]));
+  }
+
+  /**
+   * Track a {@link Region} with unsaved changes so that it is saved when the journal is compacted.
+   *
+   * @param region the {@code Region}
+   */
+  void track(@NotNull Region region) {
+    WorldJournal journal = getJournal(region.worldName());
+    if (journal != null) {
+      journal.regions.add(region);
+    }
+  }
+
+  private void append(@NotNull Region region, @NotNull Entry entry) {
+    WorldJournal journal = getJournal(region.worldName());
+    if (journal == null) {
+      return;
+    }
+
+    journal.journal.append(entry);
+    journal.regions.add(region);
+
+    if (journal.syncScheduled.compareAndSet(false, true)) {
+      try {
+        executor.schedule(() -> sync(journal), syncDelayMillis, TimeUnit.MILLISECONDS);
+      } catch (RejectedExecutionException e) {
+        // Journal is closing, data will be written on close.
+        journal.syncScheduled.set(false);
+      }
+    }
+
+    if (journal.journal.getSegmentSize() >= compactBytes) {
+      // Compacting snapshots and saves regions, leave that to the next tick.
+      journal.compactionDue = true;
+    }
+  }
+
+  private void sync(@NotNull WorldJournal journal) {
+    journal.syncScheduled.set(false);
+    try {
+      journal.journal.sync();
+    } catch (IOException e) {
+      logger.log(
+          Level.WARNING,
+          e,
+          () -> "Unable to write journal for " + journal.worldName + ": " + e.getMessage());
+    }
+  }
+
+  /**
+   * Continue any compaction that is due, saving up to the configured number of regions. Must be
+   * called from the main thread every tick.
+   */
+  void tick() {
+    for (WorldJournal journal : worlds.values()) {
+      compact(journal, compactRegionsPerTick);
+    }
+  }
+
+  /**
+   * Save all regions with journaled changes and discard the journals once saved.
+   */
+  void compactAll() {
+    for (WorldJournal journal : worlds.values()) {
+      journal.compactionDue = true;
+      compact(journal, Integer.MAX_VALUE);
+    }
+  }
+
+  /**
+   * Get the most recently started compaction of a world's journal.
+   *
+   * @param worldName the name of the world
+   * @return a future completing once the compaction's segments are discarded
+   */
+  @VisibleForTesting
+  @NotNull CompletableFuture<Void> getCompaction(@NotNull String worldName) {
+    WorldJournal journal = worlds.get(worldName);
+    return journal == null ? CompletableFuture.completedFuture(null) : journal.compaction;
+  }
+
+  /**
+   * Begin or continue compacting a journal if compaction is due.
+   *
+   * @param journal the {@link WorldJournal}
+   * @param limit the maximum number of regions to save
+   */
+  private void compact(@NotNull WorldJournal journal, int limit) {
+    Compaction compaction = journal.pending;
+    if (compaction == null) {
+      if (!journal.compactionDue || !journal.compaction.isDone()) {
+        return;
+      }
+      compaction = seal(journal);
+      if (compaction == null) {
+        return;
+      }
+      journal.compactionDue = false;
+      journal.pending = compaction;
+    }
+
+    for (int i = 0; i < limit && !compaction.remaining.isEmpty(); ++i) {
+      Region region = compaction.remaining.poll();
+      RegionStorageData data = manager.saveFileCache.containsKey(region)
+          ? manager.saveFileCache.get(region, false)
+          : null;
+      RegionSnapshot snapshot = data == null ? null : data.snapshot();
+      AtomicBoolean failed = compaction.failed;
+
+      // If there is nothing to write, wait for any earlier saves to complete. Compaction is
+      // already spread over ticks, so never block the main thread waiting for queue space.
+      compaction.writes.add(manager.saveQueue.submitUnbounded(region, () -> {
+        if (snapshot == null) {
+          return;
+        }
+        try {
+          snapshot.write();
+        } catch (IOException e) {
+          failed.set(true);
+          throw e;
+        }
+      }));
+    }
+
+    if (compaction.remaining.isEmpty()) {
+      journal.pending = null;
+      finish(journal, compaction);
+    }
+  }
+
+  /**
+   * Seal the current segment of a journal and collect the regions it touched.
+   *
+   * @param journal the {@link WorldJournal}
+   * @return the {@link Compaction} or {@code null} if the journal is closing
+   */
+  private @Nullable Compaction seal(@NotNull WorldJournal journal) {
+    long sealed = journal.journal.seal();
+    CompletableFuture<Void> synced;
+    try {
+      // Ensure the sealed segment is on disk in case saving is interrupted.
+      synced = CompletableFuture.runAsync(() -> sync(journal), executor);
+    } catch (RejectedExecutionException e) {
+      return null;
+    }
+
+    List<Region> regions = new ArrayList<>(journal.regions);
+    regions.forEach(journal.regions::remove);
+    Compaction compaction = new Compaction(sealed, regions);
+    compaction.writes.add(synced);
+    return compaction;
+  }
+
+  /**
+   * Discard the sealed segments of a journal once all of its regions are saved.
+   *
+   * @param journal the {@link WorldJournal}
+   * @param compaction the completed {@link Compaction}
+   */
+  private void finish(@NotNull WorldJournal journal, @NotNull Compaction compaction) {
+    try {
+      journal.compaction = CompletableFuture.allOf(
+              compaction.writes.toArray(new CompletableFuture[0]))
+          .thenRunAsync(() -> {
+            if (compaction.failed.get()) {
+              // Keep the journal and retry with the next compaction.
+              journal.regions.addAll(compaction.regions);
+              return;
+            }
+            try {
+              journal.journal.deleteThrough(compaction.sealed);
+            } catch (IOException e) {
+              logger.log(
+                  Level.WARNING,
+                  e,
+                  () -> "Unable to delete journal for " + journal.worldName + ": "
+                      + e.getMessage());
+            }
+          }, executor);
+    } catch (RejectedExecutionException e) {
+      // Journal is closing, it will be replayed on next startup.
+    }
+  }
+
+  /**
+   * Replay any journals remaining from a previous run and save the affected regions.
+   */
+  void recover() {
+    File[] worldDirectories = dataDirectory.toFile().listFiles(File::isDirectory);
+    if (worldDirectories == null) {
+      return;
+    }
+
+    for (File worldDirectory : worldDirectories) {
+      String worldName = worldDirectory.getName();
+      WorldJournal journal = getJournal(worldName);
+      if (journal == null) {
+        continue;
+      }
+
+      List<Path> segments;
+      try {
+        segments = journal.journal.getSegments();
+      } catch (IOException e) {
+        logger.log(Level.WARNING, e, () -> "Unable to list journal for " + worldName);
+        continue;
+      }
+
+      if (segments.isEmpty()) {
+        continue;
+      }
+
+      AtomicInteger count = new AtomicInteger();
+      for (Path segment : segments) {
+        try {
+          boolean complete = BlockJournal.replay(segment, entry -> {
+            apply(worldName, entry);
+            journal.regions.add(new Region(
+                worldName,
+                Coords.blockToRegion(entry.x()),
+                Coords.blockToRegion(entry.z())));
+            count.incrementAndGet();
+          });
+          if (!complete) {
+            logger.warning(() -> "Ignored incomplete record at the end of " + segment);
+          }
+        } catch (IOException e) {
+          logger.log(Level.WARNING, e, () -> "Unable to read journal " + segment);
+        }
+      }
+
+      logger.info(() -> String.format(
+          "Recovered %s changes from journal for %s",
+          count.get(),
+          worldName));
+
+      journal.compactionDue = true;
+      compact(journal, Integer.MAX_VALUE);
+    }
+  }
+
+  private void apply(@NotNull String worldName, @NotNull Entry entry) {
+    Region region = new Region(
+        worldName,
+        Coords.blockToRegion(entry.x()),
+        Coords.blockToRegion(entry.z()));
+    RegionStorageData data = manager.saveFileCache.get(region);
+    if (data == null) {
+      return;
+    }
+
+    RegionStorage storage = data.getStorage();
+    int chunkX = Coords.blockToChunk(entry.x());
+    int chunkZ = Coords.blockToChunk(entry.z());
+    String chunkPath = EnchantableBlockManager.getChunkPath(chunkX, chunkZ);
+    String blockPath = EnchantableBlockManager.getBlockPath(entry.x(), entry.y(), entry.z());
+    ConfigurationSection chunkSection = storage.getConfigurationSection(chunkPath);
+
+    if (entry.operation() == Operation.DESTROY) {
+      if (chunkSection != null && storage.removeBlock(chunkPath, blockPath)) {
+        storage.removeChunk(chunkPath);
+        manager.occupancy.remove(worldName, chunkX, chunkZ);
+      }
+    } else {
+      if (chunkSection == null) {
+        manager.occupancy.add(worldName, chunkX, chunkZ);
+      }
+      try {
+        BinaryRegionCodec.read(
+            new ByteArrayInputStream(entry.data()),
+            storage.createBlock(chunkPath, blockPath));
+      } catch (IOException | InvalidConfigurationException e) {
+        logger.log(
+            Level.WARNING,
+            e,
+            () -> "Unable to recover block at " + blockPath + " in " + worldName);
+        return;
+      }
+    }
+
+    data.setDirty();
+  }
+
+  /**
+   * Write all journals to disk and stop the journal thread.
+   */
+  void close() {
+    for (WorldJournal journal : worlds.values()) {
+      try {
+        journal.compaction.get(10, TimeUnit.SECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      } catch (ExecutionException | TimeoutException e) {
+        logger.warning(() -> "Timed out compacting journal for " + journal.worldName);
+      }
+    }
+
+    executor.shutdown();
+    try {
+      if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+        logger.warning("Timed out waiting for journal writes!");
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+
+    for (WorldJournal journal : worlds.values()) {
+      try {
+        journal.journal.close();
+      } catch (IOException e) {
+        logger.log(Level.WARNING, e, () -> "Unable to close journal for " + journal.worldName);
+      }
+    }
+    worlds.clear();
+  }
+
+  private @Nullable WorldJournal getJournal(@NotNull String worldName) {
+    try {
+      return worlds.computeIfAbsent(worldName, name -> {
+        try {
+          return new WorldJournal(name, BlockJournal.open(dataDirectory.resolve(name)));
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+      });
+    } catch (UncheckedIOException e) {
+      logger.log(Level.WARNING, e, () -> "Unable to open journal for " + worldName);
+      return null;
+    }
+  }
+
+  /**
+   * The journal and journaling state for a single world.
+   */
+  private static final class WorldJournal {
+
+    private final @NotNull String worldName;
+    private final @NotNull BlockJournal journal;
+    private final @NotNull Set<Region> regions = ConcurrentHashMap.newKeySet();
+    private final @NotNull AtomicBoolean syncScheduled = new AtomicBoolean();
+    private volatile @NotNull CompletableFuture<Void> compaction =
+        CompletableFuture.completedFuture(null);
+    private volatile boolean compactionDue = false;
+    // Compaction in progress, only accessed from the main thread.
+    private @Nullable Compaction pending;
+
+    private WorldJournal(@NotNull String worldName, @NotNull BlockJournal journal) {
+      this.worldName = worldName;
+      this.journal = journal;
+    }
+
+  }
+
+  /**
+   * A compaction of sealed journal segments in progress.
+   */
+  private static final class Compaction {
+
+    private final long sealed;
+    private final @NotNull List<Region> regions;
+    private final @NotNull Deque<Region> remaining;
+    private final @NotNull List<CompletableFuture<Void>> writes = new ArrayList<>();
+    private final @NotNull AtomicBoolean failed = new AtomicBoolean();
+
+    private Compaction(long sealed, @NotNull List<Region> regions) {
+      this.sealed = sealed;
+      this.regions = regions;
+      this.remaining = new ArrayDeque<>(regions);
+    }
+
+  }
+
+}
@@ -4,6 +4,9 @@ import com.github.jikoo.enchantableblocks.registry.EnchantableBlockManager.Regio
 import com.github.jikoo.enchantableblocks.util.Region;
 import com.github.jikoo.enchantableblocks.util.RegionStorage;
 import java.io.IOException;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.function.BiFunction;
 import java.util.logging.Level;
 import org.bukkit.configuration.InvalidConfigurationException;
@@ -13,6 +16,9 @@ import org.jetbrains.annotations.Nullable;
 
 /**
  * A {@link BiFunction} used to load data from disk.
+ *
+ * <p>If the data is being {@link RegionPrefetcher prefetched}, the prefetched result is used
+ * instead of reading the data again.
  */
 record RegionLoadFunction(
     @NotNull Plugin plugin,
@@ -21,19 +27,70 @@ record RegionLoadFunction(
 
   @Override
   public @Nullable RegionStorageData apply(@NotNull Region region, @NotNull Boolean create) {
-    RegionStorage storage = new RegionStorage(plugin(), region);
+    RegionPrefetcher prefetcher = manager().prefetcher;
+    CompletableFuture<RegionStorageData> prefetched =
+        prefetcher == null ? null : prefetcher.take(region);
 
-    if (!storage.getDataFile().exists() && Boolean.FALSE.equals(create)) {
-      return null;
+    if (prefetched != null) {
+      try {
+        RegionStorageData data = prefetched.join();
+        if (data != null || Boolean.FALSE.equals(create)) {
+          return data;
+        }
+      } catch (CompletionException | CancellationException e) {
+        // Prefetch failed, fall through to load normally.
+      }
     }
 
+    return load(region, create);
+  }
+
+  /**
+   * Load data from disk.
+   *
+   * @param region the {@link Region} to load
+   * @param create whether to create data if none exists
+   * @return the loaded data or {@code null} if no data exists and it was not to be created
+   */
+  @Nullable RegionStorageData load(@NotNull Region region, boolean create) {
+    // Ensure any pending compaction and writes have completed before reading.
+    manager().awaitCompaction(region);
+    manager().saveQueue.await(region);
+
+    RegionStorage storage = new RegionStorage(plugin(), region, manager().regionFormat);
+    BlockStorage blockStorage = manager().blockStorage;
+    boolean migrated = false;
+    boolean unreadable = false;
+
     try {
-      storage.load();
+      if (!create && !blockStorage.exists(region)) {
+        manager().occupancy.load(region, null);
+        return null;
+      }
+
+      long start = System.nanoTime();
+      migrated = blockStorage.load(storage);
+      manager().readLatency.record(System.nanoTime() - start);
+      manager().occupancy.load(region, storage);
     } catch (@NotNull IOException | InvalidConfigurationException e) {
-      plugin().getLogger().log(Level.WARNING, e, e::getMessage);
+      // Leave the occupancy of unreadable data unknown so that it is read again.
+      plugin().getLogger().log(
+          Level.WARNING,
+          e,
+          () -> "Unable to load " + region + ", it will not be saved: " + e.getMessage());
+      // Stored data is still in place, never overwrite it with whatever was read.
+      unreadable = true;
+      storage.clear();
+    }
+
+    RegionStorageData data = manager().new RegionStorageData(storage, unreadable);
+
+    if (migrated || storage.isRepaired()) {
+      // Data was loaded from another format or moved while loading, save to keep the changes.
+      data.setDirty();
     }
 
-    return manager().new RegionStorageData(storage);
+    return data;
   }
 
 }
@@ -0,0 +1,117 @@
+package com.github.jikoo.enchantableblocks.registry;
+
+import com.github.jikoo.enchantableblocks.registry.EnchantableBlockManager.RegionStorageData;
+import com.github.jikoo.enchantableblocks.util.Region;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Loads region data from disk on worker threads ahead of it being needed on the main thread.
+ *
+ * <p>Requests for the same {@link Region} are coalesced into a single load. The result is held
+ * until the {@link RegionLoadFunction} {@link #take(Region) takes} it while populating the cache.
+ * Results that are not taken within the expiry duration are discarded so that they neither hold
+ * memory nor go stale.
+ */
+class RegionPrefetcher {
+
+  private final @NotNull RegionLoadFunction loadFunction;
+  private final @NotNull ThreadPoolExecutor executor;
+  private final @NotNull Duration expiry;
+  private final @NotNull Map<Region, CompletableFuture<RegionStorageData>> inFlight =
+      new ConcurrentHashMap<>();
+
+  /**
+   * Construct a new {@code RegionPrefetcher}.
+   *
+   * @param loadFunction the {@link RegionLoadFunction} used to read data
+   * @param threads the maximum number of worker threads
+   * @param expiry the duration completed loads are held for
+   */
+  RegionPrefetcher(
+      @NotNull RegionLoadFunction loadFunction,
+      int threads,
+      @NotNull Duration expiry) {
+    this.loadFunction = loadFunction;
+    this.expiry = expiry;
+    int poolSize = Math.max(1, threads);
+    AtomicInteger count = new AtomicInteger();
+    this.executor = new ThreadPoolExecutor(
+        poolSize,
+        poolSize,
+        30,
+        TimeUnit.SECONDS,
+        new LinkedBlockingQueue<>(),
+        runnable -> {
+          Thread thread = new Thread(
+              runnable,
+              "EnchantableBlocks Prefetch " + count.incrementAndGet());
+          thread.setDaemon(true);
+          return thread;
+        });
+    this.executor.allowCoreThreadTimeOut(true);
+  }
+
+  /**
+   * Begin loading data for a {@link Region} if a load is not already in progress.
+   *
+   * @param region the {@code Region}
+   * @return a future completing when the data has been read
+   */
+  @NotNull CompletableFuture<Void> prefetch(@NotNull Region region) {
+    try {
+      return inFlight.computeIfAbsent(region, this::load).thenApply(data -> null);
+    } catch (RejectedExecutionException e) {
+      // Executor is shut down, data will be loaded on demand.
+      return CompletableFuture.completedFuture(null);
+    }
+  }
+
+  private @NotNull CompletableFuture<RegionStorageData> load(@NotNull Region region) {
+    CompletableFuture<RegionStorageData> load =
+        CompletableFuture.supplyAsync(() -> loadFunction.load(region, false), executor);
+    // Discard the result if it is not taken in time.
+    load.whenComplete((data, throwable) -> CompletableFuture.delayedExecutor(
+            expiry.toMillis(), TimeUnit.MILLISECONDS)
+        .execute(() -> inFlight.remove(region, load)));
+    return load;
+  }
+
+  /**
+   * Remove and return the pending or completed load for a {@link Region}.
+   *
+   * @param region the {@code Region}
+   * @return the load or {@code null} if the {@code Region} is not being prefetched
+   */
+  @Nullable CompletableFuture<RegionStorageData> take(@NotNull Region region) {
+    return inFlight.remove(region);
+  }
+
+  /**
+   * Discard any load for a {@link Region}. Used when data is removed from the cache, as a load
+   * started before removal may not reflect data saved on removal.
+   *
+   * @param region the {@code Region}
+   */
+  void invalidate(@NotNull Region region) {
+    inFlight.remove(region);
+  }
+
+  /**
+   * Stop the worker threads and discard all loads.
+   */
+  void shutdown() {
+    executor.shutdownNow();
+    inFlight.clear();
+  }
+
+}
@@ -0,0 +1,157 @@
+package com.github.jikoo.enchantableblocks.registry;
+
+import com.github.jikoo.enchantableblocks.util.Region;
+import com.github.jikoo.enchantableblocks.util.RegionStorage;
+import com.github.jikoo.enchantableblocks.util.storage.RegionFormat;
+import java.io.IOException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.bukkit.plugin.Plugin;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Storage for region files that could not be read.
+ *
+ * <p>Unreadable files are moved to {@code quarantine/<world>/<x>_<z>.<time>.<extension>} so that
+ * later saves of the region cannot overwrite data that may still be recoverable. Quarantined files
+ * are never overwritten.
+ */
+final class RegionQuarantine {
+
+  private static final Pattern QUARANTINED_FILE =
+      Pattern.compile("(-?\\d+)_(-?\\d+)\\.(\\d+)\\.(yml|ebr)");
+
+  private final @NotNull Plugin plugin;
+  private final @NotNull Path directory;
+
+  /**
+   * Construct a new {@code RegionQuarantine}.
+   *
+   * @param plugin the {@link Plugin} owning the data
+   */
+  RegionQuarantine(@NotNull Plugin plugin) {
+    this.plugin = plugin;
+    this.directory = plugin.getDataFolder().toPath().resolve("quarantine");
+  }
+
+  /**
+   * Move all files storing a {@link Region} into quarantine.
+   *
+   * @param storage the {@link RegionStorage} that failed to load
+   * @throws IOException if a file cannot be moved
+   */
+  void quarantine(@NotNull RegionStorage storage) throws IOException {
+    Region region = storage.getRegion();
+    long time = System.currentTimeMillis();
+    for (RegionFormat format : RegionFormat.values()) {
+      Path file = storage.getDataFile(format).toPath();
+      if (!Files.exists(file)) {
+        continue;
+      }
+
+      Path target = move(file, region, format, time);
+      plugin.getLogger().warning(() -> "Quarantined unreadable " + region + " to " + target);
+    }
+  }
+
+  private @NotNull Path move(
+      @NotNull Path file,
+      @NotNull Region region,
+      @NotNull RegionFormat format,
+      long time) throws IOException {
+    Path worldDir = directory.resolve(region.worldName());
+    Files.createDirectories(worldDir);
+
+    // Never replace an existing file; bump the timestamp until the name is free.
+    for (long suffix = time; ; ++suffix) {
+      Path target = worldDir.resolve(String.format(
+          "%s_%s.%s.%s",
+          region.x(),
+          region.z(),
+          suffix,
+          format.getExtension()));
+      try {
+        return Files.move(file, target);
+      } catch (FileAlreadyExistsException e) {
+        // Try the next name.
+      }
+    }
+  }
+
+  /**
+   * List all quarantined files, ordered by world, region, and time quarantined.
+   *
+   * @return the quarantined files
+   * @throws IOException if there is an issue reading the quarantine directory
+   */
+  @NotNull List<QuarantinedRegion> list() throws IOException {
+    List<QuarantinedRegion> quarantined = new ArrayList<>();
+    if (!Files.isDirectory(directory)) {
+      return quarantined;
+    }
+
+    try (Stream<Path> worlds = Files.list(directory)) {
+      for (Path worldDir : worlds.filter(Files::isDirectory).toList()) {
+        String worldName = worldDir.getFileName().toString();
+        try (Stream<Path> files = Files.list(worldDir)) {
+          files.forEach(file -> {
+            Matcher matcher = QUARANTINED_FILE.matcher(file.getFileName().toString());
+            if (matcher.matches()) {
+              quarantined.add(new QuarantinedRegion(
+                  new Region(
+                      worldName,
+                      Integer.parseInt(matcher.group(1)),
+                      Integer.parseInt(matcher.group(2))),
+                  Objects.requireNonNull(RegionFormat.ofExtension(matcher.group(4))),
+                  Instant.ofEpochMilli(Long.parseLong(matcher.group(3))),
+                  file));
+            }
+          });
+        }
+      }
+    }
+
+    quarantined.sort(Comparator.comparing((QuarantinedRegion entry) -> entry.region().worldName())
+        .thenComparingInt(entry -> entry.region().x())
+        .thenComparingInt(entry -> entry.region().z())
+        .thenComparing(QuarantinedRegion::quarantined));
+    return quarantined;
+  }
+
+  /**
+   * Read a quarantined file.
+   *
+   * @param entry the quarantined file
+   * @param format the {@link RegionFormat} the returned {@link RegionStorage} saves in
+   * @return the data
+   * @throws IOException if there is an issue reading from disk
+   * @throws InvalidConfigurationException if the data is still not valid
+   */
+  @NotNull RegionStorage read(@NotNull QuarantinedRegion entry, @NotNull RegionFormat format)
+      throws IOException, InvalidConfigurationException {
+    RegionStorage storage = new RegionStorage(plugin, entry.region(), format);
+    storage.load(entry.file().toFile(), entry.format());
+    return storage;
+  }
+
+  /**
+   * Delete a quarantined file once its data has been recovered.
+   *
+   * @param entry the quarantined file
+   * @throws IOException if there is an issue deleting the file
+   */
+  void delete(@NotNull QuarantinedRegion entry) throws IOException {
+    Files.deleteIfExists(entry.file());
+  }
+
+}
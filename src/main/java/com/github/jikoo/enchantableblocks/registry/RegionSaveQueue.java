@@ -0,0 +1,384 @@
+package com.github.jikoo.enchantableblocks.registry;
+
+import com.github.jikoo.enchantableblocks.util.Region;
+import com.github.jikoo.enchantableblocks.util.storage.FileCommit;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * A queue for performing region disk operations on a dedicated I/O executor.
+ *
+ * <p>Operations for the same {@link Region} are performed in submission order. The number of
+ * queued operations is bounded; once the bound is reached, submitters block until an operation
+ * completes.
+ *
+ * <p>Files written by operations are staged in a {@link FileCommit} and made durable by a single
+ * committer thread, which syncs all files staged since its last commit together. The syncs are
+ * issued concurrently on dedicated sync threads so that the file system may combine them. An
+ * operation is not considered complete until its files are durable.
+ */
+class RegionSaveQueue {
+
+  private static final int SYNC_THREADS = 16;
+
+  private final @NotNull Logger logger;
+  private final @NotNull ThreadPoolExecutor executor;
+  private final @NotNull Semaphore permits;
+  private final @NotNull Map<Region, CompletableFuture<Void>> pending = new ConcurrentHashMap<>();
+  private final @NotNull ScheduledThreadPoolExecutor committer;
+  private final @NotNull ThreadPoolExecutor syncer;
+  private final long commitDelayMillis;
+  private final @NotNull List<FileCommit> staged = new ArrayList<>();
+  private boolean commitScheduled = false;
+  private final @NotNull LongAdder commits = new LongAdder();
+  private final @NotNull LongAdder batches = new LongAdder();
+  private final @NotNull LongAdder commitLatency = new LongAdder();
+  private final @NotNull AtomicLong maxCommitLatency = new AtomicLong();
+
+  /**
+   * Construct a new {@code RegionSaveQueue}.
+   *
+   * @param logger the {@link Logger} used to report failed operations
+   * @param threads the maximum number of I/O threads
+   * @param maxPending the maximum number of queued operations
+   */
+  RegionSaveQueue(@NotNull Logger logger, int threads, int maxPending) {
+    this(logger, threads, maxPending, 0);
+  }
+
+  /**
+   * Construct a new {@code RegionSaveQueue}.
+   *
+   * @param logger the {@link Logger} used to report failed operations
+   * @param threads the maximum number of I/O threads
+   * @param maxPending the maximum number of queued operations
+   * @param commitDelayMillis the time to wait for more files to be staged before syncing
+   */
+  RegionSaveQueue(@NotNull Logger logger, int threads, int maxPending, long commitDelayMillis) {
+    this.logger = logger;
+    this.commitDelayMillis = Math.max(0, commitDelayMillis);
+    this.permits = new Semaphore(Math.max(1, maxPending));
+    int poolSize = Math.max(1, threads);
+    this.executor = new ThreadPoolExecutor(
+        poolSize,
+        poolSize,
+        30,
+        TimeUnit.SECONDS,
+        new LinkedBlockingQueue<>(),
+        new IoThreadFactory("EnchantableBlocks I/O "));
+    this.executor.allowCoreThreadTimeOut(true);
+    this.committer = new ScheduledThreadPoolExecutor(1, runnable -> {
+      Thread thread = new Thread(runnable, "EnchantableBlocks Commit");
+      thread.setDaemon(true);
+      return thread;
+    });
+    this.committer.setKeepAliveTime(30, TimeUnit.SECONDS);
+    this.committer.allowCoreThreadTimeOut(true);
+    // Syncs wait on the disk rather than the CPU, so many files in a batch may be synced at once.
+    this.syncer = new ThreadPoolExecutor(
+        SYNC_THREADS,
+        SYNC_THREADS,
+        30,
+        TimeUnit.SECONDS,
+        new LinkedBlockingQueue<>(),
+        new IoThreadFactory("EnchantableBlocks Sync "));
+    this.syncer.allowCoreThreadTimeOut(true);
+  }
+
+  /**
+   * Submit an operation for a {@link Region}. The operation will not start until all previously
+   * submitted operations for the same {@code Region} have completed.
+   *
+   * <p>If the queue is full, this method blocks until space is available.
+   *
+   * @param region the {@code Region} the operation affects
+   * @param operation the operation
+   * @return a future completing when the operation has been performed
+   */
+  @NotNull CompletableFuture<Void> submit(@NotNull Region region, @NotNull IoOperation operation) {
+    return submit(region, operation, true);
+  }
+
+  /**
+   * Submit an operation for a {@link Region} without waiting for space in the queue. The operation
+   * will not start until all previously submitted operations for the same {@code Region} have
+   * completed.
+   *
+   * <p>Used when flushing many regions at once, where blocking the submitting thread would prevent
+   * operations from being queued while I/O threads are busy.
+   *
+   * @param region the {@code Region} the operation affects
+   * @param operation the operation
+   * @return a future completing when the operation has been performed
+   */
+  @NotNull CompletableFuture<Void> submitUnbounded(
+      @NotNull Region region,
+      @NotNull IoOperation operation) {
+    return submit(region, operation, false);
+  }
+
+  private @NotNull CompletableFuture<Void> submit(
+      @NotNull Region region,
+      @NotNull IoOperation operation,
+      boolean bounded) {
+    if (executor.isShutdown()) {
+      // Executor is shut down, perform operation on the submitting thread.
+      await(region);
+      perform(region, operation).join();
+      return CompletableFuture.completedFuture(null);
+    }
+
+    if (bounded) {
+      permits.acquireUninterruptibly();
+    }
+
+    CompletableFuture<Void> tail;
+    try {
+      tail = pending.compute(region, (key, previous) ->
+          (previous == null ? CompletableFuture.<Void>completedFuture(null) : previous)
+              .thenComposeAsync(ignored -> perform(key, operation), executor));
+    } catch (RejectedExecutionException e) {
+      // Executor was shut down during submission.
+      if (bounded) {
+        permits.release();
+      }
+      await(region);
+      perform(region, operation).join();
+      return CompletableFuture.completedFuture(null);
+    }
+
+    tail.whenComplete((ignored, throwable) -> {
+      pending.remove(region, tail);
+      if (bounded) {
+        permits.release();
+      }
+    });
+
+    return tail;
+  }
+
+  /**
+   * Wait for all pending operations for a {@link Region} to complete.
+   *
+   * @param region the {@code Region}
+   */
+  void await(@NotNull Region region) {
+    CompletableFuture<Void> future = pending.get(region);
+    if (future != null) {
+      future.join();
+    }
+  }
+
+  /**
+   * Change the number of I/O threads.
+   *
+   * @param threads the maximum number of I/O threads
+   */
+  void setThreads(int threads) {
+    int poolSize = Math.max(1, threads);
+    // The core size may never exceed the maximum size, so order changes accordingly.
+    if (poolSize > executor.getMaximumPoolSize()) {
+      executor.setMaximumPoolSize(poolSize);
+      executor.setCorePoolSize(poolSize);
+    } else {
+      executor.setCorePoolSize(poolSize);
+      executor.setMaximumPoolSize(poolSize);
+    }
+  }
+
+  /**
+   * Get the number of {@link Region Regions} with pending operations.
+   *
+   * @return the number of pending {@code Regions}
+   */
+  int getPendingCount() {
+    return pending.size();
+  }
+
+  /**
+   * Get statistics describing the latency of making written files durable.
+   *
+   * @return the statistics
+   */
+  @NotNull CommitStats getCommitStats() {
+    return new CommitStats(
+        commits.sum(),
+        batches.sum(),
+        commitLatency.sum(),
+        maxCommitLatency.get());
+  }
+
+  /**
+   * Stop accepting new operations on the I/O executor and wait for pending operations to complete.
+   * Operations submitted after shutdown begins are performed on the submitting thread.
+   *
+   * @param timeout the maximum time to wait
+   * @param unit the unit of the timeout
+   * @return true if all operations completed
+   */
+  boolean shutdown(long timeout, @NotNull TimeUnit unit) {
+    CompletableFuture<?>[] futures = pending.values().toArray(new CompletableFuture[0]);
+    executor.shutdown();
+    try {
+      CompletableFuture.allOf(futures).get(Math.max(0, timeout), unit);
+      return true;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return false;
+    } catch (ExecutionException | TimeoutException e) {
+      return false;
+    } finally {
+      // Already scheduled commits still run, later commits are applied on the staging thread.
+      committer.shutdown();
+      // Once shut down, syncs are performed on the committing thread.
+      syncer.shutdown();
+    }
+  }
+
+  /**
+   * Perform an operation, staging any files written.
+   *
+   * @param region the {@link Region} the operation affects
+   * @param operation the operation
+   * @return a future completing once the operation's files are durable
+   */
+  private @NotNull CompletableFuture<Void> perform(
+      @NotNull Region region,
+      @NotNull IoOperation operation) {
+    FileCommit commit = FileCommit.begin();
+    try {
+      operation.run();
+    } catch (IOException | RuntimeException e) {
+      logger.log(Level.WARNING, e, () -> "Unable to save " + region + ": " + e.getMessage());
+    } finally {
+      commit.close();
+    }
+
+    return commit(commit).exceptionally(throwable -> {
+      Throwable cause = throwable instanceof CompletionException ? throwable.getCause() : throwable;
+      logger.log(
+          Level.WARNING,
+          cause,
+          () -> "Unable to save " + region + ": " + cause.getMessage());
+      return null;
+    });
+  }
+
+  /**
+   * Queue a {@link FileCommit} to be applied with any others staged before the committer runs.
+   *
+   * @param commit the {@code FileCommit}
+   * @return a future completing once the commit's files are durable
+   */
+  private @NotNull CompletableFuture<Void> commit(@NotNull FileCommit commit) {
+    if (commit.isEmpty()) {
+      FileCommit.apply(List.of(commit));
+      return commit.getCommitted();
+    }
+
+    boolean scheduled;
+    synchronized (staged) {
+      staged.add(commit);
+      if (!commitScheduled) {
+        try {
+          committer.schedule(this::applyStaged, commitDelayMillis, TimeUnit.MILLISECONDS);
+          commitScheduled = true;
+        } catch (RejectedExecutionException e) {
+          // Committer is shut down.
+        }
+      }
+      scheduled = commitScheduled;
+    }
+
+    if (!scheduled) {
+      // Apply on the staging thread.
+      applyStaged();
+    }
+
+    return commit.getCommitted();
+  }
+
+  /**
+   * Apply all staged {@link FileCommit FileCommits} as a single batch.
+   */
+  private void applyStaged() {
+    List<FileCommit> batch;
+    synchronized (staged) {
+      batch = new ArrayList<>(staged);
+      staged.clear();
+      commitScheduled = false;
+    }
+
+    if (batch.isEmpty()) {
+      return;
+    }
+
+    FileCommit.apply(batch, syncer);
+
+    long now = System.nanoTime();
+    batches.increment();
+    for (FileCommit commit : batch) {
+      long latency = now - commit.getClosedNanos();
+      commits.increment();
+      commitLatency.add(latency);
+      maxCommitLatency.accumulateAndGet(latency, Math::max);
+    }
+  }
+
+  /**
+   * An operation performing disk I/O.
+   */
+  @FunctionalInterface
+  interface IoOperation {
+
+    /**
+     * Perform the operation.
+     *
+     * @throws IOException if there is an issue performing I/O
+     */
+    void run() throws IOException;
+
+  }
+
+  /**
+   * A {@link ThreadFactory} producing named daemon threads.
+   */
+  private static class IoThreadFactory implements ThreadFactory {
+
+    private final @NotNull String prefix;
+    private final AtomicInteger count = new AtomicInteger();
+
+    private IoThreadFactory(@NotNull String prefix) {
+      this.prefix = prefix;
+    }
+
+    @Override
+    public @NotNull Thread newThread(@NotNull Runnable runnable) {
+      Thread thread = new Thread(runnable, prefix + count.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    }
+
+  }
+
+}
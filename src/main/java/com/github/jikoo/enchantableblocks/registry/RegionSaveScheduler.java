@@ -0,0 +1,173 @@
+package com.github.jikoo.enchantableblocks.registry;
+
+import com.github.jikoo.enchantableblocks.registry.EnchantableBlockManager.RegionStorageData;
+import com.github.jikoo.enchantableblocks.util.Cache;
+import com.github.jikoo.enchantableblocks.util.Region;
+import com.github.jikoo.enchantableblocks.util.storage.FileCommit;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.bukkit.scheduler.BukkitRunnable;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Task spreading saves of regions in use evenly over the autosave interval.
+ *
+ * <p>Rather than saving every region in use when its cache entry expires, each region with unsaved
+ * changes is saved within the autosave interval of its first unsaved modification. Regions are
+ * saved oldest changes first, at the lowest steady rate that saves every region in time. The rate
+ * is varied randomly each tick so that saves do not fall into a fixed rhythm.
+ *
+ * <p>The number of regions saved per tick and the number of bytes written per second are capped.
+ * Regions that are past due are saved as soon as the caps permit.
+ */
+class RegionSaveScheduler extends BukkitRunnable {
+
+  private static final int PLAN_INTERVAL_TICKS = 20;
+  private static final long TICK_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+
+  private final @NotNull Cache<Region, RegionStorageData> cache;
+  private final @NotNull RegionSaveQueue saveQueue;
+  private final long intervalNanos;
+  private final int regionsPerTick;
+  private final long bytesPerSecond;
+  private final double jitter;
+  private final @NotNull Deque<PendingSave> plan = new ArrayDeque<>();
+  private final @NotNull AtomicLong byteAllowance;
+  private double rate = 0;
+  private double credit = 0;
+  private int ticks = 0;
+
+  /**
+   * Construct a new {@code RegionSaveScheduler}.
+   *
+   * @param cache the {@link Cache} containing regions in use
+   * @param saveQueue the {@link RegionSaveQueue} used to write data
+   * @param intervalMillis the maximum time unsaved changes may wait before being saved
+   * @param regionsPerTick the maximum number of regions to save each tick
+   * @param bytesPerSecond the maximum number of bytes to write per second or 0 for no limit
+   * @param jitter the fraction by which the save rate may vary randomly each tick
+   */
+  RegionSaveScheduler(
+      @NotNull Cache<Region, RegionStorageData> cache,
+      @NotNull RegionSaveQueue saveQueue,
+      long intervalMillis,
+      int regionsPerTick,
+      long bytesPerSecond,
+      double jitter) {
+    this.cache = cache;
+    this.saveQueue = saveQueue;
+    this.intervalNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, intervalMillis));
+    this.regionsPerTick = Math.max(1, regionsPerTick);
+    this.bytesPerSecond = Math.max(0, bytesPerSecond);
+    this.jitter = Math.max(0, Math.min(1, jitter));
+    this.byteAllowance = new AtomicLong(this.bytesPerSecond);
+  }
+
+  @Override
+  public void run() {
+    long now = System.nanoTime();
+    if (ticks++ % PLAN_INTERVAL_TICKS == 0) {
+      plan(now);
+    }
+
+    if (bytesPerSecond > 0) {
+      long refill = Math.max(1, bytesPerSecond / 20);
+      byteAllowance.getAndUpdate(allowance -> Math.min(bytesPerSecond, allowance + refill));
+    }
+
+    credit += rate * (1 + jitter * (2 * ThreadLocalRandom.current().nextDouble() - 1));
+
+    int saved = 0;
+    while (saved < regionsPerTick
+        && !plan.isEmpty()
+        && (bytesPerSecond == 0 || byteAllowance.get() > 0)) {
+      PendingSave next = plan.peek();
+      boolean overdue = now - next.dirtySince() >= intervalNanos;
+      if (!overdue && credit < 1) {
+        break;
+      }
+      plan.poll();
+      credit = Math.max(0, credit - 1);
+      if (save(next)) {
+        ++saved;
+      }
+    }
+
+    // Don't bank credit while capped; regions falling behind are saved once overdue instead.
+    credit = Math.min(credit, 1);
+  }
+
+  /**
+   * Collect all regions with unsaved changes, oldest changes first, and calculate the rate at
+   * which they must be saved for each to be saved before it is due.
+   *
+   * @param now the current {@link System#nanoTime()}
+   */
+  private void plan(long now) {
+    List<PendingSave> dirty = new ArrayList<>();
+    cache.forEach((region, data) -> {
+      if (data != null) {
+        data.getDirtySince().ifPresent(since -> dirty.add(new PendingSave(region, data, since)));
+      }
+    });
+    dirty.sort(Comparator.comparingLong(pending -> pending.dirtySince() - now));
+
+    plan.clear();
+    plan.addAll(dirty);
+
+    // The rate must allow the first n regions to be saved before the nth is due.
+    rate = 0;
+    for (int i = 0; i < dirty.size(); ++i) {
+      long remaining = dirty.get(i).dirtySince() + intervalNanos - now;
+      rate = Math.max(rate, (i + 1) / Math.max(1D, remaining / (double) TICK_NANOS));
+    }
+  }
+
+  /**
+   * Submit a region for saving.
+   *
+   * @param pending the region
+   * @return true if the region had unsaved changes
+   */
+  private boolean save(@NotNull PendingSave pending) {
+    RegionSnapshot snapshot = pending.data().snapshot();
+    if (snapshot == null) {
+      // Saved since planned.
+      return false;
+    }
+
+    saveQueue.submit(pending.region(), () -> {
+      snapshot.write();
+      FileCommit.whenCommitted(throwable -> {
+        if (bytesPerSecond > 0) {
+          try {
+            byteAllowance.addAndGet(-snapshot.storage().getDataSize());
+          } catch (IOException e) {
+            // Size is only used for pacing.
+          }
+        }
+      });
+    });
+    return true;
+  }
+
+  /**
+   * A region with unsaved changes.
+   *
+   * @param region the {@link Region}
+   * @param data the {@link RegionStorageData}
+   * @param dirtySince the {@link System#nanoTime()} at which the region was first modified
+   */
+  private record PendingSave(
+      @NotNull Region region,
+      @NotNull RegionStorageData data,
+      long dirtySince) {}
+
+}
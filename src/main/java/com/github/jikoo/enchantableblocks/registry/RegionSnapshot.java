@@ -0,0 +1,46 @@
+package com.github.jikoo.enchantableblocks.registry;
+
+import com.github.jikoo.enchantableblocks.registry.EnchantableBlockManager.RegionStorageData;
+import com.github.jikoo.enchantableblocks.util.RegionStorage;
+import com.github.jikoo.enchantableblocks.util.storage.FileCommit;
+import java.io.IOException;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * A detached copy of a region's save data taken for writing off of the main thread.
+ *
+ * @param source the {@link RegionStorageData} the snapshot was taken from
+ * @param storage the copied {@link RegionStorage}
+ * @param generation the modification generation of the source at the time of the snapshot
+ */
+record RegionSnapshot(
+    @NotNull RegionStorageData source,
+    @NotNull RegionStorage storage,
+    long generation) {
+
+  /**
+   * Write the snapshot to disk. Empty snapshots delete existing data instead.
+   *
+   * <p>Once the written data is durable, the source is marked clean unless it has been modified
+   * since the snapshot was taken. On failure, the source is marked dirty so that it will be saved
+   * again.
+   *
+   * @throws IOException if there is an issue writing to disk
+   */
+  void write() throws IOException {
+    try {
+      source.write(storage);
+    } catch (IOException e) {
+      source.setDirty();
+      throw e;
+    }
+    FileCommit.whenCommitted(throwable -> {
+      if (throwable == null) {
+        source.clean(generation);
+      } else {
+        source.setDirty();
+      }
+    });
+  }
+
+}
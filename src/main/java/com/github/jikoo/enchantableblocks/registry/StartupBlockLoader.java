@@ -0,0 +1,146 @@
+package com.github.jikoo.enchantableblocks.registry;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+import org.bukkit.Chunk;
+import org.bukkit.scheduler.BukkitRunnable;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Task loading {@link com.github.jikoo.enchantableblocks.block.EnchantableBlock EnchantableBlocks}
+ * for chunks that were already loaded when the plugin enabled.
+ *
+ * <p>Stored data is read in parallel off of the main thread before any blocks are created. Blocks
+ * are then created on the main thread, spending at most a fixed amount of time each tick. Chunks
+ * that unload before they are reached are skipped; if they load again, they are handled as normal.
+ */
+class StartupBlockLoader extends BukkitRunnable {
+
+  private static final long PROGRESS_INTERVAL = TimeUnit.SECONDS.toNanos(2);
+
+  private final @NotNull Logger logger;
+  private final @NotNull EnchantableBlockManager manager;
+  private final @NotNull CompletableFuture<Void> reads;
+  private final long budgetNanos;
+  private final @NotNull Map<ChunkPos, Chunk> pending = new LinkedHashMap<>();
+  private final @NotNull CompletableFuture<Void> done = new CompletableFuture<>();
+  private final int total;
+  private final long start = System.nanoTime();
+  private long nextProgress = start + PROGRESS_INTERVAL;
+  private long readTime = -1;
+  private int loaded = 0;
+  private int ticks = 0;
+
+  /**
+   * Construct a new {@code StartupBlockLoader}.
+   *
+   * @param logger the {@link Logger} used to report progress
+   * @param manager the {@link EnchantableBlockManager} loading blocks
+   * @param chunks the {@link Chunk Chunks} to load blocks for
+   * @param reads a future completing once stored data for all chunks has been read
+   * @param budgetMillis the maximum time to spend creating blocks each tick
+   */
+  StartupBlockLoader(
+      @NotNull Logger logger,
+      @NotNull EnchantableBlockManager manager,
+      @NotNull Collection<Chunk> chunks,
+      @NotNull CompletableFuture<Void> reads,
+      long budgetMillis) {
+    this.logger = logger;
+    this.manager = manager;
+    this.reads = reads;
+    this.budgetNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, budgetMillis));
+    for (Chunk chunk : chunks) {
+      pending.put(ChunkPos.of(chunk), chunk);
+    }
+    this.total = pending.size();
+  }
+
+  /**
+   * Get a future completing once all chunks have been handled.
+   *
+   * @return the future
+   */
+  @NotNull CompletableFuture<Void> getCompletion() {
+    return done;
+  }
+
+  /**
+   * Skip a {@link Chunk} that has unloaded. If it loads again, its blocks are loaded as normal.
+   *
+   * @param chunk the {@code Chunk}
+   */
+  void unload(@NotNull Chunk chunk) {
+    pending.remove(ChunkPos.of(chunk));
+  }
+
+  @Override
+  public void run() {
+    if (!reads.isDone()) {
+      return;
+    }
+
+    long now = System.nanoTime();
+    if (readTime < 0) {
+      readTime = now - start;
+      logger.info(() -> String.format(
+          "Read stored data for %s chunks in %sms.",
+          total,
+          TimeUnit.NANOSECONDS.toMillis(readTime)));
+    }
+
+    ++ticks;
+    long deadline = now + budgetNanos;
+    Iterator<Chunk> iterator = pending.values().iterator();
+    // Always handle at least one chunk so that loading progresses.
+    while (iterator.hasNext()) {
+      Chunk chunk = iterator.next();
+      iterator.remove();
+      if (chunk.isLoaded()) {
+        manager.loadChunkBlocks(chunk);
+        ++loaded;
+      }
+      if (System.nanoTime() >= deadline) {
+        break;
+      }
+    }
+
+    now = System.nanoTime();
+    if (pending.isEmpty()) {
+      cancel();
+      manager.completeStartupLoad(this);
+      logger.info(() -> String.format(
+          "Loaded blocks for %s chunks in %s seconds over %s ticks, %s chunks unloaded first.",
+          loaded,
+          (System.nanoTime() - start) / 1_000_000_000D,
+          ticks,
+          total - loaded));
+      done.complete(null);
+    } else if (now >= nextProgress) {
+      nextProgress = now + PROGRESS_INTERVAL;
+      int handled = total - pending.size();
+      logger.info(() -> String.format("Loading blocks: %s/%s chunks", handled, total));
+    }
+  }
+
+  /**
+   * The position of a {@link Chunk}, used to identify chunks across loads.
+   *
+   * @param worldName the name of the world
+   * @param x the chunk X coordinate
+   * @param z the chunk Z coordinate
+   */
+  private record ChunkPos(@NotNull String worldName, int x, int z) {
+
+    private static @NotNull ChunkPos of(@NotNull Chunk chunk) {
+      return new ChunkPos(chunk.getWorld().getName(), chunk.getX(), chunk.getZ());
+    }
+
+  }
+
+}
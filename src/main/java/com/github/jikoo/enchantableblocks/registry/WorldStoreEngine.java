@@ -0,0 +1,231 @@
+package com.github.jikoo.enchantableblocks.registry;
+
+import com.github.jikoo.enchantableblocks.util.Region;
+import com.github.jikoo.enchantableblocks.util.RegionStorage;
+import com.github.jikoo.enchantableblocks.util.storage.BinaryRegionCodec;
+import com.github.jikoo.enchantableblocks.util.storage.ByteBufferInputStream;
+import com.github.jikoo.enchantableblocks.util.storage.FileCommit;
+import com.github.jikoo.enchantableblocks.util.storage.WorldStore;
+import com.github.jikoo.planarwrappers.util.Coords;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * {@link BlockStorage} in a single {@link WorldStore} per world.
+ *
+ * <p>Each chunk is stored as an individual record, so only chunks that contain data are read when
+ * a region is loaded. Data that is not found in a world store is loaded from region files and
+ * moved into the world store on the next save.
+ *
+ * <p>World stores are forced as part of the current {@link FileCommit}, so saves are durable at the
+ * same point as those of file-based storage.
+ */
+class WorldStoreEngine implements BlockStorage {
+
+  private final @NotNull Logger logger;
+  private final @NotNull Path directory;
+  private final @NotNull BlockStorage legacy;
+  private final @NotNull Map<String, WorldStore> stores = new ConcurrentHashMap<>();
+
+  /**
+   * Construct a new {@code WorldStoreEngine}.
+   *
+   * @param logger the {@link Logger} used to report issues
+   * @param directory the directory containing world stores
+   * @param legacy the {@link BlockStorage} that data is migrated from
+   */
+  WorldStoreEngine(
+      @NotNull Logger logger,
+      @NotNull Path directory,
+      @NotNull BlockStorage legacy) {
+    this.logger = logger;
+    this.directory = directory;
+    this.legacy = legacy;
+  }
+
+  @Override
+  public boolean exists(@NotNull Region region) throws IOException {
+    return getStore(region.worldName()).hasRegion(region.x(), region.z())
+        || legacy.exists(region);
+  }
+
+  @Override
+  public boolean load(@NotNull RegionStorage storage)
+      throws IOException, InvalidConfigurationException {
+    Region region = storage.getRegion();
+    WorldStore store = getStore(region.worldName());
+
+    if (!store.hasRegion(region.x(), region.z())) {
+      if (!legacy.exists(region)) {
+        return false;
+      }
+      legacy.load(storage);
+      return true;
+    }
+
+    InvalidConfigurationException failure = null;
+    int minChunkX = Coords.regionToChunk(region.x());
+    int minChunkZ = Coords.regionToChunk(region.z());
+    for (int chunkX = minChunkX; chunkX < minChunkX + 32; ++chunkX) {
+      for (int chunkZ = minChunkZ; chunkZ < minChunkZ + 32; ++chunkZ) {
+        ByteBuffer data = store.read(chunkX, chunkZ);
+        if (data == null) {
+          continue;
+        }
+        try {
+          BinaryRegionCodec.read(new ByteBufferInputStream(data), storage);
+        } catch (IOException | InvalidConfigurationException e) {
+          // Saving replaces every chunk in the region, so the region must not load without it.
+          InvalidConfigurationException chunkFailure = new InvalidConfigurationException(
+              "Unable to read chunk " + chunkX + "_" + chunkZ + " in " + region + ": "
+                  + e.getMessage(),
+              e);
+          if (failure == null) {
+            failure = chunkFailure;
+          } else {
+            failure.addSuppressed(chunkFailure);
+          }
+        }
+      }
+    }
+
+    if (failure != null) {
+      throw failure;
+    }
+    storage.recountBlocks();
+    return false;
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * <p>Any region files are deleted once data saved to the world store is durable. Only chunk data
+   * is stored. Top-level values that do not represent a chunk are discarded.
+   */
+  @Override
+  public void save(@NotNull RegionStorage storage) throws IOException {
+    Region region = storage.getRegion();
+    WorldStore store = getStore(region.worldName());
+    ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+
+    int minChunkX = Coords.regionToChunk(region.x());
+    int minChunkZ = Coords.regionToChunk(region.z());
+    for (int chunkX = minChunkX; chunkX < minChunkX + 32; ++chunkX) {
+      for (int chunkZ = minChunkZ; chunkZ < minChunkZ + 32; ++chunkZ) {
+        ConfigurationSection chunk = storage.getConfigurationSection(
+            EnchantableBlockManager.getChunkPath(chunkX, chunkZ));
+
+        if (chunk == null || chunk.getKeys(false).isEmpty()) {
+          store.delete(chunkX, chunkZ);
+          continue;
+        }
+
+        buffer.reset();
+        BinaryRegionCodec.writeChunk(chunkX, chunkZ, chunk, buffer);
+        store.write(chunkX, chunkZ, ByteBuffer.wrap(buffer.toByteArray()));
+      }
+    }
+
+    // Forced with the commit before the region files that are its only other copy are deleted.
+    FileCommit.force(store);
+    storage.delete();
+  }
+
+  @Override
+  public @Nullable ConfigurationSection loadChunk(
+      @NotNull String worldName,
+      int chunkX,
+      int chunkZ) throws IOException, InvalidConfigurationException {
+    ByteBuffer data = getStore(worldName).read(chunkX, chunkZ);
+    if (data == null) {
+      return null;
+    }
+
+    YamlConfiguration root = new YamlConfiguration();
+    BinaryRegionCodec.read(new ByteBufferInputStream(data), root);
+    return root.getConfigurationSection(EnchantableBlockManager.getChunkPath(chunkX, chunkZ));
+  }
+
+  @Override
+  public void saveChunk(
+      @NotNull String worldName,
+      int chunkX,
+      int chunkZ,
+      @NotNull ConfigurationSection data) throws IOException {
+    ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+    BinaryRegionCodec.writeChunk(chunkX, chunkZ, data, buffer);
+    WorldStore store = getStore(worldName);
+    store.write(chunkX, chunkZ, ByteBuffer.wrap(buffer.toByteArray()));
+    FileCommit.force(store);
+  }
+
+  @Override
+  public void deleteChunk(@NotNull String worldName, int chunkX, int chunkZ) throws IOException {
+    WorldStore store = getStore(worldName);
+    store.delete(chunkX, chunkZ);
+    FileCommit.force(store);
+  }
+
+  @Override
+  public void forEachChunk(@NotNull String worldName, @NotNull ChunkVisitor visitor)
+      throws IOException {
+    for (long chunkKey : getStore(worldName).getChunks()) {
+      int chunkX = (int) (chunkKey >> 32);
+      int chunkZ = (int) chunkKey;
+      try {
+        ConfigurationSection chunk = loadChunk(worldName, chunkX, chunkZ);
+        if (chunk != null) {
+          visitor.visit(chunkX, chunkZ, chunk);
+        }
+      } catch (InvalidConfigurationException e) {
+        logger.log(
+            Level.WARNING,
+            e,
+            () -> "Unable to read chunk " + chunkX + "_" + chunkZ + " in " + worldName + ": "
+                + e.getMessage());
+      }
+    }
+  }
+
+  /**
+   * Close all open world stores.
+   */
+  @Override
+  public void close() {
+    for (WorldStore store : stores.values()) {
+      try {
+        store.close();
+      } catch (IOException e) {
+        logger.log(Level.WARNING, e, () -> "Unable to close " + store.getPath());
+      }
+    }
+    stores.clear();
+  }
+
+  private @NotNull WorldStore getStore(@NotNull String worldName) throws IOException {
+    try {
+      return stores.computeIfAbsent(worldName, name -> {
+        try {
+          return WorldStore.open(directory.resolve(name + '.' + WorldStore.EXTENSION));
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+      });
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+  }
+
+}
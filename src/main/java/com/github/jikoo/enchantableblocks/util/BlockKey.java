@@ -0,0 +1,253 @@
+package com.github.jikoo.enchantableblocks.util;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Utility for packed {@code long} keys identifying chunks and blocks.
+ *
+ * <p>Chunk keys contain the chunk X coordinate in the upper 32 bits and the chunk Z coordinate in
+ * the lower 32 bits. Block keys are relative to the block's chunk, containing the Y coordinate in
+ * the upper 56 bits followed by the chunk-relative X and Z coordinates in 4 bits each.
+ *
+ * <p>Stored data is kept in {@link org.bukkit.configuration.ConfigurationSection
+ * ConfigurationSections} keyed by the legacy paths {@code chunkX_chunkZ} and {@code x_y_z}.
+ * {@link RegionStorage} indexes its sections by packed key, so paths are only built when a block is
+ * created or read from disk and only parsed once when a region is indexed. Paths are parsed without
+ * splitting or allocating, and only paths in the exact format produced by
+ * {@link #chunkPath(int, int)} and {@link #blockPath(int, int, int)} are accepted.
+ */
+public final class BlockKey {
+
+  /** The value returned when a path is not a valid path. No valid key has this value. */
+  public static final long INVALID = Long.MIN_VALUE;
+  /** The value returned when a valid block path is not in the expected chunk. */
+  public static final long OTHER_CHUNK = Long.MIN_VALUE + 1;
+
+  /**
+   * Get the key for a chunk.
+   *
+   * @param chunkX the chunk X coordinate
+   * @param chunkZ the chunk Z coordinate
+   * @return the key
+   */
+  public static long chunk(int chunkX, int chunkZ) {
+    return (long) chunkX << 32 | chunkZ & 0xFFFFFFFFL;
+  }
+
+  /**
+   * Get the chunk X coordinate from a chunk key.
+   *
+   * @param chunkKey the chunk key
+   * @return the chunk X coordinate
+   */
+  public static int chunkX(long chunkKey) {
+    return (int) (chunkKey >> 32);
+  }
+
+  /**
+   * Get the chunk Z coordinate from a chunk key.
+   *
+   * @param chunkKey the chunk key
+   * @return the chunk Z coordinate
+   */
+  public static int chunkZ(long chunkKey) {
+    return (int) chunkKey;
+  }
+
+  /**
+   * Get the chunk-relative key for a block.
+   *
+   * @param x the block X coordinate
+   * @param y the block Y coordinate
+   * @param z the block Z coordinate
+   * @return the key
+   */
+  public static long block(int x, int y, int z) {
+    return (long) y << 8 | (x & 0xF) << 4 | z & 0xF;
+  }
+
+  /**
+   * Get the chunk-relative X coordinate from a block key.
+   *
+   * @param blockKey the block key
+   * @return the X coordinate within the chunk
+   */
+  public static int relativeX(long blockKey) {
+    return (int) (blockKey >> 4 & 0xF);
+  }
+
+  /**
+   * Get the Y coordinate from a block key.
+   *
+   * @param blockKey the block key
+   * @return the Y coordinate
+   */
+  public static int blockY(long blockKey) {
+    return (int) (blockKey >> 8);
+  }
+
+  /**
+   * Get the chunk-relative Z coordinate from a block key.
+   *
+   * @param blockKey the block key
+   * @return the Z coordinate within the chunk
+   */
+  public static int relativeZ(long blockKey) {
+    return (int) (blockKey & 0xF);
+  }
+
+  /**
+   * Get the stored path for a chunk.
+   *
+   * @param chunkX the chunk X coordinate
+   * @param chunkZ the chunk Z coordinate
+   * @return the path
+   */
+  public static @NotNull String chunkPath(int chunkX, int chunkZ) {
+    return chunkX + "_" + chunkZ;
+  }
+
+  /**
+   * Get the stored path for a block.
+   *
+   * @param x the block X coordinate
+   * @param y the block Y coordinate
+   * @param z the block Z coordinate
+   * @return the path
+   */
+  public static @NotNull String blockPath(int x, int y, int z) {
+    return x + "_" + y + "_" + z;
+  }
+
+  /**
+   * Parse a stored chunk path.
+   *
+   * @param path the path
+   * @return the chunk key
+   * @throws NumberFormatException if the path is not a valid chunk path
+   */
+  public static long parseChunk(@NotNull String path) {
+    int separator = path.indexOf('_');
+    long chunkX = separator < 0 ? INVALID : parseInt(path, 0, separator);
+    long chunkZ = chunkX == INVALID ? INVALID : parseInt(path, separator + 1, path.length());
+    if (chunkZ == INVALID) {
+      throw invalid(path);
+    }
+    return chunk((int) chunkX, (int) chunkZ);
+  }
+
+  /**
+   * Parse a stored block path. The block must be in the specified chunk.
+   *
+   * @param path the path
+   * @param chunkX the X coordinate of the chunk containing the block
+   * @param chunkZ the Z coordinate of the chunk containing the block
+   * @return the chunk-relative block key
+   * @throws NumberFormatException if the path is not a valid block path in the chunk
+   */
+  public static long parseBlock(@NotNull String path, int chunkX, int chunkZ) {
+    long blockKey = tryParseBlock(path, chunkX, chunkZ);
+    if (blockKey == INVALID) {
+      throw invalid(path);
+    }
+    if (blockKey == OTHER_CHUNK) {
+      throw new NumberFormatException(
+          "Block " + path + " is not in chunk " + chunkPath(chunkX, chunkZ));
+    }
+    return blockKey;
+  }
+
+  /**
+   * Parse a stored block path without throwing an exception.
+   *
+   * @param path the path
+   * @param chunkX the X coordinate of the chunk expected to contain the block
+   * @param chunkZ the Z coordinate of the chunk expected to contain the block
+   * @return the chunk-relative block key, {@link #OTHER_CHUNK} if the block is in another chunk,
+   *     or {@link #INVALID} if the path is not a valid block path
+   */
+  public static long tryParseBlock(@NotNull String path, int chunkX, int chunkZ) {
+    int first = path.indexOf('_');
+    int second = first < 0 ? -1 : path.indexOf('_', first + 1);
+    if (second < 0) {
+      return INVALID;
+    }
+    long x = parseInt(path, 0, first);
+    long y = x == INVALID ? INVALID : parseInt(path, first + 1, second);
+    long z = y == INVALID ? INVALID : parseInt(path, second + 1, path.length());
+    if (z == INVALID) {
+      return INVALID;
+    }
+    if ((int) x >> 4 != chunkX || (int) z >> 4 != chunkZ) {
+      return OTHER_CHUNK;
+    }
+    return block((int) x, (int) y, (int) z);
+  }
+
+  /**
+   * Parse the chunk containing a stored block path without throwing an exception.
+   *
+   * @param path the path
+   * @return the chunk key or {@link #INVALID} if the path is not a valid block path
+   */
+  public static long tryParseBlockChunk(@NotNull String path) {
+    int first = path.indexOf('_');
+    int second = first < 0 ? -1 : path.indexOf('_', first + 1);
+    if (second < 0) {
+      return INVALID;
+    }
+    long x = parseInt(path, 0, first);
+    long y = x == INVALID ? INVALID : parseInt(path, first + 1, second);
+    long z = y == INVALID ? INVALID : parseInt(path, second + 1, path.length());
+    if (z == INVALID) {
+      return INVALID;
+    }
+    // Block coordinates are ints, so the chunk coordinates can never form the sentinel value.
+    return chunk((int) x >> 4, (int) z >> 4);
+  }
+
+  /**
+   * Parse a canonical decimal integer from part of a {@link String}. Unlike
+   * {@link Integer#parseInt(CharSequence, int, int, int)}, leading signs other than {@code -},
+   * leading zeroes, and negative zero are rejected so that each value has exactly one
+   * representation.
+   *
+   * @return the value or {@link #INVALID} if the value is not a canonical integer
+   */
+  private static long parseInt(@NotNull String path, int start, int end) {
+    if (start >= end) {
+      return INVALID;
+    }
+
+    boolean negative = path.charAt(start) == '-';
+    int index = negative ? start + 1 : start;
+    if (index >= end || path.charAt(index) == '0' && end - index > 1) {
+      return INVALID;
+    }
+
+    long limit = negative ? -(long) Integer.MIN_VALUE : Integer.MAX_VALUE;
+    long value = 0;
+    for (; index < end; ++index) {
+      int digit = path.charAt(index) - '0';
+      if (digit < 0 || digit > 9) {
+        return INVALID;
+      }
+      value = value * 10 + digit;
+      if (value > limit) {
+        return INVALID;
+      }
+    }
+
+    if (negative && value == 0) {
+      return INVALID;
+    }
+    return negative ? -value : value;
+  }
+
+  private static @NotNull NumberFormatException invalid(@NotNull String path) {
+    return new NumberFormatException("Invalid coordinates: " + path);
+  }
+
+  private BlockKey() {}
+
+}
@@ -1,24 +1,40 @@
 package com.github.jikoo.enchantableblocks.util;
 
-import com.google.common.collect.TreeMultimap;
 import java.time.Clock;
-import java.util.ArrayList;
-import java.util.Collection;
-import java.util.Comparator;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.SortedMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.BiConsumer;
 import java.util.function.BiFunction;
 import java.util.function.BiPredicate;
+import java.util.function.ToIntBiFunction;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.jetbrains.annotations.Range;
 import org.jetbrains.annotations.TestOnly;
 
 /**
- * A minimal thread-safe time-based cache implementation backed by a HashMap and TreeMultimap.
+ * A thread-safe time-based cache backed by a {@link ConcurrentHashMap} and a {@link TimerWheel}.
+ *
+ * <p>Values expire once they have not been accessed for the retention duration and are not in use.
+ * Reads do not lock; each value records the time it was last accessed and the expiration schedule
+ * is only updated when a value is added, removed, or found to be due.
+ *
+ * <p>A maximum total weight may be set, in which case values are evicted by a {@link WindowTinyLfu}
+ * policy favoring values accessed often. Values are offered to the in use check before eviction and
+ * are kept if in use, so the maximum may be exceeded while every value is in use. Values may change
+ * weight while mapped, so all values are weighed again during each expiry check.
+ *
+ * <p>By default, expiry and eviction are performed lazily by whichever operation first finds them
+ * due. If maintenance is scheduled, operations never perform them and the owner must call
+ * {@link #cleanUp()} periodically instead.
  *
  * @param <K> the type of key
  * @param <V> the type of value
@@ -35,9 +51,13 @@ public class Cache<K, V> {
     private @NotNull Clock clock = Clock.systemUTC();
     private long retention = 300_000L;
     private long lazyFrequency = 10_000L;
+    private boolean scheduledMaintenance = false;
+    private @NotNull Executor executor = ForkJoinPool.commonPool();
     private @Nullable BiFunction<K, Boolean, V> load;
     private @Nullable BiPredicate<K, V> inUseCheck;
     private @Nullable BiConsumer<K, V> postRemoval;
+    private long maximumWeight = 0;
+    private @Nullable ToIntBiFunction<K, V> weigher;
 
     /**
      * Set the {@link Clock} used by the {@link Cache}.
@@ -108,6 +128,46 @@ public class Cache<K, V> {
       return this;
     }
 
+    /**
+     * Set whether the {@link Cache} is maintained by scheduled calls to {@link Cache#cleanUp()}
+     * rather than lazily during operations.
+     *
+     * @param scheduledMaintenance whether maintenance is scheduled
+     * @return the modified builder
+     */
+    public CacheBuilder<K, V> withScheduledMaintenance(final boolean scheduledMaintenance) {
+      this.scheduledMaintenance = scheduledMaintenance;
+      return this;
+    }
+
+    /**
+     * Set the {@link Executor} used by the {@link Cache} to load values asynchronously.
+     *
+     * @param executor the {@code Executor}
+     * @return the modified builder
+     */
+    public CacheBuilder<K, V> withExecutor(final @NotNull Executor executor) {
+      this.executor = executor;
+      return this;
+    }
+
+    /**
+     * Set the maximum total weight of values in the {@link Cache}.
+     *
+     * <p>The weigher is called for every value during each expiry check, so it must be cheap.
+     *
+     * @param maximumWeight the maximum total weight or 0 for no maximum
+     * @param weigher the function calculating the weight of a value
+     * @return the modified builder
+     */
+    public CacheBuilder<K, V> withMaximumWeight(
+        @Range(from = 0, to = Long.MAX_VALUE) final long maximumWeight,
+        final @NotNull ToIntBiFunction<K, V> weigher) {
+      this.maximumWeight = Math.max(0, maximumWeight);
+      this.weigher = weigher;
+      return this;
+    }
+
     /**
      * Construct a {@link Cache} with the given setting.
      *
@@ -118,44 +178,79 @@ public class Cache<K, V> {
           this.clock,
           this.retention,
           this.lazyFrequency,
+          this.scheduledMaintenance,
+          this.executor,
           this.load, this.inUseCheck,
-          this.postRemoval);
+          this.postRemoval,
+          this.maximumWeight > 0 ? this.weigher : null,
+          this.maximumWeight);
     }
   }
 
+  private static final int READ_BUFFER_SIZE = 256;
+
   private final @NotNull Clock clock;
-  private final @NotNull Map<K, V> internal;
-  private final @NotNull TreeMultimap<Long, K> expiry;
+  private final @NotNull ConcurrentHashMap<K, Node<K, V>> internal;
+  private final @NotNull ReentrantLock expiryLock;
+  private final @NotNull TimerWheel expiry;
   private final long retention;
   private final long lazyFrequency;
+  private final boolean scheduledMaintenance;
+  private final @NotNull Executor executor;
+  private final @NotNull ConcurrentHashMap<K, Flight<K, V>> flights;
   private final @NotNull AtomicLong lastLazyCheck;
   private final @Nullable BiFunction<K, Boolean, V> load;
   private final @Nullable BiPredicate<K, V> inUseCheck;
   private final @Nullable BiConsumer<K, V> postRemoval;
+  private final @Nullable ToIntBiFunction<K, V> weigher;
+  private final @Nullable WindowTinyLfu<K, V> policy;
+  private final @Nullable AtomicReferenceArray<Node<K, V>> readBuffer;
+  private final @NotNull AtomicLong reads;
+  private volatile boolean evictionPending = false;
+  private final @NotNull LongAdder hits = new LongAdder();
+  private final @NotNull LongAdder misses = new LongAdder();
+  private final @NotNull LatencyHistogram loadLatency = new LatencyHistogram();
+  private final @NotNull LongAdder loadFailures = new LongAdder();
+  private final @NotNull LongAdder renewals = new LongAdder();
+  private final @NotNull LongAdder expirations = new LongAdder();
+  private final @NotNull LongAdder evictions = new LongAdder();
 
   /**
    * Constructs a Cache with the specified retention duration, in use function, and post-removal
    * function.
    *
    * @param retention duration after which keys are automatically invalidated if not in use
+   * @param scheduledMaintenance whether expiry is left to scheduled maintenance
+   * @param executor Executor used to load values asynchronously
    * @param inUseCheck Function used to check if a key is considered in use
    * @param postRemoval Function used to perform any operations required when a key is invalidated
+   * @param weigher Function used to weigh values or null if weight is not bounded
+   * @param maximumWeight the maximum total weight of values
    */
   private Cache(final @NotNull Clock clock, final long retention, long lazyFrequency,
+      final boolean scheduledMaintenance, final @NotNull Executor executor,
       final @Nullable BiFunction<K, Boolean, V> load, final @Nullable BiPredicate<K, V> inUseCheck,
-      final @Nullable BiConsumer<K, V> postRemoval) {
-    this.internal = new HashMap<>();
+      final @Nullable BiConsumer<K, V> postRemoval, final @Nullable ToIntBiFunction<K, V> weigher,
+      final long maximumWeight) {
+    this.internal = new ConcurrentHashMap<>();
     this.clock = clock;
 
-    this.expiry = TreeMultimap.create(
-        Comparator.naturalOrder(), (k1, k2) -> k1 == k2 || k1.equals(k2) ? 0 : 1);
+    this.expiryLock = new ReentrantLock();
+    this.expiry = new TimerWheel(clock.millis());
 
     this.load = load;
     this.retention = retention;
     this.lazyFrequency = lazyFrequency;
+    this.scheduledMaintenance = scheduledMaintenance;
+    this.executor = executor;
+    this.flights = new ConcurrentHashMap<>();
     this.lastLazyCheck = new AtomicLong(0);
     this.inUseCheck = inUseCheck;
     this.postRemoval = postRemoval;
+    this.weigher = weigher;
+    this.policy = weigher == null ? null : new WindowTinyLfu<>(maximumWeight);
+    this.readBuffer = weigher == null ? null : new AtomicReferenceArray<>(READ_BUFFER_SIZE);
+    this.reads = new AtomicLong();
   }
 
   /**
@@ -169,9 +264,21 @@ public class Cache<K, V> {
     // Run lazy check to clean cache
     this.lazyCheck();
 
-    synchronized (this.internal) {
-      this.internal.put(key, value);
-      this.expiry.put(clock.millis() + this.retention, key);
+    Node<K, V> node = this.newNode(key, value);
+    Node<K, V> previous = this.internal.put(key, node);
+
+    expiryLock.lock();
+    try {
+      if (previous != null) {
+        previous.retired = true;
+        this.expiry.cancel(previous);
+        if (this.policy != null) {
+          this.policy.remove(previous);
+        }
+      }
+      this.schedule(node);
+    } finally {
+      expiryLock.unlock();
     }
   }
 
@@ -196,8 +303,9 @@ public class Cache<K, V> {
    * create a new value if requested. The load function may return null values.
    *
    * <p>N.B. If a load function is provided, it will always be used to attempt to load existing
-   * values.
-   *
+   * values. Concurrent requests for the same key wait for a single load. The load function is run
+   * without holding any lock, so it may use the cache, but it may not request the key it is
+   * loading.
    *
    * @param key the key whose associated value is to be returned
    * @param create whether the load function should create a new value if none exists to be loaded
@@ -207,23 +315,233 @@ public class Cache<K, V> {
     // Run lazy check to clean cache
     this.lazyCheck();
 
-    synchronized (this.internal) {
-      V value;
-      if (!this.internal.containsKey(key) && this.load != null) {
-        value = this.load.apply(key, create);
-        if (value != null) {
-          this.internal.put(key, value);
+    Node<K, V> node = this.internal.get(key);
+
+    if (node != null) {
+      this.hits.increment();
+    } else {
+      this.misses.increment();
+      node = this.load(key, create);
+    }
+
+    return this.access(node);
+  }
+
+  /**
+   * Gets the value for a specific key without blocking on the load function.
+   *
+   * <p>If the key is present, the returned future is already complete. Otherwise, the load
+   * function is run on the {@link CacheBuilder#withExecutor(Executor) configured executor}.
+   * Concurrent requests for the same key, including {@link #get(Object, boolean)}, share a single
+   * load, except that a request to create a value will load again if a shared load that was not
+   * allowed to create one finds none.
+   *
+   * <p>If the load function throws an exception, the future completes exceptionally and nothing is
+   * cached, so the next request will try again. Futures complete on the loading thread.
+   *
+   * @param key the key whose associated value is to be returned
+   * @param create whether the load function should create a new value if none exists to be loaded
+   * @return a future completing with the value to which the specified key is mapped or null
+   */
+  public @NotNull CompletableFuture<V> getAsync(final @NotNull K key, final boolean create) {
+    // Run lazy check to clean cache
+    this.lazyCheck();
+
+    Node<K, V> node = this.internal.get(key);
+
+    if (node != null) {
+      this.hits.increment();
+      return CompletableFuture.completedFuture(this.access(node));
+    }
+
+    this.misses.increment();
+
+    if (this.load == null) {
+      return CompletableFuture.completedFuture(null);
+    }
+
+    Flight<K, V> flight = new Flight<>(create);
+    Flight<K, V> existing = this.flights.putIfAbsent(key, flight);
+
+    if (existing != null) {
+      // Each request gets its own dependent future so that callers cannot complete the shared one.
+      CompletableFuture<V> shared = existing.future.thenApply(this::access);
+      if (existing.create || !create) {
+        return shared;
+      }
+      return shared.thenCompose(value -> value != null
+          ? CompletableFuture.completedFuture(value)
+          : this.getAsync(key, true));
+    }
+
+    try {
+      this.executor.execute(() -> {
+        try {
+          this.fly(key, flight);
+        } catch (RuntimeException | Error e) {
+          // Already reported to waiting requests by the flight.
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      this.flights.remove(key, flight);
+      flight.future.completeExceptionally(e);
+    }
+
+    return flight.future.thenApply(this::access);
+  }
+
+  /**
+   * Load and map a value for a key if it is not already mapped. Concurrent loads of the same key,
+   * synchronous or not, wait for a single load. If loading fails, nothing is mapped.
+   *
+   * @param key the key
+   * @param create whether the load function should create a new value if none exists to be loaded
+   * @return the mapped {@link Node} or null if no value is mapped
+   */
+  private @Nullable Node<K, V> load(final @NotNull K key, final boolean create) {
+    if (this.load == null) {
+      return this.internal.get(key);
+    }
+
+    while (true) {
+      Node<K, V> node = this.internal.get(key);
+      if (node != null) {
+        return node;
+      }
+
+      Flight<K, V> flight = new Flight<>(create);
+      Flight<K, V> existing = this.flights.putIfAbsent(key, flight);
+      if (existing == null) {
+        return this.fly(key, flight);
+      }
+
+      if (existing.loader == Thread.currentThread()) {
+        throw new IllegalStateException("Recursive load of " + key);
+      }
+
+      node = join(existing.future);
+      if (node != null || existing.create || !create) {
+        return node;
+      }
+      // The shared load was not allowed to create a value and found none, load again.
+    }
+  }
+
+  /**
+   * Run a load registered in the in-flight loads. The load function is run without holding any
+   * lock so that other keys may be used and loaded meanwhile.
+   *
+   * @param key the key
+   * @param flight the registered {@link Flight}
+   * @return the mapped {@link Node} or null if no value was loaded
+   */
+  private @Nullable Node<K, V> fly(final @NotNull K key, final @NotNull Flight<K, V> flight) {
+    BiFunction<K, Boolean, V> loadFunction = this.load;
+    Node<K, V> node;
+    flight.loader = Thread.currentThread();
+    try {
+      // A previous load may have completed between checking for a value and starting this one.
+      node = this.internal.get(key);
+      if (node == null && loadFunction != null) {
+        long start = System.nanoTime();
+        V value;
+        try {
+          value = loadFunction.apply(key, flight.create);
+        } catch (RuntimeException | Error e) {
+          this.loadFailures.increment();
+          throw e;
+        } finally {
+          this.loadLatency.record(System.nanoTime() - start);
         }
-      } else {
-        value = this.internal.get(key);
+        node = value == null ? null : this.install(key, flight, this.newNode(key, value));
+      }
+    } catch (RuntimeException | Error e) {
+      flight.loader = null;
+      this.flights.remove(key, flight);
+      flight.future.completeExceptionally(e);
+      throw e;
+    }
+
+    flight.loader = null;
+    // Remove before completing so that dependent requests start a new load if required.
+    this.flights.remove(key, flight);
+    flight.future.complete(node);
+    return node;
+  }
+
+  /**
+   * Map a loaded {@link Node} unless a value was put meanwhile. If the key was invalidated during
+   * the load, the loaded value is returned but not mapped.
+   *
+   * @param key the key
+   * @param flight the {@link Flight} that loaded the value
+   * @param loaded the loaded {@code Node}
+   * @return the mapped {@code Node} or the loaded {@code Node} if it could not be mapped
+   */
+  private @NotNull Node<K, V> install(
+      @NotNull K key,
+      @NotNull Flight<K, V> flight,
+      @NotNull Node<K, V> loaded) {
+    Node<K, V> node = this.internal.compute(key, (newKey, existing) -> {
+      if (existing != null || this.flights.get(newKey) != flight) {
+        return existing;
       }
+      return loaded;
+    });
+
+    if (node != loaded) {
+      return node == null ? loaded : node;
+    }
+
+    expiryLock.lock();
+    try {
+      this.schedule(node);
+    } finally {
+      expiryLock.unlock();
+    }
+
+    return node;
+  }
 
-      if (value != null) {
-        this.expiry.put(clock.millis() + this.retention, key);
+  /**
+   * Wait for a load run by another request.
+   *
+   * @param future the future of the load
+   * @return the loaded {@link Node} or null if no value was loaded
+   */
+  private static <K, V> @Nullable Node<K, V> join(
+      @NotNull CompletableFuture<Node<K, V>> future) {
+    try {
+      return future.join();
+    } catch (CompletionException e) {
+      // Rethrow the failure of the load function as if this request had run it.
+      if (e.getCause() instanceof RuntimeException cause) {
+        throw cause;
+      }
+      if (e.getCause() instanceof Error cause) {
+        throw cause;
       }
+      throw e;
+    }
+  }
+
+  /**
+   * Record an access of a {@link Node}.
+   *
+   * @param node the {@code Node} or null if no value is mapped
+   * @return the value of the {@code Node}
+   */
+  private @Nullable V access(@Nullable Node<K, V> node) {
+    if (node == null) {
+      return null;
+    }
 
-      return value;
+    if (node.value != null) {
+      node.touch(clock.millis());
+      this.recordRead(node);
     }
+
+    return node.value;
   }
 
   /**
@@ -236,9 +554,7 @@ public class Cache<K, V> {
     // Run lazy check to clean cache
     this.lazyCheck();
 
-    synchronized (this.internal) {
-      return this.internal.containsKey(key);
-    }
+    return this.internal.containsKey(key);
   }
 
   /**
@@ -248,36 +564,71 @@ public class Cache<K, V> {
    * @param key key to invalidate
    */
   public void invalidate(final @NotNull K key) {
-    synchronized (this.internal) {
-      if (!this.internal.containsKey(key)) {
-        // Value either not present or cleaned by lazy check. Either way, we're good
-        return;
-      }
-
-      // Remove stored object
-      this.internal.remove(key);
+    // Prevent a load in progress from mapping the value it loads.
+    this.flights.remove(key);
+    Node<K, V> node = this.internal.remove(key);
 
+    if (node != null) {
       // Remove expiration entry - prevents more work later, plus prevents issues with values
       // invalidating early
-      this.expiry.entries().removeIf(entry -> entry.getValue().equals(key));
+      expiryLock.lock();
+      try {
+        node.retired = true;
+        this.expiry.cancel(node);
+        if (this.policy != null) {
+          this.policy.remove(node);
+        }
+      } finally {
+        expiryLock.unlock();
+      }
     }
 
     // Run lazy check to clean cache
     this.lazyCheck();
   }
 
+  /**
+   * Perform an action for every stored key and value. Expiration is not checked and values are not
+   * loaded. Values added or removed concurrently may or may not be visited.
+   *
+   * @param action the action to perform
+   */
+  public void forEach(final @NotNull BiConsumer<K, V> action) {
+    this.internal.forEach((key, node) -> action.accept(key, node.value));
+  }
+
+  /**
+   * Get statistics describing the use of the {@code Cache}. Counters are updated without locking,
+   * so values recorded concurrently may or may not be included.
+   *
+   * @return the statistics
+   */
+  public @NotNull CacheStats getStats() {
+    return new CacheStats(
+        this.internal.size(),
+        this.hits.sum(),
+        this.misses.sum(),
+        this.loadLatency.snapshot(),
+        this.loadFailures.sum(),
+        this.renewals.sum(),
+        this.expirations.sum(),
+        this.evictions.sum());
+  }
+
   /**
    * Forcibly expire all keys, requiring them to be in use to be kept.
    */
   public void expireAll() {
-    synchronized (this.internal) {
-      this.expiry.clear();
-      this.internal.keySet().forEach(key -> this.expiry.put(0L, key));
+    long now = clock.millis();
+    this.lastLazyCheck.set(now);
+
+    expiryLock.lock();
+    try {
+      this.expiry.expireAll(timer -> this.expire(castNode(timer), now, true));
+      this.evict();
+    } finally {
+      expiryLock.unlock();
     }
-
-    this.lastLazyCheck.set(0);
-
-    this.lazyCheck();
   }
 
   /**
@@ -285,43 +636,262 @@ public class Cache<K, V> {
    * considered in use by the provided Function, its expiration time is reset.
    */
   private void lazyCheck() {
-    long now = clock.millis();
+    if (this.scheduledMaintenance) {
+      return;
+    }
 
-    if (lastLazyCheck.get() > now - lazyFrequency) {
+    long now = clock.millis();
+    long lastCheck = lastLazyCheck.get();
+
+    if (lastCheck > now - lazyFrequency || !lastLazyCheck.compareAndSet(lastCheck, now)) {
+      // Weight is not bounded lazily; evict as soon as the maximum is exceeded.
+      if (this.evictionPending) {
+        expiryLock.lock();
+        try {
+          this.evict();
+        } finally {
+          expiryLock.unlock();
+        }
+      }
       return;
     }
 
+    this.maintain(now);
+  }
+
+  /**
+   * Invalidate all expired keys that are not considered in use and evict values exceeding the
+   * maximum weight. Unlike lazy checks, this is performed regardless of the lazy check frequency.
+   *
+   * <p>If maintenance is scheduled, this must be called periodically for values to expire.
+   */
+  public void cleanUp() {
+    long now = clock.millis();
     lastLazyCheck.set(now);
+    this.maintain(now);
+  }
 
-    synchronized (this.internal) {
-      SortedMap<Long, Collection<K>> subMap = this.expiry.asMap().headMap(now);
-      Collection<K> keys = subMap.values().stream()
-          .collect(ArrayList::new, ArrayList::addAll, ArrayList::addAll);
+  /**
+   * Expire values that are due and evict values exceeding the maximum weight.
+   *
+   * @param now the current time
+   */
+  private void maintain(long now) {
+    expiryLock.lock();
+    try {
+      this.expiry.advance(now, timer -> this.expire(castNode(timer), now, false));
+      this.reweigh();
+      this.evict();
+    } finally {
+      expiryLock.unlock();
+    }
+  }
 
-      // Wipe original map
-      subMap.clear();
+  /**
+   * Record a read of a {@link Node} for the eviction policy. Reads are buffered so that they do not
+   * lock, and may be dropped if the buffer fills before it is drained.
+   *
+   * @param node the {@code Node}
+   */
+  private void recordRead(@NotNull Node<K, V> node) {
+    if (this.readBuffer != null) {
+      int index = (int) (this.reads.getAndIncrement() & (READ_BUFFER_SIZE - 1));
+      this.readBuffer.lazySet(index, node);
+    }
+  }
 
-      long nextExpiry = now + this.retention;
+  /**
+   * Evict values until the total weight no longer exceeds the maximum. Must be called while
+   * holding the expiry lock.
+   */
+  private void evict() {
+    if (this.policy == null || this.readBuffer == null) {
+      return;
+    }
 
-      keys.forEach(key -> {
+    for (int i = 0; i < READ_BUFFER_SIZE; ++i) {
+      Node<K, V> node = this.readBuffer.getAndSet(i, null);
+      if (node != null && !node.retired) {
+        this.policy.access(node);
+      }
+    }
 
-        V value = this.internal.get(key);
-        if (value != null && this.inUseCheck != null && this.inUseCheck.test(key, value)) {
-          this.expiry.put(nextExpiry, key);
-          return;
-        }
+    this.policy.evict(node -> {
+      V value = node.value;
+      if (value != null && this.inUseCheck != null && this.inUseCheck.test(node.key, value)) {
+        return false;
+      }
+      this.remove(node, value);
+      this.evictions.increment();
+      return true;
+    });
+    // If values in use prevent eviction, wait for a new value or the next lazy check to retry.
+    this.evictionPending = false;
+  }
 
-        this.internal.remove(key);
+  /**
+   * Weigh all values again, as they may have changed since they were added. Must be called while
+   * holding the expiry lock.
+   */
+  private void reweigh() {
+    if (this.policy == null) {
+      return;
+    }
 
-        if (value == null) {
-          return;
-        }
+    for (Node<K, V> node : this.internal.values()) {
+      if (!node.retired) {
+        this.policy.reweigh(node, this.weigh(node));
+      }
+    }
+  }
 
-        if (this.postRemoval != null) {
-          this.postRemoval.accept(key, value);
-        }
-      });
+  /**
+   * Schedule expiration of a {@link Node} if it is still mapped. Must be called while holding the
+   * expiry lock.
+   *
+   * @param node the {@code Node}
+   */
+  private void schedule(@NotNull Node<K, V> node) {
+    if (node.retired || node.isScheduled()) {
+      return;
+    }
+    node.deadline = this.getDeadline(node.accessed);
+    this.expiry.schedule(node);
+    if (this.policy != null) {
+      this.policy.add(node, node.weight);
+      this.evictionPending = this.policy.isOverweight();
+    }
+  }
+
+  /**
+   * Expire a {@link Node} whose scheduled deadline has passed. Must be called while holding the
+   * expiry lock.
+   *
+   * @param node the {@code Node}
+   * @param now the current time
+   * @param force whether to ignore accesses since the {@code Node} was scheduled
+   * @return true if the {@code Node} was removed
+   */
+  private boolean expire(@NotNull Node<K, V> node, long now, boolean force) {
+    if (node.retired) {
+      return true;
+    }
+
+    long deadline = this.getDeadline(node.accessed);
+    if (!force && deadline >= now) {
+      // Accessed since scheduled, reschedule at new deadline.
+      node.deadline = deadline;
+      return false;
+    }
+
+    V value = node.value;
+    if (value != null && this.inUseCheck != null && this.inUseCheck.test(node.key, value)) {
+      node.touch(now);
+      node.deadline = this.getDeadline(now);
+      this.renewals.increment();
+      return false;
+    }
+
+    this.remove(node, value);
+    this.expirations.increment();
+    return true;
+  }
+
+  /**
+   * Remove a {@link Node} that was expired or evicted. Must be called while holding the expiry
+   * lock.
+   *
+   * @param node the {@code Node}
+   * @param value the value of the {@code Node}
+   */
+  private void remove(@NotNull Node<K, V> node, @Nullable V value) {
+    node.retired = true;
+    this.expiry.cancel(node);
+    if (this.policy != null) {
+      this.policy.remove(node);
+    }
+    if (this.internal.remove(node.key, node) && value != null && this.postRemoval != null) {
+      this.postRemoval.accept(node.key, value);
+    }
+  }
+
+  /**
+   * Create a new {@link Node}. Values are weighed before they are mapped so that they are not
+   * weighed on another thread while the creating thread may still be using them.
+   *
+   * @param key the key
+   * @param value the value
+   * @return the {@code Node}
+   */
+  private @NotNull Node<K, V> newNode(@NotNull K key, @Nullable V value) {
+    Node<K, V> node = new Node<>(key, value, clock.millis());
+    node.weight = this.weigh(node);
+    return node;
+  }
+
+  private int weigh(@NotNull Node<K, V> node) {
+    return this.weigher == null ? 0 : Math.max(0, this.weigher.applyAsInt(node.key, node.value));
+  }
+
+  private long getDeadline(long accessed) {
+    return accessed > Long.MAX_VALUE - this.retention ? Long.MAX_VALUE : accessed + this.retention;
+  }
+
+  @SuppressWarnings("unchecked")
+  private @NotNull Node<K, V> castNode(@NotNull TimerWheel.Timer timer) {
+    return (Node<K, V>) timer;
+  }
+
+  /**
+   * A load in progress, shared by all requests for the key being loaded.
+   *
+   * @param <K> the type of key
+   * @param <V> the type of value
+   */
+  private static final class Flight<K, V> {
+
+    private final @NotNull CompletableFuture<Node<K, V>> future = new CompletableFuture<>();
+    private final boolean create;
+    // The thread running the load, used to detect loads requesting their own key.
+    private volatile @Nullable Thread loader;
+
+    private Flight(boolean create) {
+      this.create = create;
+    }
+
+  }
+
+  /**
+   * A cached value and its expiration state.
+   *
+   * @param <K> the type of key
+   * @param <V> the type of value
+   */
+  static final class Node<K, V> extends TimerWheel.Timer {
+
+    final @NotNull K key;
+    final @Nullable V value;
+    private volatile long accessed;
+    private volatile boolean retired;
+    // Eviction state, guarded by the expiry lock.
+    @Nullable Node<K, V> accessPrev;
+    @Nullable Node<K, V> accessNext;
+    byte queue = WindowTinyLfu.NONE;
+    int weight;
+
+    private Node(@NotNull K key, @Nullable V value, long accessed) {
+      this.key = key;
+      this.value = value;
+      this.accessed = accessed;
     }
+
+    private void touch(long now) {
+      // Avoid contended writes when accessed repeatedly within the same millisecond.
+      if (this.accessed != now) {
+        this.accessed = now;
+      }
+    }
+
   }
 
 }
@@ -0,0 +1,53 @@
+package com.github.jikoo.enchantableblocks.util;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Statistics describing the use of a {@link Cache}.
+ *
+ * @param size the number of values stored
+ * @param hits the number of requests for values that were stored
+ * @param misses the number of requests for values that were not stored
+ * @param loads the latency of the load function
+ * @param loadFailures the number of times the load function threw an exception
+ * @param renewals the number of times values were kept because they were in use
+ * @param expirations the number of values removed after the retention duration
+ * @param evictions the number of values removed to stay within the maximum weight
+ */
+public record CacheStats(
+    int size,
+    long hits,
+    long misses,
+    @NotNull LatencyStats loads,
+    long loadFailures,
+    long renewals,
+    long expirations,
+    long evictions) {
+
+  /**
+   * Get the fraction of requests for values that were stored.
+   *
+   * @return the hit rate
+   */
+  public double hitRate() {
+    long requests = hits + misses;
+    return requests == 0 ? 0 : hits / (double) requests;
+  }
+
+  @Override
+  public String toString() {
+    return String.format(
+        "%d values, %d hits, %d misses (%.1f%% hit rate), loads (%s), %d failed loads,"
+            + " %d in use renewals, %d expirations, %d evictions",
+        size,
+        hits,
+        misses,
+        hitRate() * 100,
+        loads,
+        loadFailures,
+        renewals,
+        expirations,
+        evictions);
+  }
+
+}
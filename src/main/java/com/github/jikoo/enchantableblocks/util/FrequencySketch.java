@@ -0,0 +1,115 @@
+package com.github.jikoo.enchantableblocks.util;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * A Count-Min sketch estimating how often keys were accessed recently.
+ *
+ * <p>Each key maps to four 4-bit counters, so estimates saturate at 15. Once the number of
+ * recorded accesses reaches ten times the table size, all counters are halved so that old
+ * popularity fades.
+ *
+ * <p>Not thread-safe; callers must synchronize access.
+ */
+final class FrequencySketch {
+
+  private static final long[] SEEDS = {
+      0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L
+  };
+  private static final long RESET_MASK = 0x7777777777777777L;
+  private static final int MAXIMUM_SIZE = 1 << 20;
+
+  private final long[] table;
+  private final int sampleSize;
+  private int additions = 0;
+
+  /**
+   * Construct a new {@code FrequencySketch}.
+   *
+   * @param expectedKeys the number of keys expected to be tracked
+   */
+  FrequencySketch(long expectedKeys) {
+    int size = (int) Math.max(16, Math.min(MAXIMUM_SIZE, expectedKeys));
+    // Round up to a power of two so that hashes can be masked.
+    this.table = new long[Integer.highestOneBit(size - 1) << 1];
+    this.sampleSize = 10 * table.length;
+  }
+
+  /**
+   * Estimate the number of recent accesses of a key.
+   *
+   * @param key the key
+   * @return the estimated number of accesses, at most 15
+   */
+  int frequency(@NotNull Object key) {
+    int hash = spread(key.hashCode());
+    int start = (hash & 3) << 2;
+    int frequency = 15;
+    for (int i = 0; i < 4; ++i) {
+      int index = indexOf(hash, i);
+      int count = (int) ((table[index] >>> ((start + i) << 2)) & 0xF);
+      frequency = Math.min(frequency, count);
+    }
+    return frequency;
+  }
+
+  /**
+   * Record an access of a key.
+   *
+   * @param key the key
+   */
+  void increment(@NotNull Object key) {
+    int hash = spread(key.hashCode());
+    int start = (hash & 3) << 2;
+    boolean added = false;
+    for (int i = 0; i < 4; ++i) {
+      int index = indexOf(hash, i);
+      int offset = (start + i) << 2;
+      long mask = 0xFL << offset;
+      if ((table[index] & mask) != mask) {
+        table[index] += 1L << offset;
+        added = true;
+      }
+    }
+
+    if (added && ++additions >= sampleSize) {
+      reset();
+    }
+  }
+
+  /**
+   * Halve all counters.
+   */
+  private void reset() {
+    for (int i = 0; i < table.length; ++i) {
+      table[i] = (table[i] >>> 1) & RESET_MASK;
+    }
+    additions >>>= 1;
+  }
+
+  /**
+   * Get the index of a counter in the table.
+   *
+   * @param hash the spread hash of the key
+   * @param i the counter number
+   * @return the index in the table
+   */
+  private int indexOf(int hash, int i) {
+    long index = (hash + SEEDS[i]) * SEEDS[i];
+    index += index >>> 32;
+    return (int) index & (table.length - 1);
+  }
+
+  /**
+   * Apply a supplemental hash to defend against poor key hashes.
+   *
+   * @param hash the key hash
+   * @return the spread hash
+   */
+  private static int spread(int hash) {
+    hash = ((hash >>> 16) ^ hash) * 0x45d9f3b;
+    hash = ((hash >>> 16) ^ hash) * 0x45d9f3b;
+    return (hash >>> 16) ^ hash;
+  }
+
+}
@@ -0,0 +1,93 @@
+package com.github.jikoo.enchantableblocks.util;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * A concurrent histogram of operation latencies.
+ *
+ * <p>Latencies are counted in buckets of exponentially increasing width, each bucket covering
+ * twice the microseconds of the last. Recording does not lock, so the histogram may be updated
+ * from any thread. Percentiles are estimated as the upper bound of the bucket they fall in.
+ */
+public final class LatencyHistogram {
+
+  private static final int BUCKETS = 32;
+
+  private final LongAdder[] buckets = new LongAdder[BUCKETS];
+  private final @NotNull LongAdder total = new LongAdder();
+  private final @NotNull AtomicLong max = new AtomicLong();
+
+  /**
+   * Construct a new {@code LatencyHistogram}.
+   */
+  public LatencyHistogram() {
+    for (int i = 0; i < BUCKETS; ++i) {
+      buckets[i] = new LongAdder();
+    }
+  }
+
+  /**
+   * Record the latency of an operation.
+   *
+   * @param nanos the latency in nanoseconds
+   */
+  public void record(long nanos) {
+    nanos = Math.max(0, nanos);
+    long micros = TimeUnit.NANOSECONDS.toMicros(nanos);
+    int bucket = Math.min(BUCKETS - 1, Long.SIZE - Long.numberOfLeadingZeros(micros));
+    buckets[bucket].increment();
+    total.add(nanos);
+    max.accumulateAndGet(nanos, Math::max);
+  }
+
+  /**
+   * Get a snapshot of the recorded latencies.
+   *
+   * @return the statistics
+   */
+  public @NotNull LatencyStats snapshot() {
+    long[] counts = new long[BUCKETS];
+    long count = 0;
+    for (int i = 0; i < BUCKETS; ++i) {
+      counts[i] = buckets[i].sum();
+      count += counts[i];
+    }
+    long maxNanos = max.get();
+    return new LatencyStats(
+        count,
+        total.sum(),
+        maxNanos,
+        percentile(counts, count, 0.5, maxNanos),
+        percentile(counts, count, 0.99, maxNanos));
+  }
+
+  /**
+   * Estimate a percentile of the recorded latencies.
+   *
+   * @param counts the count of latencies in each bucket
+   * @param count the total count of latencies
+   * @param percentile the percentile as a fraction
+   * @param maxNanos the highest latency recorded
+   * @return the upper bound of the bucket containing the percentile in nanoseconds
+   */
+  private static long percentile(long[] counts, long count, double percentile, long maxNanos) {
+    if (count == 0) {
+      return 0;
+    }
+
+    long rank = (long) Math.ceil(count * percentile);
+    long seen = 0;
+    for (int i = 0; i < BUCKETS; ++i) {
+      seen += counts[i];
+      if (seen >= rank) {
+        // Bucket i holds latencies under 2^i microseconds.
+        return Math.min(maxNanos, TimeUnit.MICROSECONDS.toNanos(1L << i));
+      }
+    }
+    return maxNanos;
+  }
+
+}
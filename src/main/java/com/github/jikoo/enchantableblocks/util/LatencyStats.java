@@ -0,0 +1,47 @@
+package com.github.jikoo.enchantableblocks.util;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Statistics describing the latency of an operation.
+ *
+ * <p>Percentiles are estimates and may be up to twice the true value.
+ *
+ * @param count the number of operations
+ * @param totalNanos the total latency of all operations in nanoseconds
+ * @param maxNanos the highest latency of any operation in nanoseconds
+ * @param p50Nanos the median latency in nanoseconds
+ * @param p99Nanos the 99th percentile latency in nanoseconds
+ */
+public record LatencyStats(
+    long count,
+    long totalNanos,
+    long maxNanos,
+    long p50Nanos,
+    long p99Nanos) {
+
+  /**
+   * Get the mean latency of an operation.
+   *
+   * @return the mean latency in milliseconds
+   */
+  public double meanMillis() {
+    if (count == 0) {
+      return 0;
+    }
+    return totalNanos / (double) count / TimeUnit.MILLISECONDS.toNanos(1);
+  }
+
+  @Override
+  public String toString() {
+    double nanosPerMilli = TimeUnit.MILLISECONDS.toNanos(1);
+    return String.format(
+        "%d operations, latency mean %.2fms, p50 %.2fms, p99 %.2fms, max %.2fms",
+        count,
+        meanMillis(),
+        p50Nanos / nanosPerMilli,
+        p99Nanos / nanosPerMilli,
+        maxNanos / nanosPerMilli);
+  }
+
+}
@@ -1,66 +1,264 @@
 package com.github.jikoo.enchantableblocks.util;
 
+import com.github.jikoo.enchantableblocks.util.storage.BinaryRegionCodec;
+import com.github.jikoo.enchantableblocks.util.storage.FileCommit;
+import com.github.jikoo.enchantableblocks.util.storage.RegionFormat;
+import com.github.jikoo.enchantableblocks.util.storage.YamlRegionCodec;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMaps;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.OutputStreamWriter;
-import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+import org.bukkit.configuration.ConfigurationSection;
 import org.bukkit.configuration.InvalidConfigurationException;
 import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.inventory.ItemStack;
 import org.bukkit.plugin.Plugin;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 /**
  * A simplified way of managing a {@link YamlConfiguration} per Minecraft region.
+ *
+ * <p>Data is kept in memory as a configuration and stored on disk in a {@link RegionFormat}.
+ * Files are checksummed so that damaged data is rejected before it is parsed. YAML files start
+ * with a comment containing the CRC32C of the remainder of the file; files without the comment
+ * are loaded without verification. YAML files are written and read through a streaming
+ * {@link YamlRegionCodec}.
+ *
+ * <p>The number of blocks stored is tracked as blocks are added and removed so that it is
+ * available without walking the configuration. Blocks must be added and removed through
+ * {@link #createBlock(String, String)}, {@link #removeBlock(String, String)}, and
+ * {@link #removeChunk(String)} or their coordinate equivalents. After other modification,
+ * {@link #recountBlocks()} must be called.
+ *
+ * <p>Block sections are also indexed by packed {@link BlockKey} so that blocks can be looked up and
+ * removed by coordinates without building paths. The index is rebuilt by {@link #recountBlocks()},
+ * which also moves any block stored under the wrong chunk into the chunk containing it. Blocks that
+ * cannot be indexed, either because their path is not valid or because they belong to another
+ * region, are left in place and are available from {@link #getUnindexedBlocks(int, int)}.
  */
 public class RegionStorage extends YamlConfiguration {
 
   private final @NotNull Plugin plugin;
   private final @NotNull Region region;
+  private final @NotNull RegionFormat format;
+  private final @NotNull Long2ObjectMap<ChunkIndex> index = new Long2ObjectOpenHashMap<>();
+  private boolean migrated = false;
+  private boolean repaired = false;
+  private int blockCount = 0;
 
   /**
-   * Construct a new {@code RegionStorage}.
+   * Construct a new {@code RegionStorage} using the {@link RegionFormat#BINARY binary format}.
    *
    * @param plugin the plugin for which data is being stored
    * @param region the representation of the Minecraft region
    */
   public RegionStorage(@NotNull Plugin plugin, @NotNull Region region) {
+    this(plugin, region, RegionFormat.BINARY);
+  }
+
+  /**
+   * Construct a new {@code RegionStorage}.
+   *
+   * @param plugin the plugin for which data is being stored
+   * @param region the representation of the Minecraft region
+   * @param format the format used to store data on disk
+   */
+  public RegionStorage(
+      @NotNull Plugin plugin,
+      @NotNull Region region,
+      @NotNull RegionFormat format) {
     this.plugin = plugin;
     this.region = region;
+    this.format = format;
   }
 
   /**
    * Load the configuration from the default location on disk.
    *
-   * <p>Note that if the file is not present, an empty configuration will be returned instead.
+   * <p>If the file is not present but data is stored in another format, it will be loaded instead
+   * and the configuration will be flagged as {@link #isMigrated() migrated}. The other format is
+   * removed the next time the configuration is {@link #save() saved}.
+   *
+   * <p>Note that if no file is present, an empty configuration will be returned instead.
    *
    * @throws IOException if there is an issue reading from disk
    * @throws InvalidConfigurationException if the configuration is not valid
    * @see YamlConfiguration#load(File)
    */
   public void load() throws IOException, InvalidConfigurationException {
+    load(chunkPath -> true);
+  }
+
+  /**
+   * Load only specific chunk sections from the default location on disk.
+   *
+   * <p>Otherwise identical to {@link #load()}. Other sections are not materialized, so a partially
+   * loaded configuration must not be saved.
+   *
+   * @param chunkFilter the filter for chunk paths to load
+   * @throws IOException if there is an issue reading from disk
+   * @throws InvalidConfigurationException if the configuration is not valid
+   */
+  public void load(@NotNull Predicate<String> chunkFilter)
+      throws IOException, InvalidConfigurationException {
     File dataFile = getDataFile();
     if (dataFile.exists()) {
-      load(dataFile);
+      load(dataFile, format, chunkFilter);
+      return;
+    }
+
+    for (RegionFormat other : RegionFormat.values()) {
+      File otherFile = getDataFile(other);
+      if (other != format && otherFile.exists()) {
+        load(otherFile, other, chunkFilter);
+        migrated = true;
+        return;
+      }
+    }
+  }
+
+  @Override
+  public void load(@NotNull File file) throws IOException, InvalidConfigurationException {
+    load(file, format);
+  }
+
+  /**
+   * Load the configuration from disk in a specific format.
+   *
+   * @param file the file to load from
+   * @param fileFormat the format of the file
+   * @throws IOException if there is an issue reading from disk
+   * @throws InvalidConfigurationException if the configuration is not valid
+   */
+  public void load(
+      @NotNull File file,
+      @NotNull RegionFormat fileFormat) throws IOException, InvalidConfigurationException {
+    load(file, fileFormat, chunkPath -> true);
+  }
+
+  private void load(
+      @NotNull File file,
+      @NotNull RegionFormat fileFormat,
+      @NotNull Predicate<String> chunkFilter) throws IOException, InvalidConfigurationException {
+    clear();
+
+    try {
+      if (fileFormat == RegionFormat.YAML) {
+        YamlRegionCodec.read(file.toPath(), this, chunkFilter);
+        return;
+      }
+
+      try {
+        BinaryRegionCodec.read(new ByteArrayInputStream(Files.readAllBytes(file.toPath())), this);
+      } catch (EOFException e) {
+        throw new InvalidConfigurationException("Data is truncated", e);
+      }
+
+      for (String key : getKeys(false)) {
+        if (!chunkFilter.test(key)) {
+          set(key, null);
+        }
+      }
+    } finally {
+      recountBlocks();
     }
   }
 
   /**
-   * Save the configuration to the default location on disk.
+   * Check if data is present on disk in any format.
+   *
+   * @return true if data is present on disk
+   */
+  public boolean exists() {
+    for (RegionFormat value : RegionFormat.values()) {
+      if (getDataFile(value).exists()) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Check if the configuration was loaded from a format other than the configured format.
+   *
+   * @return true if the data should be saved to complete migration
+   */
+  public boolean isMigrated() {
+    return migrated;
+  }
+
+  /**
+   * Check if blocks stored under the wrong chunk were moved when the configuration was indexed.
+   *
+   * @return true if the data should be saved to keep the blocks in their new location
+   */
+  public boolean isRepaired() {
+    return repaired;
+  }
+
+  /**
+   * Save the configuration to the default location on disk. Any data stored in other formats is
+   * deleted afterwards.
+   *
+   * <p>If a {@link FileCommit} is open on the current thread, the operations are staged until it
+   * is applied.
    *
    * @throws IOException if there is an issue writing the file to disk
    */
   public void save() throws IOException {
     save(getDataFile());
+    for (RegionFormat other : RegionFormat.values()) {
+      if (other != format) {
+        FileCommit.delete(getDataFile(other).toPath());
+      }
+    }
+  }
+
+  /**
+   * Get the total size of data stored on disk in all formats.
+   *
+   * @return the size in bytes
+   * @throws IOException if there is an issue reading file attributes
+   */
+  public long getDataSize() throws IOException {
+    long size = 0;
+    for (RegionFormat value : RegionFormat.values()) {
+      Path dataFile = getDataFile(value).toPath();
+      if (Files.exists(dataFile)) {
+        size += Files.size(dataFile);
+      }
+    }
+    return size;
+  }
+
+  /**
+   * Delete data in all formats from disk.
+   *
+   * @throws IOException if there is an issue deleting files
+   */
+  public void delete() throws IOException {
+    for (RegionFormat value : RegionFormat.values()) {
+      FileCommit.delete(getDataFile(value).toPath());
+    }
   }
 
   /**
    * Save the configuration to disk.
    *
-   * <p>Very similar to the overriden method, however, leverages {@link java.nio} features instead
-   * of beta Google APIs.
+   * <p>Very similar to the overriden method, however, the existing file is replaced atomically via
+   * a {@link FileCommit} so that a failed write never leaves a partially written file, and the
+   * contents are checksummed. YAML is streamed directly to disk rather than built in memory.
    *
    * @param file the file to save to on disk
    * @throws IOException if there is an issue writing to disk
@@ -68,13 +266,392 @@ public class RegionStorage extends YamlConfiguration {
    */
   @Override
   public void save(@NotNull File file) throws IOException {
-    Files.createDirectories(file.toPath().normalize().getParent());
+    if (format == RegionFormat.BINARY) {
+      FileCommit.write(file.toPath(), stream -> BinaryRegionCodec.write(this, stream));
+      return;
+    }
+
+    FileCommit.writeChannel(file.toPath(), channel -> YamlRegionCodec.write(this, channel));
+  }
+
+  /**
+   * Check if the configuration contains any non-null values.
+   *
+   * @return true if no values are stored
+   */
+  public boolean isEmpty() {
+    return blockCount == 0 && getKeys(false).isEmpty();
+  }
+
+  /**
+   * Get the number of blocks stored.
+   *
+   * @return the number of blocks
+   */
+  public int getBlockCount() {
+    return blockCount;
+  }
+
+  /**
+   * Get a block's section.
+   *
+   * @param x the block X coordinate
+   * @param y the block Y coordinate
+   * @param z the block Z coordinate
+   * @return the block section or {@code null} if the block is not stored
+   */
+  public @Nullable ConfigurationSection getBlock(int x, int y, int z) {
+    ChunkIndex chunk = index.get(BlockKey.chunk(x >> 4, z >> 4));
+    return chunk == null ? null : chunk.blocks().get(BlockKey.block(x, y, z));
+  }
+
+  /**
+   * Check if a chunk section is present.
+   *
+   * @param chunkX the chunk X coordinate
+   * @param chunkZ the chunk Z coordinate
+   * @return true if the chunk section is present
+   */
+  public boolean hasChunk(int chunkX, int chunkZ) {
+    return index.containsKey(BlockKey.chunk(chunkX, chunkZ));
+  }
+
+  /**
+   * Get the block sections in a chunk keyed by chunk-relative {@link BlockKey}.
+   *
+   * @param chunkX the chunk X coordinate
+   * @param chunkZ the chunk Z coordinate
+   * @return an unmodifiable view of the chunk's blocks
+   */
+  public @NotNull Long2ObjectMap<ConfigurationSection> getChunkBlocks(int chunkX, int chunkZ) {
+    ChunkIndex chunk = index.get(BlockKey.chunk(chunkX, chunkZ));
+    if (chunk == null) {
+      return Long2ObjectMaps.emptyMap();
+    }
+    return Long2ObjectMaps.unmodifiable(chunk.blocks());
+  }
+
+  /**
+   * Get the paths of entries in a chunk section that could not be indexed as blocks.
+   *
+   * @param chunkX the chunk X coordinate
+   * @param chunkZ the chunk Z coordinate
+   * @return the paths within the chunk section
+   */
+  public @NotNull Collection<String> getUnindexedBlocks(int chunkX, int chunkZ) {
+    ChunkIndex chunk = index.get(BlockKey.chunk(chunkX, chunkZ));
+    return chunk == null ? List.of() : List.copyOf(chunk.unindexed());
+  }
 
-    String yamlData = saveToString();
+  /**
+   * Create a new section for a block, replacing any existing data. The chunk section is created as
+   * needed.
+   *
+   * @param x the block X coordinate
+   * @param y the block Y coordinate
+   * @param z the block Z coordinate
+   * @return the block section
+   */
+  public @NotNull ConfigurationSection createBlock(int x, int y, int z) {
+    ChunkIndex chunk = getOrCreateChunk(x >> 4, z >> 4);
+    ConfigurationSection block = chunk.section().createSection(BlockKey.blockPath(x, y, z));
+    if (chunk.blocks().put(BlockKey.block(x, y, z), block) == null) {
+      ++blockCount;
+    }
+    return block;
+  }
+
+  /**
+   * Create a new section for a block, replacing any existing data. The chunk section is created as
+   * needed.
+   *
+   * @param chunkPath the path of the chunk section
+   * @param blockPath the path of the block within the chunk section
+   * @return the block section
+   */
+  public @NotNull ConfigurationSection createBlock(
+      @NotNull String chunkPath,
+      @NotNull String blockPath) {
+    long chunkKey = BlockKey.tryParseBlockChunk(blockPath);
+    if (chunkKey != BlockKey.INVALID) {
+      int chunkX = BlockKey.chunkX(chunkKey);
+      int chunkZ = BlockKey.chunkZ(chunkKey);
+      if (BlockKey.chunkPath(chunkX, chunkZ).equals(chunkPath)) {
+        long blockKey = BlockKey.parseBlock(blockPath, chunkX, chunkZ);
+        return createBlock(
+            chunkX << 4 | BlockKey.relativeX(blockKey),
+            BlockKey.blockY(blockKey),
+            chunkZ << 4 | BlockKey.relativeZ(blockKey));
+      }
+    }
+
+    // Not a block in the chunk, store it as-is without indexing it.
+    ConfigurationSection chunk = getConfigurationSection(chunkPath);
+    if (chunk == null) {
+      chunk = createSection(chunkPath);
+    }
+    if (!chunk.contains(blockPath)) {
+      ++blockCount;
+    }
+    return chunk.createSection(blockPath);
+  }
+
+  /**
+   * Remove a block. Chunk sections left empty are not removed.
+   *
+   * @param x the block X coordinate
+   * @param y the block Y coordinate
+   * @param z the block Z coordinate
+   * @return true if the chunk section is now empty
+   */
+  public boolean removeBlock(int x, int y, int z) {
+    ChunkIndex chunk = index.get(BlockKey.chunk(x >> 4, z >> 4));
+    if (chunk == null) {
+      return true;
+    }
+    ConfigurationSection block = chunk.blocks().remove(BlockKey.block(x, y, z));
+    if (block != null) {
+      chunk.section().set(block.getName(), null);
+      --blockCount;
+    }
+    return chunk.blocks().isEmpty() && chunk.unindexed().isEmpty();
+  }
+
+  /**
+   * Remove a block. Chunk sections left empty are not removed.
+   *
+   * @param chunkPath the path of the chunk section
+   * @param blockPath the path of the block within the chunk section
+   * @return true if the chunk section is now empty
+   */
+  public boolean removeBlock(@NotNull String chunkPath, @NotNull String blockPath) {
+    ConfigurationSection chunk = getConfigurationSection(chunkPath);
+    if (chunk == null) {
+      return true;
+    }
+    if (chunk.contains(blockPath)) {
+      chunk.set(blockPath, null);
+      --blockCount;
+      ChunkIndex chunkIndex = getIndex(chunkPath);
+      if (chunkIndex != null) {
+        long blockKey =
+            BlockKey.tryParseBlock(blockPath, chunkIndex.chunkX(), chunkIndex.chunkZ());
+        if (blockKey == BlockKey.INVALID || blockKey == BlockKey.OTHER_CHUNK) {
+          chunkIndex.unindexed().remove(blockPath);
+        } else {
+          chunkIndex.blocks().remove(blockKey);
+        }
+      }
+    }
+    return chunk.getKeys(false).isEmpty();
+  }
+
+  /**
+   * Remove a chunk and all blocks in it.
+   *
+   * @param chunkX the chunk X coordinate
+   * @param chunkZ the chunk Z coordinate
+   */
+  public void removeChunk(int chunkX, int chunkZ) {
+    ChunkIndex chunk = index.remove(BlockKey.chunk(chunkX, chunkZ));
+    if (chunk != null) {
+      blockCount -= chunk.blocks().size() + chunk.unindexed().size();
+      set(chunk.section().getName(), null);
+    }
+  }
+
+  /**
+   * Remove a chunk and all blocks in it.
+   *
+   * @param chunkPath the path of the chunk
+   */
+  public void removeChunk(@NotNull String chunkPath) {
+    ConfigurationSection chunk = getConfigurationSection(chunkPath);
+    if (chunk != null) {
+      blockCount -= chunk.getKeys(false).size();
+    }
+    set(chunkPath, null);
+    ChunkIndex chunkIndex = getIndex(chunkPath);
+    if (chunkIndex != null) {
+      index.remove(BlockKey.chunk(chunkIndex.chunkX(), chunkIndex.chunkZ()));
+    }
+  }
+
+  /**
+   * Remove all data.
+   */
+  public void clear() {
+    for (String key : getKeys(false)) {
+      set(key, null);
+    }
+    index.clear();
+    blockCount = 0;
+  }
+
+  /**
+   * Count and index the blocks stored after modifying the configuration directly. Blocks stored
+   * under the wrong chunk of this region are moved to the correct chunk and the configuration is
+   * flagged as {@link #isRepaired() repaired}.
+   */
+  public void recountBlocks() {
+    index.clear();
+    int count = 0;
+    List<ChunkIndex> misplaced = new ArrayList<>();
+
+    for (String chunkPath : getKeys(false)) {
+      ConfigurationSection chunk = getConfigurationSection(chunkPath);
+      if (chunk == null) {
+        continue;
+      }
 
-    try (OutputStreamWriter writer = new OutputStreamWriter(new FileOutputStream(file),
-        StandardCharsets.UTF_8)) {
-      writer.write(yamlData);
+      long chunkKey;
+      try {
+        chunkKey = BlockKey.parseChunk(chunkPath);
+      } catch (NumberFormatException e) {
+        count += chunk.getKeys(false).size();
+        continue;
+      }
+
+      ChunkIndex chunkIndex = new ChunkIndex(
+          BlockKey.chunkX(chunkKey),
+          BlockKey.chunkZ(chunkKey),
+          chunk,
+          new Long2ObjectOpenHashMap<>(),
+          new ArrayList<>());
+      index.put(chunkKey, chunkIndex);
+      boolean hasMisplaced = false;
+
+      for (String blockPath : chunk.getKeys(false)) {
+        ++count;
+        ConfigurationSection block = chunk.getConfigurationSection(blockPath);
+        long blockKey = block == null
+            ? BlockKey.INVALID
+            : BlockKey.tryParseBlock(blockPath, chunkIndex.chunkX(), chunkIndex.chunkZ());
+        if (blockKey == BlockKey.INVALID) {
+          chunkIndex.unindexed().add(blockPath);
+        } else if (blockKey == BlockKey.OTHER_CHUNK) {
+          chunkIndex.unindexed().add(blockPath);
+          hasMisplaced = true;
+        } else {
+          chunkIndex.blocks().put(blockKey, block);
+        }
+      }
+
+      if (hasMisplaced) {
+        misplaced.add(chunkIndex);
+      }
+    }
+
+    blockCount = count;
+
+    for (ChunkIndex chunk : misplaced) {
+      relocate(chunk);
+    }
+  }
+
+  /**
+   * Move blocks stored under the wrong chunk into the chunk containing them. Blocks outside of the
+   * region cannot be moved and are left in place.
+   *
+   * @param chunk the chunk containing misplaced blocks
+   */
+  private void relocate(@NotNull ChunkIndex chunk) {
+    for (String blockPath : List.copyOf(chunk.unindexed())) {
+      ConfigurationSection block = chunk.section().getConfigurationSection(blockPath);
+      long chunkKey = BlockKey.tryParseBlockChunk(blockPath);
+      if (block == null || chunkKey == BlockKey.INVALID) {
+        continue;
+      }
+
+      int chunkX = BlockKey.chunkX(chunkKey);
+      int chunkZ = BlockKey.chunkZ(chunkKey);
+      if (chunkX >> 5 != region.x() || chunkZ >> 5 != region.z()) {
+        continue;
+      }
+
+      long blockKey = BlockKey.parseBlock(blockPath, chunkX, chunkZ);
+      int x = chunkX << 4 | BlockKey.relativeX(blockKey);
+      int y = BlockKey.blockY(blockKey);
+      int z = chunkZ << 4 | BlockKey.relativeZ(blockKey);
+
+      chunk.unindexed().remove(blockPath);
+      chunk.section().set(blockPath, null);
+      --blockCount;
+      // Data already stored in the correct chunk takes precedence.
+      if (getBlock(x, y, z) == null) {
+        copy(block, createBlock(x, y, z));
+      }
+      repaired = true;
+    }
+
+    if (chunk.blocks().isEmpty() && chunk.unindexed().isEmpty()) {
+      removeChunk(chunk.chunkX(), chunk.chunkZ());
+    }
+  }
+
+  private @NotNull ChunkIndex getOrCreateChunk(int chunkX, int chunkZ) {
+    long chunkKey = BlockKey.chunk(chunkX, chunkZ);
+    ChunkIndex chunk = index.get(chunkKey);
+    if (chunk == null) {
+      String chunkPath = BlockKey.chunkPath(chunkX, chunkZ);
+      ConfigurationSection section = getConfigurationSection(chunkPath);
+      if (section == null) {
+        section = createSection(chunkPath);
+      }
+      chunk = new ChunkIndex(
+          chunkX,
+          chunkZ,
+          section,
+          new Long2ObjectOpenHashMap<>(),
+          new ArrayList<>());
+      index.put(chunkKey, chunk);
+    }
+    return chunk;
+  }
+
+  private @Nullable ChunkIndex getIndex(@NotNull String chunkPath) {
+    try {
+      return index.get(BlockKey.parseChunk(chunkPath));
+    } catch (NumberFormatException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Create a detached copy of the configuration. Nested sections are copied and
+   * {@link ItemStack ItemStacks} are cloned so that later modification of this configuration does
+   * not affect the copy.
+   *
+   * <p>The copy is not indexed, blocks may only be looked up by path until
+   * {@link #recountBlocks()} is called.
+   *
+   * @return the copy
+   */
+  public @NotNull RegionStorage snapshot() {
+    RegionStorage snapshot = new RegionStorage(plugin, region, format);
+    copy(this, snapshot);
+    snapshot.blockCount = blockCount;
+    return snapshot;
+  }
+
+  /**
+   * Recursively copy the contents of a {@link ConfigurationSection}.
+   *
+   * @param from the source section
+   * @param to the destination section
+   */
+  public static void copy(@NotNull ConfigurationSection from, @NotNull ConfigurationSection to) {
+    for (Map.Entry<String, Object> entry : from.getValues(false).entrySet()) {
+      Object value = entry.getValue();
+      if (value instanceof ConfigurationSection section) {
+        copy(section, to.createSection(entry.getKey()));
+      } else if (value instanceof ItemStack itemStack) {
+        to.set(entry.getKey(), itemStack.clone());
+      } else if (value instanceof List<?> list) {
+        to.set(entry.getKey(), new ArrayList<>(list));
+      } else {
+        to.set(entry.getKey(), value);
+      }
     }
   }
 
@@ -84,14 +661,33 @@ public class RegionStorage extends YamlConfiguration {
    * @return the location on disk
    */
   public File getDataFile() {
+    return getDataFile(format);
+  }
+
+  /**
+   * Get the storage location on disk for a specific format.
+   *
+   * @param fileFormat the format
+   * @return the location on disk
+   */
+  public @NotNull File getDataFile(@NotNull RegionFormat fileFormat) {
     return plugin.getDataFolder().toPath()
         .resolve(Path.of(
             "data",
             region.worldName(),
-            String.format("%1$s_%2$s.yml", region.x(), region.z())
+            String.format("%1$s_%2$s.%3$s", region.x(), region.z(), fileFormat.getExtension())
         )).toFile();
   }
 
+  /**
+   * Get the {@link RegionFormat} used to store the configuration on disk.
+   *
+   * @return the format
+   */
+  public @NotNull RegionFormat getFormat() {
+    return this.format;
+  }
+
   /**
    * Get the {@link Region} that this configuration represents.
    *
@@ -101,4 +697,20 @@ public class RegionStorage extends YamlConfiguration {
     return this.region;
   }
 
+  /**
+   * The indexed contents of a chunk section.
+   *
+   * @param chunkX the chunk X coordinate
+   * @param chunkZ the chunk Z coordinate
+   * @param section the chunk section
+   * @param blocks the block sections keyed by chunk-relative {@link BlockKey}
+   * @param unindexed the paths of entries that are not valid blocks in the chunk
+   */
+  private record ChunkIndex(
+      int chunkX,
+      int chunkZ,
+      @NotNull ConfigurationSection section,
+      @NotNull Long2ObjectMap<ConfigurationSection> blocks,
+      @NotNull List<String> unindexed) {}
+
 }
@@ -0,0 +1,198 @@
+package com.github.jikoo.enchantableblocks.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * A hierarchical timing wheel ordering {@link Timer Timers} by deadline.
+ *
+ * <p>Each level of the wheel is a ring of buckets covering a span of time. Timers are placed in
+ * the finest level able to hold their deadline and cascade to finer levels as time advances.
+ * Scheduling and cancelling a timer take constant time, and advancing only visits buckets whose
+ * time has passed. Deadlines are in milliseconds.
+ *
+ * <p>Not thread-safe; callers must synchronize access.
+ */
+final class TimerWheel {
+
+  private static final int[] BUCKETS = {64, 64, 32, 4, 1};
+  // Spans roughly equal a second, a minute, an hour, a day, and four days.
+  private static final long[] SPANS = {
+      1L << 10, 1L << 16, 1L << 22, 1L << 27, 1L << 29, 1L << 29
+  };
+  private static final int[] SHIFT = {10, 16, 22, 27, 29};
+
+  private final @NotNull Timer[][] wheel;
+  private long time;
+
+  /**
+   * Construct a new {@code TimerWheel}.
+   *
+   * @param time the current time
+   */
+  TimerWheel(long time) {
+    this.time = time;
+    this.wheel = new Timer[BUCKETS.length][];
+    for (int level = 0; level < BUCKETS.length; ++level) {
+      wheel[level] = new Timer[BUCKETS[level]];
+      for (int bucket = 0; bucket < BUCKETS[level]; ++bucket) {
+        Timer sentinel = new Timer();
+        sentinel.prev = sentinel;
+        sentinel.next = sentinel;
+        wheel[level][bucket] = sentinel;
+      }
+    }
+  }
+
+  /**
+   * Schedule a {@link Timer} at its deadline. A timer that is already scheduled is moved.
+   *
+   * @param timer the {@code Timer}
+   */
+  void schedule(@NotNull Timer timer) {
+    cancel(timer);
+    Timer sentinel = findBucket(timer.deadline);
+    timer.prev = sentinel.prev;
+    timer.next = sentinel;
+    sentinel.prev.next = timer;
+    sentinel.prev = timer;
+  }
+
+  /**
+   * Remove a {@link Timer} from the wheel if it is scheduled.
+   *
+   * @param timer the {@code Timer}
+   */
+  void cancel(@NotNull Timer timer) {
+    if (timer.next == null || timer.prev == null) {
+      return;
+    }
+    timer.prev.next = timer.next;
+    timer.next.prev = timer.prev;
+    timer.prev = null;
+    timer.next = null;
+  }
+
+  /**
+   * Advance the wheel, offering each {@link Timer} whose deadline has passed to an expiration
+   * function. Timers the function does not expire are rescheduled at their deadline, which the
+   * function may update.
+   *
+   * @param now the current time
+   * @param expire the expiration function returning true if the timer is expired
+   */
+  void advance(long now, @NotNull Predicate<Timer> expire) {
+    long previous = this.time;
+    this.time = now;
+
+    for (int level = 0; level < SHIFT.length; ++level) {
+      long previousTicks = previous >>> SHIFT[level];
+      long delta = (now >>> SHIFT[level]) - previousTicks;
+      // The current finest bucket is always checked so that timers expire on time.
+      if (delta <= 0 && level > 0) {
+        break;
+      }
+      int steps = (int) Math.min(1 + Math.max(0, delta), BUCKETS[level]);
+      for (int step = 0; step < steps; ++step) {
+        int bucket = (int) ((previousTicks + step) & (BUCKETS[level] - 1));
+        for (Timer timer : detach(wheel[level][bucket])) {
+          if (timer.deadline >= now || !expire.test(timer)) {
+            schedule(timer);
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Remove all {@link Timer Timers}, offering each to an expiration function. Timers the function
+   * does not expire are rescheduled at their deadline, which the function may update.
+   *
+   * @param expire the expiration function returning true if the timer is expired
+   */
+  void expireAll(@NotNull Predicate<Timer> expire) {
+    List<Timer> timers = new ArrayList<>();
+    for (Timer[] level : wheel) {
+      for (Timer sentinel : level) {
+        timers.addAll(detach(sentinel));
+      }
+    }
+
+    for (Timer timer : timers) {
+      if (!expire.test(timer)) {
+        schedule(timer);
+      }
+    }
+  }
+
+  /**
+   * Remove all {@link Timer Timers} from a bucket. Timers are unlinked before they are returned
+   * so that they may be safely cancelled or rescheduled while the bucket is processed.
+   *
+   * @param sentinel the sentinel of the bucket
+   * @return the removed timers in order
+   */
+  private @NotNull List<Timer> detach(@NotNull Timer sentinel) {
+    if (sentinel.next == sentinel) {
+      return List.of();
+    }
+
+    List<Timer> timers = new ArrayList<>();
+    Timer timer = sentinel.next;
+    while (timer != null && timer != sentinel) {
+      Timer next = timer.next;
+      timer.prev = null;
+      timer.next = null;
+      timers.add(timer);
+      timer = next;
+    }
+    sentinel.prev = sentinel;
+    sentinel.next = sentinel;
+    return timers;
+  }
+
+  /**
+   * Find the bucket that a deadline belongs in.
+   *
+   * @param deadline the deadline
+   * @return the sentinel of the bucket
+   */
+  private @NotNull Timer findBucket(long deadline) {
+    // Past deadlines go in the current bucket, which is checked on every advance.
+    long target = Math.max(deadline, time);
+    long duration = target - time;
+    int last = wheel.length - 1;
+    for (int level = 0; level < last; ++level) {
+      if (duration < SPANS[level + 1]) {
+        int bucket = (int) ((target >>> SHIFT[level]) & (BUCKETS[level] - 1));
+        return wheel[level][bucket];
+      }
+    }
+    return wheel[last][0];
+  }
+
+  /**
+   * An entry in a {@link TimerWheel}.
+   */
+  static class Timer {
+
+    long deadline;
+    // Unscheduled timers are unlinked. Bucket sentinels link to themselves when empty.
+    @Nullable Timer prev;
+    @Nullable Timer next;
+
+    /**
+     * Check if the {@code Timer} is scheduled.
+     *
+     * @return true if the {@code Timer} is in a {@link TimerWheel}
+     */
+    boolean isScheduled() {
+      return next != null;
+    }
+
+  }
+
+}
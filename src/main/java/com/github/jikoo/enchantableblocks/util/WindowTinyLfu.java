@@ -0,0 +1,292 @@
+package com.github.jikoo.enchantableblocks.util;
+
+import com.github.jikoo.enchantableblocks.util.Cache.Node;
+import java.util.function.Predicate;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * A W-TinyLFU eviction policy bounding the total weight of {@link Cache} entries.
+ *
+ * <p>New entries enter a small least recently used window. Entries leaving the window compete
+ * with the least recently used entry of the main space, and whichever a {@link FrequencySketch}
+ * estimates was accessed more often recently is kept. The main space is a segmented LRU: entries
+ * accessed again while on probation are promoted to a protected segment, and entries pushed out of
+ * the protected segment return to probation.
+ *
+ * <p>Not thread-safe; callers must synchronize access.
+ *
+ * @param <K> the type of key
+ * @param <V> the type of value
+ */
+final class WindowTinyLfu<K, V> {
+
+  static final byte NONE = 0;
+  static final byte WINDOW = 1;
+  static final byte PROBATION = 2;
+  static final byte PROTECTED = 3;
+
+  private final long maximum;
+  private final long windowMaximum;
+  private final long protectedMaximum;
+  private final @NotNull FrequencySketch sketch;
+  private final @NotNull AccessQueue<K, V> window = new AccessQueue<>();
+  private final @NotNull AccessQueue<K, V> probation = new AccessQueue<>();
+  private final @NotNull AccessQueue<K, V> protectedQueue = new AccessQueue<>();
+  private long windowWeight = 0;
+  private long protectedWeight = 0;
+  private long weight = 0;
+
+  /**
+   * Construct a new {@code WindowTinyLfu}.
+   *
+   * @param maximum the maximum total weight of entries
+   */
+  WindowTinyLfu(long maximum) {
+    this.maximum = maximum;
+    this.windowMaximum = Math.max(1, maximum / 100);
+    this.protectedMaximum = (maximum - windowMaximum) * 4 / 5;
+    this.sketch = new FrequencySketch(Math.min(maximum, 1 << 16));
+  }
+
+  /**
+   * Get the total weight of entries.
+   *
+   * @return the total weight
+   */
+  long getWeight() {
+    return weight;
+  }
+
+  /**
+   * Check if the total weight of entries exceeds the maximum.
+   *
+   * @return true if entries must be evicted
+   */
+  boolean isOverweight() {
+    return weight > maximum;
+  }
+
+  /**
+   * Add a new entry.
+   *
+   * @param node the entry
+   * @param nodeWeight the weight of the entry
+   */
+  void add(@NotNull Node<K, V> node, int nodeWeight) {
+    if (node.queue != NONE) {
+      return;
+    }
+    node.weight = nodeWeight;
+    node.queue = WINDOW;
+    window.addLast(node);
+    windowWeight += nodeWeight;
+    weight += nodeWeight;
+    sketch.increment(node.key);
+  }
+
+  /**
+   * Record an access of an entry.
+   *
+   * @param node the entry
+   */
+  void access(@NotNull Node<K, V> node) {
+    if (node.queue == NONE) {
+      return;
+    }
+    sketch.increment(node.key);
+    retain(node);
+  }
+
+  /**
+   * Update the weight of an entry.
+   *
+   * @param node the entry
+   * @param nodeWeight the new weight of the entry
+   */
+  void reweigh(@NotNull Node<K, V> node, int nodeWeight) {
+    if (node.queue == NONE) {
+      return;
+    }
+    int delta = nodeWeight - node.weight;
+    node.weight = nodeWeight;
+    weight += delta;
+    if (node.queue == WINDOW) {
+      windowWeight += delta;
+    } else if (node.queue == PROTECTED) {
+      protectedWeight += delta;
+    }
+  }
+
+  /**
+   * Remove an entry.
+   *
+   * @param node the entry
+   */
+  void remove(@NotNull Node<K, V> node) {
+    switch (node.queue) {
+      case WINDOW -> {
+        window.remove(node);
+        windowWeight -= node.weight;
+      }
+      case PROBATION -> probation.remove(node);
+      case PROTECTED -> {
+        protectedQueue.remove(node);
+        protectedWeight -= node.weight;
+      }
+      default -> {
+        return;
+      }
+    }
+    node.queue = NONE;
+    weight -= node.weight;
+  }
+
+  /**
+   * Evict entries until the total weight no longer exceeds the maximum. Each entry selected is
+   * offered to an eviction function, which removes it from the policy if it is evicted. Entries
+   * that are not evicted are left in place.
+   *
+   * @param evict the eviction function returning true if the entry was evicted
+   */
+  void evict(@NotNull Predicate<Node<K, V>> evict) {
+    // Entries leaving the window become candidates for the main space.
+    while (windowWeight > windowMaximum) {
+      Node<K, V> node = window.first();
+      if (node == null) {
+        break;
+      }
+      window.remove(node);
+      windowWeight -= node.weight;
+      node.queue = PROBATION;
+      probation.addLast(node);
+    }
+
+    if (weight <= maximum) {
+      return;
+    }
+
+    // The newest entry on probation, usually one that just left the window, is only admitted if
+    // it was accessed more often than the oldest.
+    Node<K, V> candidate = probation.last();
+    Node<K, V> victim = probation.first();
+    if (candidate != null && candidate != victim
+        && sketch.frequency(candidate.key) <= sketch.frequency(victim.key)) {
+      evict.test(candidate);
+    }
+
+    evict(probation, evict);
+    evict(protectedQueue, evict);
+    evict(window, evict);
+  }
+
+  /**
+   * Evict entries from a queue, least recently used first, until the total weight no longer
+   * exceeds the maximum.
+   *
+   * @param queue the queue
+   * @param evict the eviction function returning true if the entry was evicted
+   */
+  private void evict(@NotNull AccessQueue<K, V> queue, @NotNull Predicate<Node<K, V>> evict) {
+    Node<K, V> node = queue.first();
+    while (node != null && weight > maximum) {
+      Node<K, V> next = node.accessNext;
+      evict.test(node);
+      node = next;
+    }
+  }
+
+  /**
+   * Move an entry to the most recently used position, promoting it out of probation.
+   *
+   * @param node the entry
+   */
+  private void retain(@NotNull Node<K, V> node) {
+    switch (node.queue) {
+      case WINDOW -> window.moveToLast(node);
+      case PROTECTED -> protectedQueue.moveToLast(node);
+      case PROBATION -> {
+        probation.remove(node);
+        node.queue = PROTECTED;
+        protectedQueue.addLast(node);
+        protectedWeight += node.weight;
+        demote();
+      }
+      default -> {
+        // Not in the policy.
+      }
+    }
+  }
+
+  /**
+   * Return the least recently used protected entries to probation while the protected segment
+   * is too heavy.
+   */
+  private void demote() {
+    while (protectedWeight > protectedMaximum) {
+      Node<K, V> node = protectedQueue.first();
+      if (node == null) {
+        return;
+      }
+      protectedQueue.remove(node);
+      protectedWeight -= node.weight;
+      node.queue = PROBATION;
+      probation.addLast(node);
+    }
+  }
+
+  /**
+   * An access-ordered queue of entries linked through the entries themselves.
+   *
+   * @param <K> the type of key
+   * @param <V> the type of value
+   */
+  private static final class AccessQueue<K, V> {
+
+    private @Nullable Node<K, V> head;
+    private @Nullable Node<K, V> tail;
+
+    @Nullable Node<K, V> first() {
+      return head;
+    }
+
+    @Nullable Node<K, V> last() {
+      return tail;
+    }
+
+    void addLast(@NotNull Node<K, V> node) {
+      node.accessPrev = tail;
+      node.accessNext = null;
+      if (tail == null) {
+        head = node;
+      } else {
+        tail.accessNext = node;
+      }
+      tail = node;
+    }
+
+    void remove(@NotNull Node<K, V> node) {
+      if (node.accessPrev == null) {
+        head = node.accessNext;
+      } else {
+        node.accessPrev.accessNext = node.accessNext;
+      }
+      if (node.accessNext == null) {
+        tail = node.accessPrev;
+      } else {
+        node.accessNext.accessPrev = node.accessPrev;
+      }
+      node.accessPrev = null;
+      node.accessNext = null;
+    }
+
+    void moveToLast(@NotNull Node<K, V> node) {
+      if (tail != node) {
+        remove(node);
+        addLast(node);
+      }
+    }
+
+  }
+
+}
@@ -0,0 +1,619 @@
+package com.github.jikoo.enchantableblocks.util.storage;
+
+import com.github.jikoo.enchantableblocks.util.BlockKey;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32C;
+import org.bukkit.Material;
+import org.bukkit.NamespacedKey;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.enchantments.Enchantment;
+import org.bukkit.inventory.ItemStack;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * A compact binary encoding for region data.
+ *
+ * <p>Files start with a magic number and a format version followed by a table of all strings
+ * used in the file. Each string is stored once and referenced by index afterwards. The body is a
+ * tree of tagged entries mirroring the {@link ConfigurationSection} structure. Chunk and block
+ * sections keyed by coordinates are stored as packed coordinates rather than strings. Any other
+ * value is stored as a YAML fragment so that no data is lost.
+ *
+ * <p>{@link ItemStack ItemStacks} are stored once per document in a palette following the string
+ * table and referenced by index. Items that consist solely of a type, amount, and enchantments
+ * are stored as a material reference and enchantment id/level pairs. When read, each palette
+ * entry is deserialized once and the same instance is set for every reference to it, so readers
+ * must not modify stored items.
+ *
+ * <p>The format version is followed by a CRC32C checksum of the remainder of the document. The
+ * checksum is verified before anything is parsed so that damaged data is rejected cheaply.
+ */
+public final class BinaryRegionCodec {
+
+  private static final int MAGIC = 0x45425200;
+  private static final int VERSION = 3;
+  private static final String SERIALIZED_KEY = "value";
+
+  private static final int TAG_END = 0;
+  private static final int TAG_SECTION = 1;
+  private static final int TAG_TRUE = 2;
+  private static final int TAG_FALSE = 3;
+  private static final int TAG_INT = 4;
+  private static final int TAG_LONG = 5;
+  private static final int TAG_DOUBLE = 6;
+  private static final int TAG_STRING = 7;
+  private static final int TAG_ITEM = 8;
+  private static final int TAG_SERIALIZED = 9;
+  private static final int TAG_ITEM_REFERENCE = 10;
+  private static final int TAG_CHUNK = 16;
+  private static final int TAG_BLOCK = 17;
+
+  private static final int LEVEL_REGION = 0;
+  private static final int LEVEL_CHUNK = 1;
+  private static final int LEVEL_OTHER = 2;
+
+  // Keys that cannot be packed are stored as strings. Unreachable by block keys and only by the
+  // chunk key of a chunk at x = Integer.MIN_VALUE, which is safely stored as a string.
+  private static final long NOT_PACKED = Long.MIN_VALUE;
+
+  /**
+   * Write the contents of a {@link ConfigurationSection} to an {@link OutputStream}.
+   *
+   * @param root the section representing the region
+   * @param outputStream the stream to write to
+   * @throws IOException if there is an issue writing to the stream
+   */
+  public static void write(
+      @NotNull ConfigurationSection root,
+      @NotNull OutputStream outputStream) throws IOException {
+    Tables tables = new Tables();
+    ByteArrayOutputStream bodyBytes = new ByteArrayOutputStream();
+    DataOutputStream body = new DataOutputStream(bodyBytes);
+    writeSection(body, tables, root, LEVEL_REGION, 0, 0);
+    writeDocument(outputStream, tables, bodyBytes);
+  }
+
+  /**
+   * Write a single chunk's {@link ConfigurationSection} to an {@link OutputStream}. The result is
+   * a region containing only the chunk and may be read using
+   * {@link #read(InputStream, ConfigurationSection)}.
+   *
+   * @param chunkX the chunk X coordinate
+   * @param chunkZ the chunk Z coordinate
+   * @param chunk the section representing the chunk
+   * @param outputStream the stream to write to
+   * @throws IOException if there is an issue writing to the stream
+   */
+  public static void writeChunk(
+      int chunkX,
+      int chunkZ,
+      @NotNull ConfigurationSection chunk,
+      @NotNull OutputStream outputStream) throws IOException {
+    Tables tables = new Tables();
+    ByteArrayOutputStream bodyBytes = new ByteArrayOutputStream();
+    DataOutputStream body = new DataOutputStream(bodyBytes);
+    body.writeByte(TAG_CHUNK);
+    writeVarInt(body, zigZag(chunkX));
+    writeVarInt(body, zigZag(chunkZ));
+    writeSection(body, tables, chunk, LEVEL_CHUNK, chunkX, chunkZ);
+    body.writeByte(TAG_END);
+    writeDocument(outputStream, tables, bodyBytes);
+  }
+
+  private static void writeDocument(
+      @NotNull OutputStream outputStream,
+      @NotNull Tables tables,
+      @NotNull ByteArrayOutputStream bodyBytes) throws IOException {
+    // Palette entries add to the string table, so the palette must be encoded first.
+    ByteArrayOutputStream paletteBytes = new ByteArrayOutputStream();
+    DataOutputStream palette = new DataOutputStream(paletteBytes);
+    writeVarInt(palette, tables.items.size());
+    for (ItemStack itemStack : tables.items) {
+      writeItem(palette, tables.strings, itemStack);
+    }
+
+    ByteArrayOutputStream contentBytes = new ByteArrayOutputStream(
+        paletteBytes.size() + bodyBytes.size() + 256);
+    DataOutputStream content = new DataOutputStream(contentBytes);
+    tables.strings.write(content);
+    paletteBytes.writeTo(content);
+    bodyBytes.writeTo(content);
+    byte[] contentArray = contentBytes.toByteArray();
+
+    DataOutputStream out = new DataOutputStream(outputStream);
+    out.writeInt(MAGIC);
+    writeVarInt(out, VERSION);
+    out.writeInt(checksum(contentArray));
+    out.write(contentArray);
+    out.flush();
+  }
+
+  /**
+   * Read region data from an {@link InputStream} into a {@link ConfigurationSection}.
+   *
+   * @param inputStream the stream to read from
+   * @param root the section representing the region
+   * @throws IOException if there is an issue reading from the stream
+   * @throws InvalidConfigurationException if the data is not valid
+   */
+  public static void read(
+      @NotNull InputStream inputStream,
+      @NotNull ConfigurationSection root) throws IOException, InvalidConfigurationException {
+    DataInputStream in = new DataInputStream(inputStream);
+    if (in.readInt() != MAGIC) {
+      throw new InvalidConfigurationException("Data is not a binary region");
+    }
+    int version = readVarInt(in);
+    if (version > VERSION) {
+      throw new InvalidConfigurationException("Unsupported binary region version " + version);
+    }
+
+    if (version >= 3) {
+      int expected = in.readInt();
+      byte[] content = in.readAllBytes();
+      int actual = checksum(content);
+      if (actual != expected) {
+        throw new InvalidConfigurationException(String.format(
+            "Checksum mismatch: expected %08x, got %08x", expected, actual));
+      }
+      in = new DataInputStream(new ByteArrayInputStream(content));
+    }
+
+    int stringCount = readVarInt(in);
+    if (stringCount < 0) {
+      throw new InvalidConfigurationException("Invalid string table size " + stringCount);
+    }
+    String[] strings = new String[stringCount];
+    for (int i = 0; i < stringCount; ++i) {
+      strings[i] = readString(in);
+    }
+
+    ItemStack[] items;
+    if (version < 2) {
+      items = new ItemStack[0];
+    } else {
+      int itemCount = readVarInt(in);
+      if (itemCount < 0) {
+        throw new InvalidConfigurationException("Invalid item palette size " + itemCount);
+      }
+      items = new ItemStack[itemCount];
+      for (int i = 0; i < itemCount; ++i) {
+        Object value = readValue(in, strings, items, in.readUnsignedByte());
+        items[i] = value instanceof ItemStack itemStack ? itemStack : null;
+      }
+    }
+
+    readSection(in, new ReadTables(strings, items), root, 0, 0);
+  }
+
+  /**
+   * Calculate the CRC32C checksum of data.
+   *
+   * @param data the data
+   * @return the checksum
+   */
+  private static int checksum(byte @NotNull [] data) {
+    CRC32C crc = new CRC32C();
+    crc.update(data);
+    return (int) crc.getValue();
+  }
+
+  private static void writeSection(
+      @NotNull DataOutput out,
+      @NotNull Tables tables,
+      @NotNull ConfigurationSection section,
+      int level,
+      int chunkX,
+      int chunkZ) throws IOException {
+    for (Map.Entry<String, Object> entry : section.getValues(false).entrySet()) {
+      String key = entry.getKey();
+      Object value = entry.getValue();
+
+      if (value instanceof ConfigurationSection child) {
+        writeChildSection(out, tables, key, child, level, chunkX, chunkZ);
+      } else if (value != null) {
+        writeValue(out, tables, key, value);
+      }
+    }
+    out.writeByte(TAG_END);
+  }
+
+  private static void writeChildSection(
+      @NotNull DataOutput out,
+      @NotNull Tables tables,
+      @NotNull String key,
+      @NotNull ConfigurationSection child,
+      int level,
+      int chunkX,
+      int chunkZ) throws IOException {
+    if (level == LEVEL_REGION) {
+      long chunk;
+      try {
+        chunk = BlockKey.parseChunk(key);
+      } catch (NumberFormatException e) {
+        chunk = NOT_PACKED;
+      }
+      if (chunk != NOT_PACKED) {
+        int x = BlockKey.chunkX(chunk);
+        int z = BlockKey.chunkZ(chunk);
+        out.writeByte(TAG_CHUNK);
+        writeVarInt(out, zigZag(x));
+        writeVarInt(out, zigZag(z));
+        writeSection(out, tables, child, LEVEL_CHUNK, x, z);
+        return;
+      }
+    } else if (level == LEVEL_CHUNK) {
+      long block;
+      try {
+        block = BlockKey.parseBlock(key, chunkX, chunkZ);
+      } catch (NumberFormatException e) {
+        block = NOT_PACKED;
+      }
+      if (block != NOT_PACKED) {
+        out.writeByte(TAG_BLOCK);
+        out.writeByte(BlockKey.relativeX(block) << 4 | BlockKey.relativeZ(block));
+        writeVarInt(out, zigZag(BlockKey.blockY(block)));
+        writeSection(out, tables, child, LEVEL_OTHER, chunkX, chunkZ);
+        return;
+      }
+    }
+
+    out.writeByte(TAG_SECTION);
+    writeVarInt(out, tables.strings.indexOf(key));
+    writeSection(out, tables, child, LEVEL_OTHER, chunkX, chunkZ);
+  }
+
+  private static void writeValue(
+      @NotNull DataOutput out,
+      @NotNull Tables tables,
+      @NotNull String key,
+      @NotNull Object value) throws IOException {
+    StringTable strings = tables.strings;
+    if (value instanceof Boolean bool) {
+      out.writeByte(bool ? TAG_TRUE : TAG_FALSE);
+      writeVarInt(out, strings.indexOf(key));
+    } else if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+      out.writeByte(TAG_INT);
+      writeVarInt(out, strings.indexOf(key));
+      writeVarInt(out, zigZag(((Number) value).intValue()));
+    } else if (value instanceof Long longValue) {
+      out.writeByte(TAG_LONG);
+      writeVarInt(out, strings.indexOf(key));
+      writeVarLong(out, (longValue << 1) ^ (longValue >> 63));
+    } else if (value instanceof Double || value instanceof Float) {
+      out.writeByte(TAG_DOUBLE);
+      writeVarInt(out, strings.indexOf(key));
+      out.writeDouble(((Number) value).doubleValue());
+    } else if (value instanceof String string) {
+      out.writeByte(TAG_STRING);
+      writeVarInt(out, strings.indexOf(key));
+      writeVarInt(out, strings.indexOf(string));
+    } else if (value instanceof ItemStack itemStack) {
+      out.writeByte(TAG_ITEM_REFERENCE);
+      writeVarInt(out, strings.indexOf(key));
+      writeVarInt(out, tables.indexOf(itemStack));
+    } else {
+      out.writeByte(TAG_SERIALIZED);
+      writeVarInt(out, strings.indexOf(key));
+      writeSerialized(out, strings, value);
+    }
+  }
+
+  /**
+   * Write a tagged palette entry for an {@link ItemStack}.
+   *
+   * @param out the output
+   * @param strings the string table
+   * @param itemStack the {@code ItemStack}
+   * @throws IOException if there is an issue writing to the output
+   */
+  private static void writeItem(
+      @NotNull DataOutput out,
+      @NotNull StringTable strings,
+      @NotNull ItemStack itemStack) throws IOException {
+    if (!isCompact(itemStack)) {
+      out.writeByte(TAG_SERIALIZED);
+      writeSerialized(out, strings, itemStack);
+      return;
+    }
+
+    out.writeByte(TAG_ITEM);
+    writeVarInt(out, strings.indexOf(itemStack.getType().name()));
+    writeVarInt(out, itemStack.getAmount());
+    Map<Enchantment, Integer> enchantments = itemStack.getEnchantments();
+    writeVarInt(out, enchantments.size());
+    for (Map.Entry<Enchantment, Integer> enchantment : enchantments.entrySet()) {
+      writeVarInt(out, strings.indexOf(enchantment.getKey().getKey().toString()));
+      writeVarInt(out, enchantment.getValue());
+    }
+  }
+
+  private static void writeSerialized(
+      @NotNull DataOutput out,
+      @NotNull StringTable strings,
+      @NotNull Object value) throws IOException {
+    YamlConfiguration yaml = new YamlConfiguration();
+    yaml.set(SERIALIZED_KEY, value);
+    writeVarInt(out, strings.indexOf(yaml.saveToString()));
+  }
+
+  /**
+   * Check if an {@link ItemStack} can be represented entirely by its type, amount, and
+   * enchantments.
+   *
+   * @param itemStack the {@code ItemStack}
+   * @return true if the {@code ItemStack} can be stored compactly
+   */
+  private static boolean isCompact(@NotNull ItemStack itemStack) {
+    ItemStack rebuilt = new ItemStack(itemStack.getType(), itemStack.getAmount());
+    rebuilt.addUnsafeEnchantments(itemStack.getEnchantments());
+    return rebuilt.equals(itemStack);
+  }
+
+  private static void readSection(
+      @NotNull DataInput in,
+      @NotNull ReadTables tables,
+      @NotNull ConfigurationSection section,
+      int chunkX,
+      int chunkZ) throws IOException, InvalidConfigurationException {
+    while (true) {
+      int tag = in.readUnsignedByte();
+      switch (tag) {
+        case TAG_END -> {
+          return;
+        }
+        case TAG_CHUNK -> {
+          int x = unZigZag(readVarInt(in));
+          int z = unZigZag(readVarInt(in));
+          readSection(in, tables, section.createSection(BlockKey.chunkPath(x, z)), x, z);
+        }
+        case TAG_BLOCK -> {
+          int packedXz = in.readUnsignedByte();
+          int y = unZigZag(readVarInt(in));
+          int x = chunkX << 4 | packedXz >> 4;
+          int z = chunkZ << 4 | packedXz & 0xF;
+          // Storage is keyed by path, so each block's path is built as it is read.
+          String key = BlockKey.blockPath(x, y, z);
+          readSection(in, tables, section.createSection(key), chunkX, chunkZ);
+        }
+        case TAG_SECTION -> {
+          String key = lookup(tables.strings(), readVarInt(in));
+          readSection(in, tables, section.createSection(key), chunkX, chunkZ);
+        }
+        default -> {
+          String key = lookup(tables.strings(), readVarInt(in));
+          Object value = readValue(in, tables.strings(), tables.items(), tag);
+          if (value != null) {
+            section.set(key, value);
+          }
+        }
+      }
+    }
+  }
+
+  private static @Nullable Object readValue(
+      @NotNull DataInput in,
+      @NotNull String @NotNull [] strings,
+      @Nullable ItemStack @NotNull [] items,
+      int tag) throws IOException, InvalidConfigurationException {
+    switch (tag) {
+      case TAG_TRUE:
+        return true;
+      case TAG_FALSE:
+        return false;
+      case TAG_INT:
+        return unZigZag(readVarInt(in));
+      case TAG_LONG:
+        long zigZagged = readVarLong(in);
+        return (zigZagged >>> 1) ^ -(zigZagged & 1);
+      case TAG_DOUBLE:
+        return in.readDouble();
+      case TAG_STRING:
+        return lookup(strings, readVarInt(in));
+      case TAG_ITEM:
+        return readItem(in, strings);
+      case TAG_ITEM_REFERENCE:
+        int index = readVarInt(in);
+        if (index < 0 || index >= items.length) {
+          throw new InvalidConfigurationException("Invalid item reference " + index);
+        }
+        return items[index];
+      case TAG_SERIALIZED:
+        YamlConfiguration yaml = new YamlConfiguration();
+        yaml.loadFromString(lookup(strings, readVarInt(in)));
+        return yaml.get(SERIALIZED_KEY);
+      default:
+        throw new InvalidConfigurationException("Unknown tag " + tag);
+    }
+  }
+
+  private static @Nullable ItemStack readItem(
+      @NotNull DataInput in,
+      @NotNull String @NotNull [] strings) throws IOException, InvalidConfigurationException {
+    Material material = Material.getMaterial(lookup(strings, readVarInt(in)));
+    int amount = readVarInt(in);
+    int enchantmentCount = readVarInt(in);
+    List<Enchantment> enchantments = new ArrayList<>(enchantmentCount);
+    List<Integer> levels = new ArrayList<>(enchantmentCount);
+
+    for (int i = 0; i < enchantmentCount; ++i) {
+      NamespacedKey key = NamespacedKey.fromString(lookup(strings, readVarInt(in)));
+      int level = readVarInt(in);
+      Enchantment enchantment = key == null ? null : Enchantment.getByKey(key);
+      if (enchantment != null) {
+        enchantments.add(enchantment);
+        levels.add(level);
+      }
+    }
+
+    if (material == null) {
+      return null;
+    }
+
+    ItemStack itemStack = new ItemStack(material, amount);
+    for (int i = 0; i < enchantments.size(); ++i) {
+      itemStack.addUnsafeEnchantment(enchantments.get(i), levels.get(i));
+    }
+    return itemStack;
+  }
+
+  private static @NotNull String lookup(
+      @NotNull String @NotNull [] strings,
+      int index) throws InvalidConfigurationException {
+    if (index < 0 || index >= strings.length) {
+      throw new InvalidConfigurationException("Invalid string reference " + index);
+    }
+    return strings[index];
+  }
+
+  private static int zigZag(int value) {
+    return (value << 1) ^ (value >> 31);
+  }
+
+  private static int unZigZag(int value) {
+    return (value >>> 1) ^ -(value & 1);
+  }
+
+  static void writeVarInt(@NotNull DataOutput out, int value) throws IOException {
+    while ((value & ~0x7F) != 0) {
+      out.writeByte((value & 0x7F) | 0x80);
+      value >>>= 7;
+    }
+    out.writeByte(value);
+  }
+
+  static int readVarInt(@NotNull DataInput in) throws IOException {
+    int value = 0;
+    for (int shift = 0; shift < 35; shift += 7) {
+      int read = in.readUnsignedByte();
+      value |= (read & 0x7F) << shift;
+      if ((read & 0x80) == 0) {
+        return value;
+      }
+    }
+    throw new IOException("VarInt too long");
+  }
+
+  static void writeVarLong(@NotNull DataOutput out, long value) throws IOException {
+    while ((value & ~0x7FL) != 0) {
+      out.writeByte((int) (value & 0x7F) | 0x80);
+      value >>>= 7;
+    }
+    out.writeByte((int) value);
+  }
+
+  static long readVarLong(@NotNull DataInput in) throws IOException {
+    long value = 0;
+    for (int shift = 0; shift < 70; shift += 7) {
+      int read = in.readUnsignedByte();
+      value |= (long) (read & 0x7F) << shift;
+      if ((read & 0x80) == 0) {
+        return value;
+      }
+    }
+    throw new IOException("VarLong too long");
+  }
+
+  static void writeString(@NotNull DataOutput out, @NotNull String value) throws IOException {
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    writeVarInt(out, bytes.length);
+    out.write(bytes);
+  }
+
+  static @NotNull String readString(@NotNull DataInput in) throws IOException {
+    int length = readVarInt(in);
+    if (length < 0) {
+      throw new IOException("Invalid string length " + length);
+    }
+    byte[] bytes = new byte[length];
+    in.readFully(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * The tables of unique values referenced by the body of a document being written.
+   */
+  private static class Tables {
+
+    private final StringTable strings = new StringTable();
+    private final Object2IntOpenHashMap<ItemStack> itemIndices = new Object2IntOpenHashMap<>();
+    private final List<ItemStack> items = new ArrayList<>();
+
+    Tables() {
+      itemIndices.defaultReturnValue(-1);
+    }
+
+    int indexOf(@NotNull ItemStack itemStack) {
+      int index = itemIndices.getInt(itemStack);
+      if (index == -1) {
+        index = items.size();
+        // Copy to guard against modification of the original before the palette is written.
+        ItemStack copy = itemStack.clone();
+        itemIndices.put(copy, index);
+        items.add(copy);
+      }
+      return index;
+    }
+
+  }
+
+  /**
+   * The tables of unique values referenced by the body of a document being read.
+   *
+   * @param strings the string table
+   * @param items the item palette
+   */
+  private record ReadTables(
+      @NotNull String @NotNull [] strings,
+      @Nullable ItemStack @NotNull [] items) {}
+
+  /**
+   * A table assigning indices to unique strings in insertion order.
+   */
+  private static class StringTable {
+
+    private final Object2IntOpenHashMap<String> indices = new Object2IntOpenHashMap<>();
+    private final List<String> values = new ArrayList<>();
+
+    StringTable() {
+      indices.defaultReturnValue(-1);
+    }
+
+    int indexOf(@NotNull String value) {
+      int index = indices.getInt(value);
+      if (index == -1) {
+        index = values.size();
+        indices.put(value, index);
+        values.add(value);
+      }
+      return index;
+    }
+
+    void write(@NotNull DataOutput out) throws IOException {
+      writeVarInt(out, values.size());
+      for (String value : values) {
+        writeString(out, value);
+      }
+    }
+
+  }
+
+  private BinaryRegionCodec() {}
+
+}
@@ -0,0 +1,326 @@
+package com.github.jikoo.enchantableblocks.util.storage;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * An append-only journal of block mutations.
+ *
+ * <p>The journal is split into numbered segment files. Records are buffered in memory as they are
+ * appended and written in batches by {@link #sync()}. Each record is prefixed with its length and
+ * a checksum so that a record torn by a crash is detected and ignored on replay.
+ *
+ * <p>Appending and {@link #seal() sealing} are thread-safe. Disk operations ({@link #sync()},
+ * {@link #deleteThrough(long)}, and {@link #close()}) must be performed by a single thread.
+ */
+public class BlockJournal implements Closeable {
+
+  public static final String EXTENSION = "ebj";
+  private static final int MAX_RECORD_BYTES = 16 * 1024 * 1024;
+  private static final Pattern SEGMENT = Pattern.compile("journal-(\\d+)\\." + EXTENSION);
+
+  private final @NotNull Path directory;
+  private final @NotNull List<Pending> pending = new ArrayList<>();
+  private @NotNull ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+  private long sequence;
+  private long segmentSize = 0;
+  private @Nullable FileChannel channel;
+  private long channelSequence = -1;
+
+  /**
+   * Open a journal. New records are always appended to a new segment following any existing
+   * segments, which may be {@link #getSegments() listed} for replay.
+   *
+   * @param directory the directory containing journal segments
+   * @return the journal
+   * @throws IOException if there is an issue reading the directory
+   */
+  public static @NotNull BlockJournal open(@NotNull Path directory) throws IOException {
+    long lastSequence = 0;
+    for (Path segment : listSegments(directory)) {
+      lastSequence = Math.max(lastSequence, getSequence(segment));
+    }
+    return new BlockJournal(directory, lastSequence + 1);
+  }
+
+  private BlockJournal(@NotNull Path directory, long sequence) {
+    this.directory = directory;
+    this.sequence = sequence;
+  }
+
+  /**
+   * Get the existing segments written before the journal was opened, oldest first.
+   *
+   * @return the segments
+   * @throws IOException if there is an issue reading the directory
+   */
+  public @NotNull List<Path> getSegments() throws IOException {
+    List<Path> segments = listSegments(directory);
+    segments.removeIf(segment -> getSequence(segment) >= sequence);
+    return segments;
+  }
+
+  /**
+   * Buffer a record for writing.
+   *
+   * @param entry the record
+   */
+  public void append(@NotNull Entry entry) {
+    ByteArrayOutputStream body = new ByteArrayOutputStream(entry.data().length + 16);
+    try {
+      DataOutputStream out = new DataOutputStream(body);
+      out.writeByte(entry.operation().ordinal());
+      BinaryRegionCodec.writeVarInt(out, zigZag(entry.x()));
+      BinaryRegionCodec.writeVarInt(out, zigZag(entry.y()));
+      BinaryRegionCodec.writeVarInt(out, zigZag(entry.z()));
+      out.write(entry.data());
+
+      CRC32C checksum = new CRC32C();
+      checksum.update(body.toByteArray());
+
+      synchronized (this) {
+        DataOutputStream record = new DataOutputStream(buffer);
+        record.writeInt(body.size());
+        record.writeInt((int) checksum.getValue());
+        body.writeTo(record);
+        segmentSize += body.size() + 8;
+      }
+    } catch (IOException e) {
+      // In-memory streams do not throw.
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * Get the number of bytes appended to the current segment.
+   *
+   * @return the size of the current segment
+   */
+  public synchronized long getSegmentSize() {
+    return segmentSize;
+  }
+
+  /**
+   * End the current segment. Records appended afterwards are written to a new segment, so once
+   * all records up to this point are stored elsewhere the sealed segment may be
+   * {@link #deleteThrough(long) deleted}.
+   *
+   * @return the sequence number of the sealed segment
+   */
+  public synchronized long seal() {
+    pending.add(new Pending(sequence, buffer));
+    buffer = new ByteArrayOutputStream();
+    segmentSize = 0;
+    return sequence++;
+  }
+
+  /**
+   * Write all buffered records to disk and force them to the storage device.
+   *
+   * @throws IOException if there is an issue writing to disk
+   */
+  public void sync() throws IOException {
+    List<Pending> toWrite;
+    synchronized (this) {
+      toWrite = new ArrayList<>(pending);
+      pending.clear();
+      if (buffer.size() > 0) {
+        toWrite.add(new Pending(sequence, buffer));
+        buffer = new ByteArrayOutputStream();
+      }
+    }
+
+    for (Pending write : toWrite) {
+      if (write.data().size() == 0) {
+        continue;
+      }
+      FileChannel segmentChannel = getChannel(write.sequence());
+      ByteBuffer data = ByteBuffer.wrap(write.data().toByteArray());
+      while (data.hasRemaining()) {
+        segmentChannel.write(data);
+      }
+    }
+
+    if (channel != null) {
+      channel.force(false);
+    }
+  }
+
+  /**
+   * Delete all segments up to and including the given sequence number.
+   *
+   * @param lastSequence the last sequence number to delete
+   * @throws IOException if there is an issue deleting segments
+   */
+  public void deleteThrough(long lastSequence) throws IOException {
+    if (channel != null && channelSequence <= lastSequence) {
+      channel.close();
+      channel = null;
+    }
+    for (Path segment : listSegments(directory)) {
+      if (getSequence(segment) <= lastSequence) {
+        Files.deleteIfExists(segment);
+      }
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    sync();
+    if (channel != null) {
+      channel.close();
+      channel = null;
+    }
+  }
+
+  private @NotNull FileChannel getChannel(long segmentSequence) throws IOException {
+    if (channel != null && channelSequence == segmentSequence) {
+      return channel;
+    }
+
+    if (channel != null) {
+      // Moving on to a new segment, ensure the previous segment is complete.
+      channel.force(false);
+      channel.close();
+    }
+
+    Files.createDirectories(directory);
+    channel = FileChannel.open(
+        directory.resolve("journal-" + segmentSequence + '.' + EXTENSION),
+        StandardOpenOption.CREATE,
+        StandardOpenOption.WRITE,
+        StandardOpenOption.APPEND);
+    channelSequence = segmentSequence;
+    return channel;
+  }
+
+  /**
+   * Read all complete records from a journal segment.
+   *
+   * <p>Reading stops at the first incomplete or corrupt record. As records are only ever
+   * appended, such a record can only be the result of an interrupted write.
+   *
+   * @param segment the segment
+   * @param consumer the consumer of read records
+   * @return true if the entire segment was read
+   * @throws IOException if there is an issue reading from disk
+   */
+  public static boolean replay(@NotNull Path segment, @NotNull Consumer<@NotNull Entry> consumer)
+      throws IOException {
+    try (InputStream stream = new BufferedInputStream(Files.newInputStream(segment))) {
+      DataInputStream in = new DataInputStream(stream);
+      Operation[] operations = Operation.values();
+      while (true) {
+        int length;
+        try {
+          length = in.readInt();
+        } catch (EOFException e) {
+          return true;
+        }
+
+        if (length < 4 || length > MAX_RECORD_BYTES) {
+          return false;
+        }
+
+        int expectedChecksum = in.readInt();
+        byte[] body = new byte[length];
+        in.readFully(body);
+
+        CRC32C checksum = new CRC32C();
+        checksum.update(body);
+        if ((int) checksum.getValue() != expectedChecksum
+            || (body[0] & 0xFF) >= operations.length) {
+          return false;
+        }
+
+        DataInputStream bodyIn =
+            new DataInputStream(new ByteBufferInputStream(ByteBuffer.wrap(body)));
+        Operation operation = operations[bodyIn.readUnsignedByte()];
+        int x = unZigZag(BinaryRegionCodec.readVarInt(bodyIn));
+        int y = unZigZag(BinaryRegionCodec.readVarInt(bodyIn));
+        int z = unZigZag(BinaryRegionCodec.readVarInt(bodyIn));
+        byte[] data = Arrays.copyOfRange(body, length - bodyIn.available(), length);
+
+        consumer.accept(new Entry(operation, x, y, z, data));
+      }
+    } catch (EOFException e) {
+      return false;
+    }
+  }
+
+  private static @NotNull List<Path> listSegments(@NotNull Path directory) throws IOException {
+    if (!Files.isDirectory(directory)) {
+      return new ArrayList<>();
+    }
+    try (Stream<Path> files = Files.list(directory)) {
+      List<Path> segments = new ArrayList<>(files
+          .filter(path -> SEGMENT.matcher(path.getFileName().toString()).matches())
+          .toList());
+      segments.sort((a, b) -> Long.compare(getSequence(a), getSequence(b)));
+      return segments;
+    }
+  }
+
+  private static long getSequence(@NotNull Path segment) {
+    Matcher matcher = SEGMENT.matcher(segment.getFileName().toString());
+    return matcher.matches() ? Long.parseLong(matcher.group(1)) : -1;
+  }
+
+  private static int zigZag(int value) {
+    return (value << 1) ^ (value >> 31);
+  }
+
+  private static int unZigZag(int value) {
+    return (value >>> 1) ^ -(value & 1);
+  }
+
+  /**
+   * The type of mutation recorded.
+   */
+  public enum Operation {
+    /** Block data was created or replaced. */
+    UPSERT,
+    /** Block data was removed. */
+    DESTROY
+  }
+
+  /**
+   * A journal record.
+   *
+   * @param operation the type of mutation
+   * @param x the block X coordinate
+   * @param y the block Y coordinate
+   * @param z the block Z coordinate
+   * @param data the encoded block data, empty for removals
+   */
+  public record Entry(
+      @NotNull Operation operation,
+      int x,
+      int y,
+      int z,
+      byte @NotNull [] data) {}
+
+  private record Pending(long sequence, @NotNull ByteArrayOutputStream data) {}
+
+}
@@ -0,0 +1,54 @@
+package com.github.jikoo.enchantableblocks.util.storage;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * An {@link InputStream} reading directly from a {@link ByteBuffer} without copying.
+ */
+public class ByteBufferInputStream extends InputStream {
+
+  private final @NotNull ByteBuffer buffer;
+
+  /**
+   * Construct a new {@code ByteBufferInputStream}. The stream consumes the buffer's remaining
+   * content.
+   *
+   * @param buffer the buffer to read
+   */
+  public ByteBufferInputStream(@NotNull ByteBuffer buffer) {
+    this.buffer = buffer;
+  }
+
+  @Override
+  public int read() {
+    return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+  }
+
+  @Override
+  public int read(byte @NotNull [] bytes, int offset, int length) {
+    if (length == 0) {
+      return 0;
+    }
+    if (!buffer.hasRemaining()) {
+      return -1;
+    }
+    int read = Math.min(length, buffer.remaining());
+    buffer.get(bytes, offset, read);
+    return read;
+  }
+
+  @Override
+  public long skip(long count) {
+    int skipped = (int) Math.max(0, Math.min(count, buffer.remaining()));
+    buffer.position(buffer.position() + skipped);
+    return skipped;
+  }
+
+  @Override
+  public int available() {
+    return buffer.remaining();
+  }
+
+}
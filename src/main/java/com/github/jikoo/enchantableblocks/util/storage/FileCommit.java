@@ -0,0 +1,434 @@
+package com.github.jikoo.enchantableblocks.util.storage;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * A group of file operations made durable together.
+ *
+ * <p>Files are written to a temporary file beside their destination, synced, and atomically moved
+ * into place, so a crash never leaves a partially written file.
+ *
+ * <p>While a {@code FileCommit} is {@link #begin() open} on a thread, operations performed on that
+ * thread are staged rather than applied. Staged operations from many commits can then be
+ * {@link #apply(Collection) applied} together, sharing the cost of syncing. Operations performed
+ * without an open commit are applied immediately.
+ *
+ * <p>Files that are written in place, such as a {@link WorldStore}, may also join a commit by
+ * being {@link #force(Syncable) forced} through it. They are forced along with written files,
+ * before any file is moved or deleted, so data is durable before its previous copy is removed.
+ *
+ * <p>Java cannot sync several files in a single call, so every written file is still synced
+ * individually. When applied with an {@link Executor}, all syncs are issued at once instead of one
+ * after another. File systems with a journal commit concurrent syncs together, so the whole batch
+ * waits roughly as long as a single sync.
+ */
+public final class FileCommit {
+
+  private static final ThreadLocal<FileCommit> OPEN = new ThreadLocal<>();
+
+  private final @NotNull List<Staged> staged = new ArrayList<>();
+  private final @NotNull Set<Syncable> forced = new LinkedHashSet<>();
+  private final @NotNull List<Consumer<@Nullable Throwable>> actions = new ArrayList<>();
+  private final @NotNull CompletableFuture<Void> committed = new CompletableFuture<>();
+  private long closedNanos;
+
+  private FileCommit() {}
+
+  /**
+   * Begin staging file operations performed on the current thread.
+   *
+   * @return the {@code FileCommit}
+   */
+  public static @NotNull FileCommit begin() {
+    FileCommit commit = new FileCommit();
+    OPEN.set(commit);
+    return commit;
+  }
+
+  /**
+   * Stop staging file operations on the current thread. Staged operations are not applied until
+   * the commit is {@link #apply(Collection) applied}.
+   */
+  public void close() {
+    if (OPEN.get() == this) {
+      OPEN.remove();
+    }
+    this.closedNanos = System.nanoTime();
+  }
+
+  /**
+   * Perform an action once the operations staged on the current thread are durable. If no commit
+   * is open, operations have already been applied and the action is performed immediately.
+   *
+   * <p>Actions are performed in the order they were added, before the commit's
+   * {@link #getCommitted() future} completes.
+   *
+   * @param action the action, accepting the failure or {@code null} if successful
+   */
+  public static void whenCommitted(@NotNull Consumer<@Nullable Throwable> action) {
+    FileCommit commit = OPEN.get();
+    if (commit == null) {
+      action.accept(null);
+    } else {
+      commit.actions.add(action);
+    }
+  }
+
+  /**
+   * Atomically replace the contents of a file.
+   *
+   * @param target the file to write
+   * @param writer the writer producing the file's contents
+   * @throws IOException if there is an issue writing to disk
+   */
+  public static void write(@NotNull Path target, @NotNull ContentWriter writer)
+      throws IOException {
+    Path temp = createTemp(target);
+
+    try (OutputStream stream = new BufferedOutputStream(Files.newOutputStream(temp))) {
+      writer.write(stream);
+    } catch (IOException | RuntimeException e) {
+      Files.deleteIfExists(temp);
+      throw e;
+    }
+
+    stage(new Staged(target, temp));
+  }
+
+  /**
+   * Atomically replace the contents of a file, writing directly to a {@link FileChannel}.
+   *
+   * @param target the file to write
+   * @param writer the writer producing the file's contents
+   * @throws IOException if there is an issue writing to disk
+   */
+  public static void writeChannel(@NotNull Path target, @NotNull ChannelWriter writer)
+      throws IOException {
+    Path temp = createTemp(target);
+
+    try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+      writer.write(channel);
+    } catch (IOException | RuntimeException e) {
+      Files.deleteIfExists(temp);
+      throw e;
+    }
+
+    stage(new Staged(target, temp));
+  }
+
+  /**
+   * Make a file written in place durable. If no commit is open, the file is forced immediately.
+   * Otherwise it is forced once when the commit is applied, no matter how many commits applied
+   * together force it.
+   *
+   * @param target the file to force
+   * @throws IOException if there is an issue syncing the file
+   */
+  public static void force(@NotNull Syncable target) throws IOException {
+    FileCommit commit = OPEN.get();
+    if (commit == null) {
+      target.force();
+    } else {
+      commit.forced.add(target);
+    }
+  }
+
+  private static @NotNull Path createTemp(@NotNull Path target) throws IOException {
+    Path parent = target.toAbsolutePath().normalize().getParent();
+    Files.createDirectories(parent);
+    return Files.createTempFile(parent, target.getFileName() + ".", ".tmp");
+  }
+
+  /**
+   * Delete a file if it exists.
+   *
+   * @param target the file to delete
+   * @throws IOException if there is an issue deleting the file
+   */
+  public static void delete(@NotNull Path target) throws IOException {
+    stage(new Staged(target, null));
+  }
+
+  private static void stage(@NotNull Staged operation) throws IOException {
+    FileCommit commit = OPEN.get();
+    if (commit != null) {
+      commit.staged.add(operation);
+      return;
+    }
+
+    commit = new FileCommit();
+    commit.staged.add(operation);
+    commit.apply();
+    if (commit.committed.isCompletedExceptionally()) {
+      // Rethrow the cause of the failure.
+      try {
+        commit.committed.join();
+      } catch (RuntimeException e) {
+        if (e.getCause() instanceof IOException ioException) {
+          throw ioException;
+        }
+        throw e;
+      }
+    }
+  }
+
+  /**
+   * Check if no operations are staged.
+   *
+   * @return true if no operations are staged
+   */
+  public boolean isEmpty() {
+    return staged.isEmpty() && forced.isEmpty();
+  }
+
+  /**
+   * Get the {@link System#nanoTime()} at which the commit was {@link #close() closed}.
+   *
+   * @return the time the commit was closed
+   */
+  public long getClosedNanos() {
+    return closedNanos;
+  }
+
+  /**
+   * Get a future completing once the staged operations are durable.
+   *
+   * @return the future
+   */
+  public @NotNull CompletableFuture<Void> getCommitted() {
+    return committed;
+  }
+
+  private void apply() {
+    apply(List.of(this));
+  }
+
+  /**
+   * Apply the staged operations of several commits, syncing all written files on the current
+   * thread. Each commit's {@link #getCommitted() future} completes once its operations are durable.
+   * A commit whose files cannot be written fails without affecting the others.
+   *
+   * @param commits the commits to apply
+   */
+  public static void apply(@NotNull Collection<FileCommit> commits) {
+    apply(commits, Runnable::run);
+  }
+
+  /**
+   * Apply the staged operations of several commits, issuing all syncs at once on an
+   * {@link Executor}. Each commit's {@link #getCommitted() future} completes once its operations
+   * are durable. A commit whose files cannot be written fails without affecting the others.
+   *
+   * @param commits the commits to apply
+   * @param executor the {@code Executor} used to sync files
+   */
+  public static void apply(@NotNull Collection<FileCommit> commits, @NotNull Executor executor) {
+    Map<Syncable, CompletableFuture<Void>> forces = new HashMap<>();
+    List<CompletableFuture<Void>> syncs = new ArrayList<>(commits.size());
+    for (FileCommit commit : commits) {
+      List<CompletableFuture<Void>> commitSyncs = new ArrayList<>();
+      for (Staged operation : commit.staged) {
+        Path temp = operation.temp();
+        if (temp != null) {
+          commitSyncs.add(sync(() -> sync(temp, false), executor));
+        }
+      }
+      for (Syncable target : commit.forced) {
+        commitSyncs.add(forces.computeIfAbsent(target, key -> sync(key, executor)));
+      }
+      syncs.add(CompletableFuture.allOf(commitSyncs.toArray(new CompletableFuture[0])));
+    }
+
+    List<FileCommit> ready = new ArrayList<>(commits.size());
+    int index = 0;
+    for (FileCommit commit : commits) {
+      try {
+        syncs.get(index++).join();
+        ready.add(commit);
+      } catch (CompletionException e) {
+        commit.discard();
+        commit.finish(e.getCause());
+      }
+    }
+
+    Set<Path> directories = new LinkedHashSet<>();
+    List<FileCommit> applied = new ArrayList<>(ready.size());
+    for (FileCommit commit : ready) {
+      try {
+        for (Staged operation : commit.staged) {
+          Path temp = operation.temp();
+          if (temp == null) {
+            Files.deleteIfExists(operation.target());
+          } else {
+            Files.move(
+                temp,
+                operation.target(),
+                StandardCopyOption.ATOMIC_MOVE,
+                StandardCopyOption.REPLACE_EXISTING);
+          }
+          directories.add(operation.target().toAbsolutePath().normalize().getParent());
+        }
+        applied.add(commit);
+      } catch (IOException e) {
+        commit.discard();
+        commit.finish(e);
+      }
+    }
+
+    // Sync directories so that the renames themselves are durable.
+    for (Path directory : directories) {
+      try {
+        sync(directory, true);
+      } catch (IOException e) {
+        // Not all platforms support syncing directories.
+      }
+    }
+
+    applied.forEach(commit -> commit.finish(null));
+  }
+
+  /**
+   * Perform actions awaiting the commit and complete its future.
+   *
+   * @param failure the failure or {@code null} if successful
+   */
+  private void finish(@Nullable Throwable failure) {
+    try {
+      actions.forEach(action -> action.accept(failure));
+    } finally {
+      if (failure == null) {
+        committed.complete(null);
+      } else {
+        committed.completeExceptionally(failure);
+      }
+    }
+  }
+
+  /**
+   * Delete any temporary files that have not been moved into place.
+   */
+  private void discard() {
+    for (Staged operation : staged) {
+      if (operation.temp() != null) {
+        try {
+          Files.deleteIfExists(operation.temp());
+        } catch (IOException e) {
+          // Left for manual cleanup.
+        }
+      }
+    }
+  }
+
+  /**
+   * Sync a file on an {@link Executor}, or on the current thread if the {@code Executor} rejects
+   * the task.
+   *
+   * @param target the file to sync
+   * @param executor the {@code Executor}
+   * @return a future completing once the file is synced
+   */
+  private static @NotNull CompletableFuture<Void> sync(
+      @NotNull Syncable target,
+      @NotNull Executor executor) {
+    CompletableFuture<Void> future = new CompletableFuture<>();
+    Runnable task = () -> {
+      try {
+        target.force();
+        future.complete(null);
+      } catch (IOException | RuntimeException | Error e) {
+        future.completeExceptionally(e);
+      }
+    };
+    try {
+      executor.execute(task);
+    } catch (RejectedExecutionException e) {
+      task.run();
+    }
+    return future;
+  }
+
+  private static void sync(@NotNull Path path, boolean directory) throws IOException {
+    try (FileChannel channel = FileChannel.open(
+        path,
+        directory ? StandardOpenOption.READ : StandardOpenOption.WRITE)) {
+      channel.force(true);
+    }
+  }
+
+  /**
+   * A staged operation. If no temporary file is present, the target is deleted.
+   *
+   * @param target the file affected
+   * @param temp the temporary file containing new contents
+   */
+  private record Staged(@NotNull Path target, @Nullable Path temp) {}
+
+  /**
+   * A file written in place that may be made durable.
+   */
+  @FunctionalInterface
+  public interface Syncable {
+
+    /**
+     * Make all writes to the file durable.
+     *
+     * @throws IOException if there is an issue syncing the file
+     */
+    void force() throws IOException;
+
+  }
+
+  /**
+   * A producer of file contents.
+   */
+  @FunctionalInterface
+  public interface ContentWriter {
+
+    /**
+     * Write contents to a stream.
+     *
+     * @param stream the stream
+     * @throws IOException if there is an issue writing to the stream
+     */
+    void write(@NotNull OutputStream stream) throws IOException;
+
+  }
+
+  /**
+   * A producer of file contents writing directly to a {@link FileChannel}.
+   */
+  @FunctionalInterface
+  public interface ChannelWriter {
+
+    /**
+     * Write contents to a channel.
+     *
+     * @param channel the channel
+     * @throws IOException if there is an issue writing to the channel
+     */
+    void write(@NotNull FileChannel channel) throws IOException;
+
+  }
+
+}
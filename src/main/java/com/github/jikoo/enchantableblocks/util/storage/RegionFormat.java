@@ -0,0 +1,115 @@
+package com.github.jikoo.enchantableblocks.util.storage;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * On-disk formats for region data.
+ */
+public enum RegionFormat {
+
+  /** Human-readable YAML documents. */
+  YAML("yml"),
+  /** Compact binary documents. See {@link BinaryRegionCodec}. */
+  BINARY("ebr");
+
+  private static final Pattern REGION_FILE = Pattern.compile("-?\\d+_-?\\d+\\.(\\w+)");
+
+  private final @NotNull String extension;
+
+  RegionFormat(@NotNull String extension) {
+    this.extension = extension;
+  }
+
+  /**
+   * Get the file extension used by the format.
+   *
+   * @return the file extension
+   */
+  public @NotNull String getExtension() {
+    return extension;
+  }
+
+  /**
+   * Get a {@code RegionFormat} by file extension.
+   *
+   * @param extension the file extension
+   * @return the {@code RegionFormat} or {@code null} if no format uses the extension
+   */
+  public static @Nullable RegionFormat ofExtension(@NotNull String extension) {
+    for (RegionFormat format : values()) {
+      if (format.extension.equals(extension)) {
+        return format;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Get a {@code RegionFormat} by name. A missing name selects the default {@link #BINARY}.
+   *
+   * @param name the name of the format
+   * @return the {@code RegionFormat} or {@code null} if no format has the name
+   */
+  public static @Nullable RegionFormat of(@Nullable String name) {
+    if (name == null) {
+      return BINARY;
+    }
+    try {
+      return valueOf(name.toUpperCase(Locale.ROOT));
+    } catch (IllegalArgumentException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Find the {@code RegionFormat} most used by existing region files. Saving converts files to the
+   * configured format, so when the configured format is unknown this avoids converting data the
+   * user may not have meant to convert.
+   *
+   * @param dataDir the directory containing a directory of region files per world
+   * @return the most used {@code RegionFormat} or {@link #YAML} if there are no region files
+   */
+  public static @NotNull RegionFormat detect(@NotNull Path dataDir) {
+    Map<RegionFormat, Long> counts = new EnumMap<>(RegionFormat.class);
+    if (Files.isDirectory(dataDir)) {
+      try (Stream<Path> worlds = Files.list(dataDir)) {
+        for (Path world : worlds.filter(Files::isDirectory).toList()) {
+          try (Stream<Path> files = Files.list(world)) {
+            files.forEach(file -> {
+              Matcher matcher = REGION_FILE.matcher(file.getFileName().toString());
+              if (matcher.matches()) {
+                RegionFormat format = ofExtension(matcher.group(1));
+                if (format != null) {
+                  counts.merge(format, 1L, Long::sum);
+                }
+              }
+            });
+          }
+        }
+      } catch (IOException e) {
+        // Unreadable data cannot be counted; fall through to the default.
+      }
+    }
+
+    RegionFormat detected = YAML;
+    long max = 0;
+    for (Map.Entry<RegionFormat, Long> entry : counts.entrySet()) {
+      if (entry.getValue() > max) {
+        detected = entry.getKey();
+        max = entry.getValue();
+      }
+    }
+    return detected;
+  }
+
+}
@@ -0,0 +1,458 @@
+package com.github.jikoo.enchantableblocks.util.storage;
+
+import it.unimi.dsi.fastutil.longs.Long2IntMap;
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2LongMap;
+import it.unimi.dsi.fastutil.longs.Long2LongOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.BitSet;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * A single file storing data for every chunk in a world.
+ *
+ * <p>Much like the vanilla Anvil format, the file is divided into 4KiB sectors. The first sector
+ * is a header pointing to a directory of regions. Each region has a table of 1024 entries holding
+ * the first sector and byte length of each chunk's data. Chunk data occupies consecutive sectors.
+ *
+ * <p>Writes are copy-on-write and only become durable when {@link #force() forced}. New data is
+ * written to free sectors immediately and is visible to reads, but tables on disk keep pointing to
+ * the previous data until the next force. A force first syncs all new data, then writes and syncs
+ * the table entries and directory, and finally the header. Sectors holding replaced data are only
+ * reused once nothing on disk points to them, so a crash at any point leaves either the previous or
+ * the new data intact.
+ */
+public class WorldStore implements Closeable, FileCommit.Syncable {
+
+  public static final String EXTENSION = "ebw";
+
+  static final int SECTOR_BYTES = 4096;
+  private static final int MAGIC = 0x45425700;
+  private static final int VERSION = 1;
+  private static final int HEADER_BYTES = 16;
+  private static final int DIRECTORY_ENTRY_BYTES = 12;
+  private static final int TABLE_ENTRY_BYTES = 8;
+  private static final int TABLE_ENTRIES = 1024;
+  private static final int TABLE_SECTORS = TABLE_ENTRIES * TABLE_ENTRY_BYTES / SECTOR_BYTES;
+  private static final long ABSENT = 0L;
+
+  private final @NotNull Path path;
+  private final @NotNull FileChannel channel;
+  private final @NotNull Long2IntOpenHashMap regionTables = new Long2IntOpenHashMap();
+  private final @NotNull Long2IntOpenHashMap regionChunkCounts = new Long2IntOpenHashMap();
+  private final @NotNull Long2LongOpenHashMap chunkLocations = new Long2LongOpenHashMap();
+  private final @NotNull BitSet usedSectors = new BitSet();
+  // Table entries not yet written to disk, locations written since the last force, and locations
+  // still referenced on disk that may be reused after the next force.
+  private final @NotNull Long2LongOpenHashMap pendingEntries = new Long2LongOpenHashMap();
+  private final @NotNull LongOpenHashSet uncommitted = new LongOpenHashSet();
+  private final @NotNull LongArrayList pendingFree = new LongArrayList();
+  private boolean directoryDirty = false;
+  private int directorySector = 0;
+  private int directorySectors = 0;
+
+  /**
+   * Open or create a {@code WorldStore}.
+   *
+   * @param path the location of the file
+   * @return the {@code WorldStore}
+   * @throws IOException if there is an issue reading the file or the file is not valid
+   */
+  public static @NotNull WorldStore open(@NotNull Path path) throws IOException {
+    Path parent = path.toAbsolutePath().getParent();
+    if (parent != null) {
+      Files.createDirectories(parent);
+    }
+    FileChannel channel = FileChannel.open(
+        path,
+        StandardOpenOption.CREATE,
+        StandardOpenOption.READ,
+        StandardOpenOption.WRITE);
+    try {
+      WorldStore store = new WorldStore(path, channel);
+      store.init();
+      return store;
+    } catch (IOException | RuntimeException e) {
+      channel.close();
+      throw e;
+    }
+  }
+
+  private WorldStore(@NotNull Path path, @NotNull FileChannel channel) {
+    this.path = path;
+    this.channel = channel;
+    this.regionTables.defaultReturnValue(-1);
+    this.chunkLocations.defaultReturnValue(ABSENT);
+  }
+
+  private void init() throws IOException {
+    usedSectors.set(0);
+
+    if (channel.size() == 0) {
+      writeHeader();
+      return;
+    }
+
+    ByteBuffer header = readBytes(0, HEADER_BYTES);
+    if (header.getInt() != MAGIC) {
+      throw new IOException(path + " is not a world store");
+    }
+    int version = header.getInt();
+    if (version > VERSION) {
+      throw new IOException("Unsupported world store version " + version + " in " + path);
+    }
+    directorySector = header.getInt();
+    int regionCount = header.getInt();
+
+    if (regionCount <= 0) {
+      return;
+    }
+
+    directorySectors = sectorsFor(regionCount * DIRECTORY_ENTRY_BYTES);
+    usedSectors.set(directorySector, directorySector + directorySectors);
+    ByteBuffer directory = readBytes(
+        (long) directorySector * SECTOR_BYTES,
+        regionCount * DIRECTORY_ENTRY_BYTES);
+
+    for (int i = 0; i < regionCount; ++i) {
+      int regionX = directory.getInt();
+      int regionZ = directory.getInt();
+      int tableSector = directory.getInt();
+      loadRegionTable(regionX, regionZ, tableSector);
+    }
+  }
+
+  private void loadRegionTable(int regionX, int regionZ, int tableSector) throws IOException {
+    long regionKey = pack(regionX, regionZ);
+    regionTables.put(regionKey, tableSector);
+    usedSectors.set(tableSector, tableSector + TABLE_SECTORS);
+
+    ByteBuffer table = readBytes(
+        (long) tableSector * SECTOR_BYTES,
+        TABLE_ENTRIES * TABLE_ENTRY_BYTES);
+    long fileSize = channel.size();
+    int count = 0;
+
+    for (int i = 0; i < TABLE_ENTRIES; ++i) {
+      int sector = table.getInt();
+      int length = table.getInt();
+      if (sector <= 0 || length <= 0
+          || (long) sector * SECTOR_BYTES + length > fileSize) {
+        // Absent or truncated data.
+        continue;
+      }
+      int chunkX = (regionX << 5) | (i & 31);
+      int chunkZ = (regionZ << 5) | (i >> 5);
+      chunkLocations.put(pack(chunkX, chunkZ), pack(sector, length));
+      usedSectors.set(sector, sector + sectorsFor(length));
+      ++count;
+    }
+
+    regionChunkCounts.put(regionKey, count);
+  }
+
+  /**
+   * Get the location of the file.
+   *
+   * @return the location of the file
+   */
+  public @NotNull Path getPath() {
+    return path;
+  }
+
+  /**
+   * Check if any chunk in a region has data stored.
+   *
+   * @param regionX the region X coordinate
+   * @param regionZ the region Z coordinate
+   * @return true if data is stored for the region
+   */
+  public synchronized boolean hasRegion(int regionX, int regionZ) {
+    return regionChunkCounts.get(pack(regionX, regionZ)) > 0;
+  }
+
+  /**
+   * Check if a chunk has data stored.
+   *
+   * @param chunkX the chunk X coordinate
+   * @param chunkZ the chunk Z coordinate
+   * @return true if data is stored for the chunk
+   */
+  public synchronized boolean hasChunk(int chunkX, int chunkZ) {
+    return chunkLocations.containsKey(pack(chunkX, chunkZ));
+  }
+
+  /**
+   * Get the coordinates of all chunks with data stored.
+   *
+   * @return the chunk coordinates, packed with the X coordinate in the upper 32 bits
+   */
+  public synchronized long @NotNull [] getChunks() {
+    return chunkLocations.keySet().toLongArray();
+  }
+
+  /**
+   * Read the data stored for a chunk. Data is copied while the store is locked, so later writes do
+   * not affect the returned buffer.
+   *
+   * @param chunkX the chunk X coordinate
+   * @param chunkZ the chunk Z coordinate
+   * @return the data or {@code null} if no data is stored
+   * @throws IOException if there is an issue reading the file
+   */
+  public synchronized @Nullable ByteBuffer read(int chunkX, int chunkZ) throws IOException {
+    long location = chunkLocations.get(pack(chunkX, chunkZ));
+    if (location == ABSENT) {
+      return null;
+    }
+
+    long position = (long) unpackX(location) * SECTOR_BYTES;
+    return readBytes(position, unpackZ(location)).asReadOnlyBuffer();
+  }
+
+  /**
+   * Write data for a chunk. Empty data deletes the chunk instead. The write is not durable until
+   * the store is {@link #force() forced}.
+   *
+   * @param chunkX the chunk X coordinate
+   * @param chunkZ the chunk Z coordinate
+   * @param data the data
+   * @throws IOException if there is an issue writing the file
+   */
+  public synchronized void write(int chunkX, int chunkZ, @NotNull ByteBuffer data)
+      throws IOException {
+    int length = data.remaining();
+    if (length == 0) {
+      delete(chunkX, chunkZ);
+      return;
+    }
+
+    getOrCreateRegionTable(chunkX >> 5, chunkZ >> 5);
+    long chunkKey = pack(chunkX, chunkZ);
+    int sector = allocate(sectorsFor(length));
+    writeBytes(data, (long) sector * SECTOR_BYTES);
+
+    long location = pack(sector, length);
+    uncommitted.add(location);
+    pendingEntries.put(chunkKey, location);
+    long previous = chunkLocations.put(chunkKey, location);
+    if (previous != ABSENT) {
+      release(previous);
+    } else {
+      regionChunkCounts.addTo(pack(chunkX >> 5, chunkZ >> 5), 1);
+    }
+  }
+
+  /**
+   * Delete data for a chunk. The deletion is not durable until the store is
+   * {@link #force() forced}.
+   *
+   * @param chunkX the chunk X coordinate
+   * @param chunkZ the chunk Z coordinate
+   * @throws IOException if there is an issue writing the file
+   */
+  public synchronized void delete(int chunkX, int chunkZ) throws IOException {
+    long previous = chunkLocations.remove(pack(chunkX, chunkZ));
+    if (previous == ABSENT) {
+      return;
+    }
+
+    pendingEntries.put(pack(chunkX, chunkZ), ABSENT);
+    regionChunkCounts.addTo(pack(chunkX >> 5, chunkZ >> 5), -1);
+    release(previous);
+  }
+
+  /**
+   * Make all writes and deletions durable.
+   *
+   * <p>New data is synced before any table points to it, and tables are synced before the header
+   * points to them. Sectors holding replaced data become free for reuse afterwards.
+   *
+   * @throws IOException if there is an issue writing the file
+   */
+  @Override
+  public synchronized void force() throws IOException {
+    if (pendingEntries.isEmpty() && !directoryDirty) {
+      return;
+    }
+
+    // Size changes must be synced along with data, so metadata is always included.
+    channel.force(true);
+
+    for (Long2LongMap.Entry entry : pendingEntries.long2LongEntrySet()) {
+      int chunkX = unpackX(entry.getLongKey());
+      int chunkZ = unpackZ(entry.getLongKey());
+      long location = entry.getLongValue();
+      writeTableEntry(
+          regionTables.get(pack(chunkX >> 5, chunkZ >> 5)),
+          chunkX,
+          chunkZ,
+          unpackX(location),
+          unpackZ(location));
+    }
+    if (directoryDirty) {
+      writeDirectory();
+    }
+    channel.force(true);
+
+    if (directoryDirty) {
+      writeHeader();
+      channel.force(true);
+      directoryDirty = false;
+    }
+
+    pendingEntries.clear();
+    uncommitted.clear();
+    for (int i = 0; i < pendingFree.size(); ++i) {
+      free(pendingFree.getLong(i));
+    }
+    pendingFree.clear();
+  }
+
+  @Override
+  public synchronized void close() throws IOException {
+    if (channel.isOpen()) {
+      try {
+        force();
+      } finally {
+        channel.close();
+      }
+    }
+  }
+
+  private int getOrCreateRegionTable(int regionX, int regionZ) throws IOException {
+    long regionKey = pack(regionX, regionZ);
+    int tableSector = regionTables.get(regionKey);
+    if (tableSector != -1) {
+      return tableSector;
+    }
+
+    // Write an empty table now. It is published in a new directory on the next force.
+    tableSector = allocate(TABLE_SECTORS);
+    writeBytes(
+        ByteBuffer.allocate(TABLE_SECTORS * SECTOR_BYTES),
+        (long) tableSector * SECTOR_BYTES);
+    regionTables.put(regionKey, tableSector);
+    regionChunkCounts.put(regionKey, 0);
+    directoryDirty = true;
+
+    return tableSector;
+  }
+
+  private void writeDirectory() throws IOException {
+    int regionCount = regionTables.size();
+    int newSectors = sectorsFor(regionCount * DIRECTORY_ENTRY_BYTES);
+    int newSector = allocate(newSectors);
+
+    ByteBuffer directory = ByteBuffer.allocate(regionCount * DIRECTORY_ENTRY_BYTES);
+    for (Long2IntMap.Entry entry : regionTables.long2IntEntrySet()) {
+      directory.putInt(unpackX(entry.getLongKey()));
+      directory.putInt(unpackZ(entry.getLongKey()));
+      directory.putInt(entry.getIntValue());
+    }
+    directory.flip();
+    writeBytes(directory, (long) newSector * SECTOR_BYTES);
+
+    // The old directory is still referenced by the header on disk until the header is rewritten.
+    if (directorySectors > 0) {
+      pendingFree.add(pack(directorySector, directorySectors * SECTOR_BYTES));
+    }
+    directorySector = newSector;
+    directorySectors = newSectors;
+  }
+
+  private void writeHeader() throws IOException {
+    ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+    header.putInt(MAGIC);
+    header.putInt(VERSION);
+    header.putInt(directorySector);
+    header.putInt(regionTables.size());
+    header.flip();
+    writeBytes(header, 0);
+  }
+
+  private void writeTableEntry(int tableSector, int chunkX, int chunkZ, int sector, int length)
+      throws IOException {
+    int index = (chunkX & 31) | (chunkZ & 31) << 5;
+    ByteBuffer entry = ByteBuffer.allocate(TABLE_ENTRY_BYTES);
+    entry.putInt(sector);
+    entry.putInt(length);
+    entry.flip();
+    writeBytes(entry, (long) tableSector * SECTOR_BYTES + (long) index * TABLE_ENTRY_BYTES);
+  }
+
+  private int allocate(int sectors) {
+    int start = usedSectors.nextClearBit(1);
+    while (true) {
+      int nextUsed = usedSectors.nextSetBit(start);
+      if (nextUsed == -1 || nextUsed - start >= sectors) {
+        usedSectors.set(start, start + sectors);
+        return start;
+      }
+      start = usedSectors.nextClearBit(nextUsed);
+    }
+  }
+
+  /**
+   * Release the sectors of replaced data. Data that was never referenced on disk is freed
+   * immediately, otherwise the sectors are freed after the next force.
+   *
+   * @param location the location of the data
+   */
+  private void release(long location) {
+    if (uncommitted.remove(location)) {
+      free(location);
+    } else {
+      pendingFree.add(location);
+    }
+  }
+
+  private void free(long location) {
+    int sector = unpackX(location);
+    usedSectors.clear(sector, sector + sectorsFor(unpackZ(location)));
+  }
+
+  private @NotNull ByteBuffer readBytes(long position, int length) throws IOException {
+    ByteBuffer buffer = ByteBuffer.allocate(length);
+    while (buffer.hasRemaining()) {
+      if (channel.read(buffer, position + buffer.position()) < 0) {
+        throw new IOException("Unexpected end of " + path);
+      }
+    }
+    buffer.flip();
+    return buffer;
+  }
+
+  private void writeBytes(@NotNull ByteBuffer buffer, long position) throws IOException {
+    long offset = position - buffer.position();
+    while (buffer.hasRemaining()) {
+      channel.write(buffer, offset + buffer.position());
+    }
+  }
+
+  private static int sectorsFor(int length) {
+    return (length + SECTOR_BYTES - 1) / SECTOR_BYTES;
+  }
+
+  private static long pack(int x, int z) {
+    return (long) x << 32 | z & 0xFFFFFFFFL;
+  }
+
+  private static int unpackX(long packed) {
+    return (int) (packed >> 32);
+  }
+
+  private static int unpackZ(long packed) {
+    return (int) packed;
+  }
+
+}
@@ -0,0 +1,588 @@
+package com.github.jikoo.enchantableblocks.util.storage;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+import java.util.function.Predicate;
+import java.util.zip.CRC32C;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.bukkit.configuration.file.YamlConstructor;
+import org.bukkit.configuration.file.YamlRepresenter;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.yaml.snakeyaml.DumperOptions;
+import org.yaml.snakeyaml.LoaderOptions;
+import org.yaml.snakeyaml.composer.Composer;
+import org.yaml.snakeyaml.emitter.Emitter;
+import org.yaml.snakeyaml.error.YAMLException;
+import org.yaml.snakeyaml.events.CollectionEndEvent;
+import org.yaml.snakeyaml.events.CollectionStartEvent;
+import org.yaml.snakeyaml.events.DocumentEndEvent;
+import org.yaml.snakeyaml.events.DocumentStartEvent;
+import org.yaml.snakeyaml.events.Event;
+import org.yaml.snakeyaml.events.ImplicitTuple;
+import org.yaml.snakeyaml.events.MappingEndEvent;
+import org.yaml.snakeyaml.events.MappingStartEvent;
+import org.yaml.snakeyaml.events.ScalarEvent;
+import org.yaml.snakeyaml.events.SequenceEndEvent;
+import org.yaml.snakeyaml.events.SequenceStartEvent;
+import org.yaml.snakeyaml.events.StreamEndEvent;
+import org.yaml.snakeyaml.events.StreamStartEvent;
+import org.yaml.snakeyaml.nodes.MappingNode;
+import org.yaml.snakeyaml.nodes.Node;
+import org.yaml.snakeyaml.nodes.NodeId;
+import org.yaml.snakeyaml.nodes.NodeTuple;
+import org.yaml.snakeyaml.nodes.ScalarNode;
+import org.yaml.snakeyaml.nodes.SequenceNode;
+import org.yaml.snakeyaml.nodes.Tag;
+import org.yaml.snakeyaml.parser.Parser;
+import org.yaml.snakeyaml.parser.ParserImpl;
+import org.yaml.snakeyaml.reader.StreamReader;
+import org.yaml.snakeyaml.reader.UnicodeReader;
+import org.yaml.snakeyaml.resolver.Resolver;
+
+/**
+ * A streaming YAML encoding for region data, compatible with
+ * {@link org.bukkit.configuration.file.YamlConfiguration YamlConfiguration}.
+ *
+ * <p>Files start with a comment containing the CRC32C of the remainder of the file. Files without
+ * the comment are read without verification.
+ *
+ * <p>Rather than building a complete document in memory, the {@link ConfigurationSection} tree is
+ * written as a series of SnakeYAML events. Only leaf values are represented as nodes. Characters
+ * are encoded through a reusable per-thread buffer directly into a {@link FileChannel}, and the
+ * checksum is filled in once the remainder of the file is written.
+ *
+ * <p>When read, the top level of the document is parsed as events and only requested chunk
+ * sections are composed and constructed, one at a time. Other sections are skipped without
+ * being materialized. Documents written by {@code YamlConfiguration} may use anchors shared
+ * between chunks; if such a document cannot be read chunk by chunk, it is read as a whole.
+ */
+public final class YamlRegionCodec {
+
+  private static final String CHECKSUM_PREFIX = "# crc32c: ";
+  private static final int HEADER_LENGTH = String.format("%s%08x\n", CHECKSUM_PREFIX, 0).length();
+  private static final int BUFFER_SIZE = 16384;
+  private static final ThreadLocal<Encoder> ENCODER = ThreadLocal.withInitial(Encoder::new);
+
+  /**
+   * Write the contents of a {@link ConfigurationSection} to a {@link FileChannel}, starting at the
+   * channel's current position.
+   *
+   * @param root the section representing the region
+   * @param channel the channel to write to
+   * @throws IOException if there is an issue writing to the channel
+   */
+  public static void write(@NotNull ConfigurationSection root, @NotNull FileChannel channel)
+      throws IOException {
+    Encoder encoder = ENCODER.get();
+    long start = channel.position();
+    // Reserve space for the checksum, which is not known until the rest of the file is written.
+    channel.position(start + HEADER_LENGTH);
+    encoder.writer.reset(channel);
+
+    try {
+      DumperOptions options = new DumperOptions();
+      options.setIndent(2);
+      options.setDefaultFlowStyle(DumperOptions.FlowStyle.BLOCK);
+      Emitter emitter = new Emitter(encoder.writer, options);
+
+      emitter.emit(new StreamStartEvent(null, null));
+      emitter.emit(new DocumentStartEvent(null, null, false, null, null));
+      encoder.emitSection(emitter, root);
+      emitter.emit(new DocumentEndEvent(null, null, false));
+      emitter.emit(new StreamEndEvent(null, null));
+
+      int checksum = encoder.writer.finish();
+      ByteBuffer header = ByteBuffer.wrap(String.format("%s%08x\n", CHECKSUM_PREFIX, checksum)
+          .getBytes(StandardCharsets.UTF_8));
+      long end = channel.position();
+      long position = start;
+      while (header.hasRemaining()) {
+        position += channel.write(header, position);
+      }
+      channel.position(end);
+    } catch (YAMLException e) {
+      throw new IOException("Unable to write YAML", e);
+    } finally {
+      encoder.writer.reset(null);
+    }
+  }
+
+  /**
+   * Read a file written in YAML into a {@link ConfigurationSection}.
+   *
+   * <p>Only top-level sections with keys accepted by the filter are read. If the file contains a
+   * checksum, the entire file is verified before anything is parsed.
+   *
+   * @param file the file to read
+   * @param root the section representing the region
+   * @param chunkFilter the filter for top-level keys to read
+   * @throws IOException if there is an issue reading the file
+   * @throws InvalidConfigurationException if the data is not valid
+   */
+  public static void read(
+      @NotNull Path file,
+      @NotNull ConfigurationSection root,
+      @NotNull Predicate<String> chunkFilter) throws IOException, InvalidConfigurationException {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      long start = verifyChecksum(channel);
+
+      try {
+        read(channel, start, root, chunkFilter, true);
+        return;
+      } catch (YAMLException e) {
+        // Anchors may be shared between chunks. Fall through and read the document as a whole.
+      }
+
+      for (String key : root.getKeys(false)) {
+        root.set(key, null);
+      }
+
+      try {
+        read(channel, start, root, chunkFilter, false);
+      } catch (YAMLException e) {
+        throw new InvalidConfigurationException(e);
+      }
+    }
+  }
+
+  private static void read(
+      @NotNull FileChannel channel,
+      long start,
+      @NotNull ConfigurationSection root,
+      @NotNull Predicate<String> chunkFilter,
+      boolean split) throws IOException, InvalidConfigurationException {
+    channel.position(start);
+    // Reader is not closed; closing it would close the channel.
+    Reader reader = new UnicodeReader(Channels.newInputStream(channel));
+    LoaderOptions loaderOptions = new LoaderOptions();
+    loaderOptions.setMaxAliasesForCollections(Integer.MAX_VALUE);
+    ChunkParser parser = new ChunkParser(
+        new ParserImpl(new StreamReader(reader)),
+        split ? chunkFilter : key -> true,
+        split);
+    YamlConstructor constructor = new YamlConstructor();
+    constructor.setComposer(new Composer(parser, new Resolver(), loaderOptions));
+
+    while (constructor.checkData()) {
+      if (!(constructor.getData() instanceof Map<?, ?> map)) {
+        throw new InvalidConfigurationException("Top level is not a Map.");
+      }
+      for (Map.Entry<?, ?> entry : map.entrySet()) {
+        String key = String.valueOf(entry.getKey());
+        if (split || chunkFilter.test(key)) {
+          setValue(root, key, entry.getValue());
+        }
+      }
+    }
+  }
+
+  private static void setValue(
+      @NotNull ConfigurationSection section,
+      @NotNull String key,
+      @Nullable Object value) {
+    if (value instanceof Map<?, ?> map) {
+      ConfigurationSection child = section.createSection(key);
+      for (Map.Entry<?, ?> entry : map.entrySet()) {
+        setValue(child, String.valueOf(entry.getKey()), entry.getValue());
+      }
+    } else {
+      section.set(key, value);
+    }
+  }
+
+  /**
+   * Verify the checksum comment of a file, if present.
+   *
+   * @param channel the channel to read from
+   * @return the position of the first byte following the checksum
+   * @throws IOException if there is an issue reading the file
+   * @throws InvalidConfigurationException if the checksum does not match
+   */
+  private static long verifyChecksum(@NotNull FileChannel channel)
+      throws IOException, InvalidConfigurationException {
+    byte[] prefix = CHECKSUM_PREFIX.getBytes(StandardCharsets.UTF_8);
+    ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    readFully(channel, buffer, 0);
+    buffer.flip();
+
+    for (byte expected : prefix) {
+      if (!buffer.hasRemaining() || buffer.get() != expected) {
+        return 0;
+      }
+    }
+
+    StringBuilder value = new StringBuilder();
+    while (true) {
+      if (!buffer.hasRemaining()) {
+        if (buffer.limit() < buffer.capacity()) {
+          throw new InvalidConfigurationException("Data is truncated");
+        }
+        throw new InvalidConfigurationException("Invalid checksum " + value);
+      }
+      byte next = buffer.get();
+      if (next == '\n') {
+        break;
+      }
+      value.append((char) (next & 0xFF));
+    }
+
+    int expected;
+    try {
+      expected = Integer.parseUnsignedInt(value.toString().trim(), 16);
+    } catch (NumberFormatException e) {
+      throw new InvalidConfigurationException("Invalid checksum " + value, e);
+    }
+
+    long start = buffer.position();
+    CRC32C crc = new CRC32C();
+    crc.update(buffer);
+    long position = buffer.limit();
+    while (buffer.limit() == buffer.capacity()) {
+      buffer.clear();
+      readFully(channel, buffer, position);
+      buffer.flip();
+      position += buffer.limit();
+      crc.update(buffer);
+    }
+
+    int actual = (int) crc.getValue();
+    if (actual != expected) {
+      throw new InvalidConfigurationException(String.format(
+          "Checksum mismatch: expected %08x, got %08x", expected, actual));
+    }
+    return start;
+  }
+
+  private static void readFully(@NotNull FileChannel channel, @NotNull ByteBuffer buffer,
+      long position) throws IOException {
+    while (buffer.hasRemaining()) {
+      int read = channel.read(buffer, position);
+      if (read < 0) {
+        return;
+      }
+      position += read;
+    }
+  }
+
+  /**
+   * Per-thread state used to write documents.
+   */
+  private static final class Encoder {
+
+    private final @NotNull EncodingWriter writer = new EncodingWriter();
+    private final @NotNull YamlRepresenter representer = new YamlRepresenter();
+    private final @NotNull Resolver resolver = new Resolver();
+
+    private Encoder() {
+      // Match the defaults Yaml would otherwise apply to the representer.
+      representer.setDefaultFlowStyle(DumperOptions.FlowStyle.BLOCK);
+      representer.setDefaultScalarStyle(DumperOptions.ScalarStyle.PLAIN);
+    }
+
+    private void emitSection(@NotNull Emitter emitter, @NotNull ConfigurationSection section)
+        throws IOException {
+      emitter.emit(new MappingStartEvent(
+          null, null, true, null, null, DumperOptions.FlowStyle.BLOCK));
+      for (Map.Entry<String, Object> entry : section.getValues(false).entrySet()) {
+        emitScalar(emitter, Tag.STR, entry.getKey(), DumperOptions.ScalarStyle.PLAIN);
+        if (entry.getValue() instanceof ConfigurationSection child) {
+          emitSection(emitter, child);
+        } else {
+          emitNode(emitter, representer.represent(entry.getValue()));
+        }
+      }
+      emitter.emit(new MappingEndEvent(null, null));
+    }
+
+    private void emitNode(@NotNull Emitter emitter, @NotNull Node node) throws IOException {
+      if (node instanceof ScalarNode scalar) {
+        emitScalar(emitter, node.getTag(), scalar.getValue(), scalar.getScalarStyle());
+      } else if (node instanceof SequenceNode sequence) {
+        boolean implicit = node.getTag().equals(resolver.resolve(NodeId.sequence, null, true));
+        emitter.emit(new SequenceStartEvent(
+            null, node.getTag().getValue(), implicit, null, null, sequence.getFlowStyle()));
+        for (Node child : sequence.getValue()) {
+          emitNode(emitter, child);
+        }
+        emitter.emit(new SequenceEndEvent(null, null));
+      } else if (node instanceof MappingNode mapping) {
+        boolean implicit = node.getTag().equals(resolver.resolve(NodeId.mapping, null, true));
+        emitter.emit(new MappingStartEvent(
+            null, node.getTag().getValue(), implicit, null, null, mapping.getFlowStyle()));
+        for (NodeTuple tuple : mapping.getValue()) {
+          emitNode(emitter, tuple.getKeyNode());
+          emitNode(emitter, tuple.getValueNode());
+        }
+        emitter.emit(new MappingEndEvent(null, null));
+      } else {
+        throw new IOException("Unsupported node " + node.getNodeId());
+      }
+    }
+
+    private void emitScalar(
+        @NotNull Emitter emitter,
+        @NotNull Tag tag,
+        @NotNull String value,
+        @NotNull DumperOptions.ScalarStyle style) throws IOException {
+      // Mirror SnakeYAML's serializer: omit tags that are resolved implicitly, quoting if needed.
+      ImplicitTuple implicit = new ImplicitTuple(
+          tag.equals(resolver.resolve(NodeId.scalar, value, true)),
+          tag.equals(resolver.resolve(NodeId.scalar, value, false)));
+      emitter.emit(new ScalarEvent(null, tag.getValue(), implicit, value, null, null, style));
+    }
+
+  }
+
+  /**
+   * A {@link Writer} encoding UTF-8 directly into a {@link FileChannel} through reusable buffers
+   * while computing a CRC32C of the written bytes.
+   */
+  private static final class EncodingWriter extends Writer {
+
+    private final @NotNull CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder();
+    private final @NotNull CharBuffer chars = CharBuffer.allocate(BUFFER_SIZE / 4);
+    private final @NotNull ByteBuffer bytes = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private final @NotNull CRC32C crc = new CRC32C();
+    private @Nullable FileChannel channel;
+
+    private void reset(@Nullable FileChannel channel) {
+      this.channel = channel;
+      encoder.reset();
+      chars.clear();
+      bytes.clear();
+      crc.reset();
+    }
+
+    @Override
+    public void write(char @NotNull [] cbuf, int off, int len) throws IOException {
+      while (len > 0) {
+        int count = Math.min(len, chars.remaining());
+        chars.put(cbuf, off, count);
+        off += count;
+        len -= count;
+        if (!chars.hasRemaining()) {
+          encode(false);
+        }
+      }
+    }
+
+    @Override
+    public void write(@NotNull String str, int off, int len) throws IOException {
+      while (len > 0) {
+        int count = Math.min(len, chars.remaining());
+        chars.put(str, off, off + count);
+        off += count;
+        len -= count;
+        if (!chars.hasRemaining()) {
+          encode(false);
+        }
+      }
+    }
+
+    private void encode(boolean endOfInput) throws IOException {
+      chars.flip();
+      while (true) {
+        CoderResult result = encoder.encode(chars, bytes, endOfInput);
+        if (result.isOverflow()) {
+          drain();
+        } else if (result.isUnderflow()) {
+          break;
+        } else {
+          result.throwException();
+        }
+      }
+      // Retain any unpaired surrogate until the rest of the pair is written.
+      chars.compact();
+    }
+
+    private void drain() throws IOException {
+      if (channel == null) {
+        throw new IOException("Writer is not open");
+      }
+      bytes.flip();
+      int position = bytes.position();
+      crc.update(bytes);
+      bytes.position(position);
+      while (bytes.hasRemaining()) {
+        channel.write(bytes);
+      }
+      bytes.clear();
+    }
+
+    @Override
+    public void flush() throws IOException {
+      encode(false);
+      drain();
+    }
+
+    /**
+     * Write all remaining characters.
+     *
+     * @return the CRC32C of all bytes written
+     * @throws IOException if there is an issue writing to the channel
+     */
+    private int finish() throws IOException {
+      encode(true);
+      while (encoder.flush(bytes).isOverflow()) {
+        drain();
+      }
+      drain();
+      return (int) crc.getValue();
+    }
+
+    @Override
+    public void close() {
+      // Channel is owned by the caller.
+    }
+
+  }
+
+  /**
+   * A {@link Parser} exposing only accepted top-level entries of a document. Other entries are
+   * skipped as raw events.
+   *
+   * <p>If split, each accepted entry is exposed as a separate single-entry document so that it can
+   * be constructed and discarded before the next entry is parsed.
+   */
+  private static final class ChunkParser implements Parser {
+
+    private final @NotNull Parser source;
+    private final @NotNull Predicate<String> filter;
+    private final boolean split;
+    private final @NotNull Deque<Event> pending = new ArrayDeque<>();
+    private State state = State.STREAM_START;
+    private int depth;
+
+    private ChunkParser(@NotNull Parser source, @NotNull Predicate<String> filter, boolean split) {
+      this.source = source;
+      this.filter = filter;
+      this.split = split;
+    }
+
+    @Override
+    public boolean checkEvent(Event.ID choice) {
+      Event event = peekEvent();
+      return event != null && event.is(choice);
+    }
+
+    @Override
+    public @Nullable Event peekEvent() {
+      while (pending.isEmpty() && state != State.DONE) {
+        advance();
+      }
+      return pending.peek();
+    }
+
+    @Override
+    public @Nullable Event getEvent() {
+      peekEvent();
+      return pending.poll();
+    }
+
+    private void advance() {
+      switch (state) {
+        case STREAM_START -> {
+          pending.add(source.getEvent());
+          if (!source.checkEvent(Event.ID.DocumentStart)) {
+            state = State.STREAM_END;
+            return;
+          }
+          Event documentStart = source.getEvent();
+          if (!source.checkEvent(Event.ID.MappingStart)) {
+            throw new YAMLException("Top level is not a Map.");
+          }
+          source.getEvent();
+          if (!split) {
+            pending.add(documentStart);
+            pending.add(mappingStart());
+          }
+          state = State.ENTRIES;
+        }
+        case ENTRIES -> {
+          if (source.checkEvent(Event.ID.MappingEnd)) {
+            source.getEvent();
+            source.getEvent();
+            if (!split) {
+              pending.add(new MappingEndEvent(null, null));
+              pending.add(new DocumentEndEvent(null, null, false));
+            }
+            state = State.STREAM_END;
+            return;
+          }
+          Event key = source.getEvent();
+          if (!(key instanceof ScalarEvent scalar)) {
+            throw new YAMLException("Top level key is not a scalar.");
+          }
+          boolean accepted = filter.test(scalar.getValue());
+          if (accepted) {
+            if (split) {
+              pending.add(new DocumentStartEvent(null, null, false, null, null));
+              pending.add(mappingStart());
+            }
+            pending.add(key);
+          }
+          depth = 0;
+          state = accepted ? State.ENTRY : State.SKIP;
+        }
+        case ENTRY, SKIP -> {
+          Event event = source.getEvent();
+          if (state == State.ENTRY) {
+            pending.add(event);
+          }
+          if (event instanceof CollectionStartEvent) {
+            ++depth;
+          } else if (event instanceof CollectionEndEvent) {
+            --depth;
+          }
+          if (depth == 0) {
+            if (state == State.ENTRY && split) {
+              pending.add(new MappingEndEvent(null, null));
+              pending.add(new DocumentEndEvent(null, null, false));
+            }
+            state = State.ENTRIES;
+          }
+        }
+        case STREAM_END -> {
+          if (!source.checkEvent(Event.ID.StreamEnd)) {
+            throw new YAMLException("Expected a single document.");
+          }
+          pending.add(source.getEvent());
+          state = State.DONE;
+        }
+        default -> throw new IllegalStateException("Parser is complete.");
+      }
+    }
+
+    private static @NotNull MappingStartEvent mappingStart() {
+      return new MappingStartEvent(null, null, true, null, null, DumperOptions.FlowStyle.BLOCK);
+    }
+
+    private enum State {
+      STREAM_START,
+      ENTRIES,
+      ENTRY,
+      SKIP,
+      STREAM_END,
+      DONE
+    }
+
+  }
+
+  private YamlRegionCodec() {}
+
+}
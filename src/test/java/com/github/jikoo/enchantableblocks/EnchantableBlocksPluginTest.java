@@ -52,10 +52,11 @@ class EnchantableBlocksPluginTest {
     // Load chunk
     WorldMock world = MockBukkit.getMock().addSimpleWorld("test");
     world.getChunkAt(0, 0);
-    PatternCountHandler loadCount = new PatternCountHandler("Loaded all active blocks");
+    PatternCountHandler loadCount = new PatternCountHandler("Loaded blocks for .*");
     plugin.getLogger().addHandler(loadCount);
 
-    assertDoesNotThrow(() -> MockBukkit.getMock().getScheduler().performOneTick());
+    // Loading is scheduled on the first tick and performed on following ticks.
+    assertDoesNotThrow(() -> MockBukkit.getMock().getScheduler().performTicks(3));
 
     assertThat("Load must be performed once", loadCount.getMatches(), is(1));
   }
@@ -89,6 +90,12 @@ class EnchantableBlocksPluginTest {
 
     assertThat("Reload execution must succeed", success);
     assertThat("Sender must have recieved message", count.get(), is(expectedCount));
+
+    success = plugin.onCommand(player, command, "aliasesarebad", new String[]{"stats", "cache"});
+    expectedCount += 3;
+
+    assertThat("Cache stats execution must succeed", success);
+    assertThat("Sender must have recieved messages", count.get(), is(expectedCount));
   }
 
 }
\ No newline at end of file
@@ -0,0 +1,115 @@
+package com.github.jikoo.enchantableblocks.registry;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import be.seeseemelk.mockbukkit.MockBukkit;
+import be.seeseemelk.mockbukkit.MockPlugin;
+import com.github.jikoo.enchantableblocks.util.PluginHelper;
+import com.github.jikoo.enchantableblocks.util.Region;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+@DisplayName("Feature: Index chunks containing stored data.")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class ChunkOccupancyTest {
+
+  private static final String WORLD_NAME = "occupancy_world";
+
+  @BeforeAll
+  void beforeAll() {
+    MockBukkit.mock();
+  }
+
+  @AfterAll
+  void afterAll() {
+    MockBukkit.unmock();
+  }
+
+  @DisplayName("Chunks must only be occupied once data is added.")
+  @Test
+  void testAddRemove() {
+    ChunkOccupancy occupancy = new ChunkOccupancy(true);
+    assertThat("Unknown world must be empty", occupancy.mayContain(WORLD_NAME, 0, 0), is(false));
+
+    occupancy.add(WORLD_NAME, -1, -33);
+    assertThat("Added chunk must be occupied", occupancy.mayContain(WORLD_NAME, -1, -33), is(true));
+    assertThat("Neighbouring chunk must be empty",
+        occupancy.mayContain(WORLD_NAME, -2, -33), is(false));
+    assertThat("Chunk in another region must be empty",
+        occupancy.mayContain(WORLD_NAME, 31, -1), is(false));
+
+    occupancy.remove(WORLD_NAME, -1, -33);
+    assertThat("Removed chunk must be empty", occupancy.mayContain(WORLD_NAME, -1, -33), is(false));
+  }
+
+  @DisplayName("Unread regions must be occupied until their contents are known.")
+  @Test
+  void testLoad() {
+    ChunkOccupancy occupancy = new ChunkOccupancy(true);
+    Region region = new Region(WORLD_NAME, 1, -1);
+    occupancy.addRegion(region);
+    assertThat("Unread region must be occupied",
+        occupancy.mayContain(WORLD_NAME, 40, -20), is(true));
+
+    YamlConfiguration storage = new YamlConfiguration();
+    storage.set("32_-32.32_64_-512.value", "value");
+    storage.set("0_0.0_64_0.value", "wrong region");
+    storage.set("invalid.value", "invalid chunk");
+    occupancy.load(region, storage);
+    assertThat("Stored chunk must be occupied",
+        occupancy.mayContain(WORLD_NAME, 32, -32), is(true));
+    assertThat("Unstored chunk must be empty",
+        occupancy.mayContain(WORLD_NAME, 40, -20), is(false));
+    assertThat("Chunk outside of region must be ignored",
+        occupancy.mayContain(WORLD_NAME, 0, 0), is(false));
+
+    occupancy.add(WORLD_NAME, 40, -20);
+    occupancy.load(region, null);
+    assertThat("Known contents must not be discarded",
+        occupancy.mayContain(WORLD_NAME, 40, -20), is(true));
+
+    Region other = new Region(WORLD_NAME, 5, 5);
+    occupancy.addRegion(other);
+    occupancy.load(other, null);
+    assertThat("Region without data must be empty",
+        occupancy.mayContain(WORLD_NAME, 160, 160), is(false));
+  }
+
+  @DisplayName("Disabled index must consider all chunks occupied.")
+  @Test
+  void testDisabled() {
+    ChunkOccupancy occupancy = new ChunkOccupancy(false);
+    occupancy.remove(WORLD_NAME, 0, 0);
+    assertThat("Index must be disabled", occupancy.isEnabled(), is(false));
+    assertThat("Chunk must be occupied", occupancy.mayContain(WORLD_NAME, 0, 0), is(true));
+  }
+
+  @DisplayName("Index must be built from stored regions and refined once read.")
+  @Test
+  void testManager() throws NoSuchFieldException, IllegalAccessException {
+    MockPlugin plugin = MockBukkit.createMockPlugin("EnchantableBlocks");
+    PluginHelper.setDataDir(plugin);
+    EnchantableBlockManager manager = new EnchantableBlockManager(plugin);
+    ChunkOccupancy occupancy = manager.occupancy;
+
+    try {
+      assertThat("Index must be enabled for region files", occupancy.isEnabled(), is(true));
+      assertThat("Stored region must be occupied",
+          occupancy.mayContain("world", 33, 33), is(true));
+      assertThat("Missing region must be empty", occupancy.mayContain("world", 0, 0), is(false));
+
+      // Stored file contains no chunk data. Read without caching to avoid migrating the file.
+      new RegionLoadFunction(plugin, manager).load(new Region("world", 1, 1), false);
+      assertThat("Read region must be empty",
+          occupancy.mayContain("world", 33, 33), is(false));
+    } finally {
+      manager.shutdown();
+    }
+  }
+
+}
@@ -0,0 +1,163 @@
+package com.github.jikoo.enchantableblocks.registry;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import be.seeseemelk.mockbukkit.MockBukkit;
+import be.seeseemelk.mockbukkit.MockPlugin;
+import com.github.jikoo.enchantableblocks.util.PluginHelper;
+import com.github.jikoo.enchantableblocks.util.Region;
+import com.github.jikoo.enchantableblocks.util.RegionStorage;
+import com.github.jikoo.enchantableblocks.util.storage.RegionFormat;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.io.TempDir;
+
+@DisplayName("Feature: Store block data in an embedded database.")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class DatabaseBlockStorageTest {
+
+  private static final Region REGION = new Region("database_world", -1, 2);
+
+  @TempDir
+  Path directory;
+  private MockPlugin plugin;
+  private DatabaseBlockStorage storage;
+
+  @BeforeAll
+  void beforeAll() {
+    MockBukkit.mock();
+  }
+
+  @AfterAll
+  void afterAll() {
+    MockBukkit.unmock();
+  }
+
+  @BeforeEach
+  void setUp() throws NoSuchFieldException, IllegalAccessException {
+    plugin = MockBukkit.createMockPlugin("EnchantableBlocks");
+    PluginHelper.setDataDir(plugin);
+    storage = new DatabaseBlockStorage(
+        plugin.getLogger(),
+        directory.resolve("blocks.db"),
+        new RegionFileStorage(plugin, RegionFormat.BINARY));
+  }
+
+  @AfterEach
+  void tearDown() throws IOException {
+    storage.close();
+    new RegionStorage(plugin, REGION).delete();
+  }
+
+  @DisplayName("Region data must round trip.")
+  @Test
+  void testRoundTrip() throws IOException, InvalidConfigurationException {
+    RegionStorage saved = new RegionStorage(plugin, REGION);
+    saved.set("-32_64.-512_64_1024.value", "first");
+    saved.set("-31_65.-496_64_1040.value", "second");
+    storage.save(saved);
+
+    assertThat("Region must exist", storage.exists(REGION), is(true));
+    assertThat("Other region must not exist",
+        storage.exists(new Region("database_world", 0, 0)), is(false));
+
+    RegionStorage loaded = new RegionStorage(plugin, REGION);
+    assertThat("Data must not need migration", storage.load(loaded), is(false));
+    assertThat("Data must match", loaded.getString("-32_64.-512_64_1024.value"), is("first"));
+    assertThat("Data must match", loaded.getString("-31_65.-496_64_1040.value"), is("second"));
+
+    ConfigurationSection chunk = storage.loadChunk(REGION.worldName(), -31, 65);
+    assertThat("Chunk must be present", chunk, is(notNullValue()));
+    assertThat("Chunk data must match", chunk.getString("-496_64_1040.value"), is("second"));
+  }
+
+  @DisplayName("Chunks removed from a region must be deleted on save.")
+  @Test
+  void testRemoveChunk() throws IOException, InvalidConfigurationException {
+    RegionStorage saved = new RegionStorage(plugin, REGION);
+    saved.set("-32_64.-512_64_1024.value", "first");
+    saved.set("-31_65.-496_64_1040.value", "second");
+    storage.save(saved);
+
+    saved.set("-32_64", null);
+    storage.save(saved);
+
+    assertThat("Removed chunk must be deleted",
+        storage.loadChunk(REGION.worldName(), -32, 64), is(nullValue()));
+    List<String> visited = new ArrayList<>();
+    storage.forEachChunk(
+        REGION.worldName(),
+        (chunkX, chunkZ, data) -> visited.add(chunkX + "_" + chunkZ));
+    assertThat("Only remaining chunk must be visited", visited, is(List.of("-31_65")));
+  }
+
+  @DisplayName("Unreadable chunks must fail the region load and be kept.")
+  @Test
+  void testCorruptChunk() throws IOException, SQLException {
+    RegionStorage saved = new RegionStorage(plugin, REGION);
+    saved.set("-32_64.-512_64_1024.value", "first");
+    saved.set("-31_65.-496_64_1040.value", "second");
+    storage.save(saved);
+
+    String url = "jdbc:sqlite:" + directory.resolve("blocks.db").toAbsolutePath();
+    long chunkKey = (long) -32 << 32 | 64;
+    try (Connection connection = DriverManager.getConnection(url);
+        PreparedStatement update =
+            connection.prepareStatement("UPDATE chunks SET data = ? WHERE chunk = ?")) {
+      update.setBytes(1, new byte[] { 1, 2, 3, 4, 5, 6, 7, 8 });
+      update.setLong(2, chunkKey);
+      assertThat("Chunk must be corrupted", update.executeUpdate(), is(1));
+    }
+
+    assertThrows(
+        InvalidConfigurationException.class,
+        () -> storage.load(new RegionStorage(plugin, REGION)));
+
+    try (Connection connection = DriverManager.getConnection(url);
+        PreparedStatement select =
+            connection.prepareStatement("SELECT COUNT(*) FROM chunks WHERE chunk = ?")) {
+      select.setLong(1, chunkKey);
+      try (ResultSet result = select.executeQuery()) {
+        assertThat("Result must be present", result.next(), is(true));
+        assertThat("Unreadable chunk must be kept", result.getInt(1), is(1));
+      }
+    }
+  }
+
+  @DisplayName("Region files must be migrated into the database.")
+  @Test
+  void testMigrate() throws IOException, InvalidConfigurationException {
+    RegionStorage legacy = new RegionStorage(plugin, REGION);
+    legacy.set("-32_64.-512_64_1024.value", "legacy");
+    legacy.save();
+
+    RegionStorage loaded = new RegionStorage(plugin, REGION);
+    assertThat("Legacy data must need migration", storage.load(loaded), is(true));
+    assertThat("Data must match", loaded.getString("-32_64.-512_64_1024.value"), is("legacy"));
+
+    storage.save(loaded);
+    assertThat("Region files must be deleted", loaded.exists(), is(false));
+    assertThat("Data must be in database", storage.exists(REGION), is(true));
+  }
+
+}
@@ -64,13 +64,7 @@ class EnchantableBlockManagerTest {
     // Disable dummy in disabled world
     plugin.getConfig().set(DISABLED_WORLD_PATH, false);
 
-    // Register dummy with manager
-    DummyEnchantableRegistration registration = new DummyEnchantableRegistration(
-        plugin,
-        Set.of(Enchantment.DIG_SPEED),
-        EnumSet.of(Material.COAL_ORE, Material.DEEPSLATE_COAL_ORE)
-    );
-    manager.getRegistry().register(registration);
+    registerDummy();
 
     // Reset block types
     block.setType(Material.DIRT);
@@ -82,6 +76,16 @@ class EnchantableBlockManagerTest {
     MockBukkit.unmock();
   }
 
+  private void registerDummy() {
+    // Register dummy with manager
+    DummyEnchantableRegistration registration = new DummyEnchantableRegistration(
+        plugin,
+        Set.of(Enchantment.DIG_SPEED),
+        EnumSet.of(Material.COAL_ORE, Material.DEEPSLATE_COAL_ORE)
+    );
+    manager.getRegistry().register(registration);
+  }
+
   @Test
   @DisplayName("Configuration cache should be reloaded when manager is reloaded.")
   void testReloadRegistry() {
@@ -251,6 +255,8 @@ class EnchantableBlockManagerTest {
     if (section == null) {
       section = storage.createSection(EnchantableBlockManager.getChunkPath(block));
     }
+    // Data is written directly to storage, record that the chunk is occupied.
+    manager.occupancy.add(chunk.getWorld().getName(), chunk.getX(), chunk.getZ());
     section.set("badpath", "not a config section");
     section.set("bad block path.stuff", "value");
     section.set("bad_block_path.stuff", "extreme value");
@@ -261,6 +267,9 @@ class EnchantableBlockManagerTest {
     section.set(EnchantableBlockManager.getBlockPath(block) + ".itemstack", stack);
     block.setType(stack.getType());
     section.set("0_1_0.itemstack", stack);
+    section.set("17_1_0.itemstack", stack);
+    // Data is written directly to storage, index it.
+    storage.recountBlocks();
   }
 
   @Test
@@ -286,11 +295,45 @@ class EnchantableBlockManagerTest {
         "Expected 2 invalid items or blocks",
         invalidSave.getMatches(),
         is(2));
+    RegionStorage storage =
+        Objects.requireNonNull(manager.saveFileCache.get(new Region(chunk))).getStorage();
+    assertThat(
+        "Block in another chunk must be moved out of the chunk",
+        storage.isConfigurationSection(EnchantableBlockManager.getChunkPath(block) + ".17_1_0"),
+        is(false));
+    assertThat(
+        "Block in another chunk must be moved to its chunk",
+        storage.getBlock(17, 1, 0),
+        is(notNullValue()));
+    assertThat("Moved block must be saved", storage.isRepaired(), is(true));
     var enchantableBlock = manager.getBlock(this.block);
     assertThat("Block must be loaded", enchantableBlock, is(notNullValue()));
     assertDoesNotThrow(() -> manager.loadChunkBlocks(chunkBad));
   }
 
+  @Test
+  @DisplayName("Lazily loaded blocks should only be created when requested.")
+  void testLoadChunkBlocksLazy() {
+    plugin.getConfig().set("lazy-blocks", true);
+    manager = new EnchantableBlockManager(plugin);
+    registerDummy();
+    setUpChunks();
+
+    var invalidSave = new PatternCountHandler("Removed invalid save .*");
+    plugin.getLogger().addHandler(invalidSave);
+    manager.loadChunkBlocks(chunk);
+    assertThat("Blocks must not be validated on load", invalidSave.getMatches(), is(0));
+
+    var enchantableBlock = manager.getBlock(this.block);
+    assertThat("Block must be loaded on request", enchantableBlock, is(notNullValue()));
+    assertThat("Block must be reused", manager.getBlock(this.block), is(enchantableBlock));
+
+    Block invalidBlock = block.getWorld().getBlockAt(0, 1, 0);
+    invalidBlock.setType(Material.DIRT);
+    assertThat("Invalid block must not be loaded", manager.getBlock(invalidBlock), is(nullValue()));
+    assertThat("Invalid block must be removed on request", invalidSave.getMatches(), is(1));
+  }
+
   @Test
   void testUnloadChunkBlocks() {
     setUpChunks();
@@ -352,4 +395,30 @@ class EnchantableBlockManagerTest {
 
   }
 
+  @Test
+  @DisplayName("Regions should track loaded blocks and their modification.")
+  void testRegionBlockTracking() {
+    RegionStorageData data = Objects.requireNonNull(manager.saveFileCache.get(new Region(block)));
+    assertThat("New data must not contain blocks", data.getBlockCount(), is(0));
+
+    block.setType(Material.COAL_ORE);
+    ItemStack stack = new ItemStack(Material.COAL_ORE);
+    stack.addUnsafeEnchantment(Enchantment.DIG_SPEED, 1);
+    var enchantableBlock = manager.createBlock(block, stack);
+    assertThat("EnchantableBlock must not be null", enchantableBlock, notNullValue());
+    assertThat("Block must be counted", data.getBlockCount(), is(1));
+    assertThat("New block must be tracked as modified", data.isDirty());
+
+    data.clean();
+    assertThat("Data must not be dirty after clean", data.isDirty(), is(false));
+    enchantableBlock.setDirty(true);
+    assertThat("Modified block must dirty data", data.isDirty());
+
+    manager.destroyBlock(block);
+    assertThat("Destroyed block must not be counted", data.getBlockCount(), is(0));
+    data.clean();
+    enchantableBlock.setDirty(true);
+    assertThat("Destroyed block must not dirty data", data.isDirty(), is(false));
+  }
+
 }
\ No newline at end of file
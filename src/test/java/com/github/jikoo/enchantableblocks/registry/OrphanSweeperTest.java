@@ -0,0 +1,94 @@
+package com.github.jikoo.enchantableblocks.registry;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import be.seeseemelk.mockbukkit.MockBukkit;
+import be.seeseemelk.mockbukkit.MockPlugin;
+import com.github.jikoo.enchantableblocks.block.impl.dummy.DummyEnchantableBlock.DummyEnchantableRegistration;
+import com.github.jikoo.enchantableblocks.registry.EnchantableBlockManager.RegionStorageData;
+import com.github.jikoo.enchantableblocks.util.PluginHelper;
+import com.github.jikoo.enchantableblocks.util.Region;
+import com.github.jikoo.enchantableblocks.util.RegionStorage;
+import java.io.IOException;
+import java.util.Objects;
+import java.util.Set;
+import org.bukkit.Material;
+import org.bukkit.block.Block;
+import org.bukkit.enchantments.Enchantment;
+import org.bukkit.inventory.ItemStack;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+@DisplayName("Feature: Remove stored blocks that no longer exist in the world.")
+class OrphanSweeperTest {
+
+  private static final String WORLD_NAME = "sweeper_world";
+
+  private MockPlugin plugin;
+  private EnchantableBlockManager manager;
+  private OrphanSweeper sweeper;
+  private Block block;
+
+  @BeforeEach
+  void setUp() throws NoSuchFieldException, IllegalAccessException {
+    MockBukkit.mock().addSimpleWorld(WORLD_NAME);
+    plugin = MockBukkit.createMockPlugin("EnchantableBlocks");
+    PluginHelper.setDataDir(plugin);
+    manager = new EnchantableBlockManager(plugin);
+    manager.getRegistry().register(new DummyEnchantableRegistration(
+        plugin,
+        Set.of(Enchantment.DIG_SPEED),
+        Set.of(Material.COAL_ORE)));
+    sweeper = new OrphanSweeper(plugin, manager, 1, 0);
+
+    block = Objects.requireNonNull(plugin.getServer().getWorld(WORLD_NAME)).getBlockAt(1, 64, 0);
+    block.setType(Material.COAL_ORE);
+    ItemStack itemStack = new ItemStack(Material.COAL_ORE);
+    itemStack.addUnsafeEnchantment(Enchantment.DIG_SPEED, 1);
+    manager.createBlock(block, itemStack);
+  }
+
+  @AfterEach
+  void tearDown() throws IOException {
+    manager.shutdown();
+    new RegionStorage(plugin, new Region(block)).delete();
+    MockBukkit.unmock();
+  }
+
+  @DisplayName("Loaded blocks of the wrong type must be removed.")
+  @Test
+  void testSweep() {
+    block.setType(Material.STONE);
+
+    assertThat("Orphan must be removed", sweeper.sweep(block.getChunk()), is(1));
+    assertThat("Orphan must be unloaded", manager.getBlock(block), is(nullValue()));
+    RegionStorageData data = manager.saveFileCache.get(new Region(block), false);
+    assertThat("Region must be loaded", data, is(notNullValue()));
+    assertThat("Orphan must be removed from storage",
+        data.getStorage().getBlock(block.getX(), block.getY(), block.getZ()), is(nullValue()));
+    assertThat("Region must be marked for saving", data.isDirty(), is(true));
+  }
+
+  @DisplayName("Blocks of the correct type must not be removed.")
+  @Test
+  void testSweepValid() {
+    assertThat("Block must not be removed", sweeper.sweep(block.getChunk()), is(0));
+    assertThat("Block must stay loaded", manager.getBlock(block), is(notNullValue()));
+  }
+
+  @DisplayName("A sweep must check all loaded chunks.")
+  @Test
+  void testRun() {
+    block.setType(Material.STONE);
+
+    new OrphanSweeper(plugin, manager, Integer.MAX_VALUE, 0).run();
+
+    assertThat("Orphan must be removed", manager.getBlock(block), is(nullValue()));
+  }
+
+}
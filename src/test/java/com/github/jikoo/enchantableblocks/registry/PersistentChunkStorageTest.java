@@ -0,0 +1,83 @@
+package com.github.jikoo.enchantableblocks.registry;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import be.seeseemelk.mockbukkit.MockBukkit;
+import be.seeseemelk.mockbukkit.MockPlugin;
+import be.seeseemelk.mockbukkit.persistence.PersistentDataContainerMock;
+import java.io.IOException;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.persistence.PersistentDataContainer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+@DisplayName("Feature: Store block data in chunks.")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class PersistentChunkStorageTest {
+
+  private PersistentChunkStorage storage;
+
+  @BeforeAll
+  void beforeAll() {
+    MockBukkit.mock();
+  }
+
+  @AfterAll
+  void afterAll() {
+    MockBukkit.unmock();
+  }
+
+  @BeforeEach
+  void setUp() {
+    MockPlugin plugin = MockBukkit.createMockPlugin("EnchantableBlocks");
+    storage = new PersistentChunkStorage(plugin);
+  }
+
+  @DisplayName("Missing data must read as null.")
+  @Test
+  void testReadMissing() throws IOException, InvalidConfigurationException {
+    assertThat(
+        "Missing data must be null",
+        storage.read(new PersistentDataContainerMock(), 0, 0),
+        is(nullValue()));
+  }
+
+  @DisplayName("Written data must be read back.")
+  @Test
+  void testRoundTrip() throws IOException, InvalidConfigurationException {
+    PersistentDataContainer container = new PersistentDataContainerMock();
+    ConfigurationSection section = new YamlConfiguration().createSection("-1_2");
+    section.set("-16_64_32.value", "data");
+
+    storage.write(container, -1, 2, section);
+    ConfigurationSection read = storage.read(container, -1, 2);
+
+    assertThat("Data must be present", read, is(notNullValue()));
+    assertThat("Data must match", read.getString("-16_64_32.value"), is("data"));
+  }
+
+  @DisplayName("Writing empty data must remove stored data.")
+  @Test
+  void testWriteEmpty() throws IOException, InvalidConfigurationException {
+    PersistentDataContainer container = new PersistentDataContainerMock();
+    ConfigurationSection section = new YamlConfiguration().createSection("0_0");
+    section.set("0_64_0.value", "data");
+    storage.write(container, 0, 0, section);
+
+    section.set("0_64_0", null);
+    storage.write(container, 0, 0, section);
+
+    assertThat("Container must be empty", container.isEmpty(), is(true));
+    assertThat("Missing data must be null", storage.read(container, 0, 0), is(nullValue()));
+  }
+
+}
@@ -0,0 +1,117 @@
+package com.github.jikoo.enchantableblocks.registry;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import be.seeseemelk.mockbukkit.MockBukkit;
+import be.seeseemelk.mockbukkit.MockPlugin;
+import com.github.jikoo.enchantableblocks.block.impl.dummy.DummyEnchantableBlock.DummyEnchantableRegistration;
+import com.github.jikoo.enchantableblocks.util.PluginHelper;
+import com.github.jikoo.enchantableblocks.util.Region;
+import com.github.jikoo.enchantableblocks.util.RegionStorage;
+import com.github.jikoo.enchantableblocks.util.storage.RegionFormat;
+import java.io.IOException;
+import java.util.EnumSet;
+import java.util.Set;
+import org.bukkit.Material;
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.bukkit.enchantments.Enchantment;
+import org.bukkit.inventory.ItemStack;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+@DisplayName("Feature: Compact stored block data.")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class RegionCompactorTest {
+
+  private static final String WORLD_NAME = "compact_world";
+  private static final Region REGION = new Region(WORLD_NAME, 0, 0);
+
+  private MockPlugin plugin;
+  private EnchantableBlockManager manager;
+
+  @BeforeAll
+  void beforeAll() {
+    MockBukkit.mock();
+  }
+
+  @AfterAll
+  void afterAll() {
+    MockBukkit.unmock();
+  }
+
+  @BeforeEach
+  void setUp() throws NoSuchFieldException, IllegalAccessException {
+    plugin = MockBukkit.createMockPlugin("EnchantableBlocks");
+    PluginHelper.setDataDir(plugin);
+    manager = new EnchantableBlockManager(plugin);
+    manager.getRegistry().register(new DummyEnchantableRegistration(
+        plugin,
+        Set.of(Enchantment.DIG_SPEED),
+        EnumSet.of(Material.COAL_ORE)));
+  }
+
+  @AfterEach
+  void tearDown() throws IOException {
+    manager.shutdown();
+    new RegionStorage(plugin, REGION).delete();
+  }
+
+  @DisplayName("Invalid entries must be removed and valid entries kept.")
+  @Test
+  void testCompact() throws IOException, InvalidConfigurationException {
+    ItemStack valid = new ItemStack(Material.COAL_ORE);
+    valid.addUnsafeEnchantment(Enchantment.DIG_SPEED, 1);
+    ItemStack unregistered = new ItemStack(Material.FURNACE);
+    unregistered.addUnsafeEnchantment(Enchantment.DIG_SPEED, 1);
+
+    // Legacy format allows storing data the binary format cannot represent.
+    RegionStorage storage = new RegionStorage(plugin, REGION, RegionFormat.YAML);
+    storage.set("0_0.1_64_1.itemstack", valid);
+    storage.set("0_0.1_65_1.itemstack", new ItemStack(Material.COAL_ORE));
+    storage.set("0_0.1_66_1.itemstack", unregistered);
+    storage.set("0_0.bad_path.itemstack", valid);
+    storage.set("0_0.100_64_1.itemstack", valid);
+    storage.set("1_1.16_64_16", "not a section");
+    storage.set("64_0.1024_64_0.itemstack", valid);
+    storage.save();
+
+    CompactionResult result = manager.compactRegions(plugin, WORLD_NAME).join();
+
+    assertThat("Region must be processed", result.regions(), is(1));
+    assertThat("Invalid blocks must be removed", result.removedBlocks(), is(4));
+    assertThat("Empty and foreign chunks must be removed", result.removedChunks(), is(2));
+
+    RegionStorage compacted = new RegionStorage(plugin, REGION);
+    compacted.load();
+    assertThat("Valid block must be kept",
+        compacted.getItemStack("0_0.1_64_1.itemstack"), is(notNullValue()));
+    assertThat("Block in the wrong chunk must be moved",
+        compacted.getItemStack("6_0.100_64_1.itemstack"), is(notNullValue()));
+    assertThat("Only valid chunks must remain",
+        compacted.getKeys(false), is(Set.of("0_0", "6_0")));
+    assertThat("Only valid block must remain",
+        compacted.getConfigurationSection("0_0").getKeys(false), is(Set.of("1_64_1")));
+  }
+
+  @DisplayName("Regions in use must not be compacted.")
+  @Test
+  void testSkipInUse() throws IOException {
+    RegionStorage storage = new RegionStorage(plugin, REGION, RegionFormat.YAML);
+    storage.set("0_0.bad_path.itemstack", "invalid");
+    storage.save();
+    manager.saveFileCache.get(REGION);
+
+    CompactionResult result = manager.compactRegions(plugin, WORLD_NAME).join();
+
+    assertThat("Region must be skipped", result.skipped(), is(1));
+    assertThat("Region must not be processed", result.regions(), is(0));
+  }
+
+}
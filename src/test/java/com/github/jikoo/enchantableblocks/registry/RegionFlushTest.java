@@ -0,0 +1,120 @@
+package com.github.jikoo.enchantableblocks.registry;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import be.seeseemelk.mockbukkit.MockBukkit;
+import be.seeseemelk.mockbukkit.MockPlugin;
+import com.github.jikoo.enchantableblocks.registry.EnchantableBlockManager.RegionStorageData;
+import com.github.jikoo.enchantableblocks.util.PluginHelper;
+import com.github.jikoo.enchantableblocks.util.Region;
+import com.github.jikoo.enchantableblocks.util.RegionStorage;
+import java.io.IOException;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+@DisplayName("Feature: Flush unsaved data on shutdown.")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class RegionFlushTest {
+
+  private static final Region REGION = new Region("flush_world", 0, 0);
+  private static final Region OTHER_REGION = new Region("flush_world", 1, 0);
+
+  private MockPlugin plugin;
+  private EnchantableBlockManager manager;
+
+  @BeforeAll
+  void beforeAll() {
+    MockBukkit.mock();
+  }
+
+  @AfterAll
+  void afterAll() {
+    MockBukkit.unmock();
+  }
+
+  @BeforeEach
+  void setUp() throws NoSuchFieldException, IllegalAccessException {
+    plugin = MockBukkit.createMockPlugin("EnchantableBlocks");
+    PluginHelper.setDataDir(plugin);
+    manager = new EnchantableBlockManager(plugin);
+  }
+
+  @AfterEach
+  void tearDown() throws IOException {
+    manager.shutdown();
+    new RegionStorage(plugin, REGION).delete();
+    new RegionStorage(plugin, OTHER_REGION).delete();
+    new RecoveryDump(plugin, manager.regionFormat).delete();
+  }
+
+  @DisplayName("Regions must be written in parallel within the budget.")
+  @Test
+  void testFlush() {
+    RegionFlush flush = new RegionFlush(plugin.getLogger(), manager.saveQueue);
+    flush.add(REGION, modify(REGION, "value"));
+    flush.add(OTHER_REGION, modify(OTHER_REGION, "value"));
+
+    List<RegionSnapshot> unwritten = flush.await(30, 1, TimeUnit.SECONDS);
+
+    assertThat("All regions must be written", unwritten.isEmpty(), is(true));
+    assertThat("Region must be saved", new RegionStorage(plugin, REGION).exists(), is(true));
+    assertThat("Other region must be saved",
+        new RegionStorage(plugin, OTHER_REGION).exists(), is(true));
+  }
+
+  @DisplayName("Regions not written within the budget must be recovered on startup.")
+  @Test
+  void testRecovery() throws IOException, InvalidConfigurationException {
+    CountDownLatch latch = new CountDownLatch(1);
+    manager.saveQueue.submit(REGION, () -> {
+      try {
+        latch.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    });
+
+    RegionFlush flush = new RegionFlush(plugin.getLogger(), manager.saveQueue);
+    RegionSnapshot snapshot = modify(REGION, "dumped");
+    flush.add(REGION, snapshot);
+    List<RegionSnapshot> unwritten = flush.await(100, 10, TimeUnit.MILLISECONDS);
+    assertThat("Blocked region must not be written", unwritten, is(List.of(snapshot)));
+
+    RecoveryDump dump = new RecoveryDump(plugin, manager.regionFormat);
+    dump.write(unwritten);
+    latch.countDown();
+    manager.saveQueue.await(REGION);
+    assertThat("Claimed region must not be written later",
+        new RegionStorage(plugin, REGION).exists(), is(false));
+
+    // Discard unsaved changes, they are stored in the dump.
+    snapshot.source().clean();
+    manager.shutdown();
+    manager = new EnchantableBlockManager(plugin);
+
+    assertThat("Dump must be deleted once replayed", dump.exists(), is(false));
+    RegionStorage recovered = new RegionStorage(plugin, REGION);
+    recovered.load();
+    assertThat("Dumped data must be saved",
+        recovered.getString("0_0.1_64_1.value"), is("dumped"));
+  }
+
+  private RegionSnapshot modify(Region region, String value) {
+    RegionStorageData data = Objects.requireNonNull(manager.saveFileCache.get(region));
+    data.getStorage().set("0_0.1_64_1.value", value);
+    data.setDirty();
+    return Objects.requireNonNull(data.snapshot());
+  }
+
+}
@@ -1,6 +1,7 @@
 package com.github.jikoo.enchantableblocks.registry;
 
 import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.notNullValue;
 import static org.hamcrest.MatcherAssert.assertThat;
 
 import be.seeseemelk.mockbukkit.MockBukkit;
@@ -54,7 +55,7 @@ class RegionInUseCheckTest {
     PluginHelper.setDataDir(fakePlugin);
     plugin = fakePlugin;
     manager = new EnchantableBlockManager(plugin);
-    inUseCheck = new RegionInUseCheck(plugin.getLogger());
+    inUseCheck = new RegionInUseCheck(manager.saveQueue);
   }
 
   @DisplayName("Null value is never in use.")
@@ -96,7 +97,9 @@ class RegionInUseCheckTest {
         "Value in-use state must match world state",
         inUseCheck.test(key, value),
         is(world.getLoadedState()));
+    manager.saveQueue.await(key);
     assertThat("File must not exist after in use check on empty data", !Files.exists(path));
+    assertThat("Data must not be dirty after write", value.isDirty(), is(false));
   }
 
   @DisplayName("Valid data writes to disk during check.")
@@ -117,12 +120,41 @@ class RegionInUseCheckTest {
         "Value in-use state must match world state",
         inUseCheck.test(key, value),
         is(world.getLoadedState()));
+    manager.saveQueue.await(key);
     assertThat("File must exist after in use check on data", Files.exists(path));
+    assertThat("Data must not be dirty after write", value.isDirty(), is(false));
 
     // Clean up
     Files.deleteIfExists(path);
   }
 
+  @DisplayName("Changes made after snapshot remain unsaved.")
+  @ParameterizedTest
+  @MethodSource("getWorlds")
+  void testModifiedDuringWrite(LoadedStateWorld world) throws IOException {
+    Region key = new Region(world.getName(), 0, 0);
+    RegionStorageData value = manager.new RegionStorageData(new RegionStorage(plugin, key));
+
+    value.setDirty();
+    value.getStorage().set("path.to.value", "value");
+    RegionSnapshot snapshot = value.snapshot();
+    assertThat("Dirty data must produce a snapshot", snapshot, is(notNullValue()));
+
+    // Modify after snapshot is taken.
+    value.getStorage().set("path.to.value", "other value");
+    value.setDirty();
+    snapshot.write();
+
+    assertThat("Data modified after snapshot must remain dirty", value.isDirty(), is(true));
+    assertThat(
+        "Snapshot must not be affected by later modification",
+        snapshot.storage().getString("path.to.value"),
+        is("value"));
+
+    // Clean up
+    Files.deleteIfExists(snapshot.storage().getDataFile().toPath());
+  }
+
   static @NotNull Stream<World> getWorlds() {
     return Stream.of(Bukkit.getWorld("loaded"), Bukkit.getWorld("unloaded"));
   }
@@ -0,0 +1,184 @@
+package com.github.jikoo.enchantableblocks.registry;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.empty;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import be.seeseemelk.mockbukkit.MockBukkit;
+import be.seeseemelk.mockbukkit.MockPlugin;
+import be.seeseemelk.mockbukkit.WorldMock;
+import com.github.jikoo.enchantableblocks.registry.EnchantableBlockManager.RegionStorageData;
+import com.github.jikoo.enchantableblocks.util.PluginHelper;
+import com.github.jikoo.enchantableblocks.util.Region;
+import com.github.jikoo.enchantableblocks.util.RegionStorage;
+import com.github.jikoo.enchantableblocks.util.storage.BinaryRegionCodec;
+import com.github.jikoo.enchantableblocks.util.storage.BlockJournal;
+import com.github.jikoo.enchantableblocks.util.storage.BlockJournal.Entry;
+import com.github.jikoo.enchantableblocks.util.storage.BlockJournal.Operation;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import org.bukkit.block.Block;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.bukkit.configuration.MemoryConfiguration;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+@DisplayName("Feature: Save journaled regions and discard the journal.")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class RegionJournalTest {
+
+  private static final String WORLD_NAME = "journal_world";
+  private static final Region REGION = new Region(WORLD_NAME, 0, 0);
+  private static final Region OTHER_REGION = new Region(WORLD_NAME, 1, 0);
+
+  private WorldMock world;
+  private MockPlugin plugin;
+  private Path journalDirectory;
+  private EnchantableBlockManager manager;
+
+  @BeforeAll
+  void beforeAll() {
+    MockBukkit.mock();
+    world = MockBukkit.getMock().addSimpleWorld(WORLD_NAME);
+  }
+
+  @AfterAll
+  void afterAll() {
+    MockBukkit.unmock();
+  }
+
+  @BeforeEach
+  void setUp() throws NoSuchFieldException, IllegalAccessException {
+    plugin = MockBukkit.createMockPlugin("EnchantableBlocks");
+    PluginHelper.setDataDir(plugin);
+    plugin.getConfig().set("storage.journal.enabled", true);
+    journalDirectory = plugin.getDataFolder().toPath().resolve("data").resolve(WORLD_NAME);
+  }
+
+  @AfterEach
+  void tearDown() throws IOException {
+    if (manager != null) {
+      manager.shutdown();
+      new RecoveryDump(plugin, manager.regionFormat).delete();
+      manager = null;
+    }
+    new RegionStorage(plugin, REGION).delete();
+    new RegionStorage(plugin, OTHER_REGION).delete();
+    for (Path segment : getSegments()) {
+      Files.delete(segment);
+    }
+  }
+
+  @DisplayName("Journals remaining on startup must be replayed, saved, and deleted.")
+  @Test
+  void testRecover()
+      throws IOException, InvalidConfigurationException, ExecutionException,
+      InterruptedException, TimeoutException {
+    Block block = world.getBlockAt(1, 64, 1);
+    try (BlockJournal journal = BlockJournal.open(journalDirectory)) {
+      journal.append(new Entry(
+          Operation.UPSERT,
+          block.getX(),
+          block.getY(),
+          block.getZ(),
+          encode(section("journaled"))));
+    }
+
+    manager = new EnchantableBlockManager(plugin);
+    RegionJournal journal = Objects.requireNonNull(manager.journal);
+    journal.getCompaction(WORLD_NAME).get(10, TimeUnit.SECONDS);
+
+    RegionStorage recovered = new RegionStorage(plugin, REGION);
+    recovered.load();
+    assertThat("Journaled data must be saved",
+        recovered.getString("0_0.1_64_1.value"), is("journaled"));
+    assertThat("Journal must be deleted once saved", getSegments(), is(empty()));
+  }
+
+  @DisplayName("Compaction must be performed over ticks rather than when appending.")
+  @Test
+  void testCompactOnTick()
+      throws IOException, ExecutionException, InterruptedException, TimeoutException {
+    plugin.getConfig().set("storage.journal.compact-kilobytes", 0);
+    plugin.getConfig().set("storage.journal.compact-regions-per-tick", 1);
+    manager = new EnchantableBlockManager(plugin);
+    RegionJournal journal = Objects.requireNonNull(manager.journal);
+
+    journal.upsert(world.getBlockAt(1, 64, 1), modify(REGION, "0_0.1_64_1"));
+    journal.upsert(world.getBlockAt(513, 64, 1), modify(OTHER_REGION, "32_0.513_64_1"));
+    manager.saveQueue.await(REGION);
+    manager.saveQueue.await(OTHER_REGION);
+
+    assertThat("Region must not be saved when appending",
+        new RegionStorage(plugin, REGION).exists(), is(false));
+    assertThat("Other region must not be saved when appending",
+        new RegionStorage(plugin, OTHER_REGION).exists(), is(false));
+
+    journal.tick();
+    manager.saveQueue.await(REGION);
+    manager.saveQueue.await(OTHER_REGION);
+
+    assertTrue(
+        new RegionStorage(plugin, REGION).exists()
+            ^ new RegionStorage(plugin, OTHER_REGION).exists(),
+        "Exactly one region must be saved per tick");
+
+    journal.tick();
+    journal.getCompaction(WORLD_NAME).get(10, TimeUnit.SECONDS);
+
+    assertThat("Region must be saved", new RegionStorage(plugin, REGION).exists(), is(true));
+    assertThat("Other region must be saved",
+        new RegionStorage(plugin, OTHER_REGION).exists(), is(true));
+    assertThat("Journal must be deleted once saved", getSegments(), is(empty()));
+  }
+
+  private @NotNull ConfigurationSection modify(@NotNull Region region, @NotNull String path) {
+    RegionStorageData data = Objects.requireNonNull(manager.saveFileCache.get(region));
+    data.getStorage().set(path + ".value", "value");
+    data.setDirty();
+    return section("value");
+  }
+
+  private static @NotNull ConfigurationSection section(@NotNull String value) {
+    MemoryConfiguration section = new MemoryConfiguration();
+    section.set("value", value);
+    return section;
+  }
+
+  private static byte @NotNull [] encode(@NotNull ConfigurationSection section)
+      throws IOException {
+    ByteArrayOutputStream data = new ByteArrayOutputStream();
+    BinaryRegionCodec.write(section, data);
+    return data.toByteArray();
+  }
+
+  private @NotNull List<Path> getSegments() throws IOException {
+    List<Path> segments = new ArrayList<>();
+    if (!Files.isDirectory(journalDirectory)) {
+      return segments;
+    }
+    try (DirectoryStream<Path> stream =
+        Files.newDirectoryStream(journalDirectory, "journal-*." + BlockJournal.EXTENSION)) {
+      stream.forEach(segments::add);
+    }
+    return segments;
+  }
+
+}
@@ -13,6 +13,9 @@ import com.github.jikoo.enchantableblocks.util.Region;
 import com.github.jikoo.enchantableblocks.util.logging.PatternCountHandler;
 import java.io.IOException;
 import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
 import org.bukkit.plugin.Plugin;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.BeforeAll;
@@ -26,6 +29,7 @@ import org.junit.jupiter.api.TestInstance;
 class RegionLoadFunctionTest {
 
   private Plugin plugin;
+  private EnchantableBlockManager manager;
   private RegionLoadFunction loadFunction;
 
   @BeforeAll
@@ -43,7 +47,7 @@ class RegionLoadFunctionTest {
     MockPlugin fakePlugin = MockBukkit.createMockPlugin("EnchantableBlocks");
     PluginHelper.setDataDir(fakePlugin);
     plugin = fakePlugin;
-    EnchantableBlockManager manager = new EnchantableBlockManager(plugin);
+    manager = new EnchantableBlockManager(plugin);
     loadFunction = new RegionLoadFunction(plugin, manager);
   }
 
@@ -64,18 +68,84 @@ class RegionLoadFunctionTest {
 
   @DisplayName("Invalid data should be handled gracefully.")
   @Test
-  void testLoadInvalid() {
+  void testLoadInvalid() throws IOException {
     PatternCountHandler handler = new PatternCountHandler("while scanning for the next token");
     plugin.getLogger().addHandler(handler);
-    Region region = new Region("world", -1, -1);
+    Region region = new Region("world", -2, -2);
+    Path dataDir = plugin.getDataFolder().toPath().resolve(Path.of("data", "world"));
+    Path invalid = dataDir.resolve("-2_-2.yml");
+    Files.copy(dataDir.resolve("-1_-1.yml"), invalid, StandardCopyOption.REPLACE_EXISTING);
 
-    RegionStorageData storageData = loadFunction.apply(region, true);
-    assertThat("Invalid data should load blank file", storageData, is(notNullValue()));
+    try {
+      RegionStorageData storageData = loadFunction.apply(region, true);
+      assertThat("Invalid data should load blank file", storageData, is(notNullValue()));
+      assertThat("Invalid data must be moved aside", Files.exists(invalid), is(false));
+      assertThat("Expected 1 attempt to load invalid yaml", handler.getMatches(), is(1));
 
-    storageData = loadFunction.apply(region, false);
-    assertThat("Invalid data should still load if not creating", storageData, is(notNullValue()));
+      List<QuarantinedRegion> quarantined = manager.getQuarantinedRegions();
+      assertThat("Invalid data must be quarantined", quarantined.size(), is(1));
+      assertThat("Quarantined region must match",
+          quarantined.get(0).region(), is(region));
+
+      storageData = loadFunction.apply(region, false);
+      assertThat("Quarantined data must not be loaded", storageData, is(nullValue()));
+    } finally {
+      Files.deleteIfExists(invalid);
+      for (QuarantinedRegion entry : manager.getQuarantinedRegions()) {
+        Files.delete(entry.file());
+      }
+    }
+  }
+
+  @DisplayName("Data that cannot be accessed must not be overwritten.")
+  @Test
+  void testLoadInaccessible() throws IOException {
+    Region region = new Region("world", -3, -3);
+    Path dataDir = plugin.getDataFolder().toPath().resolve(Path.of("data", "world"));
+    // A directory in place of the file cannot be read.
+    Path inaccessible = dataDir.resolve("-3_-3." + manager.regionFormat.getExtension());
+    Files.createDirectories(inaccessible);
+
+    try {
+      RegionStorageData storageData = loadFunction.apply(region, true);
+      assertThat("Inaccessible data must load blank data", storageData, is(notNullValue()));
+      PatternCountHandler handler =
+          new PatternCountHandler("Stored data for .* could not be read.*");
+      plugin.getLogger().addHandler(handler);
+      storageData.write(storageData.getStorage());
+      storageData.write(storageData.getStorage());
+      assertThat("Inaccessible data must be left in place",
+          Files.isDirectory(inaccessible), is(true));
+      assertThat("Refused writes must only be reported once", handler.getMatches(), is(1));
+    } finally {
+      Files.deleteIfExists(inaccessible);
+    }
+  }
 
-    assertThat("Expected 2 attempts to load invalid yaml", handler.getMatches(), is(2));
+  @DisplayName("Invalid data that cannot be quarantined must not be overwritten.")
+  @Test
+  void testLoadInvalidNotQuarantined() throws IOException {
+    String worldName = "unquarantinable";
+    Region region = new Region(worldName, 0, 0);
+    Path dataDir = plugin.getDataFolder().toPath().resolve(Path.of("data", worldName));
+    Files.createDirectories(dataDir);
+    Path invalid = dataDir.resolve("0_0.yml");
+    String content = "invalid_yaml.: %%%%%%%%%%%%%%%%%%%%";
+    Files.writeString(invalid, content);
+    // A file in place of the world's quarantine directory prevents quarantining.
+    Path quarantineDir = plugin.getDataFolder().toPath().resolve(Path.of("quarantine", worldName));
+    Files.createDirectories(quarantineDir.getParent());
+    Files.writeString(quarantineDir, "");
+
+    try {
+      RegionStorageData storageData = loadFunction.apply(region, true);
+      assertThat("Invalid data must load blank data", storageData, is(notNullValue()));
+      storageData.write(storageData.getStorage());
+      assertThat("Invalid data must be left in place", Files.readString(invalid), is(content));
+    } finally {
+      Files.deleteIfExists(invalid);
+      Files.deleteIfExists(quarantineDir);
+    }
   }
 
   @DisplayName("Valid data should always load.")
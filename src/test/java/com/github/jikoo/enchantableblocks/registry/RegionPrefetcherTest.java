@@ -0,0 +1,118 @@
+package com.github.jikoo.enchantableblocks.registry;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import be.seeseemelk.mockbukkit.MockBukkit;
+import be.seeseemelk.mockbukkit.MockPlugin;
+import com.github.jikoo.enchantableblocks.registry.EnchantableBlockManager.RegionStorageData;
+import com.github.jikoo.enchantableblocks.util.PluginHelper;
+import com.github.jikoo.enchantableblocks.util.Region;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+@DisplayName("Feature: Read region data ahead of use.")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class RegionPrefetcherTest {
+
+  private MockPlugin plugin;
+  private EnchantableBlockManager manager;
+  private RegionPrefetcher prefetcher;
+
+  @BeforeAll
+  void beforeAll() {
+    MockBukkit.mock();
+  }
+
+  @AfterAll
+  void afterAll() {
+    MockBukkit.unmock();
+  }
+
+  @BeforeEach
+  void setUp() throws NoSuchFieldException, IllegalAccessException {
+    plugin = MockBukkit.createMockPlugin("EnchantableBlocks");
+    PluginHelper.setDataDir(plugin);
+    manager = new EnchantableBlockManager(plugin);
+    prefetcher = manager.prefetcher;
+    assertThat("Prefetching must be enabled by default", prefetcher, is(notNullValue()));
+  }
+
+  @AfterEach
+  void tearDown() {
+    prefetcher.shutdown();
+  }
+
+  @DisplayName("Concurrent requests must be coalesced.")
+  @Test
+  void testCoalesce() {
+    Region region = new Region("world", 1, 1);
+    prefetcher.prefetch(region);
+    prefetcher.prefetch(region).join();
+
+    CompletableFuture<RegionStorageData> load = prefetcher.take(region);
+    assertThat("Load must be present", load, is(notNullValue()));
+    assertThat("Data must be read", load.join(), is(notNullValue()));
+    assertThat("Requests must share a single load", prefetcher.take(region), is(nullValue()));
+  }
+
+  @DisplayName("Prefetched data must be used by the cache.")
+  @Test
+  void testUsedByCache() {
+    Region region = new Region("world", 1, 1);
+    prefetcher.prefetch(region).join();
+
+    RegionStorageData data = manager.saveFileCache.get(region, false);
+    assertThat("Data must be loaded", data, is(notNullValue()));
+    assertThat("Prefetched data must be consumed", prefetcher.take(region), is(nullValue()));
+
+    prefetcher.prefetch(new Region("world", 300, 300)).join();
+    assertThat(
+        "Absent data must not be created when not requested",
+        manager.saveFileCache.get(new Region("world", 300, 300), false),
+        is(nullValue()));
+  }
+
+  @DisplayName("Invalidated data must not be used.")
+  @Test
+  void testInvalidate() {
+    Region region = new Region("world", 1, 1);
+    CompletableFuture<Void> prefetch = prefetcher.prefetch(region);
+    prefetcher.invalidate(region);
+    prefetch.join();
+
+    assertThat("Invalidated load must be discarded", prefetcher.take(region), is(nullValue()));
+    RegionStorageData data = manager.saveFileCache.get(region, false);
+    assertThat("Data must still load normally", data, is(notNullValue()));
+    assertThat("Cached data must be reused", manager.saveFileCache.get(region, false),
+        is(sameInstance(data)));
+  }
+
+  @DisplayName("Data that is not taken must expire.")
+  @Test
+  void testExpire() throws InterruptedException {
+    RegionPrefetcher expiring =
+        new RegionPrefetcher(new RegionLoadFunction(plugin, manager), 1, Duration.ZERO);
+    try {
+      Region region = new Region("world", 1, 1);
+      expiring.prefetch(region).join();
+
+      // Expiry is scheduled asynchronously once the load completes.
+      Thread.sleep(500);
+      assertThat("Untaken data must be discarded", expiring.take(region), is(nullValue()));
+    } finally {
+      expiring.shutdown();
+    }
+  }
+
+}
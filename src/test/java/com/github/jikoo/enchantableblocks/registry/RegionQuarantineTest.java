@@ -0,0 +1,117 @@
+package com.github.jikoo.enchantableblocks.registry;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import be.seeseemelk.mockbukkit.MockBukkit;
+import be.seeseemelk.mockbukkit.MockPlugin;
+import com.github.jikoo.enchantableblocks.registry.EnchantableBlockManager.RegionStorageData;
+import com.github.jikoo.enchantableblocks.util.PluginHelper;
+import com.github.jikoo.enchantableblocks.util.Region;
+import com.github.jikoo.enchantableblocks.util.RegionStorage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+@DisplayName("Feature: Quarantine unreadable block data.")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class RegionQuarantineTest {
+
+  private static final Region REGION = new Region("quarantine_world", 0, 0);
+
+  private MockPlugin plugin;
+  private EnchantableBlockManager manager;
+
+  @BeforeAll
+  void beforeAll() {
+    MockBukkit.mock();
+  }
+
+  @AfterAll
+  void afterAll() {
+    MockBukkit.unmock();
+  }
+
+  @BeforeEach
+  void setUp() throws NoSuchFieldException, IllegalAccessException {
+    plugin = MockBukkit.createMockPlugin("EnchantableBlocks");
+    PluginHelper.setDataDir(plugin);
+    manager = new EnchantableBlockManager(plugin);
+  }
+
+  @AfterEach
+  void tearDown() throws IOException {
+    manager.shutdown();
+    new RegionStorage(plugin, REGION).delete();
+    for (QuarantinedRegion entry : manager.getQuarantinedRegions()) {
+      Files.delete(entry.file());
+    }
+  }
+
+  @DisplayName("Damaged data must be quarantined and not overwritten.")
+  @Test
+  void testQuarantine() throws IOException, InvalidConfigurationException {
+    RegionStorage stored = new RegionStorage(plugin, REGION);
+    stored.set("0_0.1_64_1.value", "old");
+    stored.save();
+    Path path = stored.getDataFile().toPath();
+    byte[] damaged = Files.readAllBytes(path);
+    damaged[damaged.length - 2] ^= 1;
+    Files.write(path, damaged);
+
+    RegionStorageData data = manager.saveFileCache.get(REGION);
+    assertThat("Blank data must be loaded", data, is(notNullValue()));
+    data.getStorage().set("0_0.1_64_1.value", "new");
+    data.setDirty();
+    manager.expireCache();
+    manager.saveQueue.await(REGION);
+
+    List<QuarantinedRegion> quarantined = manager.getQuarantinedRegions();
+    assertThat("Damaged data must be quarantined", quarantined.size(), is(1));
+    assertThat("Quarantined data must be unchanged",
+        Files.readAllBytes(quarantined.get(0).file()), is(damaged));
+
+    RegionStorage saved = new RegionStorage(plugin, REGION);
+    saved.load();
+    assertThat("New data must be saved", saved.getString("0_0.1_64_1.value"), is("new"));
+  }
+
+  @DisplayName("Quarantined data must be restored once readable.")
+  @Test
+  void testRetry() throws IOException, InvalidConfigurationException {
+    RegionStorage stored = new RegionStorage(plugin, REGION);
+    stored.set("0_0.1_64_1.value", "quarantined");
+    stored.set("0_0.2_64_2.value", "quarantined");
+    stored.save();
+    manager.quarantine.quarantine(stored);
+
+    RegionStorageData data = manager.saveFileCache.get(REGION);
+    assertThat("Blank data must be loaded", data, is(notNullValue()));
+    data.getStorage().set("0_0.1_64_1.value", "current");
+    data.setDirty();
+
+    int restored = manager.retryQuarantined(REGION).join();
+
+    assertThat("Missing block must be restored", restored, is(1));
+    assertThat("Quarantined data must be deleted",
+        manager.getQuarantinedRegions().isEmpty(), is(true));
+
+    RegionStorage saved = new RegionStorage(plugin, REGION);
+    saved.load();
+    assertThat("Current data must take precedence",
+        saved.getString("0_0.1_64_1.value"), is("current"));
+    assertThat("Restored data must be saved",
+        saved.getString("0_0.2_64_2.value"), is("quarantined"));
+  }
+
+}
@@ -0,0 +1,140 @@
+package com.github.jikoo.enchantableblocks.registry;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import com.github.jikoo.enchantableblocks.util.Region;
+import com.github.jikoo.enchantableblocks.util.logging.PatternCountHandler;
+import com.github.jikoo.enchantableblocks.util.storage.FileCommit;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Logger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.io.TempDir;
+
+@DisplayName("Feature: Write region data off of the main thread.")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class RegionSaveQueueTest {
+
+  private final Region region = new Region("world", 0, 0);
+  private Logger logger;
+
+  @BeforeEach
+  void setUp() {
+    logger = Logger.getLogger("RegionSaveQueueTest");
+  }
+
+  @DisplayName("Operations for the same region are performed in order.")
+  @Test
+  void testOrdering() {
+    RegionSaveQueue queue = new RegionSaveQueue(logger, 4, 64);
+    List<Integer> order = Collections.synchronizedList(new ArrayList<>());
+
+    for (int i = 0; i < 32; ++i) {
+      int index = i;
+      queue.submit(region, () -> order.add(index));
+    }
+    queue.await(region);
+
+    for (int i = 0; i < 32; ++i) {
+      assertThat("Operations must run in submission order", order.get(i), is(i));
+    }
+  }
+
+  @DisplayName("Submission blocks when the queue is full.")
+  @Test
+  void testBackPressure() throws InterruptedException {
+    RegionSaveQueue queue = new RegionSaveQueue(logger, 1, 1);
+    CountDownLatch latch = new CountDownLatch(1);
+    queue.submit(region, () -> {
+      try {
+        latch.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    });
+
+    AtomicBoolean submitted = new AtomicBoolean();
+    Thread thread = new Thread(() -> {
+      queue.submit(new Region("world", 1, 1), () -> {});
+      submitted.set(true);
+    });
+    thread.start();
+    thread.join(100);
+
+    assertThat("Submission must block while queue is full", submitted.get(), is(false));
+
+    latch.countDown();
+    thread.join(5_000);
+
+    assertThat("Submission must proceed once space is available", submitted.get(), is(true));
+  }
+
+  @DisplayName("Failed operations are logged and do not block later operations.")
+  @Test
+  void testFailure() {
+    PatternCountHandler handler = new PatternCountHandler("Unable to save .*");
+    logger.addHandler(handler);
+    RegionSaveQueue queue = new RegionSaveQueue(logger, 1, 8);
+    AtomicBoolean ran = new AtomicBoolean();
+
+    queue.submit(region, () -> {
+      throw new IOException("Disk is made of cheese");
+    });
+    queue.submit(region, () -> ran.set(true));
+    queue.await(region);
+
+    assertThat("Failure must be logged", handler.getMatches(), is(1));
+    assertThat("Later operation must run", ran.get(), is(true));
+    logger.removeHandler(handler);
+  }
+
+  @DisplayName("Files written by operations are committed together before operations complete.")
+  @Test
+  void testCommit(@TempDir Path directory) throws IOException {
+    RegionSaveQueue queue = new RegionSaveQueue(logger, 4, 64, 50);
+    List<CompletableFuture<Void>> futures = new ArrayList<>();
+
+    for (int i = 0; i < 8; ++i) {
+      Path path = directory.resolve(i + ".dat");
+      futures.add(queue.submit(
+          new Region("world", i, 0),
+          () -> FileCommit.write(path, stream -> stream.write(1))));
+    }
+    CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+
+    for (int i = 0; i < 8; ++i) {
+      assertThat("File must be written", Files.exists(directory.resolve(i + ".dat")), is(true));
+    }
+    CommitStats stats = queue.getCommitStats();
+    assertThat("Each region must be committed", stats.commits(), is(8L));
+    assertThat("Commits must be batched", stats.batches() < stats.commits(), is(true));
+  }
+
+  @DisplayName("Shutdown waits for pending operations and runs later operations inline.")
+  @Test
+  void testShutdown() {
+    RegionSaveQueue queue = new RegionSaveQueue(logger, 1, 8);
+    AtomicBoolean ran = new AtomicBoolean();
+    queue.submit(region, () -> ran.set(true));
+
+    assertThat("Shutdown must complete", queue.shutdown(5, TimeUnit.SECONDS), is(true));
+    assertThat("Pending operation must run", ran.get(), is(true));
+
+    ran.set(false);
+    queue.submit(region, () -> ran.set(true));
+    assertThat("Operation after shutdown must run inline", ran.get(), is(true));
+  }
+
+}
@@ -0,0 +1,124 @@
+package com.github.jikoo.enchantableblocks.registry;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import be.seeseemelk.mockbukkit.MockBukkit;
+import be.seeseemelk.mockbukkit.MockPlugin;
+import com.github.jikoo.enchantableblocks.registry.EnchantableBlockManager.RegionStorageData;
+import com.github.jikoo.enchantableblocks.util.PluginHelper;
+import com.github.jikoo.enchantableblocks.util.Region;
+import com.github.jikoo.enchantableblocks.util.RegionStorage;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+@DisplayName("Feature: Spread saves of regions in use over the autosave interval.")
+class RegionSaveSchedulerTest {
+
+  private static final String WORLD_NAME = "scheduler_world";
+
+  private MockPlugin plugin;
+  private EnchantableBlockManager manager;
+
+  @BeforeEach
+  void setUp() throws NoSuchFieldException, IllegalAccessException {
+    MockBukkit.mock();
+    plugin = MockBukkit.createMockPlugin("EnchantableBlocks");
+    PluginHelper.setDataDir(plugin);
+    manager = new EnchantableBlockManager(plugin);
+  }
+
+  @AfterEach
+  void tearDown() throws IOException {
+    manager.shutdown();
+    for (int x = 0; x < 3; ++x) {
+      new RegionStorage(plugin, new Region(WORLD_NAME, x, 0)).delete();
+    }
+    MockBukkit.unmock();
+  }
+
+  @DisplayName("Scheduler must be enabled by default.")
+  @Test
+  void testEnabled() {
+    assertThat("Saves must be scheduled", manager.saveScheduler != null, is(true));
+  }
+
+  @DisplayName("Overdue regions must be saved oldest first within the per-tick cap.")
+  @Test
+  void testOverdue() throws InterruptedException {
+    RegionStorageData first = addDirty(1);
+    TimeUnit.MILLISECONDS.sleep(1);
+    RegionStorageData second = addDirty(0);
+    TimeUnit.MILLISECONDS.sleep(1);
+    RegionStorageData third = addDirty(2);
+
+    RegionSaveScheduler scheduler =
+        new RegionSaveScheduler(manager.saveFileCache, manager.saveQueue, 0, 2, 0, 0);
+    scheduler.run();
+    awaitSaves();
+
+    assertThat("Oldest region must be saved", first.isDirty(), is(false));
+    assertThat("Second oldest region must be saved", second.isDirty(), is(false));
+    assertThat("Newest region must wait for the next tick", third.isDirty(), is(true));
+
+    scheduler.run();
+    awaitSaves();
+    assertThat("Newest region must be saved", third.isDirty(), is(false));
+  }
+
+  @DisplayName("Regions must not be saved early when saves are spread out.")
+  @Test
+  void testPaced() {
+    RegionStorageData data = addDirty(0);
+
+    RegionSaveScheduler scheduler = new RegionSaveScheduler(
+        manager.saveFileCache,
+        manager.saveQueue,
+        TimeUnit.HOURS.toMillis(1),
+        4,
+        0,
+        0);
+    scheduler.run();
+    awaitSaves();
+
+    assertThat("Region must not be saved yet", data.isDirty(), is(true));
+  }
+
+  @DisplayName("Byte budget must limit saves once spent.")
+  @Test
+  void testByteBudget() throws InterruptedException {
+    RegionStorageData first = addDirty(0);
+    TimeUnit.MILLISECONDS.sleep(1);
+    RegionStorageData second = addDirty(1);
+
+    RegionSaveScheduler scheduler =
+        new RegionSaveScheduler(manager.saveFileCache, manager.saveQueue, 0, 1, 1, 0);
+    scheduler.run();
+    awaitSaves();
+    assertThat("First region must be saved", first.isDirty(), is(false));
+
+    scheduler.run();
+    awaitSaves();
+    assertThat("Budget must be spent", second.isDirty(), is(true));
+  }
+
+  private RegionStorageData addDirty(int regionX) {
+    Region region = new Region(WORLD_NAME, regionX, 0);
+    RegionStorageData data = manager.new RegionStorageData(new RegionStorage(plugin, region));
+    data.getStorage().set("0_0.0_64_0.value", "value");
+    data.setDirty();
+    manager.saveFileCache.put(region, data);
+    return data;
+  }
+
+  private void awaitSaves() {
+    for (int x = 0; x < 3; ++x) {
+      manager.saveQueue.await(new Region(WORLD_NAME, x, 0));
+    }
+  }
+
+}
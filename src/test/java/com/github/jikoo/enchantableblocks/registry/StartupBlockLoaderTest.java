@@ -0,0 +1,74 @@
+package com.github.jikoo.enchantableblocks.registry;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import be.seeseemelk.mockbukkit.MockBukkit;
+import be.seeseemelk.mockbukkit.MockPlugin;
+import be.seeseemelk.mockbukkit.ServerMock;
+import be.seeseemelk.mockbukkit.WorldMock;
+import com.github.jikoo.enchantableblocks.util.PluginHelper;
+import com.github.jikoo.enchantableblocks.util.logging.PatternCountHandler;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import org.bukkit.Chunk;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+@DisplayName("Feature: Load blocks for loaded chunks on startup.")
+class StartupBlockLoaderTest {
+
+  private ServerMock server;
+  private MockPlugin plugin;
+  private EnchantableBlockManager manager;
+  private WorldMock world;
+
+  @BeforeEach
+  void setUp() throws NoSuchFieldException, IllegalAccessException {
+    server = MockBukkit.mock();
+    plugin = MockBukkit.createMockPlugin("EnchantableBlocks");
+    PluginHelper.setDataDir(plugin);
+    manager = new EnchantableBlockManager(plugin);
+    world = server.addSimpleWorld("startup_world");
+  }
+
+  @AfterEach
+  void tearDown() {
+    manager.shutdown();
+    MockBukkit.unmock();
+  }
+
+  @DisplayName("Blocks must be loaded over multiple ticks.")
+  @Test
+  void testLoad() {
+    List<Chunk> chunks = List.of(world.getChunkAt(0, 0), world.getChunkAt(0, 1));
+    PatternCountHandler loaded = new PatternCountHandler("Loaded blocks for 2 chunks");
+    plugin.getLogger().addHandler(loaded);
+
+    CompletableFuture<Void> completion = manager.loadChunkBlocksGradually(plugin, chunks);
+    assertThat("Blocks must not be loaded immediately", completion.isDone(), is(false));
+
+    server.getScheduler().performTicks(2);
+    assertThat("Blocks must be loaded", completion.isDone(), is(true));
+    assertThat("All chunks must be loaded", loaded.getMatches(), is(1));
+  }
+
+  @DisplayName("Chunks unloaded before their turn must be skipped.")
+  @Test
+  void testUnload() {
+    Chunk unloaded = world.getChunkAt(1, 0);
+    List<Chunk> chunks = List.of(world.getChunkAt(0, 0), unloaded);
+    PatternCountHandler loaded = new PatternCountHandler("Loaded blocks for 1 chunks");
+    plugin.getLogger().addHandler(loaded);
+
+    CompletableFuture<Void> completion = manager.loadChunkBlocksGradually(plugin, chunks);
+    manager.unloadChunkBlocks(unloaded);
+
+    server.getScheduler().performTicks(2);
+    assertThat("Blocks must be loaded", completion.isDone(), is(true));
+    assertThat("Unloaded chunk must be skipped", loaded.getMatches(), is(1));
+  }
+
+}
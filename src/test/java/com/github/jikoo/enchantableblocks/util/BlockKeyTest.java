@@ -0,0 +1,72 @@
+package com.github.jikoo.enchantableblocks.util;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+@DisplayName("Feature: Packed chunk and block keys")
+class BlockKeyTest {
+
+  @DisplayName("Chunk keys must round trip through paths.")
+  @Test
+  void testChunk() {
+    long key = BlockKey.parseChunk(BlockKey.chunkPath(-1875000, Integer.MAX_VALUE));
+    assertThat("X must be unpacked", BlockKey.chunkX(key), is(-1875000));
+    assertThat("Z must be unpacked", BlockKey.chunkZ(key), is(Integer.MAX_VALUE));
+    assertThat("Key must match packed coordinates",
+        key, is(BlockKey.chunk(-1875000, Integer.MAX_VALUE)));
+  }
+
+  @DisplayName("Block keys must round trip through paths.")
+  @Test
+  void testBlock() {
+    long key = BlockKey.parseBlock(BlockKey.blockPath(-17, -64, 31), -2, 1);
+    assertThat("X must be relative to chunk", BlockKey.relativeX(key), is(15));
+    assertThat("Y must be unpacked", BlockKey.blockY(key), is(-64));
+    assertThat("Z must be relative to chunk", BlockKey.relativeZ(key), is(15));
+    assertThat("Key must match packed coordinates", key, is(BlockKey.block(-17, -64, 31)));
+  }
+
+  @DisplayName("The chunk containing a block must be parsed from its path.")
+  @Test
+  void testBlockChunk() {
+    long key = BlockKey.tryParseBlockChunk(BlockKey.blockPath(-17, -64, 31));
+    assertThat("X must be converted to chunk", BlockKey.chunkX(key), is(-2));
+    assertThat("Z must be converted to chunk", BlockKey.chunkZ(key), is(1));
+    assertThat("Invalid path must be rejected",
+        BlockKey.tryParseBlockChunk("0_01_0"), is(BlockKey.INVALID));
+  }
+
+  @DisplayName("Blocks in other chunks must be distinguished from invalid paths.")
+  @Test
+  void testTryParseBlock() {
+    assertThat("Block in chunk must be parsed",
+        BlockKey.tryParseBlock("1_2_3", 0, 0), is(BlockKey.block(1, 2, 3)));
+    assertThat("Block in other chunk must be flagged",
+        BlockKey.tryParseBlock("16_0_0", 0, 0), is(BlockKey.OTHER_CHUNK));
+    assertThat("Invalid path must be flagged",
+        BlockKey.tryParseBlock("bad_block_path", 0, 0), is(BlockKey.INVALID));
+  }
+
+  @DisplayName("Invalid chunk paths must be rejected.")
+  @ParameterizedTest
+  @ValueSource(strings = {"", "_", "1", "1_", "_1", "1_2_3", "a_1", "+1_1", "01_1", "-0_1",
+      "2147483648_0", "-2147483649_0", "1.5_2"})
+  void testInvalidChunk(String path) {
+    assertThrows(NumberFormatException.class, () -> BlockKey.parseChunk(path));
+  }
+
+  @DisplayName("Invalid block paths must be rejected.")
+  @ParameterizedTest
+  @ValueSource(strings = {"", "1_2", "1_2_3_4", "1__3", "1_2_", "bad_block_path", "16_0_0",
+      "0_0_-1", "0_01_0"})
+  void testInvalidBlock(String path) {
+    assertThrows(NumberFormatException.class, () -> BlockKey.parseBlock(path, 0, 0));
+  }
+
+}
@@ -0,0 +1,159 @@
+package com.github.jikoo.enchantableblocks.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+/**
+ * Compare throughput of {@link Cache} and the previous {@link SynchronizedCache} as the number of
+ * threads accessing them grows.
+ *
+ * <p>Each thread performs a mix of reads, writes, and invalidations over a shared set of keys.
+ * Excluded from normal builds. Run with {@code mvn test -P benchmark}.
+ */
+@Tag("benchmark")
+@DisplayName("Benchmark: Cache contention")
+class CacheBenchmark {
+
+  private static final int KEYS = 4096;
+  private static final int WRITE_PERCENT = 5;
+  private static final int INVALIDATE_PERCENT = 1;
+  private static final long WARMUP_MILLIS = 1_000;
+  private static final long MEASURE_MILLIS = 3_000;
+
+  @DisplayName("Measure contention")
+  @ParameterizedTest
+  @ValueSource(ints = {1, 2, 4, 8, 16})
+  void benchmark(int threads) throws InterruptedException {
+    Cache<Integer, Integer> cache = new Cache.CacheBuilder<Integer, Integer>()
+        .withRetention(60_000)
+        .withLazyFrequency(0)
+        .withLoadFunction((key, create) -> key)
+        .build();
+    SynchronizedCache<Integer, Integer> baseline =
+        new SynchronizedCache<>(60_000, 0, (key, create) -> key);
+
+    CacheOperations concurrent = new CacheOperations() {
+      @Override
+      public void get(int key) {
+        cache.get(key);
+      }
+
+      @Override
+      public void put(int key) {
+        cache.put(key, key);
+      }
+
+      @Override
+      public void invalidate(int key) {
+        cache.invalidate(key);
+      }
+    };
+    CacheOperations synchronizedOps = new CacheOperations() {
+      @Override
+      public void get(int key) {
+        baseline.get(key);
+      }
+
+      @Override
+      public void put(int key) {
+        baseline.put(key, key);
+      }
+
+      @Override
+      public void invalidate(int key) {
+        baseline.invalidate(key);
+      }
+    };
+
+    run(synchronizedOps, threads, WARMUP_MILLIS);
+    run(concurrent, threads, WARMUP_MILLIS);
+
+    double synchronizedRate = run(synchronizedOps, threads, MEASURE_MILLIS);
+    double concurrentRate = run(concurrent, threads, MEASURE_MILLIS);
+
+    System.out.printf(
+        "%d threads: synchronized %.0f ops/ms, concurrent %.0f ops/ms (%.1fx)%n",
+        threads,
+        synchronizedRate,
+        concurrentRate,
+        concurrentRate / synchronizedRate);
+  }
+
+  /**
+   * Run operations against a cache from several threads for a duration.
+   *
+   * @param operations the operations
+   * @param threads the number of threads
+   * @param millis the duration
+   * @return the number of operations completed per millisecond
+   * @throws InterruptedException if interrupted while waiting for threads
+   */
+  private static double run(@NotNull CacheOperations operations, int threads, long millis)
+      throws InterruptedException {
+    LongAdder completed = new LongAdder();
+    CountDownLatch start = new CountDownLatch(1);
+    long end = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis);
+    List<Thread> workers = new ArrayList<>();
+
+    for (int i = 0; i < threads; ++i) {
+      Thread worker = new Thread(() -> {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        try {
+          start.await();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          return;
+        }
+
+        long count = 0;
+        while ((count & 0xFF) != 0 || System.nanoTime() < end) {
+          int key = random.nextInt(KEYS);
+          int roll = random.nextInt(100);
+          if (roll < INVALIDATE_PERCENT) {
+            operations.invalidate(key);
+          } else if (roll < INVALIDATE_PERCENT + WRITE_PERCENT) {
+            operations.put(key);
+          } else {
+            operations.get(key);
+          }
+          ++count;
+        }
+        completed.add(count);
+      });
+      workers.add(worker);
+      worker.start();
+    }
+
+    long started = System.nanoTime();
+    start.countDown();
+    for (Thread worker : workers) {
+      worker.join();
+    }
+    long elapsed = System.nanoTime() - started;
+
+    return completed.sum() / (elapsed / 1_000_000D);
+  }
+
+  /**
+   * Operations performed against a cache implementation.
+   */
+  private interface CacheOperations {
+
+    void get(int key);
+
+    void put(int key);
+
+    void invalidate(int key);
+
+  }
+
+}
@@ -1,6 +1,17 @@
 package com.github.jikoo.enchantableblocks.util;
 
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -10,6 +21,7 @@ import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.nullValue;
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 @DisplayName("Feature: Cache and reuse data within a certain time period")
 @TestInstance(TestInstance.Lifecycle.PER_CLASS)
@@ -156,4 +168,265 @@ class CacheTest {
         assertThat("Value must be removed by retention policy.", cache.containsKey(KEY), is(false));
     }
 
+    @DisplayName("Cache with scheduled maintenance must only expire values during clean up.")
+    @Test
+    void testScheduledMaintenance() {
+        AtomicInteger checks = new AtomicInteger();
+        Cache<String, String> cache = new Cache.CacheBuilder<String, String>()
+                .withClock(clock)
+                .withRetention(MIN_RETENTION)
+                .withLazyFrequency(0)
+                .withScheduledMaintenance(true)
+                .withInUseCheck((key, value) -> {
+                    checks.incrementAndGet();
+                    return false;
+                })
+                .build();
+        cache.put(KEY, VALUE);
+        clock.add(MIN_RETENTION + 1);
+
+        cache.put(VALUE, KEY);
+        assertThat("Value must not be expired by operations.", cache.containsKey(KEY), is(true));
+        assertThat("In use check must not be called by operations.", checks.get(), is(0));
+
+        cache.cleanUp();
+
+        assertThat("Value must be removed by maintenance.", cache.containsKey(KEY), is(false));
+        assertThat("Unexpired value must remain set.", cache.containsKey(VALUE), is(true));
+        assertThat("In use check must be called by maintenance.", checks.get(), is(1));
+    }
+
+    @DisplayName("Cache must retain values accessed within the retention duration.")
+    @Test
+    void testRetentionAccess() {
+        Cache<String, String> cache = new Cache.CacheBuilder<String, String>()
+                .withClock(clock)
+                .withRetention(MIN_RETENTION)
+                .withLazyFrequency(0)
+                .build();
+        cache.put(KEY, VALUE);
+        clock.add(MIN_RETENTION - 1);
+
+        assertThat("Value must be retrieved.", cache.get(KEY), is(VALUE));
+
+        clock.add(MIN_RETENTION - 1);
+
+        assertThat("Value must remain set if recently accessed.", cache.containsKey(KEY), is(true));
+
+        clock.add(2);
+
+        assertThat("Value must be removed by retention policy.", cache.containsKey(KEY), is(false));
+    }
+
+    @DisplayName("Cache must evict values exceeding the maximum weight.")
+    @Test
+    void testMaximumWeight() {
+        AtomicInteger removals = new AtomicInteger();
+        Cache<String, String> cache = new Cache.CacheBuilder<String, String>()
+                .withMaximumWeight(2, (key, value) -> 1)
+                .withPostRemoval((key, value) -> removals.incrementAndGet())
+                .build();
+        cache.put("a", VALUE);
+        cache.put("b", VALUE);
+        cache.put("c", VALUE);
+
+        int present = 0;
+        for (String key : new String[] { "a", "b", "c" }) {
+            if (cache.containsKey(key)) {
+                ++present;
+            }
+        }
+
+        assertThat("Values must not exceed maximum weight.", present, is(2));
+        assertThat("Post-removal function must be called for evicted values.", removals.get(), is(1));
+    }
+
+    @DisplayName("Cache must weigh values again when cleaned up.")
+    @Test
+    void testReweigh() {
+        Map<String, Integer> weights = new HashMap<>();
+        weights.put("a", 1);
+        weights.put("b", 1);
+        Cache<String, String> cache = new Cache.CacheBuilder<String, String>()
+                .withMaximumWeight(3, (key, value) -> weights.get(key))
+                .build();
+        cache.put("a", VALUE);
+        cache.put("b", VALUE);
+        assertThat("Values must not be evicted below maximum weight.",
+                cache.containsKey("a") && cache.containsKey("b"), is(true));
+
+        weights.put("a", 3);
+        cache.cleanUp();
+
+        assertThat("Values must be evicted once their weight grows.",
+                cache.containsKey("a") && cache.containsKey("b"), is(false));
+    }
+
+    @DisplayName("Cache must prefer keeping frequently used values.")
+    @Test
+    void testFrequencyAdmission() {
+        Cache<String, String> cache = new Cache.CacheBuilder<String, String>()
+                .withMaximumWeight(3, (key, value) -> 1)
+                .build();
+        cache.put(KEY, VALUE);
+        for (int i = 0; i < 10; ++i) {
+            cache.get(KEY);
+        }
+        // A recency-only policy would evict the value after a few insertions.
+        for (int i = 0; i < 100; ++i) {
+            cache.put(String.valueOf(i), VALUE);
+        }
+
+        assertThat("Frequently used value must be retained.", cache.containsKey(KEY), is(true));
+    }
+
+    @DisplayName("Cache must not evict values in use.")
+    @Test
+    void testMaximumWeightInUse() {
+        AtomicInteger checks = new AtomicInteger();
+        Cache<String, String> cache = new Cache.CacheBuilder<String, String>()
+                .withMaximumWeight(1, (key, value) -> 1)
+                .withInUseCheck((key, value) -> {
+                    checks.incrementAndGet();
+                    return key.equals(KEY);
+                })
+                .build();
+        cache.put(KEY, VALUE);
+        cache.put(VALUE, KEY);
+
+        assertThat("Value must remain set if in use.", cache.containsKey(KEY), is(true));
+        assertThat("Value not in use must be evicted.", cache.containsKey(VALUE), is(false));
+        assertThat("In use check must be called before eviction.", checks.get() > 0, is(true));
+    }
+
+    @DisplayName("Cache must record usage statistics.")
+    @Test
+    void testStats() {
+        Cache<String, String> cache = new Cache.CacheBuilder<String, String>()
+                .withClock(clock)
+                .withRetention(MIN_RETENTION)
+                .withLazyFrequency(0)
+                .withLoadFunction((key, create) -> create ? VALUE : null)
+                .build();
+
+        cache.get(KEY, false);
+        cache.get(KEY);
+        cache.get(KEY);
+        clock.add(MIN_RETENTION + 1);
+        cache.containsKey(KEY);
+
+        CacheStats stats = cache.getStats();
+        assertThat("Requests for stored values must be hits.", stats.hits(), is(1L));
+        assertThat("Requests for values not stored must be misses.", stats.misses(), is(2L));
+        assertThat("Each load must be recorded.", stats.loads().count(), is(2L));
+        assertThat("Expired values must be recorded.", stats.expirations(), is(1L));
+        assertThat("Values must not be stored after expiration.", stats.size(), is(0));
+    }
+
+    @DisplayName("Cache must share asynchronous loads of the same key.")
+    @Test
+    void testGetAsync() {
+        AtomicInteger loads = new AtomicInteger();
+        Queue<Runnable> tasks = new ArrayDeque<>();
+        Cache<String, String> cache = new Cache.CacheBuilder<String, String>()
+                .withExecutor(tasks::add)
+                .withLoadFunction((key, create) -> {
+                    loads.incrementAndGet();
+                    return VALUE;
+                }).build();
+
+        CompletableFuture<String> first = cache.getAsync(KEY, true);
+        CompletableFuture<String> second = cache.getAsync(KEY, true);
+
+        assertThat("Load must not run on the calling thread.", first.isDone(), is(false));
+        assertThat("Concurrent loads must be shared.", tasks.size(), is(1));
+
+        tasks.remove().run();
+
+        assertThat("Value must be loaded once.", loads.get(), is(1));
+        assertThat("Value must be loaded.", first.join(), is(VALUE));
+        assertThat("Shared load must complete.", second.join(), is(VALUE));
+        assertThat("Value must be cached.", cache.getAsync(KEY, true).isDone(), is(true));
+    }
+
+    @DisplayName("Cache must not cache failed asynchronous loads.")
+    @Test
+    void testGetAsyncFailure() {
+        AtomicBoolean fail = new AtomicBoolean(true);
+        Cache<String, String> cache = new Cache.CacheBuilder<String, String>()
+                .withExecutor(Runnable::run)
+                .withLoadFunction((key, create) -> {
+                    if (fail.get()) {
+                        throw new IllegalStateException("Load failed");
+                    }
+                    return VALUE;
+                }).build();
+
+        CompletableFuture<String> future = cache.getAsync(KEY, true);
+
+        assertThat("Failure must be reported.", future.isCompletedExceptionally(), is(true));
+        assertThat("Failure must not be cached.", cache.containsKey(KEY), is(false));
+        assertThat("Failure must be recorded.", cache.getStats().loadFailures(), is(1L));
+
+        fail.set(false);
+
+        assertThat("Value must be loaded again.", cache.getAsync(KEY, true).join(), is(VALUE));
+    }
+
+    @DisplayName("Cache must load each value once when requested concurrently.")
+    @Test
+    void testConcurrentLoad() throws InterruptedException {
+        AtomicInteger loads = new AtomicInteger();
+        Cache<String, String> cache = new Cache.CacheBuilder<String, String>()
+                .withLoadFunction((key, create) -> {
+                    loads.incrementAndGet();
+                    return VALUE;
+                }).build();
+
+        int threads = 8;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        for (int i = 0; i < threads; ++i) {
+            executor.execute(() -> {
+                try {
+                    start.await();
+                    cache.get(KEY);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+
+        assertThat("Requests must complete.", executor.awaitTermination(10, TimeUnit.SECONDS), is(true));
+        assertThat("Value must be loaded once.", loads.get(), is(1));
+    }
+
+    @DisplayName("Cache must allow loads to use other keys.")
+    @Test
+    void testNestedLoad() {
+        AtomicReference<Cache<Integer, Integer>> reference = new AtomicReference<>();
+        Cache<Integer, Integer> cache = new Cache.CacheBuilder<Integer, Integer>()
+                .withLoadFunction((key, create) -> key == 0 ? 0 : reference.get().get(key - 1) + 1)
+                .build();
+        reference.set(cache);
+
+        assertThat("Nested loads must complete.", cache.get(64), is(64));
+        assertThat("Nested loads must be cached.", cache.containsKey(32), is(true));
+    }
+
+    @DisplayName("Cache must reject loads requesting their own key.")
+    @Test
+    void testRecursiveLoad() {
+        AtomicReference<Cache<String, String>> reference = new AtomicReference<>();
+        Cache<String, String> cache = new Cache.CacheBuilder<String, String>()
+                .withLoadFunction((key, create) -> reference.get().get(key)).build();
+        reference.set(cache);
+
+        assertThrows(IllegalStateException.class, () -> cache.get(KEY));
+        assertThat("Failure must not be cached.", cache.containsKey(KEY), is(false));
+        assertThat("Failure must be recorded.", cache.getStats().loadFailures(), is(1L));
+    }
+
 }
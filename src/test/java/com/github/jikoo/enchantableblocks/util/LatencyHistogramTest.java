@@ -0,0 +1,52 @@
+package com.github.jikoo.enchantableblocks.util;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.both;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+@DisplayName("Feature: Record operation latency")
+class LatencyHistogramTest {
+
+  @DisplayName("Empty histogram reports no latency.")
+  @Test
+  void testEmpty() {
+    LatencyStats stats = new LatencyHistogram().snapshot();
+
+    assertThat("Count must be zero", stats.count(), is(0L));
+    assertThat("Mean must be zero", stats.meanMillis(), is(0D));
+    assertThat("Percentile must be zero", stats.p99Nanos(), is(0L));
+  }
+
+  @DisplayName("Percentiles are bounded by recorded latencies.")
+  @Test
+  void testPercentiles() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    long fast = TimeUnit.MICROSECONDS.toNanos(100);
+    long slow = TimeUnit.MILLISECONDS.toNanos(50);
+    for (int i = 0; i < 98; ++i) {
+      histogram.record(fast);
+    }
+    histogram.record(slow);
+    histogram.record(slow);
+
+    LatencyStats stats = histogram.snapshot();
+
+    assertThat("Count must match", stats.count(), is(100L));
+    assertThat("Max must be exact", stats.maxNanos(), is(slow));
+    assertThat(
+        "Median must be at most twice the true value",
+        stats.p50Nanos(),
+        is(both(greaterThanOrEqualTo(fast)).and(lessThanOrEqualTo(2 * fast))));
+    assertThat(
+        "99th percentile must be at most the max",
+        stats.p99Nanos(),
+        is(both(greaterThanOrEqualTo(slow / 2)).and(lessThanOrEqualTo(slow))));
+  }
+
+}
@@ -2,11 +2,16 @@ package com.github.jikoo.enchantableblocks.util;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 import be.seeseemelk.mockbukkit.MockBukkit;
 import com.github.jikoo.enchantableblocks.EnchantableBlocksPlugin;
+import com.github.jikoo.enchantableblocks.util.storage.RegionFormat;
 import java.io.IOException;
 import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
 import org.bukkit.configuration.InvalidConfigurationException;
 import org.bukkit.plugin.java.JavaPlugin;
 import org.junit.jupiter.api.AfterAll;
@@ -47,17 +52,152 @@ class RegionStorageTest {
   @Test
   void testLoad() throws IOException, InvalidConfigurationException {
     Region region = new Region(world, 1, 1);
-    RegionStorage storage = new RegionStorage(plugin, region);
+    RegionStorage storage = new RegionStorage(plugin, region, RegionFormat.YAML);
     String path = "sandwich.bread";
     String areYouAwareOfMyMonstrosity = "hot dog bun";
     storage.set(path, areYouAwareOfMyMonstrosity);
     storage.save();
-    RegionStorage stored = new RegionStorage(plugin, region);
+    RegionStorage stored = new RegionStorage(plugin, region, RegionFormat.YAML);
     stored.load();
     assertThat("Stored value must equal expected value.", stored.get(path),
         is(areYouAwareOfMyMonstrosity));
   }
 
+  @DisplayName("Binary data should round trip.")
+  @Test
+  void testBinaryRoundTrip() throws IOException, InvalidConfigurationException {
+    Region region = new Region(world, 2, 2);
+    RegionStorage storage = new RegionStorage(plugin, region, RegionFormat.BINARY);
+    storage.set("1024_1024.16384_64_16384.silk.ticks", 200);
+    storage.save();
+    assertThat("Binary data must be written.", storage.getDataFile().getName(), is("2_2.ebr"));
+
+    RegionStorage stored = new RegionStorage(plugin, region, RegionFormat.BINARY);
+    stored.load();
+    assertThat("Stored value must equal expected value.",
+        stored.getInt("1024_1024.16384_64_16384.silk.ticks"), is(200));
+    assertThat("Native data must not be migrated.", stored.isMigrated(), is(false));
+
+    stored.delete();
+    assertThat("Data must be deleted.", stored.exists(), is(false));
+  }
+
+  @DisplayName("Data in other formats should be migrated.")
+  @Test
+  void testMigrate() throws IOException, InvalidConfigurationException {
+    Region region = new Region(world, 3, 3);
+    RegionStorage legacy = new RegionStorage(plugin, region, RegionFormat.YAML);
+    legacy.set("path.to.value", "value");
+    legacy.save();
+
+    RegionStorage storage = new RegionStorage(plugin, region, RegionFormat.BINARY);
+    assertThat("Data in other formats must be detected.", storage.exists(), is(true));
+    storage.load();
+    assertThat("Data must be flagged as migrated.", storage.isMigrated(), is(true));
+    assertThat("Migrated value must be loaded.", storage.getString("path.to.value"), is("value"));
+
+    storage.save();
+    assertThat("Migrated data must be written.", storage.getDataFile().exists(), is(true));
+    assertThat("Legacy data must be removed.", legacy.getDataFile().exists(), is(false));
+
+    storage.delete();
+  }
+
+  @DisplayName("Stored blocks should be counted as they change.")
+  @Test
+  void testBlockCount() throws IOException, InvalidConfigurationException {
+    Region region = new Region(world, 3, 3);
+    RegionStorage storage = new RegionStorage(plugin, region, RegionFormat.BINARY);
+    assertThat("New storage must be empty.", storage.isEmpty(), is(true));
+
+    storage.createBlock("96_96", "1536_64_1536").set("value", 1);
+    storage.createBlock("96_96", "1537_64_1536").set("value", 2);
+    storage.createBlock("96_96", "1537_64_1536").set("value", 3);
+    storage.createBlock("97_96", "1552_64_1536").set("value", 4);
+    assertThat("Blocks must be counted once.", storage.getBlockCount(), is(3));
+    assertThat("Storage must not be empty.", storage.isEmpty(), is(false));
+    assertThat("Snapshot must keep count.", storage.snapshot().getBlockCount(), is(3));
+
+    assertThat("Chunk must not be empty.", storage.removeBlock("96_96", "1536_64_1536"),
+        is(false));
+    assertThat("Absent block must not be removed.", storage.removeBlock("96_96", "0_0_0"),
+        is(false));
+    assertThat("Removed block must not be counted.", storage.getBlockCount(), is(2));
+
+    storage.save();
+    RegionStorage stored = new RegionStorage(plugin, region, RegionFormat.BINARY);
+    stored.load();
+    assertThat("Loaded blocks must be counted.", stored.getBlockCount(), is(2));
+
+    stored.removeChunk("96_96");
+    assertThat("Removed chunk must not be counted.", stored.getBlockCount(), is(1));
+    assertThat("Chunk must be empty.", stored.removeBlock("97_96", "1552_64_1536"), is(true));
+    stored.removeChunk("97_96");
+    assertThat("Storage must be empty.", stored.isEmpty(), is(true));
+
+    stored.delete();
+  }
+
+  @DisplayName("Blocks should be indexed by coordinates.")
+  @Test
+  void testIndex() {
+    RegionStorage storage = new RegionStorage(plugin, new Region(world, 0, 0));
+    storage.createBlock(1, 64, 1).set("value", 1);
+    assertThat("Block must be found by coordinates.",
+        storage.getBlock(1, 64, 1).getInt("value"), is(1));
+    assertThat("Block must be stored by path.", storage.getInt("0_0.1_64_1.value"), is(1));
+    assertThat("Chunk must contain block.", storage.getChunkBlocks(0, 0).size(), is(1));
+
+    storage.set("0_0.17_64_0.value", 2);
+    storage.set("0_0.600_64_0.value", 3);
+    storage.set("0_0.bad_path.value", 4);
+    storage.recountBlocks();
+    assertThat("Block in the wrong chunk must be moved.",
+        storage.getInt("1_0.17_64_0.value"), is(2));
+    assertThat("Moved block must be indexed.", storage.getBlock(17, 64, 0).getInt("value"),
+        is(2));
+    assertThat("Storage must be flagged for saving.", storage.isRepaired(), is(true));
+    assertThat("Blocks that cannot be moved or parsed must be left in place.",
+        Set.copyOf(storage.getUnindexedBlocks(0, 0)), is(Set.of("600_64_0", "bad_path")));
+    assertThat("All blocks must be counted.", storage.getBlockCount(), is(4));
+
+    assertThat("Chunk must not be empty.", storage.removeBlock(1, 64, 1), is(false));
+    assertThat("Removed block must not be found.", storage.getBlock(1, 64, 1), is(nullValue()));
+    assertThat("Chunk must be empty.", storage.removeBlock(17, 64, 0), is(true));
+    storage.removeChunk(1, 0);
+    assertThat("Removed chunk must not be present.", storage.hasChunk(1, 0), is(false));
+    assertThat("Removed blocks must not be counted.", storage.getBlockCount(), is(2));
+  }
+
+  @DisplayName("Damaged data should be rejected before parsing.")
+  @Test
+  void testChecksum() throws IOException, InvalidConfigurationException {
+    for (RegionFormat format : RegionFormat.values()) {
+      Region region = new Region(world, 4, 4);
+      RegionStorage storage = new RegionStorage(plugin, region, format);
+      storage.set("path.to.value", "value");
+      storage.save();
+
+      Path path = storage.getDataFile().toPath();
+      byte[] data = Files.readAllBytes(path);
+      // Alter a character of the stored value.
+      data[data.length - 2] ^= 1;
+      Files.write(path, data);
+
+      RegionStorage damaged = new RegionStorage(plugin, region, format);
+      assertThrows(InvalidConfigurationException.class, damaged::load, format.name());
+      storage.delete();
+    }
+
+    Region region = new Region(world, 5, 5);
+    RegionStorage unverified = new RegionStorage(plugin, region, RegionFormat.YAML);
+    Files.writeString(unverified.getDataFile().toPath(), "path:\n  to:\n    value: value\n");
+    unverified.load();
+    assertThat("Data without checksum must be loaded.",
+        unverified.getString("path.to.value"), is("value"));
+    unverified.delete();
+  }
+
   @AfterAll
   void afterAll() {
     MockBukkit.unmock();
@@ -0,0 +1,102 @@
+package com.github.jikoo.enchantableblocks.util;
+
+import com.google.common.collect.TreeMultimap;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * The {@link Cache} implementation guarding a HashMap and TreeMultimap with a single lock, kept as
+ * a baseline for {@link CacheBenchmark}. Only the operations used by the benchmark are retained.
+ *
+ * @param <K> the type of key
+ * @param <V> the type of value
+ */
+class SynchronizedCache<K, V> {
+
+  private final @NotNull Map<K, V> internal = new HashMap<>();
+  private final @NotNull TreeMultimap<Long, K> expiry = TreeMultimap.create(
+      Comparator.naturalOrder(), (k1, k2) -> k1 == k2 || k1.equals(k2) ? 0 : 1);
+  private final long retention;
+  private final long lazyFrequency;
+  private final @NotNull AtomicLong lastLazyCheck = new AtomicLong(0);
+  private final @NotNull BiFunction<K, Boolean, V> load;
+
+  SynchronizedCache(long retention, long lazyFrequency, @NotNull BiFunction<K, Boolean, V> load) {
+    this.retention = retention;
+    this.lazyFrequency = lazyFrequency;
+    this.load = load;
+  }
+
+  void put(final @NotNull K key, final @Nullable V value) {
+    this.lazyCheck();
+
+    synchronized (this.internal) {
+      this.internal.put(key, value);
+      this.expiry.put(System.currentTimeMillis() + this.retention, key);
+    }
+  }
+
+  @Nullable V get(final @NotNull K key) {
+    this.lazyCheck();
+
+    synchronized (this.internal) {
+      V value;
+      if (!this.internal.containsKey(key)) {
+        value = this.load.apply(key, true);
+        if (value != null) {
+          this.internal.put(key, value);
+        }
+      } else {
+        value = this.internal.get(key);
+      }
+
+      if (value != null) {
+        this.expiry.put(System.currentTimeMillis() + this.retention, key);
+      }
+
+      return value;
+    }
+  }
+
+  void invalidate(final @NotNull K key) {
+    synchronized (this.internal) {
+      if (!this.internal.containsKey(key)) {
+        return;
+      }
+
+      this.internal.remove(key);
+      this.expiry.entries().removeIf(entry -> entry.getValue().equals(key));
+    }
+
+    this.lazyCheck();
+  }
+
+  private void lazyCheck() {
+    long now = System.currentTimeMillis();
+
+    if (lastLazyCheck.get() > now - lazyFrequency) {
+      return;
+    }
+
+    lastLazyCheck.set(now);
+
+    synchronized (this.internal) {
+      SortedMap<Long, Collection<K>> subMap = this.expiry.asMap().headMap(now);
+      Collection<K> keys = subMap.values().stream()
+          .collect(ArrayList::new, ArrayList::addAll, ArrayList::addAll);
+
+      subMap.clear();
+
+      keys.forEach(this.internal::remove);
+    }
+  }
+
+}
@@ -0,0 +1,149 @@
+package com.github.jikoo.enchantableblocks.util.storage;
+
+import static com.github.jikoo.enchantableblocks.util.matcher.IsSimilarMatcher.isSimilar;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import be.seeseemelk.mockbukkit.MockBukkit;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import org.bukkit.Material;
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.enchantments.Enchantment;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.ItemMeta;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+@DisplayName("Feature: Store region data in a compact binary format.")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class BinaryRegionCodecTest {
+
+  @BeforeAll
+  void beforeAll() {
+    MockBukkit.mock();
+  }
+
+  @AfterAll
+  void afterAll() {
+    MockBukkit.unmock();
+  }
+
+  @DisplayName("Block data must round trip.")
+  @Test
+  void testRoundTrip() throws IOException, InvalidConfigurationException {
+    YamlConfiguration original = new YamlConfiguration();
+    ItemStack compact = new ItemStack(Material.FURNACE);
+    compact.addUnsafeEnchantment(Enchantment.DIG_SPEED, 5);
+    compact.addUnsafeEnchantment(Enchantment.SILK_TOUCH, 1);
+    original.set("-1_-1.-16_64_-1.itemstack", compact);
+    original.set("-1_-1.-16_64_-1.silk.enabled", true);
+    original.set("-1_-1.-16_64_-1.silk.ticks", (short) 200);
+
+    ItemStack named = new ItemStack(Material.SMOKER);
+    ItemMeta itemMeta = named.getItemMeta();
+    itemMeta.setDisplayName("Bacon Maker");
+    named.setItemMeta(itemMeta);
+    named.addUnsafeEnchantment(Enchantment.DURABILITY, 3);
+    original.set("0_0.1_-64_15.itemstack", named);
+    original.set("0_0.1_-64_15.long", Long.MIN_VALUE);
+    original.set("0_0.1_-64_15.double", 0.5D);
+    original.set("0_0.1_-64_15.string", "sample text");
+    original.set("0_0.1_-64_15.list", List.of("a", "b"));
+
+    // Keys that cannot be represented as coordinates must survive.
+    original.set("0_0.bad_block_path.stuff", "extreme value");
+    original.set("0_0.01_1_1", "not canonical");
+    original.set("sandwich.bread", "hot dog bun");
+
+    YamlConfiguration loaded = roundTrip(original);
+
+    assertThat("Compact item must match", loaded.getItemStack("-1_-1.-16_64_-1.itemstack"),
+        isSimilar(compact));
+    assertThat("Boolean must match", loaded.getBoolean("-1_-1.-16_64_-1.silk.enabled"), is(true));
+    assertThat("Short must be read as int", loaded.getInt("-1_-1.-16_64_-1.silk.ticks"), is(200));
+    assertThat("Complex item must match", loaded.getItemStack("0_0.1_-64_15.itemstack"),
+        isSimilar(named));
+    assertThat("Long must match", loaded.getLong("0_0.1_-64_15.long"), is(Long.MIN_VALUE));
+    assertThat("Double must match", loaded.getDouble("0_0.1_-64_15.double"), is(0.5D));
+    assertThat("String must match", loaded.getString("0_0.1_-64_15.string"), is("sample text"));
+    assertThat("List must match", loaded.getStringList("0_0.1_-64_15.list"), is(List.of("a", "b")));
+    assertThat("Non-coordinate key must match", loaded.getString("0_0.bad_block_path.stuff"),
+        is("extreme value"));
+    assertThat("Non-canonical key must match", loaded.getString("0_0.01_1_1"),
+        is("not canonical"));
+    assertThat("Non-chunk key must match", loaded.getString("sandwich.bread"), is("hot dog bun"));
+  }
+
+  @DisplayName("Binary data must be smaller than YAML.")
+  @Test
+  void testSize() throws IOException {
+    YamlConfiguration original = new YamlConfiguration();
+    ItemStack itemStack = new ItemStack(Material.FURNACE);
+    itemStack.addUnsafeEnchantment(Enchantment.DIG_SPEED, 5);
+    for (int x = 0; x < 16; ++x) {
+      original.set("0_0." + x + "_64_0.itemstack", itemStack);
+      original.set("0_0." + x + "_64_0.silk.enabled", false);
+      original.set("0_0." + x + "_64_0.silk.ticks", 0);
+    }
+
+    ByteArrayOutputStream binary = new ByteArrayOutputStream();
+    BinaryRegionCodec.write(original, binary);
+
+    assertThat("Binary data must be smaller than YAML", binary.size(),
+        is(lessThan(original.saveToString().length())));
+  }
+
+  @DisplayName("Identical items must be stored once and shared when read.")
+  @Test
+  void testItemPalette() throws IOException, InvalidConfigurationException {
+    YamlConfiguration original = new YamlConfiguration();
+    ItemStack itemStack = new ItemStack(Material.FURNACE);
+    itemStack.addUnsafeEnchantment(Enchantment.DIG_SPEED, 5);
+    ItemStack other = new ItemStack(Material.BLAST_FURNACE);
+    original.set("0_0.0_64_0.itemstack", itemStack);
+    original.set("0_0.1_64_0.itemstack", itemStack.clone());
+    original.set("0_0.2_64_0.itemstack", other);
+
+    YamlConfiguration loaded = roundTrip(original);
+
+    ItemStack first = loaded.getItemStack("0_0.0_64_0.itemstack");
+    assertThat("Item must match", first, isSimilar(itemStack));
+    assertThat("Identical items must be shared",
+        loaded.getItemStack("0_0.1_64_0.itemstack"), is(sameInstance(first)));
+    assertThat("Different item must match",
+        loaded.getItemStack("0_0.2_64_0.itemstack"), isSimilar(other));
+  }
+
+  @DisplayName("Invalid data must be rejected.")
+  @Test
+  void testInvalid() {
+    YamlConfiguration target = new YamlConfiguration();
+    assertThrows(
+        InvalidConfigurationException.class,
+        () -> BinaryRegionCodec.read(
+            new ByteArrayInputStream("invalid_yaml.: %%%".getBytes()), target));
+    assertThrows(
+        IOException.class,
+        () -> BinaryRegionCodec.read(new ByteArrayInputStream(new byte[2]), target));
+  }
+
+  private static YamlConfiguration roundTrip(YamlConfiguration original)
+      throws IOException, InvalidConfigurationException {
+    ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    BinaryRegionCodec.write(original, outputStream);
+    YamlConfiguration loaded = new YamlConfiguration();
+    BinaryRegionCodec.read(new ByteArrayInputStream(outputStream.toByteArray()), loaded);
+    return loaded;
+  }
+
+}
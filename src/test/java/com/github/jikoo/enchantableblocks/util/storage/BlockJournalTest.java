@@ -0,0 +1,91 @@
+package com.github.jikoo.enchantableblocks.util.storage;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+
+import com.github.jikoo.enchantableblocks.util.storage.BlockJournal.Entry;
+import com.github.jikoo.enchantableblocks.util.storage.BlockJournal.Operation;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+@DisplayName("Feature: Journal block changes between saves.")
+class BlockJournalTest {
+
+  @TempDir
+  Path directory;
+
+  @DisplayName("Records must be replayed in order after reopening.")
+  @Test
+  void testReplay() throws IOException {
+    try (BlockJournal journal = BlockJournal.open(directory)) {
+      journal.append(new Entry(Operation.UPSERT, -5, 64, 300, new byte[] { 1, 2, 3 }));
+      journal.append(new Entry(Operation.DESTROY, -5, 64, 300, new byte[0]));
+    }
+
+    BlockJournal reopened = BlockJournal.open(directory);
+    List<Path> segments = reopened.getSegments();
+    assertThat("Written segment must be listed", segments, hasSize(1));
+
+    List<String> replayed = new ArrayList<>();
+    boolean complete = BlockJournal.replay(segments.get(0), entry -> replayed.add(
+        entry.operation() + " " + entry.x() + " " + entry.y() + " " + entry.z() + " "
+            + entry.data().length));
+
+    assertThat("Segment must be read completely", complete, is(true));
+    assertThat(
+        "Records must match",
+        replayed,
+        contains("UPSERT -5 64 300 3", "DESTROY -5 64 300 0"));
+  }
+
+  @DisplayName("Torn records must be ignored.")
+  @Test
+  void testTorn() throws IOException {
+    try (BlockJournal journal = BlockJournal.open(directory)) {
+      journal.append(new Entry(Operation.DESTROY, 0, 0, 0, new byte[0]));
+    }
+
+    Path segment = BlockJournal.open(directory).getSegments().get(0);
+    Files.write(segment, new byte[] { 0, 0, 0, 20, 1 }, StandardOpenOption.APPEND);
+
+    List<Entry> replayed = new ArrayList<>();
+    boolean complete = BlockJournal.replay(segment, replayed::add);
+
+    assertThat("Segment must not be read completely", complete, is(false));
+    assertThat("Complete records must be read", replayed, hasSize(1));
+  }
+
+  @DisplayName("Sealed segments must be deletable without losing later records.")
+  @Test
+  void testSeal() throws IOException {
+    BlockJournal journal = BlockJournal.open(directory);
+    journal.append(new Entry(Operation.DESTROY, 0, 0, 0, new byte[0]));
+    long sealed = journal.seal();
+    assertThat("Segment size must reset", journal.getSegmentSize(), is(0L));
+    journal.append(new Entry(Operation.DESTROY, 1, 1, 1, new byte[0]));
+    journal.sync();
+    journal.deleteThrough(sealed);
+    journal.close();
+
+    List<Path> segments = BlockJournal.open(directory).getSegments();
+    assertThat("Later segment must remain", segments, hasSize(1));
+    List<Entry> replayed = new ArrayList<>();
+    BlockJournal.replay(segments.get(0), replayed::add);
+    assertThat("Later record must remain", replayed.get(0).x(), is(1));
+
+    BlockJournal.open(directory).deleteThrough(Long.MAX_VALUE);
+    assertThat("All segments must be deleted", BlockJournal.open(directory).getSegments(),
+        is(empty()));
+  }
+
+}
@@ -0,0 +1,173 @@
+package com.github.jikoo.enchantableblocks.util.storage;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+@DisplayName("Feature: Replace files atomically.")
+class FileCommitTest {
+
+  @TempDir
+  Path directory;
+
+  @DisplayName("Files written without an open commit must be replaced immediately.")
+  @Test
+  void testImmediate() throws IOException {
+    Path path = directory.resolve("file.dat");
+    Files.writeString(path, "old");
+
+    FileCommit.write(path, stream -> stream.write("new".getBytes(StandardCharsets.UTF_8)));
+
+    assertThat("File must be replaced", Files.readString(path), is("new"));
+    assertThat("Temporary files must not remain", countFiles(), is(1L));
+  }
+
+  @DisplayName("Staged operations must not be visible until applied.")
+  @Test
+  void testStaged() throws IOException {
+    Path written = directory.resolve("written.dat");
+    Path deleted = directory.resolve("deleted.dat");
+    Files.writeString(written, "old");
+    Files.writeString(deleted, "old");
+    AtomicBoolean notified = new AtomicBoolean();
+
+    FileCommit commit = FileCommit.begin();
+    try {
+      FileCommit.write(written, stream -> stream.write("new".getBytes(StandardCharsets.UTF_8)));
+      FileCommit.delete(deleted);
+      FileCommit.whenCommitted(throwable -> notified.set(throwable == null));
+    } finally {
+      commit.close();
+    }
+
+    assertThat("Written file must be unchanged", Files.readString(written), is("old"));
+    assertThat("Deleted file must still exist", Files.exists(deleted), is(true));
+    assertThat("Action must not be performed", notified.get(), is(false));
+
+    FileCommit.apply(List.of(commit));
+
+    assertThat("Written file must be replaced", Files.readString(written), is("new"));
+    assertThat("Deleted file must not exist", Files.exists(deleted), is(false));
+    assertThat("Action must be performed", notified.get(), is(true));
+    assertThat("Commit must complete", commit.getCommitted().isDone(), is(true));
+    assertThat("Temporary files must not remain", countFiles(), is(1L));
+  }
+
+  @DisplayName("Failed writes must leave the existing file intact.")
+  @Test
+  void testFailedWrite() throws IOException {
+    Path path = directory.resolve("file.dat");
+    Files.writeString(path, "old");
+
+    assertThrows(IOException.class, () -> FileCommit.write(path, stream -> {
+      stream.write("partial".getBytes(StandardCharsets.UTF_8));
+      throw new IOException("Disk is full");
+    }));
+
+    assertThat("File must be unchanged", Files.readString(path), is("old"));
+    assertThat("Temporary files must not remain", countFiles(), is(1L));
+  }
+
+  @DisplayName("Forced files must be forced once before files are moved or deleted.")
+  @Test
+  void testForced() throws IOException {
+    Path deleted = directory.resolve("deleted.dat");
+    Files.writeString(deleted, "old");
+    AtomicInteger forces = new AtomicInteger();
+    AtomicBoolean deletedFirst = new AtomicBoolean();
+    FileCommit.Syncable store = () -> {
+      forces.incrementAndGet();
+      deletedFirst.set(!Files.exists(deleted));
+    };
+
+    FileCommit first = FileCommit.begin();
+    try {
+      FileCommit.force(store);
+      FileCommit.delete(deleted);
+    } finally {
+      first.close();
+    }
+    FileCommit second = FileCommit.begin();
+    try {
+      FileCommit.force(store);
+      FileCommit.write(
+          directory.resolve("written.dat"),
+          stream -> stream.write("new".getBytes(StandardCharsets.UTF_8)));
+    } finally {
+      second.close();
+    }
+
+    assertThat("Force must be staged", forces.get(), is(0));
+
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      FileCommit.apply(List.of(first, second), executor);
+    } finally {
+      executor.shutdown();
+    }
+
+    assertThat("File must be forced once", forces.get(), is(1));
+    assertThat("File must be forced before deletion", deletedFirst.get(), is(false));
+    assertThat("Deleted file must not exist", Files.exists(deleted), is(false));
+    assertThat("First commit must complete", first.getCommitted().isDone(), is(true));
+    assertThat(
+        "First commit must succeed",
+        first.getCommitted().isCompletedExceptionally(),
+        is(false));
+    assertThat("Second commit must complete", second.getCommitted().isDone(), is(true));
+  }
+
+  @DisplayName("Failed forces must only fail the commits forcing the file.")
+  @Test
+  void testFailedForce() throws IOException {
+    Path deleted = directory.resolve("deleted.dat");
+    Files.writeString(deleted, "old");
+
+    FileCommit failed = FileCommit.begin();
+    try {
+      FileCommit.force(() -> {
+        throw new IOException("Disk is gone");
+      });
+      FileCommit.delete(deleted);
+    } finally {
+      failed.close();
+    }
+    Path written = directory.resolve("written.dat");
+    FileCommit succeeded = FileCommit.begin();
+    try {
+      FileCommit.write(written, stream -> stream.write("new".getBytes(StandardCharsets.UTF_8)));
+    } finally {
+      succeeded.close();
+    }
+
+    FileCommit.apply(List.of(failed, succeeded));
+
+    assertThat(
+        "Failure must be reported",
+        failed.getCommitted().isCompletedExceptionally(),
+        is(true));
+    assertThat("Deleted file must still exist", Files.exists(deleted), is(true));
+    assertThat("Other commit must succeed", Files.readString(written), is("new"));
+  }
+
+  private long countFiles() throws IOException {
+    try (Stream<Path> files = Files.list(directory)) {
+      return files.count();
+    }
+  }
+
+}
@@ -0,0 +1,114 @@
+package com.github.jikoo.enchantableblocks.util.storage;
+
+import be.seeseemelk.mockbukkit.MockBukkit;
+import com.github.jikoo.enchantableblocks.util.Region;
+import com.github.jikoo.enchantableblocks.util.RegionStorage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+import org.bukkit.Material;
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.bukkit.enchantments.Enchantment;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.plugin.Plugin;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+/**
+ * Compare load time, save time, and file size of {@link RegionFormat RegionFormats}.
+ *
+ * <p>Excluded from normal builds. Run with {@code mvn test -P benchmark}.
+ */
+@Tag("benchmark")
+@DisplayName("Benchmark: Region format performance")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class RegionFormatBenchmark {
+
+  private static final int CHUNKS = 256;
+  private static final int BLOCKS_PER_CHUNK = 8;
+  private static final int WARMUP = 5;
+  private static final int ITERATIONS = 20;
+
+  private Plugin plugin;
+  private Path directory;
+
+  @BeforeAll
+  void beforeAll() throws IOException {
+    MockBukkit.mock();
+    plugin = MockBukkit.createMockPlugin("EnchantableBlocks");
+    directory = Files.createTempDirectory("enchantableblocks-benchmark");
+  }
+
+  @AfterAll
+  void afterAll() throws IOException {
+    MockBukkit.unmock();
+    try (Stream<Path> paths = Files.walk(directory)) {
+      paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+    }
+  }
+
+  @DisplayName("Measure format")
+  @ParameterizedTest
+  @EnumSource(RegionFormat.class)
+  void benchmark(@NotNull RegionFormat format) throws IOException, InvalidConfigurationException {
+    Region region = new Region("world", 0, 0);
+    RegionStorage storage = populate(new RegionStorage(plugin, region, format));
+    File file = directory.resolve("0_0." + format.getExtension()).toFile();
+
+    for (int i = 0; i < WARMUP; ++i) {
+      storage.save(file);
+      new RegionStorage(plugin, region, format).load(file);
+    }
+
+    long saveNanos = 0;
+    long loadNanos = 0;
+    for (int i = 0; i < ITERATIONS; ++i) {
+      long start = System.nanoTime();
+      storage.save(file);
+      saveNanos += System.nanoTime() - start;
+
+      start = System.nanoTime();
+      new RegionStorage(plugin, region, format).load(file);
+      loadNanos += System.nanoTime() - start;
+    }
+
+    System.out.printf(
+        "%s: %d blocks, save %.3f ms, load %.3f ms, size %d bytes%n",
+        format,
+        CHUNKS * BLOCKS_PER_CHUNK,
+        saveNanos / 1_000_000D / ITERATIONS,
+        loadNanos / 1_000_000D / ITERATIONS,
+        file.length());
+  }
+
+  private static @NotNull RegionStorage populate(@NotNull RegionStorage storage) {
+    ItemStack itemStack = new ItemStack(Material.FURNACE);
+    itemStack.addUnsafeEnchantment(Enchantment.DIG_SPEED, 5);
+    itemStack.addUnsafeEnchantment(Enchantment.DURABILITY, 3);
+    itemStack.addUnsafeEnchantment(Enchantment.LOOT_BONUS_BLOCKS, 3);
+
+    for (int chunk = 0; chunk < CHUNKS; ++chunk) {
+      int chunkX = chunk % 32;
+      int chunkZ = chunk / 32;
+      for (int block = 0; block < BLOCKS_PER_CHUNK; ++block) {
+        String path = chunkX + "_" + chunkZ + "."
+            + (chunkX * 16 + block) + "_" + 64 + "_" + (chunkZ * 16 + block);
+        storage.set(path + ".itemstack", itemStack);
+        storage.set(path + ".silk.enabled", false);
+        storage.set(path + ".silk.ticks", 0);
+      }
+    }
+
+    return storage;
+  }
+
+}
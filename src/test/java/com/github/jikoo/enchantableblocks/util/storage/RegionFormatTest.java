@@ -0,0 +1,48 @@
+package com.github.jikoo.enchantableblocks.util.storage;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+@DisplayName("Feature: Select region file formats.")
+class RegionFormatTest {
+
+  @TempDir
+  Path directory;
+
+  @DisplayName("Formats must be selected by name.")
+  @Test
+  void testOf() {
+    assertThat("Name must be case-insensitive", RegionFormat.of("yaml"), is(RegionFormat.YAML));
+    assertThat("Missing name must use default", RegionFormat.of(null), is(RegionFormat.BINARY));
+    assertThat("Unknown name must not select a format", RegionFormat.of("yml"), is(nullValue()));
+  }
+
+  @DisplayName("Detected format must match existing region files.")
+  @Test
+  void testDetect() throws IOException {
+    assertThat(
+        "Missing data must detect YAML",
+        RegionFormat.detect(directory.resolve("data")),
+        is(RegionFormat.YAML));
+
+    Path world = Files.createDirectories(directory.resolve("data").resolve("world"));
+    Files.createFile(world.resolve("0_0.ebr"));
+    Files.createFile(world.resolve("0_1.ebr"));
+    Files.createFile(world.resolve("1_0.yml"));
+    Files.createFile(world.resolve("journal.yml"));
+
+    assertThat(
+        "Most used format must be detected",
+        RegionFormat.detect(directory.resolve("data")),
+        is(RegionFormat.BINARY));
+  }
+
+}
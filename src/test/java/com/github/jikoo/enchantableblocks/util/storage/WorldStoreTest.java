@@ -0,0 +1,146 @@
+package com.github.jikoo.enchantableblocks.util.storage;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+@DisplayName("Feature: Store all chunk data for a world in a single indexed file.")
+class WorldStoreTest {
+
+  @TempDir
+  Path directory;
+
+  @DisplayName("Chunk data must round trip and persist between opens.")
+  @Test
+  void testRoundTrip() throws IOException {
+    Path path = directory.resolve("world.ebw");
+    try (WorldStore store = WorldStore.open(path)) {
+      store.write(0, 0, bytes("origin"));
+      store.write(-1, -33, bytes("negative"));
+      assertThat("Data must be readable", string(store.read(0, 0)), is("origin"));
+    }
+
+    try (WorldStore store = WorldStore.open(path)) {
+      assertThat("Data must persist", string(store.read(0, 0)), is("origin"));
+      assertThat("Negative coordinates must persist", string(store.read(-1, -33)),
+          is("negative"));
+      assertThat("Region must be present", store.hasRegion(-1, -2), is(true));
+      assertThat("Unwritten chunk must not be present", store.read(1, 0), is(nullValue()));
+      assertThat("Unwritten region must not be present", store.hasRegion(1, 1), is(false));
+    }
+  }
+
+  @DisplayName("Large data must span multiple sectors.")
+  @Test
+  void testLarge() throws IOException {
+    byte[] data = new byte[WorldStore.SECTOR_BYTES * 3 + 7];
+    for (int i = 0; i < data.length; ++i) {
+      data[i] = (byte) i;
+    }
+
+    try (WorldStore store = WorldStore.open(directory.resolve("world.ebw"))) {
+      store.write(5, 5, ByteBuffer.wrap(data));
+      store.write(6, 5, bytes("neighbor"));
+      ByteBuffer read = store.read(5, 5);
+      assertThat("Data must be present", read, is(notNullValue()));
+      assertThat("Data must be complete", read.remaining(), is(data.length));
+      assertThat("Data must match", read.equals(ByteBuffer.wrap(data)), is(true));
+      assertThat("Neighbor must not overlap", string(store.read(6, 5)), is("neighbor"));
+    }
+  }
+
+  @DisplayName("Rewritten and deleted data must free space for reuse.")
+  @Test
+  void testReuse() throws IOException {
+    Path path = directory.resolve("world.ebw");
+    try (WorldStore store = WorldStore.open(path)) {
+      store.write(0, 0, bytes("initial"));
+      store.force();
+      long size = Files.size(path);
+
+      for (int i = 0; i < 100; ++i) {
+        store.write(0, 0, bytes("rewrite " + i));
+        store.force();
+      }
+      assertThat(
+          "Rewrites must reuse sectors",
+          Files.size(path) <= size + 2L * WorldStore.SECTOR_BYTES,
+          is(true));
+      assertThat("Latest data must be present", string(store.read(0, 0)), is("rewrite 99"));
+
+      store.delete(0, 0);
+      assertThat("Deleted data must not be present", store.read(0, 0), is(nullValue()));
+      assertThat("Empty region must not be present", store.hasRegion(0, 0), is(false));
+
+      store.write(1, 1, ByteBuffer.allocate(0));
+      assertThat("Empty data must not be stored", store.hasChunk(1, 1), is(false));
+    }
+
+    try (WorldStore store = WorldStore.open(path)) {
+      assertThat("Deletion must persist", store.hasChunk(0, 0), is(false));
+    }
+  }
+
+  @DisplayName("Data on disk must not change until forced.")
+  @Test
+  void testUnforced() throws IOException {
+    Path path = directory.resolve("world.ebw");
+    Path copy = directory.resolve("copy.ebw");
+    try (WorldStore store = WorldStore.open(path)) {
+      store.write(0, 0, bytes("initial"));
+      store.force();
+
+      store.write(0, 0, bytes("replacement"));
+      store.delete(1, 0);
+      store.write(64, 64, bytes("new region"));
+      assertThat("New data must be readable", string(store.read(0, 0)), is("replacement"));
+
+      // Copying the file before a force is equivalent to a crash.
+      Files.copy(path, copy);
+      try (WorldStore crashed = WorldStore.open(copy)) {
+        assertThat("Previous data must be intact", string(crashed.read(0, 0)), is("initial"));
+        assertThat("New region must not be present", crashed.hasRegion(2, 2), is(false));
+      }
+
+      store.force();
+      Files.delete(copy);
+      Files.copy(path, copy);
+      try (WorldStore forced = WorldStore.open(copy)) {
+        assertThat("New data must be present", string(forced.read(0, 0)), is("replacement"));
+        assertThat("New region must be present", string(forced.read(64, 64)), is("new region"));
+      }
+    }
+  }
+
+  @DisplayName("Invalid files must be rejected.")
+  @Test
+  void testInvalid() throws IOException {
+    Path path = directory.resolve("invalid.ebw");
+    Files.writeString(path, "invalid_yaml.: %%%%%%%%%%%%%%%%%%%%");
+    assertThrows(IOException.class, () -> WorldStore.open(path));
+  }
+
+  private static @NotNull ByteBuffer bytes(@NotNull String value) {
+    return ByteBuffer.wrap(value.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static @NotNull String string(ByteBuffer buffer) {
+    assertThat("Data must be present", buffer, is(notNullValue()));
+    byte[] bytes = new byte[buffer.remaining()];
+    buffer.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+}
@@ -0,0 +1,129 @@
+package com.github.jikoo.enchantableblocks.util.storage;
+
+import static com.github.jikoo.enchantableblocks.util.matcher.IsSimilarMatcher.isSimilar;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.startsWith;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import be.seeseemelk.mockbukkit.MockBukkit;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import org.bukkit.Material;
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.enchantments.Enchantment;
+import org.bukkit.inventory.ItemStack;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.io.TempDir;
+
+@DisplayName("Feature: Stream region data as YAML.")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class YamlRegionCodecTest {
+
+  @TempDir
+  Path directory;
+
+  @BeforeAll
+  void beforeAll() {
+    MockBukkit.mock();
+  }
+
+  @AfterAll
+  void afterAll() {
+    MockBukkit.unmock();
+  }
+
+  @DisplayName("Block data must round trip.")
+  @Test
+  void testRoundTrip() throws IOException, InvalidConfigurationException {
+    YamlConfiguration original = new YamlConfiguration();
+    ItemStack itemStack = new ItemStack(Material.FURNACE);
+    itemStack.addUnsafeEnchantment(Enchantment.DIG_SPEED, 5);
+    original.set("0_0.1_-64_15.itemstack", itemStack);
+    original.set("0_0.1_-64_15.silk.enabled", true);
+    original.set("0_0.1_-64_15.long", Long.MIN_VALUE);
+    original.set("0_0.1_-64_15.string", "key: value # \u00e9\ud83d\ude00");
+    original.set("0_0.1_-64_15.list", List.of("a", "1"));
+    original.set("-1_-1.-16_64_-1.number", "0012");
+
+    Path path = directory.resolve("round_trip.yml");
+    FileCommit.writeChannel(path, channel -> YamlRegionCodec.write(original, channel));
+    assertThat("File must be checksummed", Files.readString(path), startsWith("# crc32c: "));
+
+    YamlConfiguration loaded = new YamlConfiguration();
+    YamlRegionCodec.read(path, loaded, chunkPath -> true);
+
+    assertThat("Item must match", loaded.getItemStack("0_0.1_-64_15.itemstack"),
+        isSimilar(itemStack));
+    assertThat("Boolean must match", loaded.getBoolean("0_0.1_-64_15.silk.enabled"), is(true));
+    assertThat("Long must match", loaded.getLong("0_0.1_-64_15.long"), is(Long.MIN_VALUE));
+    assertThat("String must match", loaded.getString("0_0.1_-64_15.string"),
+        is("key: value # \u00e9\ud83d\ude00"));
+    assertThat("List must match", loaded.getStringList("0_0.1_-64_15.list"), is(List.of("a", "1")));
+    assertThat("Numeric string must match", loaded.getString("-1_-1.-16_64_-1.number"),
+        is("0012"));
+
+    YamlConfiguration legacy = new YamlConfiguration();
+    legacy.loadFromString(Files.readString(path));
+    assertThat("Data must be readable as a YamlConfiguration",
+        legacy.getItemStack("0_0.1_-64_15.itemstack"), isSimilar(itemStack));
+  }
+
+  @DisplayName("Only requested chunks must be read.")
+  @Test
+  void testFilter() throws IOException, InvalidConfigurationException {
+    YamlConfiguration original = new YamlConfiguration();
+    original.set("0_0.0_64_0.value", "first");
+    original.set("0_1.0_64_16.value", "second");
+    original.set("sandwich.bread", "hot dog bun");
+
+    Path path = directory.resolve("filter.yml");
+    FileCommit.writeChannel(path, channel -> YamlRegionCodec.write(original, channel));
+
+    YamlConfiguration loaded = new YamlConfiguration();
+    YamlRegionCodec.read(path, loaded, "0_1"::equals);
+    assertThat("Only requested chunk must be read", loaded.getKeys(false), is(Set.of("0_1")));
+    assertThat("Requested chunk must match", loaded.getString("0_1.0_64_16.value"),
+        is("second"));
+  }
+
+  @DisplayName("Data written by YamlConfiguration must be read.")
+  @Test
+  void testLegacy() throws IOException, InvalidConfigurationException {
+    // Anchors shared between chunks require reading the document as a whole.
+    Path path = directory.resolve("legacy.yml");
+    Files.writeString(path, "0_0:\n  value: &id001\n    key: shared\n0_1:\n  value: *id001\n");
+
+    YamlConfiguration loaded = new YamlConfiguration();
+    YamlRegionCodec.read(path, loaded, "0_1"::equals);
+    assertThat("Aliased value must be read", loaded.getString("0_1.value.key"), is("shared"));
+    assertThat("Other chunk must not be read", loaded.get("0_0"), is(nullValue()));
+  }
+
+  @DisplayName("Invalid data must be rejected.")
+  @Test
+  void testInvalid() throws IOException {
+    Path path = directory.resolve("invalid.yml");
+    YamlConfiguration target = new YamlConfiguration();
+
+    Files.writeString(path, "invalid_yaml.: %%%");
+    assertThrows(
+        InvalidConfigurationException.class,
+        () -> YamlRegionCodec.read(path, target, chunkPath -> true));
+
+    Files.writeString(path, "# crc32c: 00000000\nkey: value\n");
+    assertThrows(
+        InvalidConfigurationException.class,
+        () -> YamlRegionCodec.read(path, target, chunkPath -> true));
+  }
+
+}